@@ -30,6 +30,8 @@ import javax.sql.DataSource;
 import org.apache.commons.beanutils.DynaBean;
 import org.apache.ddlutils.model.Database;
 import org.apache.ddlutils.model.Table;
+import org.apache.ddlutils.platform.BulkLoader;
+import org.apache.ddlutils.platform.ModelCache;
 import org.apache.ddlutils.platform.CreationParameters;
 import org.apache.ddlutils.platform.JdbcModelReader;
 import org.apache.ddlutils.platform.SqlBuilder;
@@ -112,6 +114,27 @@ public interface Platform
      */
     public void setPassword(String password);
 
+    /**
+     * Returns the maximum number of prepared statements that the platform caches for each
+     * connection borrowed via {@link #borrowConnection()}.
+     * 
+     * @return The maximum number of cached statements per connection, <code>0</code> if
+     *         statements are not cached
+     */
+    public int getStatementCacheSize();
+
+    /**
+     * Specifies the maximum number of prepared statements that the platform caches for each
+     * connection borrowed via {@link #borrowConnection()}. Caching statements speeds up
+     * operations that work on one row at a time, e.g. {@link #insert(Connection, Database, DynaBean)}.
+     * The cached statements are closed when the connection is returned via
+     * {@link #returnConnection(Connection)}.
+     * 
+     * @param statementCacheSize The maximum number of cached statements per connection,
+     *                           <code>0</code> to switch off the caching
+     */
+    public void setStatementCacheSize(int statementCacheSize);
+
     // runtime properties
 
     /**
@@ -199,6 +222,26 @@ public interface Platform
      */
     public void setForeignKeysSorted(boolean foreignKeysSorted);
 
+    /**
+     * Determines whether the meta data of the tables is read in bulk when reading
+     * the model from a live database.
+     *
+     * @return <code>true</code> if the meta data is read in bulk
+     */
+    public boolean isBulkModelReadModeOn();
+
+    /**
+     * Specifies whether the meta data of the tables shall be read in bulk when reading
+     * the model from a live database, i.e. with a few queries for all tables instead of
+     * separate queries for every table. This is considerably faster for databases with
+     * many tables, esp. if the database is accessed over a slow network, but requires
+     * that the meta data of all tables fit into memory. Platforms whose model reader
+     * does not support it, read the tables one by one.
+     *
+     * @param bulkModelReadModeOn <code>true</code> if the meta data shall be read in bulk
+     */
+    public void setBulkModelReadModeOn(boolean bulkModelReadModeOn);
+
     /**
      * Determines whether the default action for ON UPDATE is used if the specified one is not supported by the platform.
      * If this is set to <code>false</code>, then an exception will be thrown if the action is not supported. By default, this
@@ -235,6 +278,59 @@ public interface Platform
      */
     public void setDefaultOnDeleteActionUsedIfUnsupported(boolean useDefault);
 
+    /**
+     * Determines whether queries are executed in streaming mode. In this mode, the result sets are
+     * forward-only and read-only, and the platform applies the driver-specific settings that make
+     * the JDBC driver fetch the rows in chunks instead of reading the whole result into memory
+     * before returning the first row. Per default, streaming mode is off.
+     * 
+     * @return <code>true</code> if streaming mode is on
+     */
+    public boolean isStreamingModeOn();
+
+    /**
+     * Specifies whether queries shall be executed in streaming mode. This is useful for reading
+     * large tables, e.g. when exporting data.
+     * 
+     * @param streamingModeOn <code>true</code> if streaming mode shall be on
+     */
+    public void setStreamingModeOn(boolean streamingModeOn);
+
+    /**
+     * Returns the fetch size that is set for the statements of queries.
+     * 
+     * @return The fetch size, or 0 if the JDBC driver's default is used
+     */
+    public int getFetchSize();
+
+    /**
+     * Specifies the fetch size that shall be set for the statements of queries, i.e. the
+     * number of rows that the JDBC driver shall retrieve from the database in one go.
+     * 
+     * @param fetchSize The fetch size, or 0 if the JDBC driver's default shall be used
+     */
+    public void setFetchSize(int fetchSize);
+
+    /**
+     * Determines whether multi-row insert mode is on. In this mode, the insertion of a collection
+     * of beans uses insert statements with multiple rows in the VALUES clause instead of JDBC
+     * batches, if the database supports them. The number of rows per statement is limited by the
+     * maximum number of parameters per statement of the database. Per default, multi-row insert
+     * mode is off.
+     * 
+     * @return <code>true</code> if multi-row insert mode is on
+     */
+    public boolean isMultiRowInsertModeOn();
+
+    /**
+     * Specifies whether multi-row insert mode shall be used. This is useful for JDBC drivers
+     * that execute the statements of a batch one by one, each in its own round-trip to the
+     * database.
+     * 
+     * @param multiRowInsertModeOn <code>true</code> if multi-row insert mode shall be on
+     */
+    public void setMultiRowInsertModeOn(boolean multiRowInsertModeOn);
+
     // functionality
     
     /**
@@ -684,6 +780,67 @@ public interface Platform
      */
     public String getAlterTablesSql(Connection connection, String catalog, String schema, String[] tableTypes, Database desiredDb, CreationParameters params) throws DatabaseOperationException;
 
+    /**
+     * Returns the SQL for altering the given tables in the database so that they match the
+     * given model. Only these tables and the tables linked to them by foreign keys are read
+     * from the database, and only the given tables are changed, apart from the foreign keys of
+     * the linked tables that reference them. Tables that are referenced by foreign keys of the
+     * given tables in the desired model and that don't exist in the database are created.
+     * This is a lot faster than altering the whole database if the database has many tables.
+     *
+     * @param connection A connection to the existing database that shall be modified
+     * @param catalog    The catalog in the existing database to read (can be a pattern);
+     *                   use <code>null</code> for the platform-specific default value
+     * @param schema     The schema in the existing database to read (can be a pattern);
+     *                   use <code>null</code> for the platform-specific default value
+     * @param tableTypes The table types to read from the existing database;
+     *                   use <code>null</code> or an empty array for the platform-specific default value
+     * @param desiredDb  The desired database schema
+     * @param tableNames The names of the tables to alter; tables that are not in the desired model
+     *                   will be removed. Use <code>null</code> for the tables of the desired model
+     * @param params     The parameters used in the creation of new tables, can be <code>null</code>
+     * @return The SQL statements
+     */
+    public String getAlterTablesSql(Connection connection, String catalog, String schema, String[] tableTypes, Database desiredDb, String[] tableNames, CreationParameters params) throws DatabaseOperationException;
+
+    /**
+     * Alters the given tables in the database so that they match the given model. Only these
+     * tables and the tables linked to them by foreign keys are read from the database, and only
+     * the given tables are changed, apart from the foreign keys of the linked tables that reference
+     * them. Tables that are referenced by foreign keys of the given tables in the desired model
+     * and that don't exist in the database are created.
+     *
+     * @param connection      A connection to the existing database that shall be modified
+     * @param catalog         The catalog in the existing database to read (can be a pattern);
+     *                        use <code>null</code> for the platform-specific default value
+     * @param schema          The schema in the existing database to read (can be a pattern);
+     *                        use <code>null</code> for the platform-specific default value
+     * @param tableTypes      The table types to read from the existing database;
+     *                        use <code>null</code> or an empty array for the platform-specific default value
+     * @param desiredDb       The desired database schema
+     * @param tableNames      The names of the tables to alter; tables that are not in the desired model
+     *                        will be removed. Use <code>null</code> for the tables of the desired model
+     * @param params          The parameters used in the creation of new tables, can be <code>null</code>
+     * @param continueOnError Whether to continue with the next sql statement when an error occurred
+     */
+    public void alterTables(Connection connection, String catalog, String schema, String[] tableTypes, Database desiredDb, String[] tableNames, CreationParameters params, boolean continueOnError) throws DatabaseOperationException;
+
+    /**
+     * Restricts the desired model to the given tables so that comparing it to the current model
+     * only yields changes of these tables. The current model is expected to have been read via
+     * {@link #readModelFromDatabase(Connection, String, String, String, String[], String[])} for
+     * the given tables. The resulting model contains the given tables as defined by the desired
+     * model, the other tables of the current model unchanged except for foreign keys to removed
+     * tables, and the tables referenced by foreign keys of the given tables that only exist in
+     * the desired model.
+     *
+     * @param currentModel The current model of the given tables and the tables linked to them
+     * @param desiredModel The desired model
+     * @param tableNames   The names of the tables to alter
+     * @return The restricted desired model
+     */
+    public Database getScopedDesiredModel(Database currentModel, Database desiredModel, String[] tableNames);
+
     /**
      * Alters the given live database model so that it match the desired model, using the default database conneciton.
      *
@@ -826,6 +983,83 @@ public interface Platform
      */
     public void dropModel(Connection connection, Database model, boolean continueOnError) throws DatabaseOperationException; 
 
+    /**
+     * Returns the SQL for disabling the foreign keys and non-unique indexes of the given model
+     * prior to a bulk load of data. Where the database has no native way to disable them, they
+     * are dropped instead.
+     * 
+     * @param model The database model
+     * @return The SQL statements
+     */
+    public String getDisableIndexesAndForeignKeysSql(Database model);
+
+    /**
+     * Disables the foreign keys and non-unique indexes of the given model using the default
+     * database connection.
+     * 
+     * @param model           The database model
+     * @param continueOnError Whether to continue executing the sql commands when an error occurred
+     */
+    public void disableIndexesAndForeignKeys(Database model, boolean continueOnError) throws DatabaseOperationException;
+
+    /**
+     * Disables the foreign keys and non-unique indexes of the given model.
+     * 
+     * @param connection      The connection to the database
+     * @param model           The database model
+     * @param continueOnError Whether to continue executing the sql commands when an error occurred
+     */
+    public void disableIndexesAndForeignKeys(Connection connection, Database model, boolean continueOnError) throws DatabaseOperationException;
+
+    /**
+     * Returns the SQL for enabling (or recreating) the non-unique indexes and foreign keys
+     * of the given model after a bulk load of data.
+     * 
+     * @param model The database model
+     * @return The SQL statements
+     */
+    public String getEnableIndexesAndForeignKeysSql(Database model);
+
+    /**
+     * Enables the non-unique indexes and foreign keys of the given model using the default
+     * database connection.
+     * 
+     * @param model           The database model
+     * @param continueOnError Whether to continue executing the sql commands when an error occurred
+     * @return The number of sql commands that failed, which are logged; this can only be
+     *         greater than 0 if <code>continueOnError</code> is <code>true</code>
+     */
+    public int enableIndexesAndForeignKeys(Database model, boolean continueOnError) throws DatabaseOperationException;
+
+    /**
+     * Enables the non-unique indexes and foreign keys of the given model.
+     * 
+     * @param connection      The connection to the database
+     * @param model           The database model
+     * @param continueOnError Whether to continue executing the sql commands when an error occurred
+     * @return The number of sql commands that failed, which are logged; this can only be
+     *         greater than 0 if <code>continueOnError</code> is <code>true</code>
+     */
+    public int enableIndexesAndForeignKeys(Connection connection, Database model, boolean continueOnError) throws DatabaseOperationException;
+
+    /**
+     * Checks the data in the database against the foreign keys of the given model using the
+     * default database connection. This is useful after data was loaded with disabled foreign keys.
+     * 
+     * @param model The database model
+     * @throws DatabaseOperationException If there are rows that violate a foreign key
+     */
+    public void verifyForeignKeys(Database model) throws DatabaseOperationException;
+
+    /**
+     * Checks the data in the database against the foreign keys of the given model.
+     * 
+     * @param connection The connection to the database
+     * @param model      The database model
+     * @throws DatabaseOperationException If there are rows that violate a foreign key
+     */
+    public void verifyForeignKeys(Connection connection, Database model) throws DatabaseOperationException;
+
     /**
      * Performs the given SQL query returning an iterator over the results.
      *
@@ -1024,6 +1258,31 @@ public interface Platform
      */
     public void store(Connection connection, Database model, DynaBean dynaBean) throws DatabaseOperationException;
 
+    /**
+     * Stores the given beans in the database, inserting those whose primary key does not
+     * exist in the database and updating the others. The existence of the beans is checked
+     * with one query per table (per up to 1000 primary key values), and the beans are then
+     * inserted and updated in batches per table. The tables are processed in the order
+     * in which their first bean appears in the collection.
+     * Note that only beans with auto-increment columns whose values are generated by the database,
+     * are inserted one by one, so that these properties are updated in the beans.
+     * 
+     * @param model     The database model to use
+     * @param dynaBeans The beans to store
+     */
+    public void store(Database model, Collection dynaBeans) throws DatabaseOperationException;
+
+    /**
+     * Stores the given beans in the database, inserting those whose primary key does not
+     * exist in the database and updating the others. See {@link #store(Database, Collection)}
+     * for details. This method does not close the connection.
+     * 
+     * @param connection The connection
+     * @param model      The database model to use
+     * @param dynaBeans  The beans to store
+     */
+    public void store(Connection connection, Database model, Collection dynaBeans) throws DatabaseOperationException;
+
     /**
      * Returns the sql for inserting the given bean.
      * 
@@ -1052,6 +1311,19 @@ public interface Platform
      */
     public void insert(Connection connection, Database model, DynaBean dynaBean) throws DatabaseOperationException;
 
+    /**
+     * Inserts the bean like {@link #insert(Connection, Database, DynaBean)}. If the transaction
+     * is managed by the caller, then this method neither commits nor changes the auto-commit mode
+     * of the connection, not even for reading the values of the auto-increment columns which are
+     * then queried within the still open transaction.
+     * 
+     * @param connection                 The database connection
+     * @param model                      The database model to use
+     * @param dynaBean                   The bean
+     * @param transactionManagedByCaller Whether the caller commits the transaction of the connection
+     */
+    public void insert(Connection connection, Database model, DynaBean dynaBean, boolean transactionManagedByCaller) throws DatabaseOperationException;
+
     /**
      * Inserts the given beans in the database, assuming the primary key values are specified.
      * Note that a batch insert is used for subsequent beans of the same type.
@@ -1077,6 +1349,62 @@ public interface Platform
      */
     public void insert(Connection connection, Database model, Collection dynaBeans) throws DatabaseOperationException;
 
+    /**
+     * Returns the loader that is used for bulk loading data into the database.
+     * 
+     * @return The bulk loader, or <code>null</code> if the platform has no bulk load protocol
+     */
+    public BulkLoader getBulkLoader();
+
+    /**
+     * Sets the loader that shall be used for bulk loading data into the database.
+     * 
+     * @param bulkLoader The bulk loader, or <code>null</code> if insert statements shall be used
+     */
+    public void setBulkLoader(BulkLoader bulkLoader);
+
+    /**
+     * Returns the cache for the models read from the database.
+     * 
+     * @return The model cache, or <code>null</code> if models are always read from the database
+     */
+    public ModelCache getModelCache();
+
+    /**
+     * Sets the cache for the models read from the database. With a cache, the model is only
+     * read again if the platform detects that the database schema changed since the cached
+     * model was read. Platforms that cannot detect schema changes cheaply always read the model.
+     * 
+     * @param modelCache The model cache, or <code>null</code> if models shall always be read
+     *                   from the database
+     */
+    public void setModelCache(ModelCache modelCache);
+
+    /**
+     * Loads the given beans into the database using the bulk loader of the platform, which
+     * is usually a lot faster than insert statements. Subsequent beans of the same type that
+     * have values for the same properties are loaded together. If the platform has no bulk
+     * loader or if it cannot be used with the JDBC driver, then the beans are inserted via
+     * {@link #insert(Database, Collection)}. Like for that method, the properties for
+     * the primary keys are not updated in the beans.
+     * 
+     * @param model     The database model to use
+     * @param dynaBeans The beans to load
+     */
+    public void bulkLoad(Database model, Collection dynaBeans) throws DatabaseOperationException;
+
+    /**
+     * Loads the given beans into the database using the bulk loader of the platform, or
+     * inserts them via {@link #insert(Connection, Database, Collection)} if there is no
+     * usable bulk loader.
+     * This method does not close the connection.
+     * 
+     * @param connection The database connection
+     * @param model      The database model to use
+     * @param dynaBeans  The beans
+     */
+    public void bulkLoad(Connection connection, Database model, Collection dynaBeans) throws DatabaseOperationException;
+
     /**
      * Returns the sql for updating the given bean in the database. Note that this method can not be used to
      * generate SQL for updating primary key columns. 
@@ -1138,6 +1466,27 @@ public interface Platform
      */
     public void update(Connection connection, Database model, DynaBean oldDynaBean, DynaBean newDynaBean) throws DatabaseOperationException;
 
+    /**
+     * Updates the given beans in the database, assuming the primary key values are specified.
+     * The beans are grouped by their table, and each group is updated using a batch. The tables
+     * are processed in the order in which their first bean appears in the collection.
+     * 
+     * @param model     The database model to use
+     * @param dynaBeans The beans
+     */
+    public void update(Database model, Collection dynaBeans) throws DatabaseOperationException;
+
+    /**
+     * Updates the given beans in the database, assuming the primary key values are specified.
+     * The beans are grouped by their table, and each group is updated using a batch.
+     * This method does not close the connection.
+     * 
+     * @param connection The database connection
+     * @param model      The database model to use
+     * @param dynaBeans  The beans
+     */
+    public void update(Connection connection, Database model, Collection dynaBeans) throws DatabaseOperationException;
+
     /**
      * Returns the sql for deleting the given bean from the database.
      * 
@@ -1164,6 +1513,28 @@ public interface Platform
      */
     public void delete(Connection connection, Database model, DynaBean dynaBean) throws DatabaseOperationException;
 
+    /**
+     * Deletes the given beans from the database, assuming the primary key values are specified.
+     * The beans are grouped by their table, and each group is deleted using a batch. The tables
+     * are processed in the order in which their first bean appears in the collection, so
+     * rows referencing other rows should come first.
+     * 
+     * @param model     The database model to use
+     * @param dynaBeans The beans to delete
+     */
+    public void delete(Database model, Collection dynaBeans) throws DatabaseOperationException;
+
+    /**
+     * Deletes the given beans from the database, assuming the primary key values are specified.
+     * The beans are grouped by their table, and each group is deleted using a batch.
+     * This method does not close the connection.
+     * 
+     * @param connection The database connection
+     * @param model      The database model to use
+     * @param dynaBeans  The beans
+     */
+    public void delete(Connection connection, Database model, Collection dynaBeans) throws DatabaseOperationException;
+
     /**
      * Reads the database model from the live database as specified by the data source set for
      * this platform.
@@ -1213,4 +1584,22 @@ public interface Platform
      * @throws DatabaseOperationException If an error occurred during reading the model
      */
     public Database readModelFromDatabase(Connection connection, String name, String catalog, String schema, String[] tableTypes) throws DatabaseOperationException;
+
+    /**
+     * Reads the given tables and the tables linked to them by foreign keys (the tables that they
+     * reference and the tables that reference them) from the live database to which the given
+     * connection is pointing. Foreign keys of the linked tables to other tables are not part of
+     * the model.
+     * 
+     * @param connection The connection to the database
+     * @param name       The name of the resulting database; <code>null</code> when the default name (the catalog)
+     *                   is desired which might be <code>null</code> itself though
+     * @param catalog    The catalog to access in the database; use <code>null</code> for the default value
+     * @param schema     The schema to access in the database; use <code>null</code> for the default value
+     * @param tableTypes The table types to process; use <code>null</code> or an empty list for the default ones
+     * @param tableNames The names of the tables to read
+     * @return The database model
+     * @throws DatabaseOperationException If an error occurred during reading the model
+     */
+    public Database readModelFromDatabase(Connection connection, String name, String catalog, String schema, String[] tableTypes, String[] tableNames) throws DatabaseOperationException;
 }
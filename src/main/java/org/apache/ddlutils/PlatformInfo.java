@@ -124,6 +124,30 @@ public class PlatformInfo
         shall be used. */ 
     private boolean _autoCommitModeForLastIdentityValueReading = true;
 
+    /** Whether the values of identity columns can be read back via the generated keys of the
+        insert statement (if the JDBC driver supports this). */ 
+    private boolean _generatedKeysReadable = false;
+
+    /** Whether the values of identity columns can be read back via the generated keys of
+        a batch of insert statements (if the JDBC driver supports this). */ 
+    private boolean _generatedKeysReadableInBatchMode = false;
+
+    /** Whether the platform supports a native statement that inserts a row or updates it if
+        a row with the same primary key already exists. */ 
+    private boolean _upsertSupported = false;
+
+    /** The major version of the database that is at least required for the upsert statement. */ 
+    private int _minUpsertDatabaseMajorVersion = 0;
+
+    /** The minor version of the database that is at least required for the upsert statement. */ 
+    private int _minUpsertDatabaseMinorVersion = 0;
+
+    /** Whether the platform supports insert statements with multiple rows in the VALUES clause. */ 
+    private boolean _multiRowInsertSupported = false;
+
+    /** The maximum number of parameter markers that a statement can have (-1 if there is no limit). */ 
+    private int _maxParametersPerStatement = -1;
+
     /** Specifies the maximum length that a table name can have for this database (-1 if there is no limit). */
     private int _maxTableNameLength = -1;
 
@@ -746,6 +770,156 @@ public class PlatformInfo
         _autoCommitModeForLastIdentityValueReading = autoCommitModeForLastIdentityValueReading;
     }
 
+    /**
+     * Determines whether the values of identity columns can be read back from the JDBC driver
+     * as the generated keys of the insert statement (<code>Statement.getGeneratedKeys</code>).
+     * This is only used if the driver reports that it supports generated keys, and it is
+     * preferred over querying the values with a separate statement.
+     * 
+     * @return <code>true</code> if the generated keys can be used
+     */
+    public boolean isGeneratedKeysReadable()
+    {
+        return _generatedKeysReadable;
+    }
+
+    /**
+     * Specifies whether the values of identity columns can be read back from the JDBC driver
+     * as the generated keys of the insert statement.
+     * 
+     * @param generatedKeysReadable <code>true</code> if the generated keys can be used
+     */
+    public void setGeneratedKeysReadable(boolean generatedKeysReadable)
+    {
+        _generatedKeysReadable = generatedKeysReadable;
+    }
+
+    /**
+     * Determines whether the values of identity columns can be read back from the JDBC driver
+     * as the generated keys of a batch of insert statements, one row per inserted row.
+     * 
+     * @return <code>true</code> if the generated keys can be used in batch mode
+     */
+    public boolean isGeneratedKeysReadableInBatchMode()
+    {
+        return _generatedKeysReadableInBatchMode;
+    }
+
+    /**
+     * Specifies whether the values of identity columns can be read back from the JDBC driver
+     * as the generated keys of a batch of insert statements.
+     * 
+     * @param generatedKeysReadableInBatchMode <code>true</code> if the generated keys can be
+     *                                         used in batch mode
+     */
+    public void setGeneratedKeysReadableInBatchMode(boolean generatedKeysReadableInBatchMode)
+    {
+        _generatedKeysReadableInBatchMode = generatedKeysReadableInBatchMode;
+    }
+
+    /**
+     * Determines whether the platform supports a native statement that inserts a row or
+     * updates it if a row with the same primary key already exists (e.g. <code>MERGE</code>).
+     * 
+     * @return <code>true</code> if such a statement is supported
+     */
+    public boolean isUpsertSupported()
+    {
+        return _upsertSupported;
+    }
+
+    /**
+     * Specifies whether the platform supports a native statement that inserts a row or
+     * updates it if a row with the same primary key already exists.
+     * 
+     * @param upsertSupported <code>true</code> if such a statement is supported
+     */
+    public void setUpsertSupported(boolean upsertSupported)
+    {
+        _upsertSupported = upsertSupported;
+    }
+
+    /**
+     * Returns the major version of the database that is at least required for the native
+     * upsert statement.
+     * 
+     * @return The major version, 0 if any version supports the statement
+     */
+    public int getMinUpsertDatabaseMajorVersion()
+    {
+        return _minUpsertDatabaseMajorVersion;
+    }
+
+    /**
+     * Returns the minor version of the database that is at least required for the native
+     * upsert statement if the database has the major version returned by
+     * {@link #getMinUpsertDatabaseMajorVersion()}.
+     * 
+     * @return The minor version
+     */
+    public int getMinUpsertDatabaseMinorVersion()
+    {
+        return _minUpsertDatabaseMinorVersion;
+    }
+
+    /**
+     * Specifies the version of the database that is at least required for the native
+     * upsert statement. Older databases are treated as if the platform did not support
+     * the statement.
+     * 
+     * @param majorVersion The major version
+     * @param minorVersion The minor version
+     */
+    public void setMinUpsertDatabaseVersion(int majorVersion, int minorVersion)
+    {
+        _minUpsertDatabaseMajorVersion = majorVersion;
+        _minUpsertDatabaseMinorVersion = minorVersion;
+    }
+
+    /**
+     * Determines whether the platform supports insert statements that specify multiple
+     * rows in the VALUES clause, i.e. <code>INSERT INTO ... VALUES (...), (...)</code>.
+     * 
+     * @return <code>true</code> if such statements are supported
+     */
+    public boolean isMultiRowInsertSupported()
+    {
+        return _multiRowInsertSupported;
+    }
+
+    /**
+     * Specifies whether the platform supports insert statements that specify multiple
+     * rows in the VALUES clause.
+     * 
+     * @param multiRowInsertSupported <code>true</code> if such statements are supported
+     */
+    public void setMultiRowInsertSupported(boolean multiRowInsertSupported)
+    {
+        _multiRowInsertSupported = multiRowInsertSupported;
+    }
+
+    /**
+     * Returns the maximum number of parameter markers that a single (prepared) statement
+     * can have.
+     * 
+     * @return The number of parameters, or -1 if not limited
+     */
+    public int getMaxParametersPerStatement()
+    {
+        return _maxParametersPerStatement;
+    }
+
+    /**
+     * Sets the maximum number of parameter markers that a single (prepared) statement
+     * can have.
+     * 
+     * @param maxParametersPerStatement The number of parameters, or -1 if not limited
+     */
+    public void setMaxParametersPerStatement(int maxParametersPerStatement)
+    {
+        _maxParametersPerStatement = maxParametersPerStatement;
+    }
+
     /**
      * Returns the maximum number of characters that a table name can have.
      * 
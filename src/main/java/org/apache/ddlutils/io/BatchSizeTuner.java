@@ -0,0 +1,201 @@
+package org.apache.ddlutils.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+/**
+ * Tunes the batch size for the inserts into one table based on the measured throughput.
+ * After each batch, the batch size is changed in the current direction (growing or shrinking)
+ * as long as the throughput (rows per second) does not get worse. If it gets worse, then the
+ * direction is reversed and the steps get smaller, so that the batch size settles around the
+ * size with the best throughput. The batch size always stays within the given bounds for the
+ * number of rows and, based on the average size of the rows seen so far, for the number of
+ * bytes per batch. Where the two kinds of bounds contradict each other, the row bounds win.
+ *
+ * @version $Revision: $
+ */
+public class BatchSizeTuner
+{
+    /** The factor by which the batch size is changed initially. */
+    private static final double INITIAL_STEP = 2.0;
+    /** The smallest factor by which the batch size is changed. */
+    private static final double MIN_STEP = 1.1;
+
+    /** The minimum number of rows per batch. */
+    private int _minRows;
+    /** The maximum number of rows per batch. */
+    private int _maxRows;
+    /** The minimum number of bytes per batch, or 0 if there is no minimum. */
+    private long _minBytes;
+    /** The maximum number of bytes per batch, or 0 if there is no maximum. */
+    private long _maxBytes;
+    /** The current batch size. */
+    private int _batchSize;
+    /** The factor by which the batch size is currently changed. */
+    private double _step = INITIAL_STEP;
+    /** Whether the batch size is currently growing. */
+    private boolean _growing = true;
+    /** The throughput of the last batch that was used for tuning, or -1 if there was none yet. */
+    private double _lastThroughput = -1;
+    /** The number of executed batches. */
+    private int _batchCount;
+    /** The total number of rows in the executed batches. */
+    private long _totalRows;
+    /** The total number of bytes in the executed batches. */
+    private long _totalBytes;
+    /** The total time in milliseconds that the executed batches took. */
+    private long _totalMillis;
+
+    /**
+     * Creates a new tuner.
+     *
+     * @param initialBatchSize The initial number of rows per batch
+     * @param minRows          The minimum number of rows per batch
+     * @param maxRows          The maximum number of rows per batch
+     * @param minBytes         The minimum number of bytes per batch, or 0 if there is no minimum
+     * @param maxBytes         The maximum number of bytes per batch, or 0 if there is no maximum
+     */
+    public BatchSizeTuner(int initialBatchSize, int minRows, int maxRows, long minBytes, long maxBytes)
+    {
+        if ((minRows < 1) || (maxRows < minRows))
+        {
+            throw new IllegalArgumentException("Invalid batch size bounds " + minRows + " to " + maxRows);
+        }
+        _minRows   = minRows;
+        _maxRows   = maxRows;
+        _minBytes  = minBytes;
+        _maxBytes  = maxBytes;
+        _batchSize = clamp(initialBatchSize);
+    }
+
+    /**
+     * Returns the current number of rows per batch.
+     *
+     * @return The batch size
+     */
+    public int getBatchSize()
+    {
+        return _batchSize;
+    }
+
+    /**
+     * Returns the maximum number of bytes per batch.
+     *
+     * @return The number of bytes, or 0 if there is no maximum
+     */
+    public long getMaxBytes()
+    {
+        return _maxBytes;
+    }
+
+    /**
+     * Returns the number of executed batches.
+     *
+     * @return The number of batches
+     */
+    public int getBatchCount()
+    {
+        return _batchCount;
+    }
+
+    /**
+     * Returns the average size of the rows in the executed batches.
+     *
+     * @return The number of bytes, or 0 if no batch has been executed yet
+     */
+    public long getAverageRowBytes()
+    {
+        return _totalRows > 0 ? _totalBytes / _totalRows : 0;
+    }
+
+    /**
+     * Returns the overall throughput of the executed batches.
+     *
+     * @return The number of rows per second
+     */
+    public long getThroughput()
+    {
+        return _totalRows * 1000 / Math.max(_totalMillis, 1);
+    }
+
+    /**
+     * Records an executed batch and adjusts the batch size. Batches that are smaller than half
+     * the current batch size (e.g. because they were executed early to maintain the foreign key
+     * order) are not used for tuning as their throughput is not representative.
+     *
+     * @param rows   The number of rows in the batch
+     * @param bytes  The (estimated) number of bytes in the batch
+     * @param millis The time in milliseconds that the batch took
+     */
+    public void batchExecuted(int rows, long bytes, long millis)
+    {
+        _batchCount++;
+        _totalRows   += rows;
+        _totalBytes  += bytes;
+        _totalMillis += millis;
+
+        int newBatchSize = _batchSize;
+
+        if (2 * rows >= _batchSize)
+        {
+            double throughput = rows * 1000.0 / Math.max(millis, 1);
+
+            if ((_lastThroughput >= 0) && (throughput < _lastThroughput))
+            {
+                _growing = !_growing;
+                _step    = Math.max(MIN_STEP, Math.sqrt(_step));
+            }
+            _lastThroughput = throughput;
+            if (_growing)
+            {
+                newBatchSize = (int)Math.min(Integer.MAX_VALUE, Math.ceil(_batchSize * _step));
+            }
+            else
+            {
+                newBatchSize = (int)Math.floor(_batchSize / _step);
+            }
+        }
+        _batchSize = clamp(newBatchSize);
+    }
+
+    /**
+     * Brings the given batch size into the bounds.
+     *
+     * @param batchSize The batch size
+     * @return The batch size within the bounds
+     */
+    private int clamp(int batchSize)
+    {
+        long result      = batchSize;
+        long avgRowBytes = Math.max(getAverageRowBytes(), 1);
+
+        if (_totalRows > 0)
+        {
+            if (_minBytes > 0)
+            {
+                result = Math.max(result, (_minBytes + avgRowBytes - 1) / avgRowBytes);
+            }
+            if (_maxBytes > 0)
+            {
+                result = Math.min(result, _maxBytes / avgRowBytes);
+            }
+        }
+        return (int)Math.max(_minRows, Math.min(_maxRows, result));
+    }
+}
@@ -0,0 +1,275 @@
+package org.apache.ddlutils.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Properties;
+import java.util.StringTokenizer;
+
+/**
+ * Stores the {@link ImportCheckpoint} of the last commit of a data import in a local file so
+ * that a failed import can be resumed. The file is a properties file which is replaced as a
+ * whole for every checkpoint. The checkpoint is first written to a temporary file that is then
+ * renamed, so that the journal does not contain a partially written checkpoint if the process
+ * dies while writing it.
+ *
+ * @version $Revision: $
+ */
+public class CheckpointJournal
+{
+    /** The journal file. */
+    private File _file;
+
+    /**
+     * Creates a new journal.
+     *
+     * @param file The journal file
+     */
+    public CheckpointJournal(File file)
+    {
+        _file = file;
+    }
+
+    /**
+     * Returns the journal file.
+     *
+     * @return The file
+     */
+    public File getFile()
+    {
+        return _file;
+    }
+
+    /**
+     * Reads the checkpoint from the journal file.
+     *
+     * @return The checkpoint, or <code>null</code> if the journal file does not exist
+     */
+    public ImportCheckpoint read() throws IOException
+    {
+        if (!_file.exists())
+        {
+            return null;
+        }
+
+        Properties  props = new Properties();
+        InputStream input = new FileInputStream(_file);
+
+        try
+        {
+            props.load(input);
+        }
+        finally
+        {
+            input.close();
+        }
+
+        ImportCheckpoint checkpoint = new ImportCheckpoint(Integer.parseInt(getProperty(props, "commitCount")),
+                                                           Long.parseLong(getProperty(props, "rowCount")),
+                                                           Long.parseLong(getProperty(props, "byteCount")));
+
+        checkpoint.setIdentitiesGenerated(Boolean.valueOf(getProperty(props, "identitiesGenerated")).booleanValue());
+        for (int idx = 0; props.containsKey("source." + idx + ".name"); idx++)
+        {
+            String offset = getProperty(props, "source." + idx + ".offset");
+
+            // journals written by older versions have no read counts and pending rows
+            checkpoint.addSource(props.getProperty("source." + idx + ".name"),
+                                 Long.parseLong(offset),
+                                 Long.parseLong(props.getProperty("source." + idx + ".readCount", offset)),
+                                 parseRows(props.getProperty("source." + idx + ".pendingRows", "")),
+                                 Boolean.valueOf(getProperty(props, "source." + idx + ".complete")).booleanValue());
+        }
+        for (int idx = 0; props.containsKey("table." + idx + ".name"); idx++)
+        {
+            checkpoint.setTableRowCount(props.getProperty("table." + idx + ".name"),
+                                        Long.parseLong(getProperty(props, "table." + idx + ".rowCount")));
+        }
+        for (int idx = 0; props.containsKey("pendingIdentity." + idx); idx++)
+        {
+            checkpoint.addPendingIdentity(props.getProperty("pendingIdentity." + idx));
+        }
+        return checkpoint;
+    }
+
+    /**
+     * Returns the value of a property that has to be present in the journal file.
+     *
+     * @param props The properties
+     * @param name  The name of the property
+     * @return The value
+     */
+    private String getProperty(Properties props, String name) throws IOException
+    {
+        String value = props.getProperty(name);
+
+        if (value == null)
+        {
+            throw new IOException("The checkpoint journal " + _file.getAbsolutePath() + " contains no property " + name);
+        }
+        return value;
+    }
+
+    /**
+     * Formats the given row positions as a comma-separated list of ranges, e.g.
+     * <code>5-7,10</code> for the positions 5, 6, 7 and 10.
+     *
+     * @param rows The row positions in ascending order
+     * @return The ranges
+     */
+    private String formatRows(long[] rows)
+    {
+        StringBuffer result = new StringBuffer();
+
+        for (int idx = 0; idx < rows.length; idx++)
+        {
+            int endIdx = idx;
+
+            while ((endIdx + 1 < rows.length) && (rows[endIdx + 1] == rows[endIdx] + 1))
+            {
+                endIdx++;
+            }
+            if (result.length() > 0)
+            {
+                result.append(",");
+            }
+            result.append(rows[idx]);
+            if (endIdx > idx)
+            {
+                result.append("-");
+                result.append(rows[endIdx]);
+            }
+            idx = endIdx;
+        }
+        return result.toString();
+    }
+
+    /**
+     * Parses the row positions written by {@link #formatRows(long[])}.
+     *
+     * @param ranges The ranges
+     * @return The row positions in ascending order
+     */
+    private long[] parseRows(String ranges) throws IOException
+    {
+        ArrayList       rows      = new ArrayList();
+        StringTokenizer tokenizer = new StringTokenizer(ranges, ",");
+
+        try
+        {
+            while (tokenizer.hasMoreTokens())
+            {
+                String range   = tokenizer.nextToken().trim();
+                int    dashPos = range.indexOf('-');
+                long   first   = Long.parseLong(dashPos < 0 ? range : range.substring(0, dashPos));
+                long   last    = dashPos < 0 ? first : Long.parseLong(range.substring(dashPos + 1));
+
+                for (long row = first; row <= last; row++)
+                {
+                    rows.add(new Long(row));
+                }
+            }
+        }
+        catch (NumberFormatException ex)
+        {
+            throw new IOException("The checkpoint journal " + _file.getAbsolutePath() + " contains invalid row positions " + ranges);
+        }
+
+        long[] result = new long[rows.size()];
+
+        for (int idx = 0; idx < result.length; idx++)
+        {
+            result[idx] = ((Long)rows.get(idx)).longValue();
+        }
+        return result;
+    }
+
+    /**
+     * Writes the given checkpoint to the journal file, replacing the previous checkpoint.
+     *
+     * @param checkpoint The checkpoint
+     */
+    public void write(ImportCheckpoint checkpoint) throws IOException
+    {
+        Properties props = new Properties();
+
+        props.setProperty("commitCount", String.valueOf(checkpoint.getCommitCount()));
+        props.setProperty("rowCount", String.valueOf(checkpoint.getRowCount()));
+        props.setProperty("byteCount", String.valueOf(checkpoint.getByteCount()));
+        props.setProperty("identitiesGenerated", String.valueOf(checkpoint.isIdentitiesGenerated()));
+        for (int idx = 0; idx < checkpoint.getSourceCount(); idx++)
+        {
+            props.setProperty("source." + idx + ".name", checkpoint.getSourceName(idx));
+            props.setProperty("source." + idx + ".offset", String.valueOf(checkpoint.getSourceOffset(idx)));
+            props.setProperty("source." + idx + ".readCount", String.valueOf(checkpoint.getSourceReadCount(idx)));
+            props.setProperty("source." + idx + ".pendingRows", formatRows(checkpoint.getSourcePendingRows(idx)));
+            props.setProperty("source." + idx + ".complete", String.valueOf(checkpoint.isSourceComplete(idx)));
+        }
+
+        String[] tableNames = checkpoint.getTableNames();
+
+        for (int idx = 0; idx < tableNames.length; idx++)
+        {
+            props.setProperty("table." + idx + ".name", tableNames[idx]);
+            props.setProperty("table." + idx + ".rowCount", String.valueOf(checkpoint.getTableRowCount(tableNames[idx])));
+        }
+
+        String[] pendingIdentities = checkpoint.getPendingIdentities();
+
+        for (int idx = 0; idx < pendingIdentities.length; idx++)
+        {
+            props.setProperty("pendingIdentity." + idx, pendingIdentities[idx]);
+        }
+
+        File         tmpFile = new File(_file.getAbsolutePath() + ".tmp");
+        OutputStream output  = new FileOutputStream(tmpFile);
+
+        try
+        {
+            props.store(output, "DdlUtils data import checkpoint");
+        }
+        finally
+        {
+            output.close();
+        }
+        // renaming does not replace an existing file on all platforms
+        if (!tmpFile.renameTo(_file) && (!_file.delete() || !tmpFile.renameTo(_file)))
+        {
+            throw new IOException("Could not replace the checkpoint journal " + _file.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Deletes the journal file, e.g. after the import finished successfully.
+     */
+    public void delete() throws IOException
+    {
+        if (_file.exists() && !_file.delete())
+        {
+            throw new IOException("Could not delete the checkpoint journal " + _file.getAbsolutePath());
+        }
+    }
+}
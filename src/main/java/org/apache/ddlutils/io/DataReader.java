@@ -45,6 +45,7 @@ import org.apache.ddlutils.io.converters.SqlTypeConverter;
 import org.apache.ddlutils.model.Column;
 import org.apache.ddlutils.model.Database;
 import org.apache.ddlutils.model.Table;
+import org.apache.ddlutils.util.BoundedBuffer;
 import org.xml.sax.InputSource;
 
 /**
@@ -67,6 +68,14 @@ public class DataReader
     private ConverterConfiguration _converterConf = new ConverterConfiguration();
     /** Whether to be case sensitive or not. */
     private boolean _caseSensitive = false;
+    /** Whether parsing, value conversion and writing to the sink run in separate threads. */
+    private boolean _pipelined = false;
+    /** The maximum number of rows that are buffered between the stages of the pipeline. */
+    private int _pipelineBufferSize = 1000;
+    /** Receives the parsed rows while reading in pipelined mode. */
+    private BoundedBuffer _parsedRows;
+    /** The number of rows that are still to be skipped in the current read. */
+    private long _skipCount;
 
     /**
      * Returns the converter configuration of this data reader.
@@ -139,6 +148,77 @@ public class DataReader
         _caseSensitive = beCaseSensitive;
     }
 
+    /**
+     * Determines whether the data is read in pipelined mode.
+     *
+     * @return <code>true</code> if parsing, conversion and writing run in separate threads
+     */
+    public boolean isPipelined()
+    {
+        return _pipelined;
+    }
+
+    /**
+     * Specifies whether the data shall be read in pipelined mode. In this mode, the XML is
+     * parsed in the calling thread, while the conversion of the column values and the handing
+     * of the beans to the sink happen in two separate threads. The stages are connected by
+     * bounded buffers so that a slow sink throttles the parsing. The beans arrive at the sink
+     * in the same order as in the non-pipelined mode, one at a time.
+     *
+     * @param pipelined <code>true</code> if the data shall be read in pipelined mode
+     */
+    public void setPipelined(boolean pipelined)
+    {
+        _pipelined = pipelined;
+    }
+
+    /**
+     * Returns the maximum number of rows that are buffered between the stages of the pipeline.
+     *
+     * @return The number of rows
+     */
+    public int getPipelineBufferSize()
+    {
+        return _pipelineBufferSize;
+    }
+
+    /**
+     * Specifies the maximum number of rows that are buffered between the stages of the pipeline.
+     *
+     * @param pipelineBufferSize The number of rows
+     */
+    public void setPipelineBufferSize(int pipelineBufferSize)
+    {
+        if (pipelineBufferSize < 1)
+        {
+            throw new IllegalArgumentException("The pipeline buffer size must be at least 1");
+        }
+        _pipelineBufferSize = pipelineBufferSize;
+    }
+
+    /**
+     * Returns the number of rows at the start of the next read that will be skipped.
+     * 
+     * @return The number of rows
+     */
+    public long getSkipCount()
+    {
+        return _skipCount;
+    }
+
+    /**
+     * Specifies the number of rows at the start of the next read that shall be skipped, e.g.
+     * because they were already inserted by a previous import that is now resumed. Only the
+     * rows of tables of the model are counted. The skipped elements are passed over without
+     * reading their values, and no beans are created for them.
+     * 
+     * @param skipCount The number of rows
+     */
+    public void setSkipCount(long skipCount)
+    {
+        _skipCount = skipCount;
+    }
+
     /**
      * Creates a new, initialized XML input factory object.
      * 
@@ -267,6 +347,185 @@ public class DataReader
      * @param xmlReader The reader
      */
     private void read(XMLStreamReader xmlReader) throws DdlUtilsXMLException
+    {
+        try
+        {
+            if (_pipelined)
+            {
+                readPipelined(xmlReader);
+            }
+            else
+            {
+                parse(xmlReader);
+            }
+        }
+        finally
+        {
+            if (_skipCount > 0)
+            {
+                _log.warn("The data contained " + _skipCount + " rows less than were to be skipped");
+                _skipCount = 0;
+            }
+        }
+    }
+
+    /**
+     * Reads the data from the given XML stream reader using separate threads for the
+     * conversion of the values and for writing the beans to the sink.
+     * 
+     * @param xmlReader The reader
+     */
+    private void readPipelined(XMLStreamReader xmlReader) throws DdlUtilsXMLException
+    {
+        final BoundedBuffer      parsedRows = new BoundedBuffer(_pipelineBufferSize);
+        final BoundedBuffer      beans      = new BoundedBuffer(_pipelineBufferSize);
+        final Throwable[]        sinkError  = new Throwable[1];
+        Throwable                parseError = null;
+
+        // the dyna class cache of the model is not thread-safe, so we're filling it
+        // before the threads start
+        for (int idx = 0; idx < _model.getTableCount(); idx++)
+        {
+            _model.getDynaClassFor(_model.getTable(idx).getName());
+        }
+
+        Thread converter = new Thread(new Runnable() {
+            public void run()
+            {
+                try
+                {
+                    while (parsedRows.hasNext())
+                    {
+                        ParsedRow row = (ParsedRow)parsedRows.next();
+
+                        if (!beans.put(createBean(row.getTable(), row.getValues())))
+                        {
+                            break;
+                        }
+                    }
+                    beans.close();
+                }
+                catch (RuntimeException ex)
+                {
+                    parsedRows.cancel();
+                    // the writer thread will rethrow the exception
+                    beans.fail(ex);
+                }
+                catch (Throwable ex)
+                {
+                    // errors like OutOfMemoryError stop all stages immediately
+                    synchronized (sinkError)
+                    {
+                        if (sinkError[0] == null)
+                        {
+                            sinkError[0] = ex;
+                        }
+                    }
+                    parsedRows.cancel();
+                    beans.cancel();
+                }
+            }
+        }, "DdlUtils data conversion");
+        Thread writer = new Thread(new Runnable() {
+            public void run()
+            {
+                try
+                {
+                    while (beans.hasNext())
+                    {
+                        getSink().addBean((DynaBean)beans.next());
+                    }
+                }
+                catch (Throwable ex)
+                {
+                    synchronized (sinkError)
+                    {
+                        if (sinkError[0] == null)
+                        {
+                            sinkError[0] = ex;
+                        }
+                    }
+                    beans.cancel();
+                    parsedRows.cancel();
+                }
+            }
+        }, "DdlUtils data writer");
+
+        converter.setDaemon(true);
+        writer.setDaemon(true);
+        converter.start();
+        writer.start();
+
+        _parsedRows = parsedRows;
+        try
+        {
+            parse(xmlReader);
+            parsedRows.close();
+        }
+        catch (Throwable ex)
+        {
+            parsedRows.cancel();
+            beans.cancel();
+            parseError = ex;
+        }
+        finally
+        {
+            _parsedRows = null;
+            try
+            {
+                converter.join();
+                writer.join();
+            }
+            catch (InterruptedException ex)
+            {
+                // the threads stop once they notice that the buffers were cancelled
+                parsedRows.cancel();
+                beans.cancel();
+                Thread.currentThread().interrupt();
+                throw new DdlUtilsXMLException("Interrupted while waiting for the data to be written", ex);
+            }
+        }
+        synchronized (sinkError)
+        {
+            // an error in a later stage also aborts the parsing, so it takes precedence
+            if (sinkError[0] != null)
+            {
+                rethrow(sinkError[0]);
+            }
+        }
+        if (parseError != null)
+        {
+            rethrow(parseError);
+        }
+    }
+
+    /**
+     * Rethrows the given exception or error of one of the stages of the pipelined reading.
+     * 
+     * @param error The exception or error
+     */
+    private void rethrow(Throwable error)
+    {
+        if (error instanceof RuntimeException)
+        {
+            throw (RuntimeException)error;
+        }
+        else if (error instanceof Error)
+        {
+            throw (Error)error;
+        }
+        else
+        {
+            throw new DdlUtilsXMLException(error);
+        }
+    }
+
+    /**
+     * Parses the data from the given XML stream reader.
+     * 
+     * @param xmlReader The reader
+     */
+    private void parse(XMLStreamReader xmlReader) throws DdlUtilsXMLException
     {
         try
         {
@@ -314,6 +573,11 @@ public class DataReader
      */
     private void readBean(XMLStreamReader xmlReader) throws XMLStreamException, DdlUtilsXMLException
     {
+        if ((_skipCount > 0) && skipBean(xmlReader))
+        {
+            return;
+        }
+
         QName    elemQName  = xmlReader.getName();
         Location location   = xmlReader.getLocation();
         Map      attributes = new HashMap();
@@ -346,21 +610,93 @@ public class DataReader
         }
         else
         {
-            DynaBean bean = _model.createDynaBeanFor(table);
+            if (_skipCount > 0)
+            {
+                // the table name was given in a sub element, so the row could not be skipped without reading it
+                _skipCount--;
+            }
+            else if (_parsedRows == null)
+            {
+                getSink().addBean(createBean(table, attributes));
+            }
+            else if (!_parsedRows.put(new ParsedRow(table, attributes)))
+            {
+                throw new DdlUtilsXMLException("Reading of the data was aborted because of an error while writing it");
+            }
+            consumeRestOfElement(xmlReader);
+        }
+    }
+
+    /**
+     * Skips the current element without reading its values if it is a row of a table of the model.
+     * 
+     * @param xmlReader The reader
+     * @return <code>true</code> if the element was skipped; <code>false</code> if the table of the
+     *         element is not known or can only be determined by reading its sub elements
+     */
+    private boolean skipBean(XMLStreamReader xmlReader) throws XMLStreamException
+    {
+        String tableName = xmlReader.getLocalName();
 
-            for (int idx = 0; idx < table.getColumnCount(); idx++)
+        if ("table".equals(tableName))
+        {
+            tableName = null;
+            for (int idx = 0; idx < xmlReader.getAttributeCount(); idx++)
             {
-                Column column = table.getColumn(idx);
-                String value  = (String)attributes.get(isCaseSensitive() ? column.getName() : column.getName().toLowerCase());
+                String attrName = xmlReader.getAttributeLocalName(idx);
 
-                if (value != null)
+                if (isCaseSensitive() ? "table-name".equals(attrName) : "table-name".equalsIgnoreCase(attrName))
                 {
-                    setColumnValue(bean, table, column, value);
+                    tableName = xmlReader.getAttributeValue(idx);
                 }
             }
-            getSink().addBean(bean);
-            consumeRestOfElement(xmlReader);
         }
+        if ((tableName == null) || (_model.findTable(tableName, isCaseSensitive()) == null))
+        {
+            return false;
+        }
+
+        int depth = 1;
+
+        while (depth > 0)
+        {
+            int eventType = xmlReader.next();
+
+            if (eventType == XMLStreamReader.START_ELEMENT)
+            {
+                depth++;
+            }
+            else if ((eventType == XMLStreamReader.END_ELEMENT) || (eventType == XMLStreamReader.END_DOCUMENT))
+            {
+                depth--;
+            }
+        }
+        _skipCount--;
+        return true;
+    }
+
+    /**
+     * Creates a bean for the given table and sets the given values as read from the XML.
+     * 
+     * @param table      The table
+     * @param attributes The column values as read from the XML
+     * @return The bean
+     */
+    private DynaBean createBean(Table table, Map attributes) throws DdlUtilsXMLException
+    {
+        DynaBean bean = _model.createDynaBeanFor(table);
+
+        for (int idx = 0; idx < table.getColumnCount(); idx++)
+        {
+            Column column = table.getColumn(idx);
+            String value  = (String)attributes.get(isCaseSensitive() ? column.getName() : column.getName().toLowerCase());
+
+            if (value != null)
+            {
+                setColumnValue(bean, table, column, value);
+            }
+        }
+        return bean;
     }
 
     /**
@@ -19,12 +19,15 @@ package org.apache.ddlutils.io;
  * under the License.
  */
 
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
 
 import org.apache.commons.beanutils.DynaBean;
 import org.apache.commons.logging.Log;
@@ -32,6 +35,7 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.ddlutils.DatabaseOperationException;
 import org.apache.ddlutils.Platform;
 import org.apache.ddlutils.dynabean.SqlDynaClass;
+import org.apache.ddlutils.dynabean.SqlDynaProperty;
 import org.apache.ddlutils.model.Column;
 import org.apache.ddlutils.model.Database;
 import org.apache.ddlutils.model.ForeignKey;
@@ -62,20 +66,101 @@ public class DataToDatabaseSink implements DataSink
     private boolean _ensureFkOrder = true;
     /** Whether to use batch mode inserts. */
     private boolean _useBatchMode = false;
-    /** The queued objects for batch insertion. */
-    private ArrayList _batchQueue = new ArrayList();
+    /** Whether to use the bulk loader of the platform for the queued objects in batch mode. */
+    private boolean _useBulkLoad = false;
+    /** Whether to disable the foreign keys and non-unique indexes during the load. */
+    private boolean _disableIndexesAndForeignKeys = false;
+    /** The queued objects for batch insertion, per table name. */
+    private HashMap _batchQueues = new HashMap();
+    /** The original identities of the queued objects whose identity is only known after their
+        insertion (or <code>null</code> for the other objects), per table name. */
+    private HashMap _batchQueueIdentities = new HashMap();
     /** The number of beans to insert in one batch. */
     private int _batchSize = 1024;
-    /** Stores the tables that are target of a foreign key. */
+    /** Whether to tune the batch size per table based on the measured throughput. */
+    private boolean _useAdaptiveBatchSize = false;
+    /** The minimum number of beans to insert in one batch when the batch size is tuned. */
+    private int _minBatchSize = 16;
+    /** The maximum number of beans to insert in one batch when the batch size is tuned. */
+    private int _maxBatchSize = 65536;
+    /** The minimum number of bytes to insert in one batch when the batch size is tuned, 0 for no minimum. */
+    private long _minBatchBytes = 0;
+    /** The maximum number of bytes to insert in one batch when the batch size is tuned, 0 for no maximum. */
+    private long _maxBatchBytes = 16 * 1024 * 1024;
+    /** The batch size tuners, per table name. */
+    private HashMap _batchSizeTuners = new HashMap();
+    /** The estimated number of bytes of the queued objects when the batch size is tuned, per table name. */
+    private HashMap _batchQueueBytes = new HashMap();
+    /** Stores the names of the tables that are target of a foreign key. */
     private HashSet _fkTables = new HashSet();
-    /** Contains the tables that have a self-referencing foreign key to a (partially) identity primary key. */
+    /** Contains the names of the tables that have a self-referencing foreign key to a (partially) identity primary key. */
     private HashSet _tablesWithSelfIdentityReference = new HashSet();
-    /** Contains the tables that have a self-referencing foreign key that is required. */
+    /** Contains the names of the tables that have a self-referencing foreign key that is required. */
     private HashSet _tablesWithRequiredSelfReference = new HashSet();
+    /** The primary key columns per table name. */
+    private HashMap _pkColumnsByTable = new HashMap();
+    /** The names of the tables that have (at least) one identity primary key column. */
+    private HashSet _tablesWithIdentityPK = new HashSet();
+    /** The names of the tables that reference each other via foreign keys in a circle with other tables. */
+    private HashSet _tablesInFkCycle = new HashSet();
     /** Maps original to processed identities. */
-    private HashMap _identityMap = new HashMap();
-    /** Stores the objects that are waiting for other objects to be inserted. */
-    private ArrayList _waitingObjects = new ArrayList();
+    private IdentityMap _identityMap;
+    /** Maps the identities of not yet inserted rows to the objects waiting for them (lists of {@link WaitingObject}). */
+    private HashMap _waitingObjectsByPendingFK = new HashMap();
+    /** The number of objects that are waiting for other objects to be inserted. */
+    private int _waitingObjectCount;
+    /** The maximum number of objects that were waiting at the same time. */
+    private int _maxWaitingObjectCount;
+    /** The maximum number of distinct identities that objects were waiting for at the same time. */
+    private int _maxPendingIdentityCount;
+    /** The maximum number of waiting objects and of identity mappings held in memory, or 0 if there is no maximum. */
+    private int _spillThreshold;
+    /** The file that waiting objects are moved to when there are too many of them. */
+    private SpillFile _spillFile;
+    /** The number of waiting objects that are held in memory. */
+    private int _inMemoryWaitingObjectCount;
+    /** The number of times that waiting objects were moved to the spill file. */
+    private int _spilledObjectCount;
+    /** The number of inserted rows after which they are committed, or 0 if the number of rows doesn't trigger commits. */
+    private int _commitInterval;
+    /** The (estimated) number of inserted bytes after which they are committed, or 0 if the bytes don't trigger commits. */
+    private long _commitIntervalBytes;
+    /** The auto-commit mode of the connection before the sink turned it off to commit in intervals. */
+    private boolean _originalAutoCommit;
+    /** The number of rows inserted since the last commit. */
+    private long _uncommittedRowCount;
+    /** The (estimated) number of bytes inserted since the last commit. */
+    private long _uncommittedByteCount;
+    /** The total number of committed rows. */
+    private long _committedRowCount;
+    /** The (estimated) total number of committed bytes. */
+    private long _committedByteCount;
+    /** The number of commits. */
+    private int _commitCount;
+    /** The number of inserted rows (as <code>long[1]</code> arrays) per table name. */
+    private HashMap _insertedRowCounts = new HashMap();
+    /** The number of beans that were given to the sink. */
+    private long _beanCount;
+    /** The positions (<code>Long</code> objects) of the waiting beans in the sequence of given beans. */
+    private TreeSet _waitingSequences = new TreeSet();
+    /** The names of the sources of the beans in the order in which they were started. */
+    private ArrayList _sourceNames = new ArrayList();
+    /** The positions (<code>Long</code> objects) of the first beans of the sources in the sequence of given beans. */
+    private ArrayList _sourceStarts = new ArrayList();
+    /** The checkpoint of the last commit. */
+    private ImportCheckpoint _lastCheckpoint;
+    /** The journal that the checkpoints are written to, if any. */
+    private CheckpointJournal _checkpointJournal;
+    /** The checkpoint of the previous import that is resumed, if any. */
+    private ImportCheckpoint _resumeCheckpoint;
+    /** The numbers of leading rows (<code>Long</code> objects) of the sources that were skipped because they were committed previously. */
+    private ArrayList _sourceSkipCounts = new ArrayList();
+    /** The indices (<code>Integer</code> objects) of the sources in the resumed checkpoint, or -1 for new sources. */
+    private ArrayList _sourceResumeIndices = new ArrayList();
+    /** The number of leading sources whose beans have all been given to the sink. */
+    private int _endedSourceCount;
+    /** Whether rows that are referenced by other rows got identity values generated by the database. */
+    private boolean _identitiesGenerated;
 
     /**
      * Creates a new sink instance.
@@ -85,35 +170,84 @@ public class DataToDatabaseSink implements DataSink
      */
     public DataToDatabaseSink(Platform platform, Database model)
     {
-        _platform = platform;
-        _model    = model;
+        _platform    = platform;
+        _model       = model;
+        _identityMap = new IdentityMap(model);
         for (int tableIdx = 0; tableIdx < model.getTableCount(); tableIdx++)
         {
             Table      table     = model.getTable(tableIdx);
             ForeignKey selfRefFk = table.getSelfReferencingForeignKey();
+            Column[]   pkColumns = table.getPrimaryKeyColumns();
 
+            _pkColumnsByTable.put(table.getName(), pkColumns);
+            for (int idx = 0; idx < pkColumns.length; idx++)
+            {
+                if (pkColumns[idx].isAutoIncrement())
+                {
+                    _tablesWithIdentityPK.add(table.getName());
+                    break;
+                }
+            }
             if (selfRefFk != null)
             {
-                Column[] pkColumns = table.getPrimaryKeyColumns();
-
-                for (int idx = 0; idx < pkColumns.length; idx++)
+                if (_tablesWithIdentityPK.contains(table.getName()))
                 {
-                    if (pkColumns[idx].isAutoIncrement())
-                    {
-                        _tablesWithSelfIdentityReference.add(table);
-                        break;
-                    }
+                    _tablesWithSelfIdentityReference.add(table.getName());
                 }
                 for (int idx = 0; idx < selfRefFk.getReferenceCount(); idx++)
                 {
                     if (selfRefFk.getReference(idx).getLocalColumn().isRequired())
                     {
-                        _tablesWithRequiredSelfReference.add(table);
+                        _tablesWithRequiredSelfReference.add(table.getName());
                         break;
                     }
                 }
             }
+            if (isInFkCycle(table))
+            {
+                _tablesInFkCycle.add(table.getName());
+            }
+        }
+    }
+
+    /**
+     * Determines whether the given table references itself via foreign keys and at least one
+     * other table. Self-referencing foreign keys alone don't count as the rows of one table
+     * are inserted in the order in which they are given to the sink.
+     *
+     * @param table The table
+     * @return <code>true</code> if the table is part of a circle of foreign keys
+     */
+    private boolean isInFkCycle(Table table)
+    {
+        HashSet   visitedTables = new HashSet();
+        ArrayList tablesToCheck = new ArrayList();
+
+        visitedTables.add(table.getName());
+        tablesToCheck.add(table);
+        while (!tablesToCheck.isEmpty())
+        {
+            Table curTable = (Table)tablesToCheck.remove(tablesToCheck.size() - 1);
+
+            for (int idx = 0; idx < curTable.getForeignKeyCount(); idx++)
+            {
+                Table foreignTable = curTable.getForeignKey(idx).getForeignTable();
+
+                if ((foreignTable == null) || (foreignTable == curTable))
+                {
+                    continue;
+                }
+                if (foreignTable == table)
+                {
+                    return true;
+                }
+                if (visitedTables.add(foreignTable.getName()))
+                {
+                    tablesToCheck.add(foreignTable);
+                }
+            }
         }
+        return false;
     }
 
     /**
@@ -150,308 +284,1663 @@ public class DataToDatabaseSink implements DataSink
     }
 
     /**
-     * Specifies whether the sink shall delay the insertion of beans so that the beans referenced by it
-     * via foreignkeys are already inserted into the database.<br/>
-     * Note that you should careful with setting <code>haltOnErrors</code> to false as this might
-     * result in beans not inserted at all. The sink will then throw an appropriate exception at the end
-     * of the insertion process (method {@link #end()}).
-     *
-     * @param ensureFkOrder <code>true</code> if beans shall be inserted after its foreignkey-references
+     * Specifies whether the sink shall delay the insertion of beans so that the beans referenced by it
+     * via foreignkeys are already inserted into the database.<br/>
+     * Note that you should careful with setting <code>haltOnErrors</code> to false as this might
+     * result in beans not inserted at all. The sink will then throw an appropriate exception at the end
+     * of the insertion process (method {@link #end()}).
+     *
+     * @param ensureFkOrder <code>true</code> if beans shall be inserted after its foreignkey-references
+     */
+    public void setEnsureForeignKeyOrder(boolean ensureFkOrder)
+    {
+        _ensureFkOrder = ensureFkOrder;
+    }
+
+    /**
+     * Determines whether batch mode is used for inserting the beans.
+     *
+     * @return <code>true</code> if batch mode is used (<code>false</code> per default)
+     */
+    public boolean isUseBatchMode()
+    {
+        return _useBatchMode;
+    }
+
+    /**
+     * Specifies whether batch mode is used for inserting the beans. Rows whose primary key
+     * values are defined by the database and needed for updating the rows referencing them,
+     * are only inserted in batch mode if the platform can read back the generated values for
+     * a batch (see {@link org.apache.ddlutils.PlatformInfo#isGeneratedKeysReadableInBatchMode()}),
+     * otherwise they are inserted one by one. The same applies to the rows of tables that
+     * reference each other in a circle via foreign keys (unless the foreign keys are disabled
+     * during the load), because the batches of different tables cannot be inserted in the
+     * order of their rows.
+     *
+     * @param useBatchMode <code>true</code> if batch mode shall be used
+     */
+    public void setUseBatchMode(boolean useBatchMode)
+    {
+        _useBatchMode = useBatchMode;
+    }
+
+    /**
+     * Determines whether the batches are loaded via the bulk loader of the platform.
+     *
+     * @return <code>true</code> if bulk loading is used (<code>false</code> per default)
+     */
+    public boolean isUseBulkLoad()
+    {
+        return _useBulkLoad;
+    }
+
+    /**
+     * Specifies whether the batches shall be loaded via the bulk loader of the platform (see
+     * {@link org.apache.ddlutils.Platform#getBulkLoader()}) instead of batched insert statements.
+     * This is only used in batch mode, and not for batches that contain rows whose primary key
+     * values are defined by the database and needed for updating the rows referencing them.
+     * If the platform has no bulk loader, batched insert statements are used.
+     *
+     * @param useBulkLoad <code>true</code> if bulk loading shall be used
+     */
+    public void setUseBulkLoad(boolean useBulkLoad)
+    {
+        _useBulkLoad = useBulkLoad;
+    }
+
+    /**
+     * Determines whether the foreign keys and non-unique indexes are disabled while the data
+     * is loaded.
+     *
+     * @return <code>true</code> if they are disabled during the load (<code>false</code> per default)
+     */
+    public boolean isDisableIndexesAndForeignKeys()
+    {
+        return _disableIndexesAndForeignKeys;
+    }
+
+    /**
+     * Specifies whether the foreign keys and non-unique indexes shall be disabled (or dropped
+     * where the database cannot disable them) in {@link #start()}, and enabled (or recreated)
+     * in one pass in {@link #end()}. Before they are enabled, the loaded data is checked against
+     * the foreign keys. As the database does not check the foreign keys during the load, the
+     * foreign key order can be turned off via {@link #setEnsureForeignKeyOrder(boolean)} unless
+     * the rows need the identity values of the rows that they reference.
+     *
+     * @param disableIndexesAndForeignKeys <code>true</code> if they shall be disabled during the load
+     */
+    public void setDisableIndexesAndForeignKeys(boolean disableIndexesAndForeignKeys)
+    {
+        _disableIndexesAndForeignKeys = disableIndexesAndForeignKeys;
+    }
+
+    /**
+     * Returns the (maximum) number of beans to insert in one batch.
+     *
+     * @return The number of beans
+     */
+    public int getBatchSize()
+    {
+        return _batchSize;
+    }
+
+    /**
+     * Sets the (maximum) number of beans to insert in one batch.
+     *
+     * @param batchSize The number of beans
+     */
+    public void setBatchSize(int batchSize)
+    {
+        _batchSize = batchSize;
+    }
+
+    /**
+     * Determines whether the batch size is tuned per table based on the measured throughput.
+     *
+     * @return <code>true</code> if the batch size is tuned (<code>false</code> per default)
+     */
+    public boolean isUseAdaptiveBatchSize()
+    {
+        return _useAdaptiveBatchSize;
+    }
+
+    /**
+     * Specifies whether the batch size shall be tuned per table based on the throughput (rows
+     * per second) measured for the batches. The batch size set via {@link #setBatchSize(int)}
+     * is then used as the initial batch size, and the batch size always stays within the
+     * minimum and maximum number of rows and bytes per batch. The final batch sizes are
+     * reported at the end of the import.
+     *
+     * @param useAdaptiveBatchSize <code>true</code> if the batch size shall be tuned
+     */
+    public void setUseAdaptiveBatchSize(boolean useAdaptiveBatchSize)
+    {
+        _useAdaptiveBatchSize = useAdaptiveBatchSize;
+    }
+
+    /**
+     * Returns the minimum number of beans to insert in one batch when the batch size is tuned.
+     *
+     * @return The number of beans
+     */
+    public int getMinBatchSize()
+    {
+        return _minBatchSize;
+    }
+
+    /**
+     * Sets the minimum number of beans to insert in one batch when the batch size is tuned.
+     *
+     * @param minBatchSize The number of beans
+     */
+    public void setMinBatchSize(int minBatchSize)
+    {
+        _minBatchSize = minBatchSize;
+    }
+
+    /**
+     * Returns the maximum number of beans to insert in one batch when the batch size is tuned.
+     *
+     * @return The number of beans
+     */
+    public int getMaxBatchSize()
+    {
+        return _maxBatchSize;
+    }
+
+    /**
+     * Sets the maximum number of beans to insert in one batch when the batch size is tuned.
+     *
+     * @param maxBatchSize The number of beans
+     */
+    public void setMaxBatchSize(int maxBatchSize)
+    {
+        _maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Returns the minimum number of bytes to insert in one batch when the batch size is tuned.
+     *
+     * @return The number of bytes, or 0 if there is no minimum
+     */
+    public long getMinBatchBytes()
+    {
+        return _minBatchBytes;
+    }
+
+    /**
+     * Sets the minimum number of bytes to insert in one batch when the batch size is tuned.
+     * The size of a batch is estimated from the sizes of the values in the beans.
+     *
+     * @param minBatchBytes The number of bytes, or 0 if there shall be no minimum
+     */
+    public void setMinBatchBytes(long minBatchBytes)
+    {
+        _minBatchBytes = minBatchBytes;
+    }
+
+    /**
+     * Returns the maximum number of bytes to insert in one batch when the batch size is tuned.
+     *
+     * @return The number of bytes, or 0 if there is no maximum (16 MB per default)
+     */
+    public long getMaxBatchBytes()
+    {
+        return _maxBatchBytes;
+    }
+
+    /**
+     * Sets the maximum number of bytes to insert in one batch when the batch size is tuned.
+     * The size of a batch is estimated from the sizes of the values in the beans, and a batch
+     * is executed as soon as it reaches this size. This keeps the memory use of the JDBC driver
+     * bounded for tables with large binary or text columns.
+     *
+     * @param maxBatchBytes The number of bytes, or 0 if there shall be no maximum
+     */
+    public void setMaxBatchBytes(long maxBatchBytes)
+    {
+        _maxBatchBytes = maxBatchBytes;
+    }
+
+    /**
+     * Returns the number of beans that are currently inserted in one batch into the given table.
+     *
+     * @param table The table
+     * @return The number of beans
+     */
+    public int getBatchSize(Table table)
+    {
+        return _useAdaptiveBatchSize ? getBatchSizeTuner(table).getBatchSize() : _batchSize;
+    }
+
+    /**
+     * Returns the maximum number of waiting rows, and separately of identities of inserted rows,
+     * that are held in memory.
+     *
+     * @return The maximum number of rows, or 0 if everything is held in memory (the default)
+     */
+    public int getSpillThreshold()
+    {
+        return _spillThreshold;
+    }
+
+    /**
+     * Sets the maximum number of waiting rows, and separately of identities of inserted rows,
+     * that are held in memory when ensuring the foreign key order. Rows and identities beyond
+     * this number are written to a temporary file and read back when the rows that they wait
+     * for are inserted, so that the memory use stays bounded for large data sets with many
+     * forward references.
+     *
+     * @param spillThreshold The maximum number of rows, or 0 if everything shall be held in memory
+     */
+    public void setSpillThreshold(int spillThreshold)
+    {
+        _spillThreshold = spillThreshold;
+        _identityMap.setSpillThreshold(spillThreshold);
+    }
+
+    /**
+     * Returns the number of inserted rows after which they are committed.
+     *
+     * @return The number of rows, or 0 if the number of rows doesn't trigger commits
+     */
+    public int getCommitInterval()
+    {
+        return _commitInterval;
+    }
+
+    /**
+     * Sets the number of inserted rows after which they are committed. If this or the
+     * commit interval in bytes is set, then the sink turns off the auto-commit mode of its
+     * connection and commits only in these intervals (and at the end). Otherwise, the rows
+     * are committed after each insert or batch if the connection is not in auto-commit mode.
+     * At each commit, the sink records an {@link ImportCheckpoint}.
+     *
+     * @param commitInterval The number of rows, or 0 if the number of rows shall not trigger commits
+     */
+    public void setCommitInterval(int commitInterval)
+    {
+        _commitInterval = commitInterval;
+    }
+
+    /**
+     * Returns the (estimated) number of inserted bytes after which they are committed.
+     *
+     * @return The number of bytes, or 0 if the bytes don't trigger commits
+     */
+    public long getCommitIntervalBytes()
+    {
+        return _commitIntervalBytes;
+    }
+
+    /**
+     * Sets the (estimated) number of inserted bytes after which they are committed. See
+     * {@link #setCommitInterval(int)} for details.
+     *
+     * @param commitIntervalBytes The number of bytes, or 0 if the bytes shall not trigger commits
+     */
+    public void setCommitIntervalBytes(long commitIntervalBytes)
+    {
+        _commitIntervalBytes = commitIntervalBytes;
+    }
+
+    /**
+     * Determines whether the inserted rows are committed in intervals.
+     *
+     * @return <code>true</code> if a commit interval is set
+     */
+    private boolean isCommitIntervalUsed()
+    {
+        return (_commitInterval > 0) || (_commitIntervalBytes > 0);
+    }
+
+    /**
+     * Returns the journal that the checkpoints are written to.
+     *
+     * @return The journal, or <code>null</code> if the checkpoints are not written
+     */
+    public CheckpointJournal getCheckpointJournal()
+    {
+        return _checkpointJournal;
+    }
+
+    /**
+     * Specifies a journal that the checkpoint of each commit shall be written to. If the journal
+     * already contains a checkpoint when the sink is started, then the import is resumed after
+     * this checkpoint, i.e. the committed leading rows of each source have to be skipped (see
+     * {@link #startSource(String)}). The journal is deleted when the import finished successfully.
+     * This requires a commit interval.
+     *
+     * @param checkpointJournal The journal
+     */
+    public void setCheckpointJournal(CheckpointJournal checkpointJournal)
+    {
+        _checkpointJournal = checkpointJournal;
+    }
+
+    /**
+     * Tells the sink that the following beans come from the given source, e.g. a data file.
+     * The checkpoints record the committed offset for each source. If the sink resumes an
+     * import, then the leading rows of the source that were committed by the previous import
+     * must not be given to the sink again; the returned number tells how many these are. The
+     * sink itself skips the rows after these that the previous import committed too. When
+     * the source has been read completely, {@link #endSource()} should be called.
+     *
+     * @param name The name of the source
+     * @return The number of leading rows of the source that have to be skipped, or -1 if the
+     *         source has been committed completely and can be skipped as a whole
+     */
+    public long startSource(String name)
+    {
+        int  idx       = _resumeCheckpoint == null ? -1 : _resumeCheckpoint.findSource(name);
+        long skipCount = idx < 0 ? 0 : _resumeCheckpoint.getSourceOffset(idx);
+
+        // a completely committed source is registered too so that the next checkpoint records it
+        _sourceNames.add(name);
+        _sourceStarts.add(new Long(_beanCount));
+        _sourceSkipCounts.add(new Long(skipCount));
+        _sourceResumeIndices.add(new Integer(idx));
+        if ((idx >= 0) && _resumeCheckpoint.isSourceComplete(idx))
+        {
+            endSource();
+            return -1;
+        }
+        return skipCount;
+    }
+
+    /**
+     * Tells the sink that all beans of the current source have been given to it. Only sources
+     * that were ended are marked as complete in the checkpoints, and the checkpoint journal is
+     * only deleted at the end of the import if all sources were ended.
+     */
+    public void endSource()
+    {
+        _endedSourceCount = _sourceNames.size();
+    }
+
+    /**
+     * Returns the checkpoint of the last commit.
+     *
+     * @return The checkpoint, or <code>null</code> if the sink has not committed in intervals yet
+     */
+    public ImportCheckpoint getLastCheckpoint()
+    {
+        return _lastCheckpoint;
+    }
+
+    /**
+     * Returns the number of times that waiting rows were written to the temporary file because
+     * the spill threshold was reached.
+     *
+     * @return The number of spilled rows
+     */
+    public int getSpilledObjectCount()
+    {
+        return _spilledObjectCount;
+    }
+
+    /**
+     * Returns the number of rows that are currently waiting for the rows that they reference
+     * via foreign keys to be inserted.
+     *
+     * @return The number of waiting rows
+     */
+    public int getWaitingObjectCount()
+    {
+        return _waitingObjectCount;
+    }
+
+    /**
+     * Returns the maximum number of rows that were waiting at the same time for the rows
+     * that they reference via foreign keys to be inserted.
+     *
+     * @return The maximum number of waiting rows
+     */
+    public int getMaxWaitingObjectCount()
+    {
+        return _maxWaitingObjectCount;
+    }
+
+    /**
+     * Returns the maximum number of distinct not yet inserted rows that other rows were
+     * waiting for at the same time.
+     *
+     * @return The maximum number of waited-for rows
+     */
+    public int getMaxPendingIdentityCount()
+    {
+        return _maxPendingIdentityCount;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void end() throws DataSinkException
+    {
+        boolean loaded = false;
+
+        try
+        {
+            // if the connection is gone, then the load was aborted because of an error
+            if (_connection != null)
+            {
+                if (_resumeCheckpoint != null)
+                {
+                    insertRowsWaitingForCommittedRows();
+                }
+                purgeBatchQueues();
+            }
+            if (isCommitIntervalUsed() && (_connection != null))
+            {
+                commit();
+                try
+                {
+                    _connection.setAutoCommit(_originalAutoCommit);
+                }
+                catch (SQLException ex)
+                {
+                    throw new DataSinkException(ex);
+                }
+                _log.info("Committed " + _committedRowCount + " rows in " + _commitCount + " commits");
+            }
+            loaded = true;
+        }
+        finally
+        {
+            if (_connection != null)
+            {
+                try
+                {
+                    if (_disableIndexesAndForeignKeys)
+                    {
+                        enableIndexesAndForeignKeys(loaded);
+                    }
+                }
+                finally
+                {
+                    // this also closes the statements that the platform cached for the connection
+                    _platform.returnConnection(_connection);
+                    _connection = null;
+                }
+            }
+        }
+        if (_maxWaitingObjectCount > 0)
+        {
+            _log.info("Deferred up to " + _maxWaitingObjectCount + " rows waiting for up to " + _maxPendingIdentityCount +
+                      " referenced rows; " + _identityMap.size() + " identities of inserted rows were tracked");
+        }
+        if ((_spilledObjectCount > 0) || (_identityMap.getSpilledCount() > 0))
+        {
+            _log.info("Wrote " + _spilledObjectCount + " deferred rows and " + _identityMap.getSpilledCount() +
+                      " identities of inserted rows to temporary files");
+        }
+        for (int idx = 0; _useAdaptiveBatchSize && (idx < _model.getTableCount()); idx++)
+        {
+            Table          table = _model.getTable(idx);
+            BatchSizeTuner tuner = (BatchSizeTuner)_batchSizeTuners.get(table.getName());
+
+            if ((tuner != null) && (tuner.getBatchCount() > 0))
+            {
+                _log.info("Inserted rows into table " + table.getName() + " in " + tuner.getBatchCount() + " batches with " +
+                          tuner.getThroughput() + " rows/s; final batch size is " + tuner.getBatchSize() + " rows (about " +
+                          (tuner.getBatchSize() * tuner.getAverageRowBytes()) + " bytes)");
+            }
+        }
+        try
+        {
+            checkForWaitingObjects();
+            if (loaded && (_checkpointJournal != null) && (_endedSourceCount == _sourceNames.size()))
+            {
+                try
+                {
+                    _checkpointJournal.delete();
+                }
+                catch (IOException ex)
+                {
+                    throw new DataSinkException(ex);
+                }
+            }
+        }
+        finally
+        {
+            if (_spillFile != null)
+            {
+                _spillFile.close();
+                _spillFile = null;
+            }
+            _identityMap.clear();
+        }
+    }
+
+    /**
+     * Enables the foreign keys and non-unique indexes that were disabled for the load. If the
+     * load was successful, then the loaded data is checked against the foreign keys first. The
+     * indexes and foreign keys are enabled even if this check fails so that the database is not
+     * left without them, but then the failure is reported afterwards. Likewise, all of them are
+     * enabled even if some of them cannot be enabled (or recreated on databases where they were
+     * dropped), and the load fails afterwards. The statements that failed are logged.
+     *
+     * @param verify Whether to check the foreign keys, which is only done for successful loads
+     */
+    private void enableIndexesAndForeignKeys(boolean verify) throws DataSinkException
+    {
+        DatabaseOperationException violation = null;
+        int                        failures  = 0;
+
+        if (verify && !_platform.getPlatformInfo().isForeignKeysEmbedded())
+        {
+            try
+            {
+                _platform.verifyForeignKeys(_connection, _model);
+            }
+            catch (DatabaseOperationException ex)
+            {
+                violation = ex;
+            }
+        }
+        try
+        {
+            failures = _platform.enableIndexesAndForeignKeys(_connection, _model, true);
+        }
+        catch (DatabaseOperationException ex)
+        {
+            throw new DataSinkException(ex);
+        }
+        if (violation != null)
+        {
+            throw new DataSinkException(violation);
+        }
+        if (failures > 0)
+        {
+            String message = "Could not enable " + failures + " of the indexes and foreign keys that were disabled for the load";
+
+            // if the load failed, then we don't want to hide its error
+            if (verify)
+            {
+                throw new DataSinkException(message);
+            }
+            else
+            {
+                _log.error(message);
+            }
+        }
+    }
+
+    /**
+     * Releases the connection and deletes the temporary files after an error that halts the
+     * load. If the foreign keys and indexes were disabled for the load, then they are enabled
+     * again without checking the data against the foreign keys.
+     */
+    private void abort()
+    {
+        if (isCommitIntervalUsed())
+        {
+            try
+            {
+                _connection.rollback();
+                _connection.setAutoCommit(_originalAutoCommit);
+            }
+            catch (SQLException ex)
+            {
+                _log.warn("Could not roll back the uncommitted rows", ex);
+            }
+            if (_lastCheckpoint != null)
+            {
+                _log.info("The import can be resumed after the last " + _lastCheckpoint);
+            }
+        }
+        try
+        {
+            if (_disableIndexesAndForeignKeys)
+            {
+                enableIndexesAndForeignKeys(false);
+            }
+        }
+        catch (DataSinkException ex)
+        {
+            _log.warn("Could not enable the indexes and foreign keys", ex);
+        }
+        finally
+        {
+            _platform.returnConnection(_connection);
+            _connection = null;
+            if (_spillFile != null)
+            {
+                _spillFile.close();
+                _spillFile = null;
+            }
+            _identityMap.clear();
+        }
+    }
+
+    /**
+     * Inserts the rows that still wait for rows that they reference, where the referenced rows
+     * were committed by the previous import that is resumed. These rows were skipped and thus
+     * not seen by the sink. As the identities of the rows were not generated by the database
+     * (otherwise the import could not be resumed), the values of the foreign keys are correct.
+     * The referenced rows that had not been committed are recorded in the checkpoint; for the
+     * others it is checked that they exist in the database, and rows referencing missing rows
+     * remain waiting.
+     */
+    private void insertRowsWaitingForCommittedRows() throws DataSinkException
+    {
+        HashSet   uncommittedIdentities = new HashSet();
+        String[]  pendingIdentities     = _resumeCheckpoint.getPendingIdentities();
+        ArrayList committedIdentities   = new ArrayList();
+
+        for (int idx = 0; idx < pendingIdentities.length; idx++)
+        {
+            uncommittedIdentities.add(pendingIdentities[idx]);
+        }
+        for (Iterator it = _waitingObjectsByPendingFK.keySet().iterator(); it.hasNext();)
+        {
+            Identity identity = (Identity)it.next();
+
+            if (!uncommittedIdentities.contains(identity.toString()) && existsInDatabase(identity))
+            {
+                committedIdentities.add(identity);
+            }
+        }
+        for (Iterator it = committedIdentities.iterator(); it.hasNext();)
+        {
+            Identity identity = (Identity)it.next();
+
+            _identityMap.put(identity, identity);
+            insertWaitingObjects(identity);
+        }
+    }
+
+    /**
+     * Determines whether the row with the given identity exists in the database.
+     *
+     * @param identity The identity of the row
+     * @return <code>true</code> if the row exists
+     */
+    private boolean existsInDatabase(Identity identity) throws DataSinkException
+    {
+        Table    table     = identity.getTable();
+        Column[] pkColumns = table.getPrimaryKeyColumns();
+        DynaBean bean      = _model.createDynaBeanFor(table);
+
+        for (int idx = 0; idx < pkColumns.length; idx++)
+        {
+            Object value = identity.getColumnValue(pkColumns[idx].getName());
+
+            if (value == null)
+            {
+                return false;
+            }
+            bean.set(pkColumns[idx].getName(), value);
+        }
+        try
+        {
+            return _platform.exists(_connection, _model, bean);
+        }
+        catch (DatabaseOperationException ex)
+        {
+            abort();
+            throw new DataSinkException("Could not check whether the row " + identity + " exists", ex);
+        }
+    }
+
+    /**
+     * Checks that there are no rows left that wait for rows that they reference.
+     */
+    private void checkForWaitingObjects() throws DataSinkException
+    {
+        if (_waitingObjectCount > 0)
+        {
+            if (_log.isDebugEnabled())
+            {
+                HashSet waitingObjects = new HashSet();
+
+                for (Iterator it = _waitingObjectsByPendingFK.values().iterator(); it.hasNext();)
+                {
+                    waitingObjects.addAll((List)it.next());
+                }
+                for (Iterator it = waitingObjects.iterator(); it.hasNext();)
+                {
+                    WaitingObject obj = (WaitingObject)it.next();
+
+                    if (obj.isSpilled())
+                    {
+                        if (_spillFile == null)
+                        {
+                            // the spill file was deleted when the load was aborted
+                            continue;
+                        }
+                        obj.restore(_spillFile, _model);
+                    }
+
+                    Table    table = _model.getDynaClassFor(obj.getObject()).getTable();
+                    Identity objId = buildIdentityFromPKs(table, obj.getObject());
+
+                    _log.debug("Row " + objId + " is still not written because it depends on these yet unwritten rows");
+                    for (Iterator fkIt = obj.getPendingFKs(); fkIt.hasNext();)
+                    {
+                        Identity pendingFkId = (Identity)fkIt.next();
+
+                        _log.debug("  " + pendingFkId);
+                    }
+                        
+                }
+            }
+            if (_waitingObjectCount == 1)
+            {
+                throw new DataSinkException("There is one row still not written because of missing referenced rows");
+            }
+            else
+            {
+                throw new DataSinkException("There are " + _waitingObjectCount + " rows still not written because of missing referenced rows");
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void start() throws DataSinkException
+    {
+        _fkTables.clear();
+        _waitingObjectsByPendingFK.clear();
+        _waitingObjectCount         = 0;
+        _maxWaitingObjectCount      = 0;
+        _maxPendingIdentityCount    = 0;
+        _inMemoryWaitingObjectCount = 0;
+        _spilledObjectCount         = 0;
+        _uncommittedRowCount        = 0;
+        _uncommittedByteCount       = 0;
+        _committedRowCount          = 0;
+        _committedByteCount         = 0;
+        _commitCount                = 0;
+        _beanCount                  = 0;
+        _lastCheckpoint             = null;
+        _resumeCheckpoint           = null;
+        _endedSourceCount           = 0;
+        _identitiesGenerated        = false;
+        _insertedRowCounts.clear();
+        _waitingSequences.clear();
+        _sourceNames.clear();
+        _sourceStarts.clear();
+        _sourceSkipCounts.clear();
+        _sourceResumeIndices.clear();
+        if (_checkpointJournal != null)
+        {
+            resume();
+        }
+        if (_ensureFkOrder)
+        {
+            for (int tableIdx = 0; tableIdx < _model.getTableCount(); tableIdx++)
+            {
+                Table table = _model.getTable(tableIdx);
+    
+                for (int fkIdx = 0; fkIdx < table.getForeignKeyCount(); fkIdx++)
+                {
+                    Table foreignTable = table.getForeignKey(fkIdx).getForeignTable();
+    
+                    if (foreignTable != null)
+                    {
+                        _fkTables.add(foreignTable.getName());
+                    }
+                }
+            }
+        }
+        try
+        {
+            _connection = _platform.borrowConnection();
+        }
+        catch (DatabaseOperationException ex)
+        {
+            throw new DataSinkException(ex);
+        }
+        if (_disableIndexesAndForeignKeys)
+        {
+            try
+            {
+                _platform.disableIndexesAndForeignKeys(_connection, _model, false);
+            }
+            catch (DatabaseOperationException ex)
+            {
+                // we restore the indexes and foreign keys that were already disabled
+                try
+                {
+                    enableIndexesAndForeignKeys(false);
+                }
+                finally
+                {
+                    _platform.returnConnection(_connection);
+                    _connection = null;
+                }
+                throw new DataSinkException(ex);
+            }
+        }
+        if (isCommitIntervalUsed())
+        {
+            try
+            {
+                _originalAutoCommit = _connection.getAutoCommit();
+                _connection.setAutoCommit(false);
+            }
+            catch (SQLException ex)
+            {
+                abort();
+                throw new DataSinkException(ex);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void addBean(DynaBean bean) throws DataSinkException
+    {
+        Table    table        = _model.getDynaClassFor(bean).getTable();
+        Identity origIdentity = buildIdentityFromPKs(table, bean);
+        long     sequence     = _beanCount++;
+
+        if (isCommittedByResumedImport(sequence))
+        {
+            // the row was committed by the previous import after rows that were still waiting,
+            // so it only has to be registered for the rows that reference it
+            if (_ensureFkOrder && _fkTables.contains(table.getName()))
+            {
+                _identityMap.put(origIdentity, origIdentity);
+                insertWaitingObjects(origIdentity);
+            }
+            return;
+        }
+        if (_ensureFkOrder && (table.getForeignKeyCount() > 0))
+        {
+            WaitingObject waitingObj = new WaitingObject(bean, origIdentity, sequence);
+
+            for (int idx = 0; idx < table.getForeignKeyCount(); idx++)
+            {
+                ForeignKey fk         = table.getForeignKey(idx);
+                Identity   fkIdentity = buildIdentityFromFK(table, fk, bean);
+
+                if ((fkIdentity != null) && !fkIdentity.equals(origIdentity))
+                {
+                    Identity processedIdentity = _identityMap.get(fkIdentity);
+
+                    if (processedIdentity != null)
+                    {
+                        updateFKColumns(bean, fkIdentity.getForeignKeyName(), processedIdentity);
+                    }
+                    else
+                    {
+                        waitingObj.addPendingFK(fkIdentity);
+                    }
+                }
+            }
+            if (waitingObj.hasPendingFKs())
+            {
+                if (_log.isDebugEnabled())
+                {
+                    StringBuffer msg = new StringBuffer();
+
+                    msg.append("Defering insertion of row ");
+                    msg.append(buildIdentityFromPKs(table, bean).toString());
+                    msg.append(" because it is waiting for:");
+                    for (Iterator it = waitingObj.getPendingFKs(); it.hasNext();)
+                    {
+                        msg.append("\n  ");
+                        msg.append(it.next().toString());
+                    }
+                    _log.debug(msg.toString());
+                }
+                if (isCommitIntervalUsed())
+                {
+                    _waitingSequences.add(new Long(sequence));
+                }
+                addWaitingObject(waitingObj);
+                return;
+            }
+        }
+
+        if (insertBeanIntoDatabase(table, bean, origIdentity))
+        {
+            if (_log.isDebugEnabled())
+            {
+                _log.debug("Inserted bean " + origIdentity);
+            }
+            registerInsertedBean(table, bean, origIdentity);
+        }
+        if (isCommitIntervalUsed())
+        {
+            commitIfDue();
+        }
+    }
+
+    /**
+     * Determines whether the bean with the given sequence number was committed by the previous
+     * import that is resumed, though it comes after the offset of its source.
+     *
+     * @param sequence The position of the bean in the sequence of given beans
+     * @return <code>true</code> if the bean was committed
+     */
+    private boolean isCommittedByResumedImport(long sequence)
+    {
+        if ((_resumeCheckpoint == null) || _sourceNames.isEmpty())
+        {
+            return false;
+        }
+
+        int  sourceIdx = _sourceNames.size() - 1;
+        int  resumeIdx = ((Integer)_sourceResumeIndices.get(sourceIdx)).intValue();
+        long position  = ((Long)_sourceSkipCounts.get(sourceIdx)).longValue() + sequence -
+                         ((Long)_sourceStarts.get(sourceIdx)).longValue();
+
+        return (resumeIdx >= 0) && _resumeCheckpoint.isRowCommitted(resumeIdx, position);
+    }
+
+    /**
+     * Reads the checkpoint of a previous import from the journal, and if there is one, prepares
+     * the sink to resume this import.
+     */
+    private void resume() throws DataSinkException
+    {
+        ImportCheckpoint checkpoint;
+
+        try
+        {
+            checkpoint = _checkpointJournal.read();
+        }
+        catch (IOException ex)
+        {
+            throw new DataSinkException("Could not read the checkpoint journal " + _checkpointJournal.getFile().getAbsolutePath(), ex);
+        }
+        if (checkpoint == null)
+        {
+            return;
+        }
+        if (checkpoint.isIdentitiesGenerated())
+        {
+            for (int idx = 0; idx < checkpoint.getSourceCount(); idx++)
+            {
+                if (!checkpoint.isSourceComplete(idx))
+                {
+                    // the generated identity values of the committed rows are unknown, so the
+                    // foreign keys of the remaining rows referencing them cannot be changed
+                    throw new DataSinkException("The import cannot be resumed after the " + checkpoint +
+                                                " because referenced rows got identity values generated by the database;" +
+                                                " remove the committed rows and the checkpoint journal " +
+                                                _checkpointJournal.getFile().getAbsolutePath() + " to restart the import");
+                }
+            }
+        }
+
+        String[] tableNames = checkpoint.getTableNames();
+
+        for (int idx = 0; idx < tableNames.length; idx++)
+        {
+            _insertedRowCounts.put(tableNames[idx], new long[] { checkpoint.getTableRowCount(tableNames[idx]) });
+        }
+        _committedRowCount   = checkpoint.getRowCount();
+        _committedByteCount  = checkpoint.getByteCount();
+        _commitCount         = checkpoint.getCommitCount();
+        _identitiesGenerated = checkpoint.isIdentitiesGenerated();
+        _resumeCheckpoint    = checkpoint;
+        _lastCheckpoint      = checkpoint;
+        _log.info("Resuming the import after the " + checkpoint);
+    }
+
+    /**
+     * Registers the identity of the given inserted bean, and inserts the objects that were
+     * waiting for it.
+     * 
+     * @param table        The table of the bean
+     * @param bean         The bean
+     * @param origIdentity The original identity of the bean
+     */
+    private void registerInsertedBean(Table table, DynaBean bean, Identity origIdentity) throws DataSinkException
+    {
+        if (_ensureFkOrder && _fkTables.contains(table.getName()))
+        {
+            // the primary key columns can also have changed before the insertion if they
+            // are part of a foreign key to a row whose identity was generated by the database
+            Identity newIdentity = buildIdentityFromPKs(table, bean);
+
+            if (isIdentityNeededAfterInsertion(table))
+            {
+                _identitiesGenerated = true;
+            }
+            _identityMap.put(origIdentity, newIdentity);
+            insertWaitingObjects(origIdentity);
+        }
+    }
+
+    /**
+     * Inserts the objects that were waiting for the row with the given identity, which has been
+     * inserted and registered in the identity map.
+     * 
+     * @param origIdentity The original identity of the inserted row
+     */
+    private void insertWaitingObjects(Identity origIdentity) throws DataSinkException
+    {
+        ArrayList finishedObjs      = new ArrayList();
+        // we're doing multiple passes so that we can insert as much objects in
+        // one go as possible
+        ArrayList identitiesToCheck = new ArrayList();
+
+        identitiesToCheck.add(origIdentity);
+        while (!identitiesToCheck.isEmpty() && (_waitingObjectCount > 0))
+        {
+            Identity curIdentity    = (Identity)identitiesToCheck.get(0);
+            Identity curNewIdentity = _identityMap.get(curIdentity);
+
+            identitiesToCheck.remove(0);
+            finishedObjs.clear();
+
+            // only the objects that wait for this identity are affected
+            List waitingObjs = (List)_waitingObjectsByPendingFK.remove(curIdentity);
+
+            for (int idx = 0; (waitingObjs != null) && (idx < waitingObjs.size()); idx++)
+            {
+                WaitingObject waitingObj = (WaitingObject)waitingObjs.get(idx);
+                Identity      fkIdentity = waitingObj.removePendingFK(curIdentity);
+                boolean       wasSpilled = waitingObj.isSpilled();
+
+                if (wasSpilled)
+                {
+                    waitingObj.restore(_spillFile, _model);
+                }
+                if (fkIdentity != null)
+                {
+                    updateFKColumns(waitingObj.getObject(), fkIdentity.getForeignKeyName(), curNewIdentity);
+                }
+                if (!waitingObj.hasPendingFKs())
+                {
+                    _waitingObjectCount--;
+                    _waitingSequences.remove(new Long(waitingObj.getSequence()));
+                    if (!wasSpilled)
+                    {
+                        _inMemoryWaitingObjectCount--;
+                    }
+                    // we defer handling of the finished objects until all waiting objects have been updated
+                    finishedObjs.add(waitingObj);
+                }
+                else if (wasSpilled)
+                {
+                    // the updated row is appended to the spill file, the old version has been released
+                    waitingObj.spill(_spillFile);
+                }
+            }
+            for (Iterator finishedObjIt = finishedObjs.iterator(); finishedObjIt.hasNext();)
+            {
+                WaitingObject finishedWaitingObj = (WaitingObject)finishedObjIt.next();
+                DynaBean      finishedObj        = finishedWaitingObj.getObject();
+                Table         tableForObj        = _model.getDynaClassFor(finishedObj).getTable();
+                Identity      objIdentity        = finishedWaitingObj.getObjectIdentity();
+
+                // if the row is queued for batch insertion and its identity is only known
+                // after the insertion, then it is registered when the batch is inserted
+                if (insertBeanIntoDatabase(tableForObj, finishedObj, objIdentity))
+                {
+                    Identity newObjIdentity = buildIdentityFromPKs(tableForObj, finishedObj);
+
+                    if (isIdentityNeededAfterInsertion(tableForObj))
+                    {
+                        _identitiesGenerated = true;
+                    }
+                    _identityMap.put(objIdentity, newObjIdentity);
+                    identitiesToCheck.add(objIdentity);
+                    if (_log.isDebugEnabled())
+                    {
+                        _log.debug("Inserted deferred row " + objIdentity);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Registers the given waiting object under each of the identities that it is waiting for.
+     * If the spill threshold has been reached, the object is moved to the spill file.
+     * 
+     * @param waitingObj The waiting object
+     */
+    private void addWaitingObject(WaitingObject waitingObj) throws DataSinkException
+    {
+        if ((_spillThreshold > 0) && (_inMemoryWaitingObjectCount >= _spillThreshold))
+        {
+            if (_spillFile == null)
+            {
+                _spillFile = new SpillFile();
+            }
+            else if (_spillFile.isCompactionDue())
+            {
+                compactSpillFile();
+            }
+            waitingObj.spill(_spillFile);
+            _spilledObjectCount++;
+        }
+        else
+        {
+            _inMemoryWaitingObjectCount++;
+        }
+        for (Iterator it = waitingObj.getPendingFKs(); it.hasNext();)
+        {
+            Identity pendingFkId = (Identity)it.next();
+            List     waitingObjs = (List)_waitingObjectsByPendingFK.get(pendingFkId);
+
+            if (waitingObjs == null)
+            {
+                waitingObjs = new ArrayList(1);
+                _waitingObjectsByPendingFK.put(pendingFkId, waitingObjs);
+            }
+            waitingObjs.add(waitingObj);
+        }
+        _waitingObjectCount++;
+        if (_waitingObjectCount > _maxWaitingObjectCount)
+        {
+            _maxWaitingObjectCount = _waitingObjectCount;
+        }
+        if (_waitingObjectsByPendingFK.size() > _maxPendingIdentityCount)
+        {
+            _maxPendingIdentityCount = _waitingObjectsByPendingFK.size();
+        }
+    }
+
+    /**
+     * Compacts the spill file so that it only contains the rows that are still waiting.
+     */
+    private void compactSpillFile() throws DataSinkException
+    {
+        HashSet   spilledObjSet = new HashSet();
+        ArrayList spilledObjs   = new ArrayList();
+
+        for (Iterator it = _waitingObjectsByPendingFK.values().iterator(); it.hasNext();)
+        {
+            List waitingObjs = (List)it.next();
+
+            for (int idx = 0; idx < waitingObjs.size(); idx++)
+            {
+                WaitingObject waitingObj = (WaitingObject)waitingObjs.get(idx);
+
+                if (waitingObj.isSpilled() && spilledObjSet.add(waitingObj))
+                {
+                    spilledObjs.add(waitingObj);
+                }
+            }
+        }
+
+        long[] offsets = new long[spilledObjs.size()];
+
+        for (int idx = 0; idx < offsets.length; idx++)
+        {
+            offsets[idx] = ((WaitingObject)spilledObjs.get(idx)).getSpillOffset();
+        }
+        offsets = _spillFile.compact(offsets);
+        for (int idx = 0; idx < offsets.length; idx++)
+        {
+            ((WaitingObject)spilledObjs.get(idx)).setSpillOffset(offsets[idx]);
+        }
+    }
+
+    /**
+     * Inserts the bean into the database or batch queue. If the bean is queued and its identity
+     * is generated by the database, then it is registered via {@link #registerInsertedBean(Table, DynaBean, Identity)}
+     * once the batch has been inserted.
+     * 
+     * @param table        The table
+     * @param bean         The bean
+     * @param origIdentity The original identity of the bean
+     * @return <code>false</code> if the bean was queued and its identity will only be known
+     *         after the insertion of the batch
+     */
+    private boolean insertBeanIntoDatabase(Table table, DynaBean bean, Identity origIdentity) throws DataSinkException
+    {
+        boolean identityGenerated = isIdentityNeededAfterInsertion(table);
+
+        // we can only queue rows whose generated identity is needed, if the platform can
+        // read the generated values for all rows of a batch
+        if (_useBatchMode &&
+            (_disableIndexesAndForeignKeys || !_tablesInFkCycle.contains(table.getName())) &&
+            (!identityGenerated ||
+             (_platform.getPlatformInfo().isGeneratedKeysReadableInBatchMode() && !_tablesWithSelfIdentityReference.contains(table.getName()))))
+        {
+            ArrayList batchQueue      = (ArrayList)_batchQueues.get(table.getName());
+            ArrayList batchIdentities = (ArrayList)_batchQueueIdentities.get(table.getName());
+
+            if (batchQueue == null)
+            {
+                batchQueue      = new ArrayList();
+                batchIdentities = new ArrayList();
+                _batchQueues.put(table.getName(), batchQueue);
+                _batchQueueIdentities.put(table.getName(), batchIdentities);
+            }
+            batchQueue.add(bean);
+            batchIdentities.add(identityGenerated ? origIdentity : null);
+            if (isBatchQueueFull(table, batchQueue, bean))
+            {
+                purgeBatchQueue(table, new HashSet());
+            }
+            return !identityGenerated;
+        }
+        else
+        {
+            if (_useBatchMode)
+            {
+                purgeReferencedBatchQueues(table);
+            }
+            insertSingleBeanIntoDatabase(table, bean);
+            return true;
+        }
+    }
+
+    /**
+     * Purges the batch queues of the tables that are referenced by the given table via foreign
+     * keys, so that a row of the given table can be inserted directly.
+     * 
+     * @param table The table
      */
-    public void setEnsureForeignKeyOrder(boolean ensureFkOrder)
+    private void purgeReferencedBatchQueues(Table table) throws DataSinkException
     {
-        _ensureFkOrder = ensureFkOrder;
-    }
+        HashSet purgedTables = new HashSet();
 
-    /**
-     * Determines whether batch mode is used for inserting the beans.
-     *
-     * @return <code>true</code> if batch mode is used (<code>false</code> per default)
-     */
-    public boolean isUseBatchMode()
-    {
-        return _useBatchMode;
+        purgedTables.add(table.getName());
+        for (int idx = 0; idx < table.getForeignKeyCount(); idx++)
+        {
+            Table foreignTable = table.getForeignKey(idx).getForeignTable();
+
+            if (foreignTable != null)
+            {
+                purgeBatchQueue(foreignTable, purgedTables);
+            }
+        }
     }
 
     /**
-     * Specifies whether batch mode is used for inserting the beans. Note that this requires
-     * that the primary key values are not defined by the database.
-     *
-     * @param useBatchMode <code>true</code> if batch mode shall be used
+     * Determines whether the batch queue of the given table shall be purged after the given
+     * bean was added to it.
+     * 
+     * @param table      The table
+     * @param batchQueue The batch queue of the table
+     * @param addedBean  The bean that was added to the queue
+     * @return <code>true</code> if the queue shall be purged
      */
-    public void setUseBatchMode(boolean useBatchMode)
+    private boolean isBatchQueueFull(Table table, List batchQueue, DynaBean addedBean)
     {
-        _useBatchMode = useBatchMode;
+        if (!_useAdaptiveBatchSize)
+        {
+            return batchQueue.size() >= _batchSize;
+        }
+
+        BatchSizeTuner tuner       = getBatchSizeTuner(table);
+        Long           queuedBytes = (Long)_batchQueueBytes.get(table.getName());
+        long           bytes       = (queuedBytes == null ? 0 : queuedBytes.longValue()) + estimateSize(addedBean);
+
+        _batchQueueBytes.put(table.getName(), new Long(bytes));
+        return (batchQueue.size() >= tuner.getBatchSize()) ||
+               ((tuner.getMaxBytes() > 0) && (bytes >= tuner.getMaxBytes()));
     }
 
     /**
-     * Returns the (maximum) number of beans to insert in one batch.
-     *
-     * @return The number of beans
+     * Returns the batch size tuner for the given table.
+     * 
+     * @param table The table
+     * @return The tuner
      */
-    public int getBatchSize()
+    private BatchSizeTuner getBatchSizeTuner(Table table)
     {
-        return _batchSize;
+        BatchSizeTuner tuner = (BatchSizeTuner)_batchSizeTuners.get(table.getName());
+
+        if (tuner == null)
+        {
+            tuner = new BatchSizeTuner(_batchSize, _minBatchSize, _maxBatchSize, _minBatchBytes, _maxBatchBytes);
+            _batchSizeTuners.put(table.getName(), tuner);
+        }
+        return tuner;
     }
 
     /**
-     * Sets the (maximum) number of beans to insert in one batch.
-     *
-     * @param batchSize The number of beans
+     * Estimates the number of bytes of the given inserted beans for the commit interval.
+     * 
+     * @param beans      The beans
+     * @param batchBytes The estimated number of bytes if already known, or <code>null</code>
+     * @return The number of bytes, or 0 if there is no commit interval in bytes
      */
-    public void setBatchSize(int batchSize)
+    private long estimateCommitSize(List beans, Long batchBytes)
     {
-        _batchSize = batchSize;
+        long result = 0;
+
+        if (batchBytes != null)
+        {
+            result = batchBytes.longValue();
+        }
+        else if (_commitIntervalBytes > 0)
+        {
+            for (int idx = 0; idx < beans.size(); idx++)
+            {
+                result += estimateSize((DynaBean)beans.get(idx));
+            }
+        }
+        return result;
     }
 
     /**
-     * {@inheritDoc}
+     * Estimates the number of bytes that the values of the given bean occupy in a batch.
+     * 
+     * @param bean The bean
+     * @return The number of bytes
      */
-    public void end() throws DataSinkException
+    private long estimateSize(DynaBean bean)
     {
-        purgeBatchQueue();
-        if (_connection != null)
+        SqlDynaProperty[] properties = _model.getDynaClassFor(bean).getSqlDynaProperties();
+        long              result     = 0;
+
+        for (int idx = 0; idx < properties.length; idx++)
         {
-            try
+            Object value = bean.get(properties[idx].getName());
+
+            if (value instanceof String)
             {
-                _connection.close();
+                result += ((String)value).length();
             }
-            catch (SQLException ex)
+            else if (value instanceof byte[])
             {
-                throw new DataSinkException(ex);
+                result += ((byte[])value).length;
             }
-        }
-        if (!_waitingObjects.isEmpty())
-        {
-            if (_log.isDebugEnabled())
+            else if (value != null)
             {
-                for (Iterator it = _waitingObjects.iterator(); it.hasNext();)
-                {
-                    WaitingObject obj   = (WaitingObject)it.next();
-                    Table         table = _model.getDynaClassFor(obj.getObject()).getTable();
-                    Identity      objId = buildIdentityFromPKs(table, obj.getObject());
+                result += 8;
+            }
+        }
+        return result;
+    }
 
-                    _log.debug("Row " + objId + " is still not written because it depends on these yet unwritten rows");
-                    for (Iterator fkIt = obj.getPendingFKs(); fkIt.hasNext();)
-                    {
-                        Identity pendingFkId = (Identity)fkIt.next();
+    /**
+     * Registers inserted rows for the commit interval and the checkpoints.
+     *
+     * @param table     The table of the rows
+     * @param rowCount  The number of rows
+     * @param byteCount The (estimated) number of bytes of the rows, or 0 if not measured
+     */
+    private void registerInsertedRows(Table table, int rowCount, long byteCount)
+    {
+        long[] tableRowCount = (long[])_insertedRowCounts.get(table.getName());
 
-                        _log.debug("  " + pendingFkId);
-                    }
-                        
-                }
-            }
-            if (_waitingObjects.size() == 1)
-            {
-                throw new DataSinkException("There is one row still not written because of missing referenced rows");
-            }
-            else
-            {
-                throw new DataSinkException("There are " + _waitingObjects.size() + " rows still not written because of missing referenced rows");
-            }
+        if (tableRowCount == null)
+        {
+            tableRowCount = new long[1];
+            _insertedRowCounts.put(table.getName(), tableRowCount);
         }
+        tableRowCount[0]      += rowCount;
+        _uncommittedRowCount  += rowCount;
+        _uncommittedByteCount += byteCount;
     }
 
     /**
-     * {@inheritDoc}
+     * Commits the inserted rows if the commit interval has been reached.
      */
-    public void start() throws DataSinkException
+    private void commitIfDue() throws DataSinkException
     {
-        _fkTables.clear();
-        _waitingObjects.clear();
-        if (_ensureFkOrder)
+        if (((_commitInterval > 0) && (_uncommittedRowCount >= _commitInterval)) ||
+            ((_commitIntervalBytes > 0) && (_uncommittedByteCount >= _commitIntervalBytes)))
         {
-            for (int tableIdx = 0; tableIdx < _model.getTableCount(); tableIdx++)
-            {
-                Table table = _model.getTable(tableIdx);
-    
-                for (int fkIdx = 0; fkIdx < table.getForeignKeyCount(); fkIdx++)
-                {
-                    ForeignKey curFk = table.getForeignKey(fkIdx);
-    
-                    _fkTables.add(curFk.getForeignTable());
-                }
-            }
+            commit();
         }
+    }
+
+    /**
+     * Inserts the queued rows and commits, and then records the checkpoint for this commit.
+     */
+    private void commit() throws DataSinkException
+    {
+        purgeBatchQueues();
         try
         {
-            _connection = _platform.borrowConnection();
+            _connection.commit();
         }
-        catch (DatabaseOperationException ex)
+        catch (SQLException ex)
         {
-            throw new DataSinkException(ex);
+            abort();
+            throw new DataSinkException("Could not commit the inserted rows", ex);
+        }
+        _committedRowCount   += _uncommittedRowCount;
+        _committedByteCount  += _uncommittedByteCount;
+        _uncommittedRowCount  = 0;
+        _uncommittedByteCount = 0;
+        _commitCount++;
+        _lastCheckpoint = createCheckpoint();
+        if (_log.isDebugEnabled())
+        {
+            _log.debug("Committed " + _lastCheckpoint);
+        }
+        if (_checkpointJournal != null)
+        {
+            try
+            {
+                _checkpointJournal.write(_lastCheckpoint);
+            }
+            catch (IOException ex)
+            {
+                abort();
+                throw new DataSinkException("Could not write the checkpoint journal " + _checkpointJournal.getFile().getAbsolutePath(), ex);
+            }
         }
     }
 
     /**
-     * {@inheritDoc}
+     * Creates the checkpoint for the current state. All beans given to the sink except for the
+     * beans that are still waiting for the rows that they reference, have been inserted. So for
+     * each source, the checkpoint records the positions of its waiting beans, and the offset is
+     * the position of the first of them (the positions include the rows that were skipped
+     * because they were committed previously). The identities that the waiting beans wait for
+     * are recorded too, so that a resumed import can tell them apart from the identities of
+     * committed rows.
+     *
+     * @return The checkpoint
      */
-    public void addBean(DynaBean bean) throws DataSinkException
+    private ImportCheckpoint createCheckpoint()
     {
-        Table    table        = _model.getDynaClassFor(bean).getTable();
-        Identity origIdentity = buildIdentityFromPKs(table, bean);
+        ImportCheckpoint checkpoint = new ImportCheckpoint(_commitCount, _committedRowCount, _committedByteCount);
 
-        if (_ensureFkOrder && (table.getForeignKeyCount() > 0))
+        for (int idx = 0; idx < _sourceNames.size(); idx++)
         {
-            WaitingObject waitingObj = new WaitingObject(bean, origIdentity);
+            String    name        = (String)_sourceNames.get(idx);
+            boolean   last        = idx + 1 == _sourceStarts.size();
+            long      start       = ((Long)_sourceStarts.get(idx)).longValue();
+            long      end         = last ? _beanCount : ((Long)_sourceStarts.get(idx + 1)).longValue();
+            long      skipCount   = ((Long)_sourceSkipCounts.get(idx)).longValue();
+            int       resumeIdx   = ((Integer)_sourceResumeIndices.get(idx)).intValue();
+            long      readCount   = skipCount + end - start;
+            ArrayList pendingRows = new ArrayList();
 
-            for (int idx = 0; idx < table.getForeignKeyCount(); idx++)
+            for (Iterator it = _waitingSequences.subSet(new Long(start), new Long(end)).iterator(); it.hasNext();)
             {
-                ForeignKey fk         = table.getForeignKey(idx);
-                Identity   fkIdentity = buildIdentityFromFK(table, fk, bean);
+                pendingRows.add(new Long(skipCount + ((Long)it.next()).longValue() - start));
+            }
+            if ((resumeIdx >= 0) && (_resumeCheckpoint.getSourceReadCount(resumeIdx) > readCount))
+            {
+                // the rows that the previous import read beyond the rows given to this import
+                // keep their state
+                long[] prevPendingRows = _resumeCheckpoint.getSourcePendingRows(resumeIdx);
 
-                if ((fkIdentity != null) && !fkIdentity.equals(origIdentity))
+                for (int rowIdx = 0; rowIdx < prevPendingRows.length; rowIdx++)
                 {
-                    Identity processedIdentity = (Identity)_identityMap.get(fkIdentity);
-
-                    if (processedIdentity != null)
-                    {
-                        updateFKColumns(bean, fkIdentity.getForeignKeyName(), processedIdentity);
-                    }
-                    else
+                    if (prevPendingRows[rowIdx] >= readCount)
                     {
-                        waitingObj.addPendingFK(fkIdentity);
+                        pendingRows.add(new Long(prevPendingRows[rowIdx]));
                     }
                 }
+                readCount = _resumeCheckpoint.getSourceReadCount(resumeIdx);
             }
-            if (waitingObj.hasPendingFKs())
-            {
-                if (_log.isDebugEnabled())
-                {
-                    StringBuffer msg = new StringBuffer();
 
-                    msg.append("Defering insertion of row ");
-                    msg.append(buildIdentityFromPKs(table, bean).toString());
-                    msg.append(" because it is waiting for:");
-                    for (Iterator it = waitingObj.getPendingFKs(); it.hasNext();)
-                    {
-                        msg.append("\n  ");
-                        msg.append(it.next().toString());
-                    }
-                    _log.debug(msg.toString());
-                }
-                _waitingObjects.add(waitingObj);
-                return;
+            long[]  rows     = new long[pendingRows.size()];
+            boolean complete = (idx < _endedSourceCount) && (rows.length == 0);
+
+            for (int rowIdx = 0; rowIdx < rows.length; rowIdx++)
+            {
+                rows[rowIdx] = ((Long)pendingRows.get(rowIdx)).longValue();
             }
+            if (!complete && (start == end) && (resumeIdx >= 0))
+            {
+                // a source that was skipped as a whole stays complete
+                complete = _resumeCheckpoint.isSourceComplete(resumeIdx);
+            }
+            checkpoint.addSource(name, rows.length > 0 ? rows[0] : readCount, readCount, rows, complete);
         }
+        for (int idx = 0; idx < _model.getTableCount(); idx++)
+        {
+            String tableName     = _model.getTable(idx).getName();
+            long[] tableRowCount = (long[])_insertedRowCounts.get(tableName);
 
-        insertBeanIntoDatabase(table, bean);
-
-        if (_log.isDebugEnabled())
+            if (tableRowCount != null)
+            {
+                checkpoint.setTableRowCount(tableName, tableRowCount[0]);
+            }
+        }
+        for (Iterator it = _waitingObjectsByPendingFK.keySet().iterator(); it.hasNext();)
         {
-            _log.debug("Inserted bean " + origIdentity);
+            checkpoint.addPendingIdentity(it.next().toString());
         }
+        checkpoint.setIdentitiesGenerated(_identitiesGenerated);
+        return checkpoint;
+    }
 
-        if (_ensureFkOrder && _fkTables.contains(table))
-        {
-            Identity  newIdentity  = buildIdentityFromPKs(table, bean);
-            ArrayList finishedObjs = new ArrayList();
+    /**
+     * Determines whether the identity of the rows of the given table is generated by the
+     * database and needed after the insertion of the rows, i.e. whether rows waiting for
+     * them need to be updated with the generated values.
+     * 
+     * @param table The table
+     * @return <code>true</code> if the generated identity is needed
+     */
+    private boolean isIdentityNeededAfterInsertion(Table table)
+    {
+        return _ensureFkOrder &&
+               _fkTables.contains(table.getName()) &&
+               _tablesWithIdentityPK.contains(table.getName()) &&
+               !(_platform.isIdentityOverrideOn() && _platform.getPlatformInfo().isIdentityOverrideAllowed());
+    }
 
-            _identityMap.put(origIdentity, newIdentity);
+    /**
+     * Purges the batch queues of all tables. As inserting rows whose identity is generated by
+     * the database can finish waiting rows which are then queued, this is repeated until
+     * all queues are empty.
+     */
+    private void purgeBatchQueues() throws DataSinkException
+    {
+        boolean purged;
 
-            // we're doing multiple passes so that we can insert as much objects in
-            // one go as possible
-            ArrayList identitiesToCheck = new ArrayList();
+        do
+        {
+            HashSet purgedTables = new HashSet();
 
-            identitiesToCheck.add(origIdentity);
-            while (!identitiesToCheck.isEmpty() && !_waitingObjects.isEmpty())
+            purged = false;
+            for (int idx = 0; idx < _model.getTableCount(); idx++)
             {
-                Identity curIdentity    = (Identity)identitiesToCheck.get(0);
-                Identity curNewIdentity = (Identity)_identityMap.get(curIdentity);
-
-                identitiesToCheck.remove(0);
-                finishedObjs.clear();
-                for (Iterator waitingObjIt = _waitingObjects.iterator(); waitingObjIt.hasNext();)
-                {
-                    WaitingObject waitingObj = (WaitingObject)waitingObjIt.next();
-                    Identity      fkIdentity = waitingObj.removePendingFK(curIdentity);
+                Table     table      = _model.getTable(idx);
+                ArrayList batchQueue = (ArrayList)_batchQueues.get(table.getName());
 
-                    if (fkIdentity != null)
-                    {
-                        updateFKColumns(waitingObj.getObject(), fkIdentity.getForeignKeyName(), curNewIdentity);
-                    }
-                    if (!waitingObj.hasPendingFKs())
-                    {
-                        waitingObjIt.remove();
-                        // we defer handling of the finished objects to avoid concurrent modification exceptions
-                        finishedObjs.add(waitingObj.getObject());
-                    }
-                }
-                for (Iterator finishedObjIt = finishedObjs.iterator(); finishedObjIt.hasNext();)
+                if ((batchQueue != null) && !batchQueue.isEmpty())
                 {
-                    DynaBean finishedObj = (DynaBean)finishedObjIt.next();
-                    Table    tableForObj = _model.getDynaClassFor(finishedObj).getTable();
-                    Identity objIdentity = buildIdentityFromPKs(tableForObj, finishedObj);
-
-                    insertBeanIntoDatabase(tableForObj, finishedObj);
-                    
-                    Identity newObjIdentity = buildIdentityFromPKs(tableForObj, finishedObj);
-
-                    _identityMap.put(objIdentity, newObjIdentity);
-                    identitiesToCheck.add(objIdentity);
-                    if (_log.isDebugEnabled())
-                    {
-                        _log.debug("Inserted deferred row " + objIdentity);
-                    }
+                    purgeBatchQueue(table, purgedTables);
+                    purged = true;
                 }
             }
         }
+        while (purged);
     }
 
     /**
-     * Inserts the bean into the database or batch queue.
+     * Purges the batch queue of the given table by inserting the objects into the database.
+     * Before that, the queues of the tables referenced by this table via foreign keys are
+     * purged so that referenced rows are always inserted before the rows referencing them.
+     * The rows of tables that reference each other in a circle are not queued (see
+     * {@link #insertBeanIntoDatabase(Table, DynaBean, Identity)}) unless the foreign keys
+     * are disabled, so this order is guaranteed across the tables.
      * 
-     * @param table The table
-     * @param bean  The bean
+     * @param table        The table
+     * @param purgedTables The names of the tables that have already been purged in this pass
      */
-    private void insertBeanIntoDatabase(Table table, DynaBean bean) throws DataSinkException
+    private void purgeBatchQueue(Table table, HashSet purgedTables) throws DataSinkException
     {
-        if (_useBatchMode)
+        if (!purgedTables.add(table.getName()))
+        {
+            return;
+        }
+
+        ArrayList batchQueue = (ArrayList)_batchQueues.get(table.getName());
+
+        if ((batchQueue == null) || batchQueue.isEmpty())
+        {
+            return;
+        }
+        for (int idx = 0; idx < table.getForeignKeyCount(); idx++)
         {
-            _batchQueue.add(bean);
-            if (_batchQueue.size() >= _batchSize)
+            Table foreignTable = table.getForeignKey(idx).getForeignTable();
+
+            if (foreignTable != null)
             {
-                purgeBatchQueue();
+                purgeBatchQueue(foreignTable, purgedTables);
             }
         }
-        else
+
+        // registering the inserted rows can queue further rows, so we work on a copy
+        ArrayList beans      = new ArrayList(batchQueue);
+        ArrayList identities = (ArrayList)_batchQueueIdentities.get(table.getName());
+        ArrayList origIds    = new ArrayList(identities);
+        boolean   inserted   = false;
+        boolean   bulkLoad   = _useBulkLoad;
+        Long      batchBytes = (Long)_batchQueueBytes.remove(table.getName());
+        long      startTime  = System.currentTimeMillis();
+
+        batchQueue.clear();
+        identities.clear();
+        // bulk loads cannot return the generated identity values
+        for (int idx = 0; bulkLoad && (idx < origIds.size()); idx++)
         {
-            insertSingleBeanIntoDatabase(table, bean);
+            bulkLoad = (origIds.get(idx) == null);
         }
-    }
-
-    /**
-     * Purges the batch queue by inserting the objects into the database.
-     */
-    private void purgeBatchQueue() throws DataSinkException
-    {
-        if (!_batchQueue.isEmpty())
+        try
         {
-            try
+            if (bulkLoad)
             {
-                _platform.insert(_connection, _model, _batchQueue);
-                if (!_connection.getAutoCommit())
-                {
-                    _connection.commit();
-                }
-                if (_log.isDebugEnabled())
-                {
-                    _log.debug("Inserted " + _batchQueue.size() + " rows in batch mode ");
-                }
+                _platform.bulkLoad(_connection, _model, beans);
             }
-            catch (Exception ex)
+            else
             {
-                if (_haltOnErrors)
-                {
-                    _platform.returnConnection(_connection);
-                    throw new DataSinkException(ex);
-                }
-                else
-                {
-                    _log.warn("Exception while inserting " + _batchQueue.size() + " rows via batch mode into the database", ex);
-                }
+                _platform.insert(_connection, _model, beans);
+            }
+            if (!isCommitIntervalUsed() && !_connection.getAutoCommit())
+            {
+                _connection.commit();
+            }
+            inserted = true;
+            registerInsertedRows(table, beans.size(), estimateCommitSize(beans, batchBytes));
+            if (_useAdaptiveBatchSize)
+            {
+                getBatchSizeTuner(table).batchExecuted(beans.size(),
+                                                       batchBytes == null ? 0 : batchBytes.longValue(),
+                                                       System.currentTimeMillis() - startTime);
+            }
+            if (_log.isDebugEnabled())
+            {
+                _log.debug("Inserted " + beans.size() + " rows into table " + table.getName() + " in batch mode");
+            }
+        }
+        catch (Exception ex)
+        {
+            if (_haltOnErrors)
+            {
+                abort();
+                throw new DataSinkException(ex);
+            }
+            else
+            {
+                _log.warn("Exception while inserting " + beans.size() + " rows via batch mode into table " + table.getName(), ex);
+            }
+        }
+        for (int idx = 0; inserted && (idx < beans.size()); idx++)
+        {
+            Identity origIdentity = (Identity)origIds.get(idx);
+
+            if (origIdentity != null)
+            {
+                registerInsertedBean(table, (DynaBean)beans.get(idx), origIdentity);
             }
-            _batchQueue.clear();
         }
     }
     
@@ -469,7 +1958,7 @@ public class DataToDatabaseSink implements DataSink
             ForeignKey selfRefFk         = null;
 
             if (!_platform.isIdentityOverrideOn() &&
-                _tablesWithSelfIdentityReference.contains(table))
+                _tablesWithSelfIdentityReference.contains(table.getName()))
             {
                 selfRefFk = table.getSelfReferencingForeignKey();
 
@@ -481,7 +1970,7 @@ public class DataToDatabaseSink implements DataSink
 
                 if (pkIdentity.equals(fkIdentity))
                 {
-                    if (_tablesWithRequiredSelfReference.contains(table))
+                    if (_tablesWithRequiredSelfReference.contains(table.getName()))
                     {
                         throw new DataSinkException("Can only insert rows with fk pointing to themselves when all fk columns can be NULL (row pk is " + pkIdentity + ")");
                     }
@@ -505,7 +1994,7 @@ public class DataToDatabaseSink implements DataSink
                     fkValues.add(bean.get(columnName));
                     bean.set(columnName, null);
                 }
-                _platform.insert(_connection, _model, bean);
+                _platform.insert(_connection, _model, bean, isCommitIntervalUsed());
                 for (int idx = 0; idx < selfRefFk.getReferenceCount(); idx++)
                 {
                     bean.set(selfRefFk.getReference(idx).getLocalColumnName(), fkValues.get(idx));
@@ -514,18 +2003,20 @@ public class DataToDatabaseSink implements DataSink
             }
             else
             {
-                _platform.insert(_connection, _model, bean);
+                // the platform must not commit the rows of the current interval itself
+                _platform.insert(_connection, _model, bean, isCommitIntervalUsed());
             }
-            if (!_connection.getAutoCommit())
+            if (!isCommitIntervalUsed() && !_connection.getAutoCommit())
             {
                 _connection.commit();
             }
+            registerInsertedRows(table, 1, _commitIntervalBytes > 0 ? estimateSize(bean) : 0);
         }
         catch (Exception ex)
         {
             if (_haltOnErrors)
             {
-                _platform.returnConnection(_connection);
+                abort();
                 throw new DataSinkException(ex);
             }
             else
@@ -590,7 +2081,12 @@ public class DataToDatabaseSink implements DataSink
     private Identity buildIdentityFromPKs(Table table, DynaBean bean)
     {
         Identity identity  = new Identity(table);
-        Column[] pkColumns = table.getPrimaryKeyColumns();
+        Column[] pkColumns = (Column[])_pkColumnsByTable.get(table.getName());
+
+        if (pkColumns == null)
+        {
+            pkColumns = table.getPrimaryKeyColumns();
+        }
 
         for (int idx = 0; idx < pkColumns.length; idx++)
         {
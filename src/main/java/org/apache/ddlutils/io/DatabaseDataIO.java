@@ -19,6 +19,7 @@ package org.apache.ddlutils.io;
  * under the License.
  */
 
+import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -34,11 +35,15 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.collections.map.ListOrderedMap;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.apache.ddlutils.DdlUtilsException;
 import org.apache.ddlutils.Platform;
 import org.apache.ddlutils.model.Column;
 import org.apache.ddlutils.model.Database;
 import org.apache.ddlutils.model.Table;
+import org.apache.ddlutils.platform.ModelBasedResultSetIterator;
+import org.apache.ddlutils.util.BoundedBuffer;
 
 /**
  * Provides basic live database data <-> XML functionality.
@@ -47,6 +52,11 @@ import org.apache.ddlutils.model.Table;
  */
 public class DatabaseDataIO
 {
+    /** The number of rows after which they are committed if a checkpoint file but no commit interval is set. */
+    public static final int DEFAULT_CHECKPOINT_COMMIT_INTERVAL = 10000;
+
+    /** Our log. */
+    private final Log _log = LogFactory.getLog(DatabaseDataIO.class);
     /** The converters to use for converting between data and its XML representation. */
     private ArrayList _converters = new ArrayList();
     /** Whether we should continue when an error was detected. */
@@ -55,8 +65,40 @@ public class DatabaseDataIO
     private boolean _ensureFKOrder = true;
     /** Whether we should use batch mode. */
     private boolean _useBatchMode;
+    /** Whether to use the bulk loader of the platform in batch mode. */
+    private boolean _useBulkLoad;
+    /** Whether the foreign keys and non-unique indexes are disabled while inserting data. */
+    private boolean _disableIndexesAndForeignKeys;
     /** The maximum number of objects to insert in one batch. */
     private Integer _batchSize;
+    /** Whether the batch size is tuned per table based on the measured throughput. */
+    private boolean _useAdaptiveBatchSize;
+    /** The minimum number of objects to insert in one batch when the batch size is tuned. */
+    private Integer _minBatchSize;
+    /** The maximum number of objects to insert in one batch when the batch size is tuned. */
+    private Integer _maxBatchSize;
+    /** The minimum number of bytes to insert in one batch when the batch size is tuned. */
+    private Long _minBatchBytes;
+    /** The maximum number of bytes to insert in one batch when the batch size is tuned. */
+    private Long _maxBatchBytes;
+    /** Whether the data is read in pipelined mode when inserting it into the database. */
+    private boolean _usePipelining;
+    /** The maximum number of deferred rows and of row identities held in memory when inserting data into the database. */
+    private int _spillThreshold;
+    /** The number of inserted rows after which they are committed, or 0 for no commit interval in rows. */
+    private int _commitInterval;
+    /** The (estimated) number of inserted bytes after which they are committed, or 0 for no commit interval in bytes. */
+    private long _commitIntervalBytes;
+    /** The file that the checkpoints of the import are written to, so that a failed import can be resumed. */
+    private File _checkpointFile;
+    /** The number of threads that read the data of the tables when writing data to XML. */
+    private int _exportThreadCount = 1;
+    /** The maximum number of rows per table that are buffered when reading in parallel. */
+    private int _exportBufferSize = 1000;
+    /** Whether the tables are queried in streaming mode when writing data to XML. */
+    private boolean _useStreamingExport;
+    /** The fetch size for querying the tables when writing data to XML, 0 for the driver default. */
+    private int _exportFetchSize;
 
     /** Whether DdlUtils should search for the schema of the tables. @deprecated */
     private boolean _determineSchema;
@@ -113,6 +155,52 @@ public class DatabaseDataIO
         _useBatchMode = useBatchMode;
     }
 
+    /**
+     * Determines whether the bulk loader of the platform is used in batch mode.
+     * 
+     * @return <code>true</code> if bulk loading is used
+     */
+    public boolean getUseBulkLoad()
+    {
+        return _useBulkLoad;
+    }
+
+    /**
+     * Specifies whether the bulk loader of the platform should be used for inserting data
+     * into the database in batch mode, if the platform has one.
+     * 
+     * @param useBulkLoad <code>true</code> if bulk loading shall be used
+     */
+    public void setUseBulkLoad(boolean useBulkLoad)
+    {
+        _useBulkLoad = useBulkLoad;
+    }
+
+    /**
+     * Determines whether the foreign keys and non-unique indexes are disabled while inserting
+     * data into the database.
+     * 
+     * @return <code>true</code> if they are disabled during the insertion
+     */
+    public boolean getDisableIndexesAndForeignKeys()
+    {
+        return _disableIndexesAndForeignKeys;
+    }
+
+    /**
+     * Specifies whether the foreign keys and non-unique indexes should be disabled (or dropped)
+     * before inserting data into the database, and enabled (or recreated) in one pass afterwards
+     * once the data has been checked against the foreign keys. In this mode the foreign key order
+     * can be turned off via {@link #setEnsureFKOrder(boolean)} unless the data relies on identity
+     * values defined by the database.
+     * 
+     * @param disableIndexesAndForeignKeys <code>true</code> if they shall be disabled during the insertion
+     */
+    public void setDisableIndexesAndForeignKeys(boolean disableIndexesAndForeignKeys)
+    {
+        _disableIndexesAndForeignKeys = disableIndexesAndForeignKeys;
+    }
+
     /**
      * Returns the batch size override.
      * 
@@ -134,6 +222,330 @@ public class DatabaseDataIO
         _batchSize = batchSize;
     }
 
+    /**
+     * Determines whether the batch size is tuned per table based on the measured throughput.
+     * 
+     * @return <code>true</code> if the batch size is tuned
+     */
+    public boolean getUseAdaptiveBatchSize()
+    {
+        return _useAdaptiveBatchSize;
+    }
+
+    /**
+     * Specifies whether the batch size shall be tuned per table based on the measured
+     * throughput. The batch size is then used as the initial batch size.
+     * 
+     * @param useAdaptiveBatchSize <code>true</code> if the batch size shall be tuned
+     */
+    public void setUseAdaptiveBatchSize(boolean useAdaptiveBatchSize)
+    {
+        _useAdaptiveBatchSize = useAdaptiveBatchSize;
+    }
+
+    /**
+     * Returns the minimum batch size override for tuned batch sizes.
+     * 
+     * @return The minimum batch size if different from the default, <code>null</code> otherwise
+     */
+    public Integer getMinBatchSize()
+    {
+        return _minBatchSize;
+    }
+
+    /**
+     * Sets the minimum number of objects per batch for tuned batch sizes.
+     * 
+     * @param minBatchSize The minimum batch size if different from the default, or
+     *                     <code>null</code> if the default shall be used
+     */
+    public void setMinBatchSize(Integer minBatchSize)
+    {
+        _minBatchSize = minBatchSize;
+    }
+
+    /**
+     * Returns the maximum batch size override for tuned batch sizes.
+     * 
+     * @return The maximum batch size if different from the default, <code>null</code> otherwise
+     */
+    public Integer getMaxBatchSize()
+    {
+        return _maxBatchSize;
+    }
+
+    /**
+     * Sets the maximum number of objects per batch for tuned batch sizes.
+     * 
+     * @param maxBatchSize The maximum batch size if different from the default, or
+     *                     <code>null</code> if the default shall be used
+     */
+    public void setMaxBatchSize(Integer maxBatchSize)
+    {
+        _maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Returns the override of the minimum number of bytes per batch for tuned batch sizes.
+     * 
+     * @return The number of bytes if different from the default, <code>null</code> otherwise
+     */
+    public Long getMinBatchBytes()
+    {
+        return _minBatchBytes;
+    }
+
+    /**
+     * Sets the minimum number of bytes per batch for tuned batch sizes.
+     * 
+     * @param minBatchBytes The number of bytes if different from the default, or
+     *                      <code>null</code> if the default shall be used
+     */
+    public void setMinBatchBytes(Long minBatchBytes)
+    {
+        _minBatchBytes = minBatchBytes;
+    }
+
+    /**
+     * Returns the override of the maximum number of bytes per batch for tuned batch sizes.
+     * 
+     * @return The number of bytes if different from the default, <code>null</code> otherwise
+     */
+    public Long getMaxBatchBytes()
+    {
+        return _maxBatchBytes;
+    }
+
+    /**
+     * Sets the maximum number of bytes per batch for tuned batch sizes.
+     * 
+     * @param maxBatchBytes The number of bytes if different from the default, or
+     *                      <code>null</code> if the default shall be used
+     */
+    public void setMaxBatchBytes(Long maxBatchBytes)
+    {
+        _maxBatchBytes = maxBatchBytes;
+    }
+
+    /**
+     * Determines whether the XML parsing, the conversion of the values and the insertion
+     * into the database run in separate threads when writing data to the database.
+     * 
+     * @return <code>true</code> if pipelining is used
+     */
+    public boolean getUsePipelining()
+    {
+        return _usePipelining;
+    }
+
+    /**
+     * Specifies whether the XML parsing, the conversion of the values and the insertion
+     * into the database shall run in separate threads when writing data to the database.
+     * The insertion still happens on the single connection of the sink and in the same
+     * order, so the foreign key handling is not affected.
+     * 
+     * @param usePipelining <code>true</code> if pipelining shall be used
+     */
+    public void setUsePipelining(boolean usePipelining)
+    {
+        _usePipelining = usePipelining;
+    }
+
+    /**
+     * Returns the maximum number of rows that are held in memory while they wait for the rows
+     * that they reference, when inserting data into the database.
+     * 
+     * @return The maximum number of rows, or 0 if all rows are held in memory
+     */
+    public int getSpillThreshold()
+    {
+        return _spillThreshold;
+    }
+
+    /**
+     * Specifies the maximum number of rows that are held in memory while they wait for the rows
+     * that they reference, when inserting data into the database in foreign key order. The same
+     * limit applies to the identities of the inserted rows that are kept for updating foreign keys.
+     * Anything beyond this number is moved to temporary files.
+     * 
+     * @param spillThreshold The maximum number of rows, or 0 if all rows shall be held in memory
+     */
+    public void setSpillThreshold(int spillThreshold)
+    {
+        _spillThreshold = spillThreshold;
+    }
+
+    /**
+     * Returns the number of rows after which the rows inserted into the database are committed.
+     * 
+     * @return The number of rows, or 0 if the number of rows doesn't trigger commits
+     */
+    public int getCommitInterval()
+    {
+        return _commitInterval;
+    }
+
+    /**
+     * Specifies the number of rows after which the rows inserted into the database are committed.
+     * If this or the commit interval in bytes is set, then the data is inserted with auto-commit
+     * turned off, and the sink records a checkpoint at each commit (see
+     * {@link DataToDatabaseSink#getLastCheckpoint()}).
+     * 
+     * @param commitInterval The number of rows, or 0 if the number of rows shall not trigger commits
+     */
+    public void setCommitInterval(int commitInterval)
+    {
+        _commitInterval = commitInterval;
+    }
+
+    /**
+     * Returns the (estimated) number of bytes after which the rows inserted into the database
+     * are committed.
+     * 
+     * @return The number of bytes, or 0 if the bytes don't trigger commits
+     */
+    public long getCommitIntervalBytes()
+    {
+        return _commitIntervalBytes;
+    }
+
+    /**
+     * Specifies the (estimated) number of bytes after which the rows inserted into the database
+     * are committed. See {@link #setCommitInterval(int)} for details.
+     * 
+     * @param commitIntervalBytes The number of bytes, or 0 if the bytes shall not trigger commits
+     */
+    public void setCommitIntervalBytes(long commitIntervalBytes)
+    {
+        _commitIntervalBytes = commitIntervalBytes;
+    }
+
+    /**
+     * Returns the file that the checkpoints of the import are written to.
+     * 
+     * @return The file, or <code>null</code> if the import cannot be resumed
+     */
+    public File getCheckpointFile()
+    {
+        return _checkpointFile;
+    }
+
+    /**
+     * Specifies a file that the checkpoint of each commit is written to (see {@link CheckpointJournal}).
+     * If an import fails, then running it again with the same files and the same checkpoint file
+     * resumes it after the last commit: the rows that were already committed are skipped without
+     * converting them to beans, and data files that were committed completely are not read at all.
+     * The checkpoint file is deleted when the import finished successfully. If no commit interval
+     * is set, then the rows are committed every {@link #DEFAULT_CHECKPOINT_COMMIT_INTERVAL} rows.
+     * Note that an import cannot be resumed if rows that are referenced by other rows got
+     * identity values generated by the database.
+     * 
+     * @param checkpointFile The file, or <code>null</code> if the import shall not be resumable
+     */
+    public void setCheckpointFile(File checkpointFile)
+    {
+        _checkpointFile = checkpointFile;
+    }
+
+    /**
+     * Returns the number of threads that read the table data when writing data to XML.
+     * 
+     * @return The number of threads
+     */
+    public int getExportThreadCount()
+    {
+        return _exportThreadCount;
+    }
+
+    /**
+     * Specifies the number of threads that read the table data when writing data to XML.
+     * With more than one thread, the tables are queried concurrently, each on its own
+     * connection, while the data is still written in the same order as in the sequential
+     * case. Note that this requires the data source to provide several connections at once.
+     * 
+     * @param exportThreadCount The number of threads, <code>1</code> (the default) for
+     *                          reading the tables one after the other
+     */
+    public void setExportThreadCount(int exportThreadCount)
+    {
+        if (exportThreadCount < 1)
+        {
+            throw new IllegalArgumentException("The number of export threads must be at least 1");
+        }
+        _exportThreadCount = exportThreadCount;
+    }
+
+    /**
+     * Returns the maximum number of rows per table that are held in memory when reading
+     * the tables in parallel.
+     * 
+     * @return The number of rows
+     */
+    public int getExportBufferSize()
+    {
+        return _exportBufferSize;
+    }
+
+    /**
+     * Specifies the maximum number of rows per table that are held in memory when reading
+     * the tables in parallel. A thread reading a table pauses when its buffer is full until
+     * the rows are written.
+     * 
+     * @param exportBufferSize The number of rows
+     */
+    public void setExportBufferSize(int exportBufferSize)
+    {
+        if (exportBufferSize < 1)
+        {
+            throw new IllegalArgumentException("The export buffer size must be at least 1");
+        }
+        _exportBufferSize = exportBufferSize;
+    }
+
+    /**
+     * Determines whether the tables are queried in the streaming mode of the platform when
+     * writing data to XML.
+     * 
+     * @return <code>true</code> if streaming mode is used
+     */
+    public boolean getUseStreamingExport()
+    {
+        return _useStreamingExport;
+    }
+
+    /**
+     * Specifies whether the tables shall be queried in the streaming mode of the platform when
+     * writing data to XML, so that the JDBC driver does not read a whole table into memory before
+     * returning the first row. See {@link Platform#setStreamingModeOn(boolean)} for details.
+     * 
+     * @param useStreamingExport <code>true</code> if streaming mode shall be used
+     */
+    public void setUseStreamingExport(boolean useStreamingExport)
+    {
+        _useStreamingExport = useStreamingExport;
+    }
+
+    /**
+     * Returns the fetch size used for querying the tables when writing data to XML.
+     * 
+     * @return The fetch size, or 0 if the platform's setting is used
+     */
+    public int getExportFetchSize()
+    {
+        return _exportFetchSize;
+    }
+
+    /**
+     * Specifies the fetch size used for querying the tables when writing data to XML, i.e.
+     * the number of rows that the JDBC driver retrieves from the database in one go.
+     * 
+     * @param exportFetchSize The fetch size, or 0 if the platform's setting shall be used
+     */
+    public void setExportFetchSize(int exportFetchSize)
+    {
+        _exportFetchSize = exportFetchSize;
+    }
+
     /**
      * Determines whether the sink delays the insertion of beans so that the beans referenced by it
      * via foreignkeys are already inserted into the database.
@@ -373,14 +785,167 @@ public class DatabaseDataIO
 
         // TODO: An advanced algorithm could be employed here that writes individual
         //       objects related by foreign keys, in the correct order
-        List tables = sortTables(model.getTables());
+        List    tables          = sortTables(model.getTables());
+        boolean streamingModeOn = platform.isStreamingModeOn();
+        int     fetchSize       = platform.getFetchSize();
+
+        if (_useStreamingExport)
+        {
+            platform.setStreamingModeOn(true);
+        }
+        if (_exportFetchSize > 0)
+        {
+            platform.setFetchSize(_exportFetchSize);
+        }
+        try
+        {
+            writer.writeDocumentStart();
+            if ((_exportThreadCount > 1) && (tables.size() > 1))
+            {
+                writeDataForTablesToXMLInParallel(platform, model, tables, writer);
+            }
+            else
+            {
+                for (Iterator it = tables.iterator(); it.hasNext();)
+                {
+                    writeDataForTableToXML(platform, model, (Table)it.next(), writer);
+                }
+            }
+            writer.writeDocumentEnd();
+        }
+        finally
+        {
+            platform.setStreamingModeOn(streamingModeOn);
+            platform.setFetchSize(fetchSize);
+        }
+    }
+
+    /**
+     * Writes the data of the given tables to XML, reading the tables concurrently using
+     * several threads. Each thread queries one table at a time (on its own connection) and puts
+     * the rows into a bounded buffer for that table. The buffers are then written in the order
+     * of the given list, so the resulting XML is the same as when reading the tables sequentially.
+     * 
+     * @param platform The platform
+     * @param model    The database model
+     * @param tables   The tables in the order in which to write them
+     * @param writer   The data writer
+     */
+    private void writeDataForTablesToXMLInParallel(final Platform platform, final Database model, final List tables, DataWriter writer)
+    {
+        final String[]        queries  = new String[tables.size()];
+        final BoundedBuffer[] buffers  = new BoundedBuffer[tables.size()];
+        final int[]           nextIdx  = { 0 };
+        Thread[]              threads  = new Thread[Math.min(_exportThreadCount, tables.size())];
+
+        for (int idx = 0; idx < queries.length; idx++)
+        {
+            Table table = (Table)tables.get(idx);
+
+            queries[idx] = createQueryForTable(platform, table);
+            buffers[idx] = new BoundedBuffer(_exportBufferSize);
+            // the dyna class cache of the model is not thread-safe, so we're filling it
+            // before the reader threads start
+            model.getDynaClassFor(table.getName());
+        }
+
+        Runnable tableReader = new Runnable() {
+            public void run()
+            {
+                while (true)
+                {
+                    int idx;
+
+                    // the tables are handed out in the writing order so that the table that is
+                    // currently being written is always being read by one of the threads
+                    synchronized (nextIdx)
+                    {
+                        idx = nextIdx[0]++;
+                    }
+                    if (idx >= queries.length)
+                    {
+                        return;
+                    }
+                    readDataForTable(platform, model, (Table)tables.get(idx), queries[idx], buffers[idx]);
+                }
+            }
+        };
+
+        for (int idx = 0; idx < threads.length; idx++)
+        {
+            threads[idx] = new Thread(tableReader, "DdlUtils data export " + (idx + 1));
+            threads[idx].setDaemon(true);
+            threads[idx].start();
+        }
+        try
+        {
+            for (int idx = 0; idx < buffers.length; idx++)
+            {
+                writer.write(buffers[idx]);
+            }
+        }
+        finally
+        {
+            // releases any thread still blocked on a full buffer if writing failed
+            for (int idx = 0; idx < buffers.length; idx++)
+            {
+                buffers[idx].cancel();
+            }
+            for (int idx = 0; idx < threads.length; idx++)
+            {
+                try
+                {
+                    threads[idx].join();
+                }
+                catch (InterruptedException ex)
+                {
+                    // ignored
+                }
+            }
+        }
+    }
 
-        writer.writeDocumentStart();
-        for (Iterator it = tables.iterator(); it.hasNext();)
+    /**
+     * Reads the data of the given table into the given buffer. Errors are handed to
+     * the buffer so that they surface in the writing thread.
+     * 
+     * @param platform The platform
+     * @param model    The database model
+     * @param table    The table
+     * @param query    The query for the table's data
+     * @param buffer   The buffer to fill
+     */
+    private void readDataForTable(Platform platform, Database model, Table table, String query, BoundedBuffer buffer)
+    {
+        Iterator it = null;
+
+        try
         {
-            writeDataForTableToXML(platform, model, (Table)it.next(), writer);
+            if (!buffer.isCancelled())
+            {
+                it = platform.query(model, query, new Table[] { table });
+                while (it.hasNext())
+                {
+                    if (!buffer.put(it.next()))
+                    {
+                        break;
+                    }
+                }
+            }
+            buffer.close();
+        }
+        catch (RuntimeException ex)
+        {
+            buffer.fail(ex);
+        }
+        finally
+        {
+            // closes the statement and connection if we stopped early
+            if (it instanceof ModelBasedResultSetIterator)
+            {
+                ((ModelBasedResultSetIterator)it).cleanUp();
+            }
         }
-        writer.writeDocumentEnd();
     }
 
     /**
@@ -412,7 +977,7 @@ public class DatabaseDataIO
                 {
                     Table waitedForTable = table.getForeignKey(fkIdx).getForeignTable();
 
-                    if (!table.equals(waitedForTable))
+                    if (table != waitedForTable)
                     {
                         waitedFor.add(waitedForTable);
                     }
@@ -464,6 +1029,18 @@ public class DatabaseDataIO
      * @param writer   The data writer
      */
     private void writeDataForTableToXML(Platform platform, Database model, Table table, DataWriter writer)
+    {
+        writer.write(platform.query(model, createQueryForTable(platform, table), new Table[] { table }));
+    }
+
+    /**
+     * Creates the query that selects all data of the given table.
+     * 
+     * @param platform The platform
+     * @param table    The table
+     * @return The query
+     */
+    private String createQueryForTable(Platform platform, Table table)
     {
         Table[]      tables = { table };
         StringBuffer query  = new StringBuffer();
@@ -534,8 +1111,7 @@ public class DatabaseDataIO
         {
             query.append(platform.getPlatformInfo().getDelimiterToken());
         }
-
-        writer.write(platform.query(model, query.toString(), tables));
+        return query.toString();
     }
 
     /**
@@ -554,13 +1130,44 @@ public class DatabaseDataIO
         sink.setHaltOnErrors(_failOnError);
         sink.setEnsureForeignKeyOrder(_ensureFKOrder);
         sink.setUseBatchMode(_useBatchMode);
+        sink.setUseBulkLoad(_useBulkLoad);
+        sink.setDisableIndexesAndForeignKeys(_disableIndexesAndForeignKeys);
         if (_batchSize != null)
         {
             sink.setBatchSize(_batchSize.intValue());
         }
+        sink.setUseAdaptiveBatchSize(_useAdaptiveBatchSize);
+        if (_minBatchSize != null)
+        {
+            sink.setMinBatchSize(_minBatchSize.intValue());
+        }
+        if (_maxBatchSize != null)
+        {
+            sink.setMaxBatchSize(_maxBatchSize.intValue());
+        }
+        if (_minBatchBytes != null)
+        {
+            sink.setMinBatchBytes(_minBatchBytes.longValue());
+        }
+        if (_maxBatchBytes != null)
+        {
+            sink.setMaxBatchBytes(_maxBatchBytes.longValue());
+        }
+        sink.setSpillThreshold(_spillThreshold);
+        sink.setCommitInterval(_commitInterval);
+        sink.setCommitIntervalBytes(_commitIntervalBytes);
+        if (_checkpointFile != null)
+        {
+            sink.setCheckpointJournal(new CheckpointJournal(_checkpointFile));
+            if ((_commitInterval <= 0) && (_commitIntervalBytes <= 0))
+            {
+                sink.setCommitInterval(DEFAULT_CHECKPOINT_COMMIT_INTERVAL);
+            }
+        }
         
         reader.setModel(model);
         reader.setSink(sink);
+        reader.setPipelined(_usePipelining);
         registerConverters(reader.getConverterConfiguration());
         return reader;
     }
@@ -636,7 +1243,11 @@ public class DatabaseDataIO
         dataReader.getSink().start();
         for (int idx = 0; (inputs != null) && (idx < inputs.length); idx++)
         {
-            writeDataToDatabase(dataReader, inputs[idx]);
+            if (startSource(dataReader, "input " + idx))
+            {
+                writeDataToDatabase(dataReader, inputs[idx]);
+                endSource(dataReader);
+            }
         }
         dataReader.getSink().end();
     }
@@ -656,7 +1267,11 @@ public class DatabaseDataIO
         dataReader.getSink().start();
         for (int idx = 0; (inputs != null) && (idx < inputs.length); idx++)
         {
-            writeDataToDatabase(dataReader, inputs[idx]);
+            if (startSource(dataReader, "input " + idx))
+            {
+                writeDataToDatabase(dataReader, inputs[idx]);
+                endSource(dataReader);
+            }
         }
         dataReader.getSink().end();
     }
@@ -690,7 +1305,11 @@ public class DatabaseDataIO
     {
         for (int idx = 0; (inputs != null) && (idx < inputs.length); idx++)
         {
-            writeDataToDatabase(dataReader, inputs[idx]);
+            if (startSource(dataReader, "input " + idx))
+            {
+                writeDataToDatabase(dataReader, inputs[idx]);
+                endSource(dataReader);
+            }
         }
     }
 
@@ -707,7 +1326,11 @@ public class DatabaseDataIO
     {
         for (int idx = 0; (inputs != null) && (idx < inputs.length); idx++)
         {
-            writeDataToDatabase(dataReader, inputs[idx]);
+            if (startSource(dataReader, "input " + idx))
+            {
+                writeDataToDatabase(dataReader, inputs[idx]);
+                endSource(dataReader);
+            }
         }
     }
 
@@ -721,6 +1344,10 @@ public class DatabaseDataIO
      */
     public void writeDataToDatabase(DataReader dataReader, String path) throws DdlUtilsException
     {
+        if (!startSource(dataReader, path))
+        {
+            return;
+        }
         try
         {
             dataReader.read(path);
@@ -729,6 +1356,7 @@ public class DatabaseDataIO
         {
             throw new DdlUtilsException(ex);
         }
+        endSource(dataReader);
     }
 
     /**
@@ -772,4 +1400,48 @@ public class DatabaseDataIO
             throw new DdlUtilsException(ex);
         }
     }
+
+    /**
+     * Tells the sink of the given data reader, if it is a {@link DataToDatabaseSink}, that the
+     * following data comes from the indicated source so that its checkpoints contain the
+     * committed offset of the source. If the sink resumes an import, then the data reader is
+     * told to skip the rows of the source that were already committed.
+     * 
+     * @param dataReader The data reader
+     * @param name       The name of the source
+     * @return <code>false</code> if the source was already committed completely and shall not be read
+     */
+    private boolean startSource(DataReader dataReader, String name)
+    {
+        if (dataReader.getSink() instanceof DataToDatabaseSink)
+        {
+            long skipCount = ((DataToDatabaseSink)dataReader.getSink()).startSource(name);
+
+            if (skipCount < 0)
+            {
+                _log.info("Skipping " + name + " because its data was already committed");
+                return false;
+            }
+            else if (skipCount > 0)
+            {
+                _log.info("Skipping the first " + skipCount + " rows of " + name + " because they were already committed");
+            }
+            dataReader.setSkipCount(skipCount);
+        }
+        return true;
+    }
+
+    /**
+     * Tells the sink of the given data reader, if it is a {@link DataToDatabaseSink}, that the
+     * current source has been read completely.
+     * 
+     * @param dataReader The data reader
+     */
+    private void endSource(DataReader dataReader)
+    {
+        if (dataReader.getSink() instanceof DataToDatabaseSink)
+        {
+            ((DataToDatabaseSink)dataReader.getSink()).endSource();
+        }
+    }
 }
@@ -19,16 +19,15 @@ package org.apache.ddlutils.io;
  * under the License.
  */
 
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
-
 import org.apache.ddlutils.model.Table;
 
 /**
  * Stores the identity of an database object as defined by its primary keys. Is used
  * by {@link org.apache.ddlutils.io.DataToDatabaseSink} class for inserting objects
- * in the correct order. 
+ * in the correct order.<br/>
+ * The column names and values are held in arrays ordered by the column names, so that
+ * identities for the same columns can be compared position by position. The hash code
+ * is calculated once and cached until a column value changes.
  * 
  * @version $Revision: 289996 $
  */
@@ -38,8 +37,16 @@ public class Identity
     private Table _table;
     /** The optional foreign key name whose referenced object this identity represents. */
     private String _fkName;
-    /** The identity columns and their values. */
-    private HashMap _columnValues = new HashMap();
+    /** The identity column names, ordered by name. */
+    private String[] _columnNames = new String[1];
+    /** The values of the identity columns, in the same order as the names. */
+    private Object[] _columnValues = new Object[1];
+    /** The number of identity columns. */
+    private int _columnCount;
+    /** The cached hash code. */
+    private int _hashCode;
+    /** Whether the cached hash code is valid. */
+    private boolean _hashCodeValid;
 
     /**
      * Creates a new identity object for the given table.
@@ -93,7 +100,31 @@ public class Identity
      */
     public void setColumnValue(String name, Object value)
     {
-        _columnValues.put(name, value);
+        int idx = 0;
+
+        while ((idx < _columnCount) && (_columnNames[idx].compareTo(name) < 0))
+        {
+            idx++;
+        }
+        if ((idx == _columnCount) || !_columnNames[idx].equals(name))
+        {
+            if (_columnCount == _columnNames.length)
+            {
+                String[] newNames  = new String[_columnCount + 1];
+                Object[] newValues = new Object[_columnCount + 1];
+
+                System.arraycopy(_columnNames, 0, newNames, 0, _columnCount);
+                System.arraycopy(_columnValues, 0, newValues, 0, _columnCount);
+                _columnNames  = newNames;
+                _columnValues = newValues;
+            }
+            System.arraycopy(_columnNames, idx, _columnNames, idx + 1, _columnCount - idx);
+            System.arraycopy(_columnValues, idx, _columnValues, idx + 1, _columnCount - idx);
+            _columnNames[idx] = name;
+            _columnCount++;
+        }
+        _columnValues[idx] = value;
+        _hashCodeValid     = false;
     }
 
     /**
@@ -104,7 +135,27 @@ public class Identity
      */
     public Object getColumnValue(String name)
     {
-        return _columnValues.get(name);
+        for (int idx = 0; idx < _columnCount; idx++)
+        {
+            if (_columnNames[idx].equals(name))
+            {
+                return _columnValues[idx];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the names of the identity columns.
+     * 
+     * @return The column names
+     */
+    public String[] getColumnNames()
+    {
+        String[] result = new String[_columnCount];
+
+        System.arraycopy(_columnNames, 0, result, 0, _columnCount);
+        return result;
     }
 
     /**
@@ -112,6 +163,10 @@ public class Identity
      */
     public boolean equals(Object obj)
     {
+        if (obj == this)
+        {
+            return true;
+        }
         if (!(obj instanceof Identity))
         {
             return false;
@@ -119,35 +174,29 @@ public class Identity
 
         Identity otherIdentity = (Identity)obj;
 
-        if (!_table.equals(otherIdentity._table))
+        if ((_columnCount != otherIdentity._columnCount) || (hashCode() != otherIdentity.hashCode()))
         {
             return false;
         }
-        if (_columnValues.keySet().size() != otherIdentity._columnValues.keySet().size())
+        if ((_table != otherIdentity._table) &&
+            (!_table.getName().equals(otherIdentity._table.getName()) || !_table.equals(otherIdentity._table)))
         {
             return false;
         }
-        for (Iterator it = _columnValues.entrySet().iterator(); it.hasNext();)
+        for (int idx = 0; idx < _columnCount; idx++)
         {
-            Map.Entry entry      = (Map.Entry)it.next();
-            Object    otherValue = otherIdentity._columnValues.get(entry.getKey());
+            Object value      = _columnValues[idx];
+            Object otherValue = otherIdentity._columnValues[idx];
 
-            if (entry.getValue() == null)
+            if (!_columnNames[idx].equals(otherIdentity._columnNames[idx]))
             {
-                if (otherValue != null)
-                {
-                    return false;
-                }
+                return false;
             }
-            else
+            if (value == null ? otherValue != null : !value.equals(otherValue))
             {
-                if (!entry.getValue().equals(otherValue))
-                {
-                    return false;
-                }
+                return false;
             }
         }
-        
         return true;
     }
 
@@ -156,7 +205,19 @@ public class Identity
      */
     public int hashCode()
     {
-        return toString().hashCode();
+        if (!_hashCodeValid)
+        {
+            int result = _table.getName().hashCode();
+
+            for (int idx = 0; idx < _columnCount; idx++)
+            {
+                result = 31 * result + _columnNames[idx].hashCode();
+                result = 31 * result + (_columnValues[idx] == null ? 0 : _columnValues[idx].hashCode());
+            }
+            _hashCode      = result;
+            _hashCodeValid = true;
+        }
+        return _hashCode;
     }
 
     /**
@@ -168,17 +229,15 @@ public class Identity
 
         buffer.append(_table.getName());
         buffer.append(":");
-        for (Iterator it = _columnValues.entrySet().iterator(); it.hasNext();)
+        for (int idx = 0; idx < _columnCount; idx++)
         {
-            Map.Entry entry = (Map.Entry)it.next();
-
-            buffer.append(entry.getKey());
-            buffer.append("=");
-            buffer.append(entry.getValue());
-            if (it.hasNext())
+            if (idx > 0)
             {
                 buffer.append(";");
             }
+            buffer.append(_columnNames[idx]);
+            buffer.append("=");
+            buffer.append(_columnValues[idx]);
         }
         return buffer.toString();
     }
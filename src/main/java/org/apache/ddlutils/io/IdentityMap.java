@@ -0,0 +1,412 @@
+package org.apache.ddlutils.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.apache.ddlutils.model.Database;
+import org.apache.ddlutils.model.Table;
+
+/**
+ * Maps the original identities of inserted rows to their identities in the database. Is used
+ * by the {@link org.apache.ddlutils.io.DataToDatabaseSink} to update the foreign keys of rows
+ * inserted later on. If a spill threshold is set, then the mappings are moved to a
+ * {@link SpillFile} whenever more than this number of mappings are held in memory. For the
+ * mappings in the spill file, only the hash of the original identity and the offset of the
+ * mapping in the file are kept in memory. Spilled mappings that are replaced are released in
+ * the spill file, which is compacted when they make up most of it.
+ *
+ * @version $Revision: $
+ */
+public class IdentityMap
+{
+    /** The database model. */
+    private Database _model;
+    /** The maximum number of mappings held in memory, or 0 if there is no maximum. */
+    private int _spillThreshold;
+    /** The mappings held in memory. */
+    private HashMap _mappings = new HashMap();
+    /** The spill file, created when the first mappings are spilled. */
+    private SpillFile _spillFile;
+    /** The hashes of the spilled original identities (open addressing table). */
+    private int[] _spilledHashes;
+    /** The offsets of the spilled mappings plus one (0 denotes an empty slot). */
+    private long[] _spilledOffsets;
+    /** The number of spilled mappings. */
+    private int _spilledCount;
+
+    /**
+     * Creates a new identity map.
+     *
+     * @param model The database model
+     */
+    public IdentityMap(Database model)
+    {
+        _model = model;
+    }
+
+    /**
+     * Returns the maximum number of mappings held in memory.
+     *
+     * @return The maximum number of mappings, or 0 if all mappings are held in memory
+     */
+    public int getSpillThreshold()
+    {
+        return _spillThreshold;
+    }
+
+    /**
+     * Sets the maximum number of mappings held in memory.
+     *
+     * @param spillThreshold The maximum number of mappings, or 0 if all mappings shall
+     *                       be held in memory
+     */
+    public void setSpillThreshold(int spillThreshold)
+    {
+        _spillThreshold = spillThreshold;
+    }
+
+    /**
+     * Returns the number of mappings. Mappings that were replaced after they had been moved
+     * to the spill file are counted twice until they are moved there again.
+     *
+     * @return The number of mappings
+     */
+    public int size()
+    {
+        return _mappings.size() + _spilledCount;
+    }
+
+    /**
+     * Returns the number of mappings that have been moved to the spill file.
+     *
+     * @return The number of spilled mappings
+     */
+    public int getSpilledCount()
+    {
+        return _spilledCount;
+    }
+
+    /**
+     * Adds a mapping.
+     *
+     * @param origIdentity The original identity
+     * @param newIdentity  The identity in the database
+     */
+    public void put(Identity origIdentity, Identity newIdentity) throws DataSinkException
+    {
+        _mappings.put(origIdentity, newIdentity);
+        if ((_spillThreshold > 0) && (_mappings.size() > _spillThreshold))
+        {
+            spill();
+        }
+    }
+
+    /**
+     * Returns the identity in the database for the given original identity.
+     *
+     * @param origIdentity The original identity
+     * @return The identity in the database, or <code>null</code> if there is no mapping
+     */
+    public Identity get(Identity origIdentity) throws DataSinkException
+    {
+        Identity result = (Identity)_mappings.get(origIdentity);
+
+        if ((result == null) && (_spilledCount > 0))
+        {
+            byte[] key  = encode(origIdentity);
+            int    hash = hash(key);
+
+            for (int slot = findSlot(hash); _spilledOffsets[slot] != 0; slot = (slot + 1) % _spilledOffsets.length)
+            {
+                if (_spilledHashes[slot] == hash)
+                {
+                    DataInputStream input = readMapping(_spilledOffsets[slot] - 1, key);
+
+                    if (input != null)
+                    {
+                        return decode(input);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removes all mappings and deletes the spill file.
+     */
+    public void clear()
+    {
+        _mappings.clear();
+        if (_spillFile != null)
+        {
+            _spillFile.close();
+            _spillFile = null;
+        }
+        _spilledHashes  = null;
+        _spilledOffsets = null;
+        _spilledCount   = 0;
+    }
+
+    /**
+     * Moves the mappings held in memory to the spill file.
+     */
+    private void spill() throws DataSinkException
+    {
+        if (_spillFile == null)
+        {
+            _spillFile = new SpillFile();
+        }
+        for (Iterator it = _mappings.entrySet().iterator(); it.hasNext();)
+        {
+            Map.Entry entry = (Map.Entry)it.next();
+            byte[]    key   = encode((Identity)entry.getKey());
+            byte[]    value = encode((Identity)entry.getValue());
+            byte[]    data  = new byte[4 + key.length + value.length];
+
+            data[0] = (byte)(key.length >>> 24);
+            data[1] = (byte)(key.length >>> 16);
+            data[2] = (byte)(key.length >>> 8);
+            data[3] = (byte)key.length;
+            System.arraycopy(key, 0, data, 4, key.length);
+            System.arraycopy(value, 0, data, 4 + key.length, value.length);
+            addSpilledMapping(hash(key), key, _spillFile.append(data));
+        }
+        _mappings.clear();
+        if (_spillFile.isCompactionDue())
+        {
+            compactSpillFile();
+        }
+    }
+
+    /**
+     * Compacts the spill file so that it only contains the current mappings.
+     */
+    private void compactSpillFile() throws DataSinkException
+    {
+        long[] offsets = new long[_spilledCount];
+        int    count   = 0;
+
+        for (int slot = 0; slot < _spilledOffsets.length; slot++)
+        {
+            if (_spilledOffsets[slot] != 0)
+            {
+                offsets[count++] = _spilledOffsets[slot] - 1;
+            }
+        }
+        offsets = _spillFile.compact(offsets);
+        count   = 0;
+        for (int slot = 0; slot < _spilledOffsets.length; slot++)
+        {
+            if (_spilledOffsets[slot] != 0)
+            {
+                _spilledOffsets[slot] = offsets[count++] + 1;
+            }
+        }
+    }
+
+    /**
+     * Registers a mapping that was written to the spill file. If there already is a spilled
+     * mapping for the same original identity, then it is replaced.
+     *
+     * @param hash   The hash of the original identity
+     * @param key    The encoded original identity
+     * @param offset The offset of the mapping in the spill file
+     */
+    private void addSpilledMapping(int hash, byte[] key, long offset) throws DataSinkException
+    {
+        if ((_spilledOffsets == null) || (2 * (_spilledCount + 1) > _spilledOffsets.length))
+        {
+            growSpilledIndex();
+        }
+
+        int slot = findSlot(hash);
+
+        while (_spilledOffsets[slot] != 0)
+        {
+            if ((_spilledHashes[slot] == hash) && (readMapping(_spilledOffsets[slot] - 1, key) != null))
+            {
+                _spillFile.release(_spilledOffsets[slot] - 1);
+                _spilledOffsets[slot] = offset + 1;
+                return;
+            }
+            slot = (slot + 1) % _spilledOffsets.length;
+        }
+        _spilledHashes[slot]  = hash;
+        _spilledOffsets[slot] = offset + 1;
+        _spilledCount++;
+    }
+
+    /**
+     * Doubles the size of the index of the spilled mappings.
+     */
+    private void growSpilledIndex()
+    {
+        int[]  oldHashes  = _spilledHashes;
+        long[] oldOffsets = _spilledOffsets;
+        int    newSize    = (oldOffsets == null ? 1024 : 2 * oldOffsets.length);
+
+        _spilledHashes  = new int[newSize];
+        _spilledOffsets = new long[newSize];
+        for (int idx = 0; (oldOffsets != null) && (idx < oldOffsets.length); idx++)
+        {
+            if (oldOffsets[idx] != 0)
+            {
+                int slot = findSlot(oldHashes[idx]);
+
+                while (_spilledOffsets[slot] != 0)
+                {
+                    slot = (slot + 1) % _spilledOffsets.length;
+                }
+                _spilledHashes[slot]  = oldHashes[idx];
+                _spilledOffsets[slot] = oldOffsets[idx];
+            }
+        }
+    }
+
+    /**
+     * Returns the initial slot in the index of the spilled mappings for the given hash.
+     *
+     * @param hash The hash
+     * @return The slot
+     */
+    private int findSlot(int hash)
+    {
+        return (hash & 0x7FFFFFFF) % _spilledOffsets.length;
+    }
+
+    /**
+     * Reads the mapping at the given offset of the spill file.
+     *
+     * @param offset The offset
+     * @param key    The encoded original identity that the mapping is expected to be for
+     * @return A stream positioned at the encoded new identity, or <code>null</code> if the
+     *         mapping is for a different original identity
+     */
+    private DataInputStream readMapping(long offset, byte[] key) throws DataSinkException
+    {
+        byte[] data      = _spillFile.read(offset);
+        int    keyLength = ((data[0] & 0xFF) << 24) | ((data[1] & 0xFF) << 16) | ((data[2] & 0xFF) << 8) | (data[3] & 0xFF);
+
+        if (keyLength != key.length)
+        {
+            return null;
+        }
+
+        byte[] storedKey = new byte[keyLength];
+
+        System.arraycopy(data, 4, storedKey, 0, keyLength);
+        if (!Arrays.equals(key, storedKey))
+        {
+            return null;
+        }
+        return new DataInputStream(new ByteArrayInputStream(data, 4 + keyLength, data.length - 4 - keyLength));
+    }
+
+    /**
+     * Encodes the given identity. The foreign key name is not part of the encoding as it is
+     * not relevant for the equality of identities.
+     *
+     * @param identity The identity
+     * @return The encoded identity
+     */
+    private byte[] encode(Identity identity) throws DataSinkException
+    {
+        String[] columnNames = identity.getColumnNames();
+
+        Arrays.sort(columnNames);
+        try
+        {
+            ByteArrayOutputStream bytes  = new ByteArrayOutputStream();
+            DataOutputStream      output = new DataOutputStream(bytes);
+
+            output.writeUTF(identity.getTable().getName());
+            output.writeShort(columnNames.length);
+            for (int idx = 0; idx < columnNames.length; idx++)
+            {
+                output.writeUTF(columnNames[idx]);
+                SpillFile.writeValue(output, identity.getColumnValue(columnNames[idx]));
+            }
+            output.close();
+            return bytes.toByteArray();
+        }
+        catch (IOException ex)
+        {
+            throw new DataSinkException("Could not encode the identity " + identity, ex);
+        }
+    }
+
+    /**
+     * Decodes an identity.
+     *
+     * @param input The stream containing the encoded identity
+     * @return The identity
+     */
+    private Identity decode(DataInputStream input) throws DataSinkException
+    {
+        try
+        {
+            Table    table       = _model.findTable(input.readUTF(), true);
+            Identity identity    = new Identity(table);
+            int      columnCount = input.readShort();
+
+            for (int idx = 0; idx < columnCount; idx++)
+            {
+                identity.setColumnValue(input.readUTF(), SpillFile.readValue(input));
+            }
+            return identity;
+        }
+        catch (IOException ex)
+        {
+            throw new DataSinkException("Could not decode an identity from the spill file", ex);
+        }
+    }
+
+    /**
+     * Calculates the hash of an encoded identity.
+     *
+     * @param key The encoded identity
+     * @return The hash
+     */
+    private int hash(byte[] key)
+    {
+        int result = 1;
+
+        for (int idx = 0; idx < key.length; idx++)
+        {
+            result = 31 * result + key[idx];
+        }
+        // spread the bits as similar identities would otherwise cluster in the index
+        result ^= result >>> 16;
+        result *= 0x85EBCA6B;
+        result ^= result >>> 13;
+        result *= 0xC2B2AE35;
+        return result ^ (result >>> 16);
+    }
+}
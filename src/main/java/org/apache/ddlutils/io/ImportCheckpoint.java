@@ -0,0 +1,359 @@
+package org.apache.ddlutils.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Describes the state of a data import at a commit of the {@link DataToDatabaseSink}. For
+ * each source (e.g. data file) it records the offset, i.e. the number of leading rows of the
+ * source that have all been committed, and for each table the number of committed rows.
+ * An import that failed after this commit can therefore be resumed by skipping the rows of
+ * each source up to its offset. As rows can wait for the rows that they reference, rows after
+ * the offset may have been committed too; for these the checkpoint records how many rows of
+ * the source had been read and which of them are not committed, so that a resumed import
+ * does not insert the others again. Checkpoints can be stored in a {@link CheckpointJournal}.
+ *
+ * @version $Revision: $
+ */
+public class ImportCheckpoint
+{
+    /** The number of commits up to this checkpoint. */
+    private int _commitCount;
+    /** The total number of committed rows. */
+    private long _rowCount;
+    /** The (estimated) total number of committed bytes. */
+    private long _byteCount;
+    /** The names of the sources in the order in which they were read. */
+    private List _sourceNames = new ArrayList();
+    /** The committed offsets of the sources (<code>Long</code> objects), in the same order. */
+    private List _sourceOffsets = new ArrayList();
+    /** The numbers of read rows (<code>Long</code> objects) of the sources, in the same order. */
+    private List _sourceReadCounts = new ArrayList();
+    /** The sorted positions (<code>long[]</code> arrays) of the uncommitted rows after the offsets of the sources, in the same order. */
+    private List _sourcePendingRows = new ArrayList();
+    /** Whether the sources (<code>Boolean</code> objects) have been committed completely, in the same order. */
+    private List _sourcesComplete = new ArrayList();
+    /** The names of the tables in the order in which they were added. */
+    private List _tableNames = new ArrayList();
+    /** The numbers of committed rows (<code>Long</code> objects) per table name. */
+    private HashMap _tableRowCounts = new HashMap();
+    /** The identities (as strings) of the not yet written rows that uncommitted rows are waiting for. */
+    private List _pendingIdentities = new ArrayList();
+    /** Whether rows referenced by other rows got identity values that were generated by the database. */
+    private boolean _identitiesGenerated;
+
+    /**
+     * Creates a new checkpoint.
+     *
+     * @param commitCount The number of commits up to this checkpoint
+     * @param rowCount    The total number of committed rows
+     * @param byteCount   The (estimated) total number of committed bytes
+     */
+    public ImportCheckpoint(int commitCount, long rowCount, long byteCount)
+    {
+        _commitCount = commitCount;
+        _rowCount    = rowCount;
+        _byteCount   = byteCount;
+    }
+
+    /**
+     * Returns the number of commits up to this checkpoint.
+     *
+     * @return The number of commits
+     */
+    public int getCommitCount()
+    {
+        return _commitCount;
+    }
+
+    /**
+     * Returns the total number of committed rows.
+     *
+     * @return The number of rows
+     */
+    public long getRowCount()
+    {
+        return _rowCount;
+    }
+
+    /**
+     * Returns the (estimated) total number of committed bytes.
+     *
+     * @return The number of bytes
+     */
+    public long getByteCount()
+    {
+        return _byteCount;
+    }
+
+    /**
+     * Determines whether rows that are referenced by other rows got identity values that were
+     * generated by the database, so that the foreign keys of the referencing rows were changed.
+     *
+     * @return <code>true</code> if there were generated identity values
+     */
+    public boolean isIdentitiesGenerated()
+    {
+        return _identitiesGenerated;
+    }
+
+    /**
+     * Specifies whether rows that are referenced by other rows got identity values that were
+     * generated by the database.
+     *
+     * @param identitiesGenerated <code>true</code> if there were generated identity values
+     */
+    public void setIdentitiesGenerated(boolean identitiesGenerated)
+    {
+        _identitiesGenerated = identitiesGenerated;
+    }
+
+    /**
+     * Adds a source and its committed offset.
+     *
+     * @param name     The name of the source, e.g. the path of the data file
+     * @param offset   The number of leading rows of the source that are committed
+     * @param complete Whether all rows of the source are committed
+     */
+    public void addSource(String name, long offset, boolean complete)
+    {
+        addSource(name, offset, offset, new long[0], complete);
+    }
+
+    /**
+     * Adds a source and its committed offset, along with the rows after this offset that had
+     * been read but are not committed because they were waiting for the rows that they reference.
+     *
+     * @param name        The name of the source, e.g. the path of the data file
+     * @param offset      The number of leading rows of the source that are committed
+     * @param readCount   The number of leading rows of the source that had been read
+     * @param pendingRows The positions of the rows between the offset and the read count that
+     *                    are not committed, in ascending order
+     * @param complete    Whether all rows of the source are committed
+     */
+    public void addSource(String name, long offset, long readCount, long[] pendingRows, boolean complete)
+    {
+        _sourceNames.add(name);
+        _sourceOffsets.add(new Long(offset));
+        _sourceReadCounts.add(new Long(readCount));
+        _sourcePendingRows.add(pendingRows);
+        _sourcesComplete.add(Boolean.valueOf(complete));
+    }
+
+    /**
+     * Returns the number of sources.
+     *
+     * @return The number of sources
+     */
+    public int getSourceCount()
+    {
+        return _sourceNames.size();
+    }
+
+    /**
+     * Returns the name of the indicated source.
+     *
+     * @param idx The index of the source
+     * @return The name
+     */
+    public String getSourceName(int idx)
+    {
+        return (String)_sourceNames.get(idx);
+    }
+
+    /**
+     * Returns the committed offset of the indicated source.
+     *
+     * @param idx The index of the source
+     * @return The number of leading rows of the source that are committed
+     */
+    public long getSourceOffset(int idx)
+    {
+        return ((Long)_sourceOffsets.get(idx)).longValue();
+    }
+
+    /**
+     * Returns the number of leading rows of the indicated source that had been read.
+     *
+     * @param idx The index of the source
+     * @return The number of read rows
+     */
+    public long getSourceReadCount(int idx)
+    {
+        return ((Long)_sourceReadCounts.get(idx)).longValue();
+    }
+
+    /**
+     * Returns the positions of the rows of the indicated source between its offset and its
+     * read count that are not committed.
+     *
+     * @param idx The index of the source
+     * @return The positions in ascending order
+     */
+    public long[] getSourcePendingRows(int idx)
+    {
+        return (long[])_sourcePendingRows.get(idx);
+    }
+
+    /**
+     * Determines whether the row at the given position of the indicated source is committed.
+     *
+     * @param idx      The index of the source
+     * @param position The position of the row in the source, starting with 0
+     * @return <code>true</code> if the row is committed
+     */
+    public boolean isRowCommitted(int idx, long position)
+    {
+        if (position < getSourceOffset(idx))
+        {
+            return true;
+        }
+        else
+        {
+            return (position < getSourceReadCount(idx)) && (Arrays.binarySearch(getSourcePendingRows(idx), position) < 0);
+        }
+    }
+
+    /**
+     * Determines whether all rows of the indicated source are committed.
+     *
+     * @param idx The index of the source
+     * @return <code>true</code> if the source is complete
+     */
+    public boolean isSourceComplete(int idx)
+    {
+        return ((Boolean)_sourcesComplete.get(idx)).booleanValue();
+    }
+
+    /**
+     * Returns the index of the source of the given name. If there are multiple sources with
+     * this name, then the index of the first one is returned.
+     *
+     * @param name The name of the source
+     * @return The index, or -1 if the checkpoint contains no such source
+     */
+    public int findSource(String name)
+    {
+        return _sourceNames.indexOf(name);
+    }
+
+    /**
+     * Returns the committed offset of the source of the given name. If there are multiple
+     * sources with this name, then the offset of the first one is returned.
+     *
+     * @param name The name of the source
+     * @return The number of leading rows of the source that are committed, or -1 if the
+     *         checkpoint contains no such source
+     */
+    public long findSourceOffset(String name)
+    {
+        int idx = findSource(name);
+
+        return idx < 0 ? -1 : getSourceOffset(idx);
+    }
+
+    /**
+     * Sets the number of committed rows of a table.
+     *
+     * @param tableName The name of the table
+     * @param rowCount  The number of rows
+     */
+    public void setTableRowCount(String tableName, long rowCount)
+    {
+        if (!_tableRowCounts.containsKey(tableName))
+        {
+            _tableNames.add(tableName);
+        }
+        _tableRowCounts.put(tableName, new Long(rowCount));
+    }
+
+    /**
+     * Returns the names of the tables for which the checkpoint has row counts.
+     *
+     * @return The table names
+     */
+    public String[] getTableNames()
+    {
+        return (String[])_tableNames.toArray(new String[_tableNames.size()]);
+    }
+
+    /**
+     * Returns the number of committed rows of the given table.
+     *
+     * @param tableName The name of the table
+     * @return The number of rows
+     */
+    public long getTableRowCount(String tableName)
+    {
+        Long rowCount = (Long)_tableRowCounts.get(tableName);
+
+        return rowCount == null ? 0 : rowCount.longValue();
+    }
+
+    /**
+     * Adds the identity of a not yet written row that uncommitted rows are waiting for.
+     *
+     * @param identity The identity
+     */
+    public void addPendingIdentity(String identity)
+    {
+        _pendingIdentities.add(identity);
+    }
+
+    /**
+     * Returns the identities of the not yet written rows that uncommitted rows are waiting for.
+     *
+     * @return The identities
+     */
+    public String[] getPendingIdentities()
+    {
+        return (String[])_pendingIdentities.toArray(new String[_pendingIdentities.size()]);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String toString()
+    {
+        StringBuffer result = new StringBuffer();
+
+        result.append("commit ");
+        result.append(_commitCount);
+        result.append(" with ");
+        result.append(_rowCount);
+        result.append(" rows");
+        for (int idx = 0; idx < getSourceCount(); idx++)
+        {
+            result.append(idx == 0 ? " (" : ", ");
+            result.append(getSourceOffset(idx));
+            result.append(" rows of ");
+            result.append(getSourceName(idx));
+            if (idx == getSourceCount() - 1)
+            {
+                result.append(")");
+            }
+        }
+        return result.toString();
+    }
+}
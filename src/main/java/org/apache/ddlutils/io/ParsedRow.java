@@ -0,0 +1,71 @@
+package org.apache.ddlutils.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Map;
+
+import org.apache.ddlutils.model.Table;
+
+/**
+ * Represents a row read from the data XML whose column values have not yet been
+ * converted. Is used by the {@link org.apache.ddlutils.io.DataReader} to hand rows
+ * from the parsing to the conversion stage when reading in pipelined mode.
+ * 
+ * @version $Revision: $
+ */
+public class ParsedRow
+{
+    /** The table of the row. */
+    private Table _table;
+    /** The column values as read from the XML, keyed by the (possibly lower-cased) column names. */
+    private Map _values;
+
+    /**
+     * Creates a new row.
+     * 
+     * @param table  The table of the row
+     * @param values The column values as read from the XML
+     */
+    public ParsedRow(Table table, Map values)
+    {
+        _table  = table;
+        _values = values;
+    }
+
+    /**
+     * Returns the table of the row.
+     * 
+     * @return The table
+     */
+    public Table getTable()
+    {
+        return _table;
+    }
+
+    /**
+     * Returns the column values as read from the XML.
+     * 
+     * @return The values
+     */
+    public Map getValues()
+    {
+        return _values;
+    }
+}
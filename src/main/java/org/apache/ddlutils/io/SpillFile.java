@@ -0,0 +1,458 @@
+package org.apache.ddlutils.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Time;
+import java.sql.Timestamp;
+
+/**
+ * A temporary file that stores records (byte arrays) that are appended to it and can
+ * be read back via the offset returned when appending them. Is used by the
+ * {@link org.apache.ddlutils.io.DataToDatabaseSink} to move data out of memory
+ * when inserting large amounts of data. The file is deleted when it is closed.<br/>
+ * Records that are no longer needed can be released. Once the released records make up
+ * most of the file, the users of the file should compact it via {@link #compact(long[])}
+ * so that it does not grow beyond the size of the records that are still needed.<br/>
+ * This class also contains helper methods to write and read column values in a
+ * compact form.
+ *
+ * @version $Revision: $
+ */
+public class SpillFile
+{
+    /** Type tag for <code>null</code> values. */
+    private static final byte TYPE_NULL = 0;
+    /** Type tag for strings. */
+    private static final byte TYPE_STRING = 1;
+    /** Type tag for integers. */
+    private static final byte TYPE_INTEGER = 2;
+    /** Type tag for longs. */
+    private static final byte TYPE_LONG = 3;
+    /** Type tag for shorts. */
+    private static final byte TYPE_SHORT = 4;
+    /** Type tag for bytes. */
+    private static final byte TYPE_BYTE = 5;
+    /** Type tag for doubles. */
+    private static final byte TYPE_DOUBLE = 6;
+    /** Type tag for floats. */
+    private static final byte TYPE_FLOAT = 7;
+    /** Type tag for booleans. */
+    private static final byte TYPE_BOOLEAN = 8;
+    /** Type tag for big decimals. */
+    private static final byte TYPE_BIGDECIMAL = 9;
+    /** Type tag for big integers. */
+    private static final byte TYPE_BIGINTEGER = 10;
+    /** Type tag for SQL dates. */
+    private static final byte TYPE_SQL_DATE = 11;
+    /** Type tag for SQL times. */
+    private static final byte TYPE_SQL_TIME = 12;
+    /** Type tag for SQL timestamps. */
+    private static final byte TYPE_SQL_TIMESTAMP = 13;
+    /** Type tag for byte arrays. */
+    private static final byte TYPE_BYTES = 14;
+    /** Type tag for dates. */
+    private static final byte TYPE_DATE = 15;
+    /** Type tag for other serializable objects. */
+    private static final byte TYPE_SERIALIZED = 99;
+    /** The minimum length of the file for compacting it. */
+    private static final long MIN_COMPACTION_LENGTH = 1024 * 1024;
+
+    /** The file. */
+    private File _file;
+    /** The random access handle for the file. */
+    private RandomAccessFile _data;
+    /** The current length of the file. */
+    private long _length;
+    /** The number of bytes of the released records. */
+    private long _releasedLength;
+
+    /**
+     * Creates a new spill file in the default temporary directory.
+     */
+    public SpillFile() throws DataSinkException
+    {
+        try
+        {
+            _file = File.createTempFile("ddlutils", ".spill");
+            _data = new RandomAccessFile(_file, "rw");
+        }
+        catch (IOException ex)
+        {
+            throw new DataSinkException("Could not create a temporary file for storing data", ex);
+        }
+    }
+
+    /**
+     * Returns the file. Note that compacting replaces the file.
+     *
+     * @return The file
+     */
+    public File getFile()
+    {
+        return _file;
+    }
+
+    /**
+     * Returns the number of bytes written to this file.
+     *
+     * @return The number of bytes
+     */
+    public long getLength()
+    {
+        return _length;
+    }
+
+    /**
+     * Returns the number of bytes of the records that were released.
+     *
+     * @return The number of bytes
+     */
+    public long getReleasedLength()
+    {
+        return _releasedLength;
+    }
+
+    /**
+     * Determines whether this file should be compacted, which is the case if the released
+     * records make up more than half of a file that is not too small.
+     *
+     * @return <code>true</code> if the file should be compacted
+     */
+    public boolean isCompactionDue()
+    {
+        return (_length >= MIN_COMPACTION_LENGTH) && (2 * _releasedLength > _length);
+    }
+
+    /**
+     * Appends the given record to this file.
+     *
+     * @param record The record
+     * @return The offset of the record
+     */
+    public long append(byte[] record) throws DataSinkException
+    {
+        long   offset = _length;
+        byte[] data   = new byte[4 + record.length];
+
+        // we write the length and the record in one go as RandomAccessFile is not buffered
+        data[0] = (byte)(record.length >>> 24);
+        data[1] = (byte)(record.length >>> 16);
+        data[2] = (byte)(record.length >>> 8);
+        data[3] = (byte)record.length;
+        System.arraycopy(record, 0, data, 4, record.length);
+        try
+        {
+            _data.seek(offset);
+            _data.write(data);
+            _length += data.length;
+        }
+        catch (IOException ex)
+        {
+            throw new DataSinkException("Could not write to the temporary file " + _file.getAbsolutePath(), ex);
+        }
+        return offset;
+    }
+
+    /**
+     * Reads the record at the given offset.
+     *
+     * @param offset The offset as returned by {@link #append(byte[])}
+     * @return The record
+     */
+    public byte[] read(long offset) throws DataSinkException
+    {
+        try
+        {
+            byte[] length = new byte[4];
+
+            _data.seek(offset);
+            _data.readFully(length);
+
+            byte[] result = new byte[((length[0] & 0xFF) << 24) | ((length[1] & 0xFF) << 16) | ((length[2] & 0xFF) << 8) | (length[3] & 0xFF)];
+
+            _data.readFully(result);
+            return result;
+        }
+        catch (IOException ex)
+        {
+            throw new DataSinkException("Could not read from the temporary file " + _file.getAbsolutePath(), ex);
+        }
+    }
+
+    /**
+     * Releases the record at the given offset, which will not be read again.
+     *
+     * @param offset The offset as returned by {@link #append(byte[])}
+     */
+    public void release(long offset) throws DataSinkException
+    {
+        try
+        {
+            byte[] length = new byte[4];
+
+            _data.seek(offset);
+            _data.readFully(length);
+            _releasedLength += 4 + (((length[0] & 0xFF) << 24) | ((length[1] & 0xFF) << 16) | ((length[2] & 0xFF) << 8) | (length[3] & 0xFF));
+        }
+        catch (IOException ex)
+        {
+            throw new DataSinkException("Could not read from the temporary file " + _file.getAbsolutePath(), ex);
+        }
+    }
+
+    /**
+     * Compacts this file by copying the given records to a new file, which then replaces
+     * this file. All other records are dropped.
+     *
+     * @param offsets The offsets of the records that are still needed
+     * @return The offsets of the records in the compacted file, in the same order
+     */
+    public long[] compact(long[] offsets) throws DataSinkException
+    {
+        SpillFile target = new SpillFile();
+        long[]    result = new long[offsets.length];
+
+        try
+        {
+            for (int idx = 0; idx < offsets.length; idx++)
+            {
+                result[idx] = target.append(read(offsets[idx]));
+            }
+        }
+        catch (DataSinkException ex)
+        {
+            target.close();
+            throw ex;
+        }
+        close();
+        _file           = target._file;
+        _data           = target._data;
+        _length         = target._length;
+        _releasedLength = 0;
+        return result;
+    }
+
+    /**
+     * Closes and deletes this file.
+     */
+    public void close()
+    {
+        try
+        {
+            _data.close();
+        }
+        catch (IOException ex)
+        {
+            // ignored
+        }
+        _file.delete();
+    }
+
+    /**
+     * Writes the given value to the given stream.
+     *
+     * @param output The output stream
+     * @param value  The value, can be <code>null</code>
+     */
+    public static void writeValue(DataOutputStream output, Object value) throws IOException
+    {
+        if (value == null)
+        {
+            output.writeByte(TYPE_NULL);
+        }
+        else if (value instanceof String)
+        {
+            byte[] bytes = ((String)value).getBytes("UTF-8");
+
+            output.writeByte(TYPE_STRING);
+            output.writeInt(bytes.length);
+            output.write(bytes);
+        }
+        else if (value instanceof Integer)
+        {
+            output.writeByte(TYPE_INTEGER);
+            output.writeInt(((Integer)value).intValue());
+        }
+        else if (value instanceof Long)
+        {
+            output.writeByte(TYPE_LONG);
+            output.writeLong(((Long)value).longValue());
+        }
+        else if (value instanceof Short)
+        {
+            output.writeByte(TYPE_SHORT);
+            output.writeShort(((Short)value).shortValue());
+        }
+        else if (value instanceof Byte)
+        {
+            output.writeByte(TYPE_BYTE);
+            output.writeByte(((Byte)value).byteValue());
+        }
+        else if (value instanceof Double)
+        {
+            output.writeByte(TYPE_DOUBLE);
+            output.writeDouble(((Double)value).doubleValue());
+        }
+        else if (value instanceof Float)
+        {
+            output.writeByte(TYPE_FLOAT);
+            output.writeFloat(((Float)value).floatValue());
+        }
+        else if (value instanceof Boolean)
+        {
+            output.writeByte(TYPE_BOOLEAN);
+            output.writeBoolean(((Boolean)value).booleanValue());
+        }
+        else if (value instanceof BigDecimal)
+        {
+            output.writeByte(TYPE_BIGDECIMAL);
+            output.writeUTF(value.toString());
+        }
+        else if (value instanceof BigInteger)
+        {
+            output.writeByte(TYPE_BIGINTEGER);
+            output.writeUTF(value.toString());
+        }
+        else if (value instanceof Timestamp)
+        {
+            output.writeByte(TYPE_SQL_TIMESTAMP);
+            output.writeLong(((Timestamp)value).getTime());
+            output.writeInt(((Timestamp)value).getNanos());
+        }
+        else if (value instanceof java.sql.Date)
+        {
+            output.writeByte(TYPE_SQL_DATE);
+            output.writeLong(((java.sql.Date)value).getTime());
+        }
+        else if (value instanceof Time)
+        {
+            output.writeByte(TYPE_SQL_TIME);
+            output.writeLong(((Time)value).getTime());
+        }
+        else if (value instanceof java.util.Date)
+        {
+            output.writeByte(TYPE_DATE);
+            output.writeLong(((java.util.Date)value).getTime());
+        }
+        else if (value instanceof byte[])
+        {
+            output.writeByte(TYPE_BYTES);
+            output.writeInt(((byte[])value).length);
+            output.write((byte[])value);
+        }
+        else
+        {
+            ByteArrayOutputStream bytes     = new ByteArrayOutputStream();
+            ObjectOutputStream    objOutput = new ObjectOutputStream(bytes);
+
+            objOutput.writeObject(value);
+            objOutput.close();
+            output.writeByte(TYPE_SERIALIZED);
+            output.writeInt(bytes.size());
+            output.write(bytes.toByteArray());
+        }
+    }
+
+    /**
+     * Reads a value written by {@link #writeValue(DataOutputStream, Object)} from the given stream.
+     *
+     * @param input The input stream
+     * @return The value
+     */
+    public static Object readValue(DataInputStream input) throws IOException
+    {
+        byte type = input.readByte();
+
+        switch (type)
+        {
+            case TYPE_NULL:
+                return null;
+            case TYPE_STRING:
+                return new String(readBytes(input), "UTF-8");
+            case TYPE_INTEGER:
+                return new Integer(input.readInt());
+            case TYPE_LONG:
+                return new Long(input.readLong());
+            case TYPE_SHORT:
+                return new Short(input.readShort());
+            case TYPE_BYTE:
+                return new Byte(input.readByte());
+            case TYPE_DOUBLE:
+                return new Double(input.readDouble());
+            case TYPE_FLOAT:
+                return new Float(input.readFloat());
+            case TYPE_BOOLEAN:
+                return input.readBoolean() ? Boolean.TRUE : Boolean.FALSE;
+            case TYPE_BIGDECIMAL:
+                return new BigDecimal(input.readUTF());
+            case TYPE_BIGINTEGER:
+                return new BigInteger(input.readUTF());
+            case TYPE_SQL_TIMESTAMP:
+                Timestamp timestamp = new Timestamp(input.readLong());
+
+                timestamp.setNanos(input.readInt());
+                return timestamp;
+            case TYPE_SQL_DATE:
+                return new java.sql.Date(input.readLong());
+            case TYPE_SQL_TIME:
+                return new Time(input.readLong());
+            case TYPE_DATE:
+                return new java.util.Date(input.readLong());
+            case TYPE_BYTES:
+                return readBytes(input);
+            case TYPE_SERIALIZED:
+                try
+                {
+                    return new ObjectInputStream(new ByteArrayInputStream(readBytes(input))).readObject();
+                }
+                catch (ClassNotFoundException ex)
+                {
+                    throw new IOException("Could not deserialize value: " + ex.getMessage());
+                }
+            default:
+                throw new IOException("Unknown value type " + type);
+        }
+    }
+
+    /**
+     * Reads a length-prefixed byte array from the given stream.
+     *
+     * @param input The input stream
+     * @return The bytes
+     */
+    private static byte[] readBytes(DataInputStream input) throws IOException
+    {
+        byte[] result = new byte[input.readInt()];
+
+        input.readFully(result);
+        return result;
+    }
+}
@@ -19,10 +19,18 @@ package org.apache.ddlutils.io;
  * under the License.
  */
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.Iterator;
 
 import org.apache.commons.beanutils.DynaBean;
 import org.apache.commons.collections.set.ListOrderedSet;
+import org.apache.ddlutils.model.Column;
+import org.apache.ddlutils.model.Database;
+import org.apache.ddlutils.model.Table;
 
 /**
  * Represents an object waiting for insertion into the database. Is used by the
@@ -39,17 +47,33 @@ public class WaitingObject
     private Identity _objIdentity;
     /** The identities of the waited-for objects. */
     private ListOrderedSet _waitedForIdentites = new ListOrderedSet();
+    /** The offset of the object in the spill file if it has been moved out of memory, or -1. */
+    private long _spillOffset = -1;
+    /** The position of the object in the sequence of objects given to the sink. */
+    private long _sequence;
 
     /**
      * Creates a new <code>WaitingObject</code> instance for the given object.
      * 
      * @param obj         The object that is waiting
      * @param objIdentity The (original) identity of the object
+     * @param sequence    The position of the object in the sequence of objects given to the sink
      */
-    public WaitingObject(DynaBean obj, Identity objIdentity)
+    public WaitingObject(DynaBean obj, Identity objIdentity, long sequence)
     {
         _obj         = obj;
         _objIdentity = objIdentity;
+        _sequence    = sequence;
+    }
+
+    /**
+     * Returns the position of the object in the sequence of objects given to the sink.
+     * 
+     * @return The position
+     */
+    public long getSequence()
+    {
+        return _sequence;
     }
 
     /**
@@ -62,6 +86,107 @@ public class WaitingObject
         return _obj;
     }
 
+    /**
+     * Returns the original identity of the waiting object, i.e. its identity before the
+     * columns of its foreign keys were updated.
+     * 
+     * @return The identity
+     */
+    public Identity getObjectIdentity()
+    {
+        return _objIdentity;
+    }
+
+    /**
+     * Determines whether the waiting object has been moved out of memory into a spill file.
+     * 
+     * @return <code>true</code> if the object is in the spill file
+     */
+    public boolean isSpilled()
+    {
+        return _spillOffset >= 0;
+    }
+
+    /**
+     * Returns the offset of the object in the spill file.
+     * 
+     * @return The offset, or -1 if the object is not in the spill file
+     */
+    public long getSpillOffset()
+    {
+        return _spillOffset;
+    }
+
+    /**
+     * Sets the offset of the object in the spill file after the file has been compacted.
+     * 
+     * @param spillOffset The new offset
+     */
+    public void setSpillOffset(long spillOffset)
+    {
+        _spillOffset = spillOffset;
+    }
+
+    /**
+     * Writes the waiting object to the given spill file and releases it. The column values
+     * are written in the order of the columns of the object's table.
+     * 
+     * @param file The spill file
+     */
+    public void spill(SpillFile file) throws DataSinkException
+    {
+        Column[] columns = _objIdentity.getTable().getColumns();
+
+        try
+        {
+            ByteArrayOutputStream bytes  = new ByteArrayOutputStream();
+            DataOutputStream      output = new DataOutputStream(bytes);
+
+            for (int idx = 0; idx < columns.length; idx++)
+            {
+                SpillFile.writeValue(output, _obj.get(columns[idx].getName()));
+            }
+            output.close();
+            _spillOffset = file.append(bytes.toByteArray());
+            _obj         = null;
+        }
+        catch (IOException ex)
+        {
+            throw new DataSinkException("Could not write the row " + _objIdentity + " to the spill file", ex);
+        }
+    }
+
+    /**
+     * Reads the waiting object back from the given spill file, and releases its record in
+     * the file.
+     * 
+     * @param file  The spill file
+     * @param model The database model
+     */
+    public void restore(SpillFile file, Database model) throws DataSinkException
+    {
+        Table    table   = _objIdentity.getTable();
+        Column[] columns = table.getColumns();
+
+        try
+        {
+            DataInputStream input = new DataInputStream(new ByteArrayInputStream(file.read(_spillOffset)));
+            DynaBean        obj   = model.createDynaBeanFor(table);
+
+            for (int idx = 0; idx < columns.length; idx++)
+            {
+                obj.set(columns[idx].getName(), SpillFile.readValue(input));
+            }
+            file.release(_spillOffset);
+            _obj         = obj;
+            _spillOffset = -1;
+        }
+        catch (IOException ex)
+        {
+            throw new DataSinkException("Could not read the row " + _objIdentity + " from the spill file", ex);
+        }
+    }
+
     /**
      * Adds the identity of another object that the object is waiting for.
      * 
@@ -42,6 +42,8 @@ public class Column implements Serializable
 
     /** The name of the column. */
     private String _name;
+    /** The name indexes that contain this column, see {@link NameIndex#register(Object, NameIndex)}. */
+    private transient Object _nameIndexes;
     /** The java name of the column (optional and unused by DdlUtils, for Torque compatibility). */
     private String _javaName;
     /** The column's description. */
@@ -82,7 +84,22 @@ public class Column implements Serializable
      */
     public void setName(String name)
     {
-        _name = name;
+        if ((_name == null) ? (name != null) : !_name.equals(name))
+        {
+            _name = name;
+            NameIndex.elementRenamed(_nameIndexes);
+        }
+    }
+
+    /**
+     * Registers a name index that contains this column so that the index is invalidated when
+     * the column is renamed.
+     * 
+     * @param index The index
+     */
+    synchronized void registerNameIndex(NameIndex index)
+    {
+        _nameIndexes = NameIndex.register(_nameIndexes, index);
     }
 
     /**
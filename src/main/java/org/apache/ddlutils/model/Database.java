@@ -58,6 +58,8 @@ public class Database implements Serializable
     private ArrayList _tables = new ArrayList();
     /** The dyna class cache for this model. */
     private transient DynaClassCache _dynaClassCache = null;
+    /** The index of the tables by name, built when needed. */
+    private transient NameIndex _tableNames;
 
     /**
      * Creates an empty model without a name.
@@ -215,6 +217,7 @@ public class Database implements Serializable
         if (table != null)
         {
             _tables.add(table);
+            getTableNames().invalidate();
         }
     }
 
@@ -229,6 +232,7 @@ public class Database implements Serializable
         if (table != null)
         {
             _tables.add(idx, table);
+            getTableNames().invalidate();
         }
     }
 
@@ -255,6 +259,7 @@ public class Database implements Serializable
         if (table != null)
         {
             _tables.remove(table);
+            getTableNames().invalidate();
         }
     }
 
@@ -266,6 +271,7 @@ public class Database implements Serializable
     public void removeTable(int idx)
     {
         _tables.remove(idx);
+        getTableNames().invalidate();
     }
 
     /**
@@ -276,6 +282,7 @@ public class Database implements Serializable
     public void removeTables(Table[] tables)
     {
         _tables.removeAll(Arrays.asList(tables));
+        getTableNames().invalidate();
     }
 
     /**
@@ -290,6 +297,7 @@ public class Database implements Serializable
 
         allTables.removeAll(Arrays.asList(tables));
         _tables.removeAll(allTables);
+        getTableNames().invalidate();
     }
 
     // Helper methods
@@ -486,26 +494,31 @@ public class Database implements Serializable
      */
     public Table findTable(String name, boolean caseSensitive)
     {
-        for (Iterator iter = _tables.iterator(); iter.hasNext();)
-        {
-            Table table = (Table) iter.next();
+        return (Table)getTableNames().find(name, caseSensitive);
+    }
 
-            if (caseSensitive)
-            {
-                if (table.getName().equals(name))
+    /**
+     * Returns the index of the tables by name, and creates it if necessary.
+     * 
+     * @return The index
+     */
+    private NameIndex getTableNames()
+    {
+        if (_tableNames == null)
+        {
+            _tableNames = new NameIndex(_tables) {
+                protected String getName(Object element)
                 {
-                    return table;
+                    return ((Table)element).getName();
                 }
-            }
-            else
-            {
-                if (table.getName().equalsIgnoreCase(name))
+
+                protected void registerWith(Object element)
                 {
-                    return table;
+                    ((Table)element).registerNameIndex(this);
                 }
-            }
+            };
         }
-        return null;
+        return _tableNames;
     }
 
     /**
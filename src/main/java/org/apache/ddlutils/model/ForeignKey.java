@@ -39,6 +39,8 @@ public class ForeignKey implements Serializable
     private static final long serialVersionUID = 7833254626253719913L;
     /** The name of the foreign key, may be <code>null</code>. */
     private String _name;
+    /** The name indexes that contain this foreign key, see {@link NameIndex#register(Object, NameIndex)}. */
+    private transient Object _nameIndexes;
     /** The target table. */
     private Table _foreignTable;
     /** The name of the foreign table. */
@@ -87,7 +89,22 @@ public class ForeignKey implements Serializable
      */
     public void setName(String name)
     {
-        _name = name;
+        if ((_name == null) ? (name != null) : !_name.equals(name))
+        {
+            _name = name;
+            NameIndex.elementRenamed(_nameIndexes);
+        }
+    }
+
+    /**
+     * Registers a name index that contains this foreign key so that the index is invalidated when
+     * the foreign key is renamed.
+     * 
+     * @param index The index
+     */
+    synchronized void registerNameIndex(NameIndex index)
+    {
+        _nameIndexes = NameIndex.register(_nameIndexes, index);
     }
 
     /**
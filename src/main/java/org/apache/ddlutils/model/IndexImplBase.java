@@ -34,6 +34,8 @@ public abstract class IndexImplBase implements Index
     protected String    _name;
     /** The columns making up the index. */
     protected ArrayList _columns = new ArrayList();
+    /** The name indexes that contain this index, see {@link NameIndex#register(Object, NameIndex)}. */
+    private transient Object _nameIndexes;
 
     /**
      * {@inheritDoc}
@@ -48,7 +50,22 @@ public abstract class IndexImplBase implements Index
      */
     public void setName(String name)
     {
-        _name = name;
+        if ((_name == null) ? (name != null) : !_name.equals(name))
+        {
+            _name = name;
+            NameIndex.elementRenamed(_nameIndexes);
+        }
+    }
+
+    /**
+     * Registers a name index that contains this index so that the index is invalidated when
+     * the index is renamed.
+     * 
+     * @param index The index
+     */
+    synchronized void registerNameIndex(NameIndex index)
+    {
+        _nameIndexes = NameIndex.register(_nameIndexes, index);
     }
 
     /**
@@ -0,0 +1,259 @@
+package org.apache.ddlutils.model;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Indexes the elements of a list of model elements (e.g. the columns of a table) by their
+ * names, both as is and case-folded, so that they can be found without scanning the list.
+ * The index is built when it is first used. The owner of the list has to invalidate the
+ * index whenever it changes the list. When the index is built, it registers itself with
+ * the indexed elements, and the <code>setName</code> methods of the elements invalidate the
+ * indexes registered with them, so that only the indexes of the owners of a renamed element
+ * are rebuilt. Like a scan of the list, the index finds the first element with the given name.
+ * The index is synchronized so that multiple threads can read a model concurrently; changing
+ * a model while other threads use it still requires external synchronization.
+ *
+ * @version $Revision: $
+ */
+abstract class NameIndex
+{
+    /** The indexed elements. */
+    private final List _elements;
+    /** Whether the index is built and up to date. */
+    private boolean _built;
+    /** The elements by their names. */
+    private HashMap _byName;
+    /** The elements by their case-folded names. */
+    private HashMap _byFoldedName;
+    /** The positions (<code>Integer</code> objects) of the elements, by element identity. */
+    private IdentityHashMap _positions;
+
+    /**
+     * Creates a new index.
+     *
+     * @param elements The elements
+     */
+    NameIndex(List elements)
+    {
+        _elements = elements;
+    }
+
+    /**
+     * Adds the given index to the indexes that an element is registered with. An element
+     * is usually contained in only one list, so the single index is held directly. A list of
+     * indexes is copied instead of changed so that it can be iterated without locking.
+     *
+     * @param registeredIndexes The indexes that the element is registered with so far, either
+     *                          <code>null</code>, a single index or a list of indexes
+     * @param index             The index to add
+     * @return The indexes that the element is registered with now
+     */
+    static Object register(Object registeredIndexes, NameIndex index)
+    {
+        if ((registeredIndexes == null) || (registeredIndexes == index))
+        {
+            return index;
+        }
+        else if (registeredIndexes instanceof NameIndex)
+        {
+            List indexes = new ArrayList(2);
+
+            indexes.add(registeredIndexes);
+            indexes.add(index);
+            return indexes;
+        }
+        else
+        {
+            List oldIndexes = (List)registeredIndexes;
+
+            for (int idx = 0; idx < oldIndexes.size(); idx++)
+            {
+                if (oldIndexes.get(idx) == index)
+                {
+                    return oldIndexes;
+                }
+            }
+
+            List indexes = new ArrayList(oldIndexes.size() + 1);
+
+            indexes.addAll(oldIndexes);
+            indexes.add(index);
+            return indexes;
+        }
+    }
+
+    /**
+     * Records that an element got a new name by invalidating the indexes that it is
+     * registered with.
+     *
+     * @param registeredIndexes The indexes that the element is registered with, as returned
+     *                          by {@link #register(Object, NameIndex)}
+     */
+    static void elementRenamed(Object registeredIndexes)
+    {
+        if (registeredIndexes instanceof NameIndex)
+        {
+            ((NameIndex)registeredIndexes).invalidate();
+        }
+        else if (registeredIndexes != null)
+        {
+            List indexes = (List)registeredIndexes;
+
+            for (int idx = 0; idx < indexes.size(); idx++)
+            {
+                ((NameIndex)indexes.get(idx)).invalidate();
+            }
+        }
+    }
+
+    /**
+     * Returns the name of the given element.
+     *
+     * @param element The element
+     * @return The name
+     */
+    protected abstract String getName(Object element);
+
+    /**
+     * Registers this index with the given element so that the element invalidates the index
+     * when it is renamed.
+     *
+     * @param element The element
+     */
+    protected abstract void registerWith(Object element);
+
+    /**
+     * Invalidates the index, e.g. because the list of elements was changed or an element was
+     * renamed. The index is rebuilt when it is used the next time.
+     */
+    synchronized void invalidate()
+    {
+        _built        = false;
+        _byName       = null;
+        _byFoldedName = null;
+        _positions    = null;
+    }
+
+    /**
+     * Folds the case of the given name so that two names are equal after folding if and only if
+     * they are equal according to {@link String#equalsIgnoreCase(String)}.
+     *
+     * @param name The name
+     * @return The folded name
+     */
+    static String foldCase(String name)
+    {
+        StringBuffer result = null;
+
+        for (int idx = 0; idx < name.length(); idx++)
+        {
+            char curChar    = name.charAt(idx);
+            char foldedChar = Character.toLowerCase(Character.toUpperCase(curChar));
+
+            if ((result == null) && (foldedChar != curChar))
+            {
+                result = new StringBuffer(name.length());
+                result.append(name.substring(0, idx));
+            }
+            if (result != null)
+            {
+                result.append(foldedChar);
+            }
+        }
+        return result == null ? name : result.toString();
+    }
+
+    /**
+     * Builds the index if it isn't built yet or if it was invalidated since.
+     */
+    private void ensureBuilt()
+    {
+        if (!_built)
+        {
+            HashMap byName       = new HashMap(_elements.size() * 2);
+            HashMap byFoldedName = new HashMap(_elements.size() * 2);
+
+            for (int idx = _elements.size() - 1; idx >= 0; idx--)
+            {
+                Object element = _elements.get(idx);
+                String name    = getName(element);
+
+                registerWith(element);
+                // we're going backwards so that the first element with a given name wins
+                if (name != null)
+                {
+                    byName.put(name, element);
+                    byFoldedName.put(foldCase(name), element);
+                }
+            }
+            _byName       = byName;
+            _byFoldedName = byFoldedName;
+            _positions    = null;
+            _built        = true;
+        }
+    }
+
+    /**
+     * Finds the first element with the given name.
+     *
+     * @param name          The name
+     * @param caseSensitive Whether case matters for the names
+     * @return The element or <code>null</code> if there is no such element
+     */
+    synchronized Object find(String name, boolean caseSensitive)
+    {
+        if (name == null)
+        {
+            return null;
+        }
+        ensureBuilt();
+        return caseSensitive ? _byName.get(name) : _byFoldedName.get(foldCase(name));
+    }
+
+    /**
+     * Determines the position of the given element.
+     *
+     * @param element The element
+     * @return The position or <code>-1</code> if the element is not in the list
+     */
+    synchronized int getPosition(Object element)
+    {
+        IdentityHashMap positions = _positions;
+
+        if (positions == null)
+        {
+            positions = new IdentityHashMap(_elements.size() * 2);
+            for (int idx = _elements.size() - 1; idx >= 0; idx--)
+            {
+                positions.put(_elements.get(idx), new Integer(idx));
+            }
+            _positions = positions;
+        }
+
+        Integer position = (Integer)positions.get(element);
+
+        return position == null ? -1 : position.intValue();
+    }
+}
@@ -31,7 +31,6 @@ import java.util.Collection;
 import org.apache.commons.collections.Predicate;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.builder.EqualsBuilder;
-import org.apache.commons.lang.builder.HashCodeBuilder;
 
 /**
  * Represents a table in the database model.
@@ -49,6 +48,8 @@ public class Table implements Serializable
     private String _schema = null;
     /** The name. */
     private String _name = null;
+    /** The name indexes that contain this table, see {@link NameIndex#register(Object, NameIndex)}. */
+    private transient Object _nameIndexes;
     /** A description of the table. */
     private String _description = null;
     /** The table's type as read from the database. */
@@ -59,6 +60,12 @@ public class Table implements Serializable
     private ArrayList _foreignKeys = new ArrayList();
     /** The indices applied to this table. */
     private ArrayList _indices = new ArrayList();
+    /** The index of the columns by name, built when needed. */
+    private transient NameIndex _columnNames;
+    /** The index of the foreign keys by name, built when needed. */
+    private transient NameIndex _foreignKeyNames;
+    /** The index of the indices by name, built when needed. */
+    private transient NameIndex _indexNames;
 
     /**
      * Returns the catalog of this table as read from the database.
@@ -137,7 +144,22 @@ public class Table implements Serializable
      */
     public void setName(String name)
     {
-        _name = name;
+        if ((_name == null) ? (name != null) : !_name.equals(name))
+        {
+            _name = name;
+            NameIndex.elementRenamed(_nameIndexes);
+        }
+    }
+
+    /**
+     * Registers a name index that contains this table so that the index is invalidated when
+     * the table is renamed.
+     * 
+     * @param index The index
+     */
+    synchronized void registerNameIndex(NameIndex index)
+    {
+        _nameIndexes = NameIndex.register(_nameIndexes, index);
     }
 
     /**
@@ -201,6 +223,7 @@ public class Table implements Serializable
         if (column != null)
         {
             _columns.add(column);
+            getColumnNames().invalidate();
         }
     }
 
@@ -215,6 +238,7 @@ public class Table implements Serializable
         if (column != null)
         {
             _columns.add(idx, column);
+            getColumnNames().invalidate();
         }
     }
 
@@ -237,6 +261,7 @@ public class Table implements Serializable
             {
                 _columns.add(_columns.indexOf(previousColumn), column);
             }
+            getColumnNames().invalidate();
         }
     }
 
@@ -263,6 +288,7 @@ public class Table implements Serializable
         if (column != null)
         {
             _columns.remove(column);
+            getColumnNames().invalidate();
         }
     }
 
@@ -274,6 +300,7 @@ public class Table implements Serializable
     public void removeAllColumns()
     {
         _columns.clear();
+        getColumnNames().invalidate();
     }
 
     /**
@@ -284,6 +311,7 @@ public class Table implements Serializable
     public void removeColumn(int idx)
     {
         _columns.remove(idx);
+        getColumnNames().invalidate();
     }
 
     /**
@@ -327,6 +355,7 @@ public class Table implements Serializable
         if (foreignKey != null)
         {
             _foreignKeys.add(foreignKey);
+            getForeignKeyNames().invalidate();
         }
     }
 
@@ -341,6 +370,7 @@ public class Table implements Serializable
         if (foreignKey != null)
         {
             _foreignKeys.add(idx, foreignKey);
+            getForeignKeyNames().invalidate();
         }
     }
 
@@ -363,6 +393,7 @@ public class Table implements Serializable
     public void removeAllForeignKeys()
     {
         _foreignKeys.clear();
+        getForeignKeyNames().invalidate();
     }
 
     /**
@@ -375,6 +406,7 @@ public class Table implements Serializable
         if (foreignKey != null)
         {
             _foreignKeys.remove(foreignKey);
+            getForeignKeyNames().invalidate();
         }
     }
 
@@ -386,6 +418,7 @@ public class Table implements Serializable
     public void removeForeignKey(int idx)
     {
         _foreignKeys.remove(idx);
+        getForeignKeyNames().invalidate();
     }
 
     /**
@@ -419,6 +452,7 @@ public class Table implements Serializable
         if (index != null)
         {
             _indices.add(index);
+            getIndexNames().invalidate();
         }
     }
 
@@ -433,6 +467,7 @@ public class Table implements Serializable
         if (index != null)
         {
             _indices.add(idx, index);
+            getIndexNames().invalidate();
         }
     }
 
@@ -501,6 +536,7 @@ public class Table implements Serializable
         if (index != null)
         {
             _indices.remove(index);
+            getIndexNames().invalidate();
         }
     }
 
@@ -512,6 +548,7 @@ public class Table implements Serializable
     public void removeIndex(int idx)
     {
         _indices.remove(idx);
+        getIndexNames().invalidate();
     }
 
     // Helper methods
@@ -560,26 +597,31 @@ public class Table implements Serializable
      */
     public Column findColumn(String name, boolean caseSensitive)
     {
-        for (Iterator it = _columns.iterator(); it.hasNext(); )
-        {
-            Column column = (Column)it.next();
+        return (Column)getColumnNames().find(name, caseSensitive);
+    }
 
-            if (caseSensitive)
-            {
-                if (column.getName().equals(name))
+    /**
+     * Returns the index of the columns by name, and creates it if necessary.
+     * 
+     * @return The index
+     */
+    private NameIndex getColumnNames()
+    {
+        if (_columnNames == null)
+        {
+            _columnNames = new NameIndex(_columns) {
+                protected String getName(Object element)
                 {
-                    return column;
+                    return ((Column)element).getName();
                 }
-            }
-            else
-            {
-                if (column.getName().equalsIgnoreCase(name))
+
+                protected void registerWith(Object element)
                 {
-                    return column;
+                    ((Column)element).registerNameIndex(this);
                 }
-            }
+            };
         }
-        return null;
+        return _columnNames;
     }
 
     /**
@@ -590,16 +632,7 @@ public class Table implements Serializable
      */
     public int getColumnIndex(Column column)
     {
-        int idx = 0;
-
-        for (Iterator it = _columns.iterator(); it.hasNext(); idx++)
-        {
-            if (column == it.next())
-            {
-                return idx;
-            }
-        }
-        return -1;
+        return getColumnNames().getPosition(column);
     }
 
     /**
@@ -631,17 +664,35 @@ public class Table implements Serializable
         {
             throw new NullPointerException("The index name to search for cannot be null");
         }
-        for (int idx = 0; idx < getIndexCount(); idx++)
+        return (Index)getIndexNames().find(name, caseSensitive);
+    }
+
+    /**
+     * Returns the index of the indices by name, and creates it if necessary.
+     * 
+     * @return The index
+     */
+    private NameIndex getIndexNames()
+    {
+        if (_indexNames == null)
         {
-            Index index = getIndex(idx);
+            _indexNames = new NameIndex(_indices) {
+                protected String getName(Object element)
+                {
+                    return ((Index)element).getName();
+                }
 
-            if ((caseSensitive  && name.equals(index.getName())) ||
-                (!caseSensitive && name.equalsIgnoreCase(index.getName())))
-            {
-                return index;
-            }
+                protected void registerWith(Object element)
+                {
+                    // renames of other index implementations are not tracked
+                    if (element instanceof IndexImplBase)
+                    {
+                        ((IndexImplBase)element).registerNameIndex(this);
+                    }
+                }
+            };
         }
-        return null;
+        return _indexNames;
     }
 
     /**
@@ -673,17 +724,31 @@ public class Table implements Serializable
         {
             throw new NullPointerException("The foreign key name to search for cannot be null");
         }
-        for (int idx = 0; idx < getForeignKeyCount(); idx++)
+        return (ForeignKey)getForeignKeyNames().find(name, caseSensitive);
+    }
+
+    /**
+     * Returns the index of the foreign keys by name, and creates it if necessary.
+     * 
+     * @return The index
+     */
+    private NameIndex getForeignKeyNames()
+    {
+        if (_foreignKeyNames == null)
         {
-            ForeignKey foreignKey = getForeignKey(idx);
+            _foreignKeyNames = new NameIndex(_foreignKeys) {
+                protected String getName(Object element)
+                {
+                    return ((ForeignKey)element).getName();
+                }
 
-            if ((caseSensitive  && name.equals(foreignKey.getName())) ||
-                (!caseSensitive && name.equalsIgnoreCase(foreignKey.getName())))
-            {
-                return foreignKey;
-            }
+                protected void registerWith(Object element)
+                {
+                    ((ForeignKey)element).registerNameIndex(this);
+                }
+            };
         }
-        return null;
+        return _foreignKeyNames;
     }
 
     /**
@@ -840,6 +905,7 @@ public class Table implements Serializable
                     return collator.compare(fk1Name, fk2Name);
                 }
             });
+            getForeignKeyNames().invalidate();
         }
     }
     
@@ -848,10 +914,21 @@ public class Table implements Serializable
      */
     public boolean equals(Object obj)
     {
-        if (obj instanceof Table)
+        if (obj == this)
+        {
+            return true;
+        }
+        else if (obj instanceof Table)
         {
             Table other = (Table)obj;
 
+            // we check the cheap properties first so that different tables are usually
+            // told apart without comparing the columns, foreign keys and indices
+            if (!(_name == null ? other._name == null : _name.equals(other._name)) ||
+                (_columns.size() != other._columns.size()))
+            {
+                return false;
+            }
             // Note that this compares case sensitive
             // TODO: For now we ignore catalog and schema (type should be irrelevant anyways)
             return new EqualsBuilder().append(_name,                     other._name)
@@ -871,12 +948,9 @@ public class Table implements Serializable
      */
     public int hashCode()
     {
-        // TODO: For now we ignore catalog and schema (type should be irrelevant anyways)
-        return new HashCodeBuilder(17, 37).append(_name)
-                                          .append(_columns)
-                                          .append(new HashSet(_foreignKeys))
-                                          .append(new HashSet(_indices))
-                                          .toHashCode();
+        // tables are often used as keys in hash sets and maps, so we only use the properties
+        // that are cheap to hash; equal tables have the same name and number of columns
+        return 37 * (_name == null ? 0 : _name.hashCode()) + _columns.size();
     }
 
     /**
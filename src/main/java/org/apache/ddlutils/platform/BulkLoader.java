@@ -0,0 +1,57 @@
+package org.apache.ddlutils.platform;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.sql.Connection;
+import java.util.List;
+
+import org.apache.ddlutils.DatabaseOperationException;
+import org.apache.ddlutils.dynabean.SqlDynaProperty;
+import org.apache.ddlutils.model.Table;
+
+/**
+ * Loads rows into a table using a bulk load protocol of the database, which is
+ * usually much faster than insert statements. Bulk loaders are used by
+ * {@link org.apache.ddlutils.Platform#bulkLoad(Connection, org.apache.ddlutils.model.Database, java.util.Collection)}.
+ *
+ * @version $Revision: $
+ */
+public interface BulkLoader
+{
+    /**
+     * Determines whether this loader can be used with the given connection, e.g. whether
+     * the JDBC driver provides the necessary API.
+     *
+     * @param connection The connection
+     * @return <code>true</code> if the loader can be used
+     */
+    public boolean isSupported(Connection connection);
+
+    /**
+     * Loads the given beans into the table. This method does not close the connection.
+     *
+     * @param connection The connection
+     * @param table      The table
+     * @param properties The properties to write, which are the same for all beans
+     * @param dynaBeans  The beans
+     * @return The number of loaded rows, or -1 if the database does not report it
+     */
+    public long load(Connection connection, Table table, SqlDynaProperty[] properties, List dynaBeans) throws DatabaseOperationException;
+}
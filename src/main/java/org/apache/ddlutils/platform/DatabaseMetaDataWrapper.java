@@ -239,6 +239,20 @@ public class DatabaseMetaDataWrapper
         return getMetaData().getImportedKeys(getCatalog(), getSchemaPattern(), tableNamePattern);
     }
 
+    /**
+     * Convenience method to return the meta data of the foreign keys that reference the
+     * given tables, using the configured catalog and schema pattern.
+     * 
+     * @param tableNamePattern The pattern identifying the referenced tables
+     * @return The foreign key meta data
+     * @throws SQLException If an error occurred retrieving the meta data
+     * @see DatabaseMetaData#getExportedKeys(java.lang.String, java.lang.String, java.lang.String)
+     */
+    public ResultSet getExportedKeys(String tableNamePattern) throws SQLException
+    {
+        return getMetaData().getExportedKeys(getCatalog(), getSchemaPattern(), tableNamePattern);
+    }
+
     /**
      * Convenience method to return the index meta data using the configured catalog and
      * schema pattern.
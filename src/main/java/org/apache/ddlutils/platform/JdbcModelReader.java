@@ -21,6 +21,7 @@ package org.apache.ddlutils.platform;
 
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
@@ -32,6 +33,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -40,6 +42,7 @@ import org.apache.commons.collections.map.ListOrderedMap;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.ddlutils.DdlUtilsException;
 import org.apache.ddlutils.Platform;
 import org.apache.ddlutils.PlatformInfo;
 import org.apache.ddlutils.model.CascadeActionEnum;
@@ -88,8 +91,18 @@ public class JdbcModelReader
     private String _defaultColumnPattern;
     /** The table types to recognize per default. */
     private String[] _defaultTableTypes = { "TABLE" };
-    /** The active connection while reading a database model. */
-    private Connection _connection;
+    /** The active connection of the current thread while reading a database model. */
+    private final ThreadLocal _connection = new ThreadLocal();
+    /** The number of threads (each with its own connection) that read the tables. */
+    private int _readThreadCount = 1;
+    /** The column meta data of all tables (table name -> list of value maps) when reading in bulk. */
+    private Map _bulkColumnData;
+    /** The primary key meta data of all tables when reading in bulk. */
+    private Map _bulkPrimaryKeyData;
+    /** The foreign key meta data of all tables when reading in bulk. */
+    private Map _bulkForeignKeyData;
+    /** The index meta data of all tables when reading in bulk. */
+    private Map _bulkIndexData;
 
     /**
      * Creates a new model reader instance.
@@ -441,14 +454,58 @@ public class JdbcModelReader
     }
 
     /**
-     * Returns the active connection. Note that this is only set during a call to
-     * {@link #readTables(String, String, String[])}.
+     * Determines whether the meta data of the tables is read in bulk, i.e. with a few
+     * queries for all tables instead of separate queries for every table. This is
+     * specified via {@link Platform#setBulkModelReadModeOn(boolean)}.
+     *
+     * @return <code>true</code> if the meta data is read in bulk
+     */
+    public boolean isBulkReadModeOn()
+    {
+        return getPlatform().isBulkModelReadModeOn();
+    }
+
+    /**
+     * Returns the number of threads that read the tables of the model.
+     *
+     * @return The number of threads
+     */
+    public int getReadThreadCount()
+    {
+        return _readThreadCount;
+    }
+
+    /**
+     * Specifies the number of threads that read the tables of the model. If more than one,
+     * then the tables are distributed over the threads which read them concurrently, each
+     * on its own connection; the thread calling {@link #getDatabase(Connection, String)}
+     * is one of them and uses the given connection, the others borrow connections from the
+     * data source of the platform. This can considerably speed up reading large models,
+     * esp. if the database is accessed over a slow network. The resulting model is the same
+     * as when reading sequentially. If the platform has no data source, then the tables are
+     * read sequentially.
+     *
+     * @param readThreadCount The number of threads
+     */
+    public void setReadThreadCount(int readThreadCount)
+    {
+        if (readThreadCount < 1)
+        {
+            throw new IllegalArgumentException("The number of read threads must be at least 1");
+        }
+        _readThreadCount = readThreadCount;
+    }
+
+    /**
+     * Returns the active connection of the current thread. Note that this is only set during a
+     * call to {@link #readTables(String, String, String[])}. When reading the tables with several
+     * threads, each thread has its own connection.
      *
      * @return The connection or <code>null</code> if there is no active connection
      */
     protected Connection getConnection()
     {
-        return _connection;
+        return (Connection)_connection.get();
     }
 
     /**
@@ -476,6 +533,26 @@ public class JdbcModelReader
      * @return The database model
      */
     public Database getDatabase(Connection connection, String name, String catalog, String schema, String[] tableTypes) throws SQLException
+    {
+        return getDatabase(connection, name, catalog, schema, tableTypes, null);
+    }
+
+    /**
+     * Reads the database model from the given connection. If table names are given, then
+     * only these tables and the tables linked to them by foreign keys (the tables that they
+     * reference and the tables that reference them) are read. Foreign keys of the linked
+     * tables to other tables are not part of the resulting model.
+     * 
+     * @param connection The connection
+     * @param name       The name of the resulting database; <code>null</code> when the default name (the catalog)
+     *                   is desired which might be <code>null</code> itself though
+     * @param catalog    The catalog to acess in the database; use <code>null</code> for the default value
+     * @param schema     The schema to acess in the database; use <code>null</code> for the default value
+     * @param tableTypes The table types to process; use <code>null</code> or an empty list for the default ones
+     * @param tableNames The names of the tables to read; use <code>null</code> for all tables
+     * @return The database model
+     */
+    public Database getDatabase(Connection connection, String name, String catalog, String schema, String[] tableTypes, String[] tableNames) throws SQLException
     {
         Database db = new Database();
 
@@ -500,8 +577,9 @@ public class JdbcModelReader
         }
         try
         {
-            _connection = connection;
-            db.addTables(readTables(catalog, schema, tableTypes));
+            _connection.set(connection);
+            db.addTables(tableNames == null ? readTables(catalog, schema, tableTypes)
+                                            : readTables(catalog, schema, tableTypes, tableNames));
             // Note that we do this here instead of in readTable since platforms may redefine the
             // readTable method whereas it is highly unlikely that this method gets redefined
             if (getPlatform().isForeignKeysSorted())
@@ -511,7 +589,7 @@ public class JdbcModelReader
         }
         finally
         {
-            _connection = null;
+            _connection.set(null);
         }
         db.initialize();
         return db;
@@ -526,6 +604,22 @@ public class JdbcModelReader
      * @return The tables
      */
     protected Collection readTables(String catalog, String schemaPattern, String[] tableTypes) throws SQLException
+    {
+        return readTables(catalog, schemaPattern, tableTypes, null);
+    }
+
+    /**
+     * Reads the tables from the database metadata. If table names are given, then only these
+     * tables and the tables linked to them by foreign keys are read, and bulk read mode is
+     * not used as it would read the metadata of all tables.
+     * 
+     * @param catalog       The catalog to acess in the database; use <code>null</code> for the default value
+     * @param schemaPattern The schema(s) to acess in the database; use <code>null</code> for the default value
+     * @param tableTypes    The table types to process; use <code>null</code> or an empty list for the default ones
+     * @param tableNames    The names of the tables to read; use <code>null</code> for all tables
+     * @return The tables
+     */
+    protected Collection readTables(String catalog, String schemaPattern, String[] tableTypes, String[] tableNames) throws SQLException
     {
         ResultSet tableData = null;
 
@@ -533,24 +627,38 @@ public class JdbcModelReader
         {
             DatabaseMetaDataWrapper metaData = new DatabaseMetaDataWrapper();
 
-            metaData.setMetaData(_connection.getMetaData());
+            metaData.setMetaData(getConnection().getMetaData());
             metaData.setCatalog(catalog == null ? getDefaultCatalogPattern() : catalog);
             metaData.setSchemaPattern(schemaPattern == null ? getDefaultSchemaPattern() : schemaPattern);
             metaData.setTableTypes((tableTypes == null) || (tableTypes.length == 0) ? getDefaultTableTypes() : tableTypes);
             
             tableData = metaData.getTables(getDefaultTablePattern());
 
-            List tables = new ArrayList();
+            List tableValues = new ArrayList();
 
             while (tableData.next())
             {
-                Map   values = readColumns(tableData, getColumnsForTable());
-                Table table  = readTable(metaData, values);
+                tableValues.add(readColumns(tableData, getColumnsForTable()));
+            }
+            closeResultSet(tableData);
+            tableData = null;
 
-                if (table != null)
+            List tables;
+
+            if (tableNames != null)
+            {
+                tables = readLinkedTables(metaData, tableValues, tableNames);
+            }
+            else
+            {
+                if (isBulkReadModeOn())
                 {
-                    tables.add(table);
+                    _bulkColumnData     = readColumnDataInBulk(metaData);
+                    _bulkPrimaryKeyData = readPrimaryKeyDataInBulk(metaData);
+                    _bulkForeignKeyData = readForeignKeyDataInBulk(metaData);
+                    _bulkIndexData      = readIndexDataInBulk(metaData);
                 }
+                tables = readTables(metaData, tableValues);
             }
 
             final Collator collator = Collator.getInstance();
@@ -566,7 +674,515 @@ public class JdbcModelReader
         finally
         {
             closeResultSet(tableData);
+            _bulkColumnData     = null;
+            _bulkPrimaryKeyData = null;
+            _bulkForeignKeyData = null;
+            _bulkIndexData      = null;
+        }
+    }
+
+    /**
+     * Reads the tables described by the given table metadata values, concurrently if multiple
+     * read threads are configured.
+     * 
+     * @param metaData    The database meta data
+     * @param tableValues The table metadata values as defined by {@link #getColumnsForTable()}
+     * @return The tables
+     */
+    private List readTables(DatabaseMetaDataWrapper metaData, List tableValues) throws SQLException
+    {
+        List tables = new ArrayList();
+
+        if ((_readThreadCount > 1) && (tableValues.size() > 1) && (getPlatform().getDataSource() != null))
+        {
+            Table[] readTables = readTablesInParallel(metaData, tableValues);
+
+            for (int idx = 0; idx < readTables.length; idx++)
+            {
+                if (readTables[idx] != null)
+                {
+                    tables.add(readTables[idx]);
+                }
+            }
+        }
+        else
+        {
+            for (Iterator it = tableValues.iterator(); it.hasNext();)
+            {
+                Table table = readTable(metaData, (Map)it.next());
+
+                if (table != null)
+                {
+                    tables.add(table);
+                }
+            }
+        }
+        return tables;
+    }
+
+    /**
+     * Reads the tables of the given names and the tables linked to them by foreign keys, i.e.
+     * the tables that they reference and the tables that reference them. The foreign keys of
+     * the linked tables to other tables are removed so that the tables form a valid model.
+     * 
+     * @param metaData    The database meta data
+     * @param tableValues The metadata values of all tables as defined by {@link #getColumnsForTable()}
+     * @param tableNames  The names of the tables to read
+     * @return The tables
+     */
+    private List readLinkedTables(DatabaseMetaDataWrapper metaData, List tableValues, String[] tableNames) throws SQLException
+    {
+        boolean caseSensitive = getPlatform().isDelimitedIdentifierModeOn();
+        HashMap valuesByName  = new HashMap();
+
+        for (Iterator it = tableValues.iterator(); it.hasNext();)
+        {
+            Map    values    = (Map)it.next();
+            String tableName = (String)values.get("TABLE_NAME");
+
+            if ((tableName != null) && !valuesByName.containsKey(getTableKey(tableName, caseSensitive)))
+            {
+                valuesByName.put(getTableKey(tableName, caseSensitive), values);
+            }
+        }
+
+        HashSet readTableKeys = new HashSet();
+        List    valuesToRead  = new ArrayList();
+
+        for (int idx = 0; idx < tableNames.length; idx++)
+        {
+            String key = getTableKey(tableNames[idx], caseSensitive);
+
+            if (valuesByName.containsKey(key) && readTableKeys.add(key))
+            {
+                valuesToRead.add(valuesByName.get(key));
+            }
+        }
+
+        List tables = readTables(metaData, valuesToRead);
+
+        valuesToRead = new ArrayList();
+        for (Iterator tableIt = tables.iterator(); tableIt.hasNext();)
+        {
+            Table     table       = (Table)tableIt.next();
+            List      linkedNames = new ArrayList();
+            ResultSet fkData      = null;
+
+            for (int fkIdx = 0; fkIdx < table.getForeignKeyCount(); fkIdx++)
+            {
+                linkedNames.add(table.getForeignKey(fkIdx).getForeignTableName());
+            }
+            try
+            {
+                fkData = metaData.getExportedKeys(metaData.escapeForSearch(table.getName()));
+                while (fkData.next())
+                {
+                    linkedNames.add(fkData.getString("FKTABLE_NAME"));
+                }
+            }
+            finally
+            {
+                closeResultSet(fkData);
+            }
+            for (Iterator nameIt = linkedNames.iterator(); nameIt.hasNext();)
+            {
+                String key = getTableKey((String)nameIt.next(), caseSensitive);
+
+                if (valuesByName.containsKey(key) && readTableKeys.add(key))
+                {
+                    valuesToRead.add(valuesByName.get(key));
+                }
+            }
         }
+        tables.addAll(readTables(metaData, valuesToRead));
+
+        for (Iterator it = tables.iterator(); it.hasNext();)
+        {
+            Table table = (Table)it.next();
+
+            for (int fkIdx = table.getForeignKeyCount() - 1; fkIdx >= 0; fkIdx--)
+            {
+                if (!readTableKeys.contains(getTableKey(table.getForeignKey(fkIdx).getForeignTableName(), caseSensitive)))
+                {
+                    table.removeForeignKey(fkIdx);
+                }
+            }
+        }
+        return tables;
+    }
+
+    /**
+     * Returns the key under which a table is looked up by its name.
+     * 
+     * @param tableName     The name of the table
+     * @param caseSensitive Whether the case of table names matters
+     * @return The key
+     */
+    private String getTableKey(String tableName, boolean caseSensitive)
+    {
+        return caseSensitive || (tableName == null) ? tableName : tableName.toUpperCase();
+    }
+
+    /**
+     * Reads the given tables concurrently using several threads. The tables are handed out to
+     * the threads one at a time, and each thread reads them via {@link #readTable(DatabaseMetaDataWrapper, Map)}
+     * on its own connection. The current thread takes part using the active connection; the
+     * other threads borrow connections from the platform. The bulk read meta data, if any, has
+     * to be read before and is shared by the threads.
+     * 
+     * @param metaData    The database meta data of the active connection
+     * @param tableValues The table metadata values as defined by {@link #getColumnsForTable()}
+     * @return The tables in the order of the given values; <code>null</code> for values that
+     *         did not describe a valid table
+     */
+    private Table[] readTablesInParallel(final DatabaseMetaDataWrapper metaData, final List tableValues) throws SQLException
+    {
+        final Table[]     tables      = new Table[tableValues.size()];
+        final int[]       nextIdx     = { 0 };
+        final Throwable[] error       = { null };
+        Thread[]          threads     = new Thread[Math.min(_readThreadCount, tables.length) - 1];
+        boolean           interrupted = false;
+
+        Runnable tableReader = new Runnable() {
+            public void run()
+            {
+                Connection connection = null;
+
+                try
+                {
+                    connection = getPlatform().borrowConnection();
+
+                    DatabaseMetaDataWrapper threadMetaData = new DatabaseMetaDataWrapper();
+
+                    threadMetaData.setMetaData(connection.getMetaData());
+                    threadMetaData.setCatalog(metaData.getCatalog());
+                    threadMetaData.setSchemaPattern(metaData.getSchemaPattern());
+                    threadMetaData.setTableTypes(metaData.getTableTypes());
+                    _connection.set(connection);
+                    readNextTables(threadMetaData, tableValues, tables, nextIdx, error);
+                }
+                catch (Throwable ex)
+                {
+                    // errors are passed on too, otherwise the tables of this thread would be missing
+                    recordError(error, ex);
+                }
+                finally
+                {
+                    _connection.set(null);
+                    if (connection != null)
+                    {
+                        getPlatform().returnConnection(connection);
+                    }
+                }
+            }
+        };
+
+        _log.debug("Reading " + tables.length + " tables with " + (threads.length + 1) + " threads");
+        for (int idx = 0; idx < threads.length; idx++)
+        {
+            threads[idx] = new Thread(tableReader, "DdlUtils model reader " + (idx + 1));
+            threads[idx].setDaemon(true);
+            threads[idx].start();
+        }
+        try
+        {
+            readNextTables(metaData, tableValues, tables, nextIdx, error);
+        }
+        catch (Throwable ex)
+        {
+            recordError(error, ex);
+        }
+        finally
+        {
+            for (int idx = 0; idx < threads.length; idx++)
+            {
+                while (threads[idx].isAlive())
+                {
+                    try
+                    {
+                        threads[idx].join();
+                    }
+                    catch (InterruptedException ex)
+                    {
+                        // the other threads stop after their current table, and we still wait
+                        // for them so that they have returned their connections when we're done
+                        recordError(error, ex);
+                        interrupted = true;
+                    }
+                }
+            }
+        }
+        if (interrupted)
+        {
+            Thread.currentThread().interrupt();
+        }
+        if (error[0] instanceof SQLException)
+        {
+            throw (SQLException)error[0];
+        }
+        else if (error[0] instanceof RuntimeException)
+        {
+            throw (RuntimeException)error[0];
+        }
+        else if (error[0] instanceof Error)
+        {
+            throw (Error)error[0];
+        }
+        else if (error[0] != null)
+        {
+            throw new DdlUtilsException("Could not read the tables", error[0]);
+        }
+        return tables;
+    }
+
+    /**
+     * Records the given error of a thread reading tables in parallel, unless an error has
+     * already been recorded. The other threads stop reading tables once an error is recorded.
+     * 
+     * @param error The holder of the recorded error
+     * @param ex    The error
+     */
+    private void recordError(Throwable[] error, Throwable ex)
+    {
+        synchronized (error)
+        {
+            if (error[0] == null)
+            {
+                error[0] = ex;
+            }
+        }
+    }
+
+    /**
+     * Reads tables until there are no more tables to read or until one of the threads failed.
+     * 
+     * @param metaData    The database meta data of the connection of the current thread
+     * @param tableValues The table metadata values as defined by {@link #getColumnsForTable()}
+     * @param tables      Receives the read tables at the positions of their values
+     * @param nextIdx     The index of the next table to read, shared by the threads
+     * @param error       The first error of any of the threads
+     */
+    private void readNextTables(DatabaseMetaDataWrapper metaData, List tableValues, Table[] tables, int[] nextIdx, Throwable[] error) throws SQLException
+    {
+        while (true)
+        {
+            int idx;
+
+            synchronized (nextIdx)
+            {
+                idx = nextIdx[0]++;
+            }
+            synchronized (error)
+            {
+                if ((idx >= tables.length) || (error[0] != null))
+                {
+                    return;
+                }
+            }
+            tables[idx] = readTable(metaData, (Map)tableValues.get(idx));
+        }
+    }
+
+    /**
+     * Reads the column meta data of all tables in bulk. The default implementation uses a
+     * single {@link DatabaseMetaData#getColumns(String, String, String, String)} call for
+     * all tables.
+     * 
+     * @param metaData The database meta data
+     * @return The column meta data values as defined by {@link #getColumnsForColumn()}
+     *         keyed by table name, or <code>null</code> if they shall be read per table
+     */
+    protected Map readColumnDataInBulk(DatabaseMetaDataWrapper metaData) throws SQLException
+    {
+        ResultSet columnData = null;
+
+        try
+        {
+            columnData = metaData.getColumns(getDefaultTablePattern(), getDefaultColumnPattern());
+            return readRowsByTable(columnData, getColumnsForColumn(), "TABLE_NAME");
+        }
+        finally
+        {
+            closeResultSet(columnData);
+        }
+    }
+
+    /**
+     * Reads the primary key meta data of all tables in bulk. JDBC requires a table name
+     * for querying primary keys, so the default implementation returns <code>null</code>.
+     * Redefine this method for platforms that allow to query them for all tables at once,
+     * e.g. via their system catalog.
+     * 
+     * @param metaData The database meta data
+     * @return The primary key meta data values as defined by {@link #getColumnsForPK()}
+     *         keyed by table name, or <code>null</code> if they shall be read per table
+     */
+    protected Map readPrimaryKeyDataInBulk(DatabaseMetaDataWrapper metaData) throws SQLException
+    {
+        return null;
+    }
+
+    /**
+     * Reads the foreign key meta data of all tables in bulk. JDBC requires a table name
+     * for querying foreign keys, so the default implementation returns <code>null</code>.
+     * Redefine this method for platforms that allow to query them for all tables at once,
+     * e.g. via their system catalog.
+     * 
+     * @param metaData The database meta data
+     * @return The foreign key meta data values as defined by {@link #getColumnsForFK()}
+     *         keyed by (local) table name, or <code>null</code> if they shall be read per table
+     */
+    protected Map readForeignKeyDataInBulk(DatabaseMetaDataWrapper metaData) throws SQLException
+    {
+        return null;
+    }
+
+    /**
+     * Reads the index meta data of all tables in bulk. JDBC requires a table name
+     * for querying indices, so the default implementation returns <code>null</code>.
+     * Redefine this method for platforms that allow to query them for all tables at once,
+     * e.g. via their system catalog.
+     * 
+     * @param metaData The database meta data
+     * @return The index meta data values as defined by {@link #getColumnsForIndex()}
+     *         keyed by table name, or <code>null</code> if they shall be read per table
+     */
+    protected Map readIndexDataInBulk(DatabaseMetaDataWrapper metaData) throws SQLException
+    {
+        return null;
+    }
+
+    /**
+     * Reads all rows of the given result set and groups them by table.
+     * 
+     * @param resultSet         The result set
+     * @param columnDescriptors The descriptors of the columns to read
+     * @param tableNameColumn   The name of the column that contains the table name; this
+     *                          column must be one of the described columns
+     * @return The read values (list of maps as returned by {@link #readColumns(ResultSet, List)})
+     *         keyed by table name
+     */
+    protected Map readRowsByTable(ResultSet resultSet, List columnDescriptors, String tableNameColumn) throws SQLException
+    {
+        Map result = new HashMap();
+
+        while (resultSet.next())
+        {
+            Map    values    = readColumns(resultSet, columnDescriptors);
+            String tableName = (String)values.get(tableNameColumn);
+            List   rows      = (List)result.get(tableName);
+
+            if (rows == null)
+            {
+                rows = new ArrayList();
+                result.put(tableName, rows);
+            }
+            rows.add(values);
+        }
+        return result;
+    }
+
+    /**
+     * Executes the given meta data query on the active connection and groups the resulting
+     * rows by table. This is a helper for platforms that read the meta data in bulk from
+     * their system catalog.
+     * 
+     * @param query             The query
+     * @param parameters        The values of the query parameters
+     * @param columnDescriptors The descriptors of the columns to read
+     * @param tableNameColumn   The name of the column that contains the table name
+     * @return The read values keyed by table name
+     */
+    protected Map readRowsByTable(String query, Collection parameters, List columnDescriptors, String tableNameColumn) throws SQLException
+    {
+        PreparedStatement stmt = null;
+
+        try
+        {
+            stmt = getConnection().prepareStatement(query);
+
+            int paramIdx = 1;
+
+            for (Iterator it = parameters.iterator(); it.hasNext(); paramIdx++)
+            {
+                stmt.setObject(paramIdx, it.next());
+            }
+            return readRowsByTable(stmt.executeQuery(), columnDescriptors, tableNameColumn);
+        }
+        finally
+        {
+            closeStatement(stmt);
+        }
+    }
+
+    /**
+     * Returns the bulk read meta data for the given table.
+     * 
+     * @param bulkData  The bulk read meta data
+     * @param tableName The name of the table
+     * @return The meta data values of the table, or <code>null</code> if the meta data was
+     *         not read in bulk
+     */
+    private List getBulkData(Map bulkData, String tableName)
+    {
+        if (bulkData == null)
+        {
+            return null;
+        }
+        else
+        {
+            List rows = (List)bulkData.get(tableName);
+
+            return rows == null ? Collections.EMPTY_LIST : rows;
+        }
+    }
+
+    /**
+     * Returns the column meta data values of the given table if they were read in bulk.
+     * 
+     * @param tableName The name of the table
+     * @return The values as defined by {@link #getColumnsForColumn()}, or <code>null</code>
+     *         if the column meta data was not read in bulk
+     */
+    protected List getBulkColumnData(String tableName)
+    {
+        return getBulkData(_bulkColumnData, tableName);
+    }
+
+    /**
+     * Returns the primary key meta data values of the given table if they were read in bulk.
+     * 
+     * @param tableName The name of the table
+     * @return The values as defined by {@link #getColumnsForPK()}, or <code>null</code>
+     *         if the primary key meta data was not read in bulk
+     */
+    protected List getBulkPrimaryKeyData(String tableName)
+    {
+        return getBulkData(_bulkPrimaryKeyData, tableName);
+    }
+
+    /**
+     * Returns the foreign key meta data values of the given table if they were read in bulk.
+     * 
+     * @param tableName The name of the table
+     * @return The values as defined by {@link #getColumnsForFK()}, or <code>null</code>
+     *         if the foreign key meta data was not read in bulk
+     */
+    protected List getBulkForeignKeyData(String tableName)
+    {
+        return getBulkData(_bulkForeignKeyData, tableName);
+    }
+
+    /**
+     * Returns the index meta data values of the given table if they were read in bulk.
+     * 
+     * @param tableName The name of the table
+     * @return The values as defined by {@link #getColumnsForIndex()}, or <code>null</code>
+     *         if the index meta data was not read in bulk
+     */
+    protected List getBulkIndexData(String tableName)
+    {
+        return getBulkData(_bulkIndexData, tableName);
     }
 
     /**
@@ -769,6 +1385,19 @@ public class JdbcModelReader
      */
     protected Collection readColumns(DatabaseMetaDataWrapper metaData, String tableName) throws SQLException
     {
+        List bulkData = getBulkColumnData(tableName);
+
+        if (bulkData != null)
+        {
+            List columns = new ArrayList();
+
+            for (Iterator it = bulkData.iterator(); it.hasNext();)
+            {
+                columns.add(readColumn(metaData, (Map)it.next()));
+            }
+            return columns;
+        }
+
         ResultSet columnData = null;
 
         try
@@ -851,9 +1480,18 @@ public class JdbcModelReader
      */
     protected Collection readPrimaryKeyNames(DatabaseMetaDataWrapper metaData, String tableName) throws SQLException
     {
-        List      pks   = new ArrayList();
-        ResultSet pkData = null;
+        List      pks      = new ArrayList();
+        List      bulkData = getBulkPrimaryKeyData(tableName);
+        ResultSet pkData   = null;
 
+        if (bulkData != null)
+        {
+            for (Iterator it = bulkData.iterator(); it.hasNext();)
+            {
+                pks.add(readPrimaryKeyName(metaData, (Map)it.next()));
+            }
+            return pks;
+        }
         try
         {
             pkData = metaData.getPrimaryKeys(metaData.escapeForSearch(tableName));
@@ -892,9 +1530,18 @@ public class JdbcModelReader
      */
     protected Collection readForeignKeys(DatabaseMetaDataWrapper metaData, String tableName) throws SQLException
     {
-        Map       fks    = new ListOrderedMap();
-        ResultSet fkData = null;
+        Map       fks      = new ListOrderedMap();
+        List      bulkData = getBulkForeignKeyData(tableName);
+        ResultSet fkData   = null;
 
+        if (bulkData != null)
+        {
+            for (Iterator it = bulkData.iterator(); it.hasNext();)
+            {
+                readForeignKey(metaData, (Map)it.next(), fks);
+            }
+            return fks.values();
+        }
         try
         {
             fkData = metaData.getForeignKeys(metaData.escapeForSearch(tableName));
@@ -1000,8 +1647,17 @@ public class JdbcModelReader
     protected Collection readIndices(DatabaseMetaDataWrapper metaData, String tableName) throws SQLException
     {
         Map       indices   = new ListOrderedMap();
+        List      bulkData  = getBulkIndexData(tableName);
         ResultSet indexData = null;
 
+        if (bulkData != null)
+        {
+            for (Iterator it = bulkData.iterator(); it.hasNext();)
+            {
+                readIndex(metaData, (Map)it.next(), indices);
+            }
+            return indices.values();
+        }
         try 
         {
             indexData = metaData.getIndices(metaData.escapeForSearch(tableName), false, false);
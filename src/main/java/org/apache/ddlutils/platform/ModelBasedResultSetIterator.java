@@ -24,6 +24,8 @@ import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
@@ -36,7 +38,6 @@ import org.apache.commons.beanutils.DynaClass;
 import org.apache.commons.beanutils.DynaProperty;
 import org.apache.commons.collections.map.ListOrderedMap;
 import org.apache.ddlutils.DatabaseOperationException;
-import org.apache.ddlutils.dynabean.SqlDynaBean;
 import org.apache.ddlutils.dynabean.SqlDynaClass;
 import org.apache.ddlutils.model.Column;
 import org.apache.ddlutils.model.Database;
@@ -46,7 +47,10 @@ import org.apache.ddlutils.model.Table;
  * This is an iterator that is specifically targeted at traversing result sets.
  * If the query is against a known table, then {@link org.apache.ddlutils.dynabean.SqlDynaBean} instances
  * are created from the rows, otherwise normal {@link org.apache.commons.beanutils.DynaBean} instances
- * are created.
+ * are created.<br/>
+ * The mapping of the result set columns to the bean properties is determined once from
+ * the result set metadata, so that the values of a row are read by column index without
+ * any further lookups.
  * 
  * @version $Revision: 289996 $
  */
@@ -62,8 +66,14 @@ public class ModelBasedResultSetIterator implements Iterator
     private boolean _caseSensitive;
     /** Maps column names to table objects as given by the query hints. */
     private Map _preparedQueryHints;
-    /** Maps column names to properties. */
-    private Map _columnsToProperties = new ListOrderedMap();
+    /** The indices (starting from 1) of the result set columns that are read. */
+    private int[] _columnIndices;
+    /** The model columns corresponding to the result set columns, <code>null</code> for unknown columns. */
+    private Column[] _columns;
+    /** The jdbc types used to read the values of the known columns. */
+    private int[] _jdbcTypes;
+    /** The names of the properties that receive the values. */
+    private String[] _propertyNames;
     /** Whether the next call to hasNext or next needs advancement. */
     private boolean _needsAdvancing = true;
     /** Whether we're already at the end of the result set. */
@@ -115,9 +125,11 @@ public class ModelBasedResultSetIterator implements Iterator
      */
     private void initFromMetaData(Database model) throws SQLException
     {
-        ResultSetMetaData metaData         = _resultSet.getMetaData();
-        String            tableName        = null;
-        boolean           singleKnownTable = true;
+        ResultSetMetaData metaData            = _resultSet.getMetaData();
+        Map               columnsToProperties = new ListOrderedMap();
+        ArrayList         columnIndices       = new ArrayList();
+        String            tableName           = null;
+        boolean           singleKnownTable    = true;
 
         for (int idx = 1; idx <= metaData.getColumnCount(); idx++)
         {
@@ -125,6 +137,11 @@ public class ModelBasedResultSetIterator implements Iterator
             String tableOfColumn = metaData.getTableName(idx);
             Table  table         = null;
 
+            if (SqlBuilder.PAGING_ROW_NUMBER_COLUMN.equalsIgnoreCase(columnName))
+            {
+                // helper column added to the query by the platform to restrict it to a range of rows
+                continue;
+            }
             if ((tableOfColumn != null) && (tableOfColumn.length() > 0))
             {
                 // jConnect might return a table name enclosed in quotes
@@ -162,7 +179,12 @@ public class ModelBasedResultSetIterator implements Iterator
                     propName = column.getName();
                 }
             }
-            _columnsToProperties.put(columnName, propName);
+            // for duplicate column names, only the first column is read
+            if (!columnsToProperties.containsKey(columnName))
+            {
+                columnsToProperties.put(columnName, propName);
+                columnIndices.add(new Integer(idx));
+            }
         }
         if (singleKnownTable && (tableName != null))
         {
@@ -170,15 +192,38 @@ public class ModelBasedResultSetIterator implements Iterator
         }
         else
         {
-            DynaProperty[] props = new DynaProperty[_columnsToProperties.size()];
+            DynaProperty[] props = new DynaProperty[columnsToProperties.size()];
             int            idx   = 0;
 
-            for (Iterator it = _columnsToProperties.values().iterator(); it.hasNext(); idx++)
+            for (Iterator it = columnsToProperties.values().iterator(); it.hasNext(); idx++)
             {
                 props[idx] = new DynaProperty((String)it.next());
             }
             _dynaClass = new BasicDynaClass("result", BasicDynaBean.class, props);
         }
+
+        Table beanTable = (_dynaClass instanceof SqlDynaClass ? ((SqlDynaClass)_dynaClass).getTable() : null);
+        int   idx       = 0;
+
+        _columnIndices = new int[columnIndices.size()];
+        _columns       = new Column[columnIndices.size()];
+        _jdbcTypes     = new int[columnIndices.size()];
+        _propertyNames = new String[columnIndices.size()];
+        for (Iterator it = columnsToProperties.entrySet().iterator(); it.hasNext(); idx++)
+        {
+            Map.Entry entry      = (Map.Entry)it.next();
+            String    columnName = (String)entry.getKey();
+            Table     curTable   = beanTable;
+
+            if (curTable == null)
+            {
+                curTable = (Table)_preparedQueryHints.get(_caseSensitive ? columnName : columnName.toLowerCase());
+            }
+            _columnIndices[idx] = ((Integer)columnIndices.get(idx)).intValue();
+            _columns[idx]       = (curTable == null ? null : curTable.findColumn(columnName, _caseSensitive));
+            _jdbcTypes[idx]     = (_columns[idx] == null ? Types.OTHER : _platform.getJdbcTypeForReading(_columns[idx]));
+            _propertyNames[idx] = (String)entry.getValue();
+        }
     }
 
     /**
@@ -234,31 +279,21 @@ public class ModelBasedResultSetIterator implements Iterator
         {
             try
             {
-                DynaBean bean  = _dynaClass.newInstance();
-                Table    table = null;
-
-                if (bean instanceof SqlDynaBean)
-                {
-                    SqlDynaClass dynaClass = (SqlDynaClass)((SqlDynaBean)bean).getDynaClass();
-
-                    table = dynaClass.getTable();
-                }
+                DynaBean bean = _dynaClass.newInstance();
 
-                for (Iterator it = _columnsToProperties.entrySet().iterator(); it.hasNext();)
+                for (int idx = 0; idx < _columnIndices.length; idx++)
                 {
-                    Map.Entry entry      = (Map.Entry)it.next();
-                    String    columnName = (String)entry.getKey();
-                    String    propName   = (String)entry.getValue();
-                    Table     curTable   = table;
+                    Object value;
 
-                    if (curTable == null)
+                    if (_columns[idx] == null)
                     {
-                        curTable = (Table)_preparedQueryHints.get(_caseSensitive ? columnName : columnName.toLowerCase());
+                        value = _resultSet.getObject(_columnIndices[idx]);
                     }
-
-                    Object value = _platform.getObjectFromResultSet(_resultSet, columnName, curTable);
-
-                    bean.set(propName, value);
+                    else
+                    {
+                        value = _platform.extractColumnValue(_resultSet, null, _columnIndices[idx], _jdbcTypes[idx]);
+                    }
+                    bean.set(_propertyNames[idx], _resultSet.wasNull() ? null : value);
                 }
                 _needsAdvancing = true;
                 return bean;
@@ -0,0 +1,326 @@
+package org.apache.ddlutils.platform;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.ddlutils.model.Database;
+
+/**
+ * Caches the models read from live databases so that they don't have to be read again as
+ * long as the database schema did not change. Each model is stored together with a change
+ * marker, a string that the platform derives cheaply from the catalog of the database (e.g.
+ * from the last DDL times of the database objects) and that changes whenever the schema
+ * changes; a cached model is only used if its marker is equal to the current one.<br/>
+ * The models are held in serialized and compressed form, and a new copy is created for every
+ * cache hit so that the callers can modify the returned models. If the cache has a directory,
+ * then the models are also stored in files in this directory so that they survive the process.
+ *
+ * @version $Revision: $
+ * @see PlatformImplBase#getModelChangeMarker(java.sql.Connection, String, String)
+ */
+public class ModelCache
+{
+    /** The log for this cache. */
+    private final Log _log = LogFactory.getLog(ModelCache.class);
+
+    /** The directory for the cache files, or <code>null</code> if the models are only held in memory. */
+    private File _directory;
+    /** The cached entries per key. */
+    private HashMap _entries = new HashMap();
+
+    /**
+     * Creates a new cache that holds the models only in memory.
+     */
+    public ModelCache()
+    {
+        this(null);
+    }
+
+    /**
+     * Creates a new cache that also stores the models in files in the given directory.
+     *
+     * @param directory The directory, which is created if necessary; use <code>null</code>
+     *                  to only hold the models in memory
+     */
+    public ModelCache(File directory)
+    {
+        _directory = directory;
+    }
+
+    /**
+     * Returns the directory for the cache files.
+     *
+     * @return The directory or <code>null</code> if the models are only held in memory
+     */
+    public File getDirectory()
+    {
+        return _directory;
+    }
+
+    /**
+     * Returns a copy of the cached model for the given key if it was cached with the given
+     * change marker.
+     *
+     * @param key    The key identifying the database and the part of it that the model covers
+     * @param marker The current change marker
+     * @return The model or <code>null</code> if there is no such model or its marker is different
+     */
+    public synchronized Database get(String key, String marker)
+    {
+        Entry entry = (Entry)_entries.get(key);
+
+        if ((entry == null) && (_directory != null))
+        {
+            entry = readEntry(key);
+            if (entry != null)
+            {
+                _entries.put(key, entry);
+            }
+        }
+        if ((entry == null) || !entry._marker.equals(marker))
+        {
+            return null;
+        }
+        try
+        {
+            return deserialize(entry._data);
+        }
+        catch (Exception ex)
+        {
+            _log.warn("Could not restore the cached model for " + key, ex);
+            remove(key);
+            return null;
+        }
+    }
+
+    /**
+     * Caches the given model under the given key.
+     *
+     * @param key    The key identifying the database and the part of it that the model covers
+     * @param marker The change marker of the database at the time the model was read
+     * @param model  The model
+     */
+    public synchronized void put(String key, String marker, Database model)
+    {
+        Entry entry = new Entry();
+
+        try
+        {
+            entry._marker = marker;
+            entry._data   = serialize(model);
+        }
+        catch (IOException ex)
+        {
+            _log.warn("Could not cache the model for " + key, ex);
+            return;
+        }
+        _entries.put(key, entry);
+        if (_directory != null)
+        {
+            writeEntry(key, entry);
+        }
+    }
+
+    /**
+     * Removes the cached model for the given key, if there is one.
+     *
+     * @param key The key
+     */
+    public synchronized void remove(String key)
+    {
+        _entries.remove(key);
+        if (_directory != null)
+        {
+            getFile(key).delete();
+        }
+    }
+
+    /**
+     * Removes all models from the memory of this cache. Models that are stored in files
+     * are not removed, but they will be validated against the current change marker when
+     * they are used again.
+     */
+    public synchronized void clear()
+    {
+        _entries.clear();
+    }
+
+    /**
+     * Returns the cache file for the given key. Keys that map to the same file replace each
+     * other's cache file, which is why the key is also stored in the file.
+     *
+     * @param key The key
+     * @return The file
+     */
+    private File getFile(String key)
+    {
+        return new File(_directory, "model-" + Integer.toHexString(key.hashCode()) + ".ser");
+    }
+
+    /**
+     * Reads the entry for the given key from its cache file.
+     *
+     * @param key The key
+     * @return The entry or <code>null</code> if there is no cache file for the key
+     */
+    private Entry readEntry(String key)
+    {
+        File file = getFile(key);
+
+        if (!file.exists())
+        {
+            return null;
+        }
+        try
+        {
+            DataInputStream input = new DataInputStream(new FileInputStream(file));
+
+            try
+            {
+                if (!key.equals(input.readUTF()))
+                {
+                    return null;
+                }
+
+                Entry entry = new Entry();
+
+                entry._marker = input.readUTF();
+                entry._data   = new byte[input.readInt()];
+                input.readFully(entry._data);
+                return entry;
+            }
+            finally
+            {
+                input.close();
+            }
+        }
+        catch (IOException ex)
+        {
+            _log.warn("Could not read the model cache file " + file.getAbsolutePath(), ex);
+            return null;
+        }
+    }
+
+    /**
+     * Writes the given entry to the cache file for the given key.
+     *
+     * @param key   The key
+     * @param entry The entry
+     */
+    private void writeEntry(String key, Entry entry)
+    {
+        File file    = getFile(key);
+        File tmpFile = new File(file.getAbsolutePath() + ".tmp");
+
+        try
+        {
+            if (!_directory.exists() && !_directory.mkdirs())
+            {
+                throw new IOException("Could not create the directory " + _directory.getAbsolutePath());
+            }
+
+            DataOutputStream output = new DataOutputStream(new FileOutputStream(tmpFile));
+
+            try
+            {
+                output.writeUTF(key);
+                output.writeUTF(entry._marker);
+                output.writeInt(entry._data.length);
+                output.write(entry._data);
+            }
+            finally
+            {
+                output.close();
+            }
+            // renaming does not replace an existing file on all platforms
+            if (!tmpFile.renameTo(file) && (!file.delete() || !tmpFile.renameTo(file)))
+            {
+                throw new IOException("Could not replace the model cache file " + file.getAbsolutePath());
+            }
+        }
+        catch (IOException ex)
+        {
+            _log.warn("Could not write the model cache file " + file.getAbsolutePath(), ex);
+            tmpFile.delete();
+        }
+    }
+
+    /**
+     * Serializes and compresses the given model.
+     *
+     * @param model The model
+     * @return The serialized model
+     */
+    private static byte[] serialize(Database model) throws IOException
+    {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        ObjectOutputStream    output = new ObjectOutputStream(new GZIPOutputStream(result));
+
+        output.writeObject(model);
+        output.close();
+        return result.toByteArray();
+    }
+
+    /**
+     * Creates a model from its serialized and compressed form.
+     *
+     * @param data The serialized model
+     * @return The model
+     */
+    private static Database deserialize(byte[] data) throws IOException, ClassNotFoundException
+    {
+        ObjectInputStream input = new ObjectInputStream(new GZIPInputStream(new ByteArrayInputStream(data)));
+
+        try
+        {
+            return (Database)input.readObject();
+        }
+        finally
+        {
+            input.close();
+        }
+    }
+
+    /**
+     * A cached model together with its change marker.
+     */
+    private static class Entry
+    {
+        /** The change marker of the database when the model was read. */
+        String _marker;
+        /** The serialized and compressed model. */
+        byte[] _data;
+    }
+}
@@ -24,12 +24,15 @@ import java.io.StringWriter;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.sql.BatchUpdateException;
 import java.sql.Blob;
 import java.sql.Clob;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.SQLWarning;
 import java.sql.Statement;
@@ -40,14 +43,20 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
 
 import org.apache.commons.beanutils.DynaBean;
 import org.apache.commons.beanutils.PropertyUtils;
+import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.Predicate;
+import org.apache.commons.collections.map.ListOrderedMap;
+import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.ddlutils.DatabaseOperationException;
@@ -96,6 +105,10 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
 {
     /** The default name for models read from the database, if no name as given.*/
     protected static final String MODEL_DEFAULT_NAME = "default";
+    /** The maximum number of parameters in a query that checks which rows exist in the database. */
+    private static final int MAX_EXISTENCE_PROBE_PARAMETERS = 1000;
+    /** The maximum number of rows inserted with one multi-row insert statement. */
+    private static final int MAX_ROWS_PER_MULTI_ROW_INSERT = 1000;
 
     /** The log for this platform. */
     private final Log _log = LogFactory.getLog(getClass());
@@ -116,10 +129,28 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
     private boolean _identityOverrideOn;
     /** Whether read foreign keys shall be sorted alphabetically. */
     private boolean _foreignKeysSorted;
+    /** Whether the meta data of the tables is read in bulk when reading the model. */
+    private boolean _bulkModelReadModeOn;
     /** Whether to use the default ON UPDATE action if the specified one is unsupported. */
     private boolean _useDefaultOnUpdateActionIfUnsupported = true;
     /** Whether to use the default ON DELETE action if the specified one is unsupported. */
     private boolean _useDefaultOnDeleteActionIfUnsupported = true;
+    /** Whether queries are executed in streaming mode. */
+    private boolean _streamingModeOn;
+    /** The fetch size for queries, 0 for the driver default. */
+    private int _fetchSize;
+    /** Whether multi-row insert statements are used for inserting collections of beans. */
+    private boolean _multiRowInsertModeOn;
+    /** The bulk loader, if the platform supports bulk loading. */
+    private BulkLoader _bulkLoader;
+    /** The cache for the models read from the database. */
+    private ModelCache _modelCache;
+    /** Whether the JDBC driver supports generated keys, determined when first needed. */
+    private Boolean _generatedKeysSupportedByDriver;
+    /** Whether the database is recent enough for the upsert statement, determined when first needed. */
+    private Boolean _upsertSupportedByDatabase;
+    /** The SQL generated for prepared statements, per dyna class and operation. */
+    private WeakHashMap _statementSql = new WeakHashMap();
 
     /**
      * {@inheritDoc}
@@ -137,6 +168,10 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
     protected void setSqlBuilder(SqlBuilder builder)
     {
         _builder = builder;
+        synchronized (_statementSql)
+        {
+            _statementSql.clear();
+        }
     }
 
     /**
@@ -257,6 +292,22 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
         _foreignKeysSorted = foreignKeysSorted;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public boolean isBulkModelReadModeOn()
+    {
+        return _bulkModelReadModeOn;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setBulkModelReadModeOn(boolean bulkModelReadModeOn)
+    {
+        _bulkModelReadModeOn = bulkModelReadModeOn;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -289,6 +340,86 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
         _useDefaultOnDeleteActionIfUnsupported = useDefault;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public boolean isStreamingModeOn()
+    {
+        return _streamingModeOn;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setStreamingModeOn(boolean streamingModeOn)
+    {
+        _streamingModeOn = streamingModeOn;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getFetchSize()
+    {
+        return _fetchSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setFetchSize(int fetchSize)
+    {
+        _fetchSize = fetchSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean isMultiRowInsertModeOn()
+    {
+        return _multiRowInsertModeOn;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setMultiRowInsertModeOn(boolean multiRowInsertModeOn)
+    {
+        _multiRowInsertModeOn = multiRowInsertModeOn;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public BulkLoader getBulkLoader()
+    {
+        return _bulkLoader;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setBulkLoader(BulkLoader bulkLoader)
+    {
+        _bulkLoader = bulkLoader;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public ModelCache getModelCache()
+    {
+        return _modelCache;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setModelCache(ModelCache modelCache)
+    {
+        _modelCache = modelCache;
+    }
+
     /**
      * Returns the log for this platform.
      * 
@@ -921,6 +1052,155 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
         return getAlterModelSql(currentModel, desiredModel, params);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public String getAlterTablesSql(Connection connection, String catalog, String schema, String[] tableTypes, Database desiredModel, String[] tableNames, CreationParameters params) throws DatabaseOperationException
+    {
+        String[] scopedTableNames = tableNames == null ? getTableNames(desiredModel) : tableNames;
+        Database currentModel     = readModelFromDatabase(connection, desiredModel.getName(), catalog, schema, tableTypes,
+                                                          getTableNamesToRead(desiredModel, scopedTableNames));
+
+        return getAlterModelSql(currentModel, getScopedDesiredModel(currentModel, desiredModel, scopedTableNames), params);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void alterTables(Connection connection, String catalog, String schema, String[] tableTypes, Database desiredModel, String[] tableNames, CreationParameters params, boolean continueOnError) throws DatabaseOperationException
+    {
+        String[] scopedTableNames = tableNames == null ? getTableNames(desiredModel) : tableNames;
+        Database currentModel     = readModelFromDatabase(connection, desiredModel.getName(), catalog, schema, tableTypes,
+                                                          getTableNamesToRead(desiredModel, scopedTableNames));
+
+        alterModel(connection, currentModel, getScopedDesiredModel(currentModel, desiredModel, scopedTableNames), params, continueOnError);
+    }
+
+    /**
+     * Returns the names of the tables of the given model.
+     * 
+     * @param model The model
+     * @return The table names
+     */
+    private String[] getTableNames(Database model)
+    {
+        String[] tableNames = new String[model.getTableCount()];
+
+        for (int idx = 0; idx < tableNames.length; idx++)
+        {
+            tableNames[idx] = model.getTable(idx).getName();
+        }
+        return tableNames;
+    }
+
+    /**
+     * Determines the names of the tables that have to be read from the database for altering
+     * the given tables. These are the given tables and the tables that they reference in the
+     * desired model; the tables that reference them are found by the model reader.
+     * 
+     * @param desiredModel The desired model
+     * @param tableNames   The names of the tables to alter
+     * @return The names of the tables to read
+     */
+    private String[] getTableNamesToRead(Database desiredModel, String[] tableNames)
+    {
+        List result = new ArrayList(Arrays.asList(tableNames));
+
+        for (int idx = 0; idx < tableNames.length; idx++)
+        {
+            Table table = desiredModel.findTable(tableNames[idx], isDelimitedIdentifierModeOn());
+
+            for (int fkIdx = 0; (table != null) && (fkIdx < table.getForeignKeyCount()); fkIdx++)
+            {
+                result.add(table.getForeignKey(fkIdx).getForeignTableName());
+            }
+        }
+        return (String[])result.toArray(new String[result.size()]);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Database getScopedDesiredModel(Database currentModel, Database desiredModel, String[] tableNames)
+    {
+        boolean     caseSensitive = isDelimitedIdentifierModeOn();
+        CloneHelper cloneHelper   = new CloneHelper();
+        Database    result        = new Database();
+        List        sourceTables  = new ArrayList();
+        HashSet     selectedNames = new HashSet();
+        HashSet     addedNames    = new HashSet();
+
+        result.setName(desiredModel.getName());
+        result.setIdMethod(desiredModel.getIdMethod());
+        result.setVersion(desiredModel.getVersion());
+
+        for (int idx = 0; idx < tableNames.length; idx++)
+        {
+            selectedNames.add(caseSensitive ? tableNames[idx] : tableNames[idx].toUpperCase());
+        }
+        for (int idx = 0; idx < desiredModel.getTableCount(); idx++)
+        {
+            Table  table = desiredModel.getTable(idx);
+            String key   = caseSensitive ? table.getName() : table.getName().toUpperCase();
+
+            if (selectedNames.contains(key) && addedNames.add(key))
+            {
+                sourceTables.add(table);
+            }
+        }
+        // tables that are referenced by the selected tables but don't exist yet, have to be created
+        for (int idx = 0, selectedCount = sourceTables.size(); idx < selectedCount; idx++)
+        {
+            Table table = (Table)sourceTables.get(idx);
+
+            for (int fkIdx = 0; fkIdx < table.getForeignKeyCount(); fkIdx++)
+            {
+                String foreignTableName = table.getForeignKey(fkIdx).getForeignTableName();
+                Table  foreignTable     = desiredModel.findTable(foreignTableName, caseSensitive);
+
+                if ((foreignTable != null) &&
+                    (currentModel.findTable(foreignTableName, caseSensitive) == null) &&
+                    addedNames.add(caseSensitive ? foreignTable.getName() : foreignTable.getName().toUpperCase()))
+                {
+                    sourceTables.add(foreignTable);
+                }
+            }
+        }
+        // the tables linked to the selected tables stay as they are
+        for (int idx = 0; idx < currentModel.getTableCount(); idx++)
+        {
+            Table  table = currentModel.getTable(idx);
+            String key   = caseSensitive ? table.getName() : table.getName().toUpperCase();
+
+            if (!selectedNames.contains(key) && addedNames.add(key))
+            {
+                sourceTables.add(table);
+            }
+        }
+
+        for (int idx = 0; idx < sourceTables.size(); idx++)
+        {
+            result.addTable(cloneHelper.clone((Table)sourceTables.get(idx), true, false, result, caseSensitive));
+        }
+        // foreign keys to tables that are not part of the result, i.e. to removed tables, are dropped
+        for (int idx = 0; idx < sourceTables.size(); idx++)
+        {
+            Table sourceTable = (Table)sourceTables.get(idx);
+            Table clonedTable = result.getTable(idx);
+
+            for (int fkIdx = 0; fkIdx < sourceTable.getForeignKeyCount(); fkIdx++)
+            {
+                ForeignKey sourceFk = sourceTable.getForeignKey(fkIdx);
+
+                if (result.findTable(sourceFk.getForeignTableName(), caseSensitive) != null)
+                {
+                    clonedTable.addForeignKey(cloneHelper.clone(sourceFk, clonedTable, result, caseSensitive));
+                }
+            }
+        }
+        return result;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -1129,117 +1409,291 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
     }
 
     /**
-     * Processes the given changes in the specified order. Basically, this method finds the
-     * appropriate handler method (one of the <code>processChange</code> methods) defined in
-     * the concrete sql builder for each change, and invokes it.
-     * 
-     * @param model   The database model; this object is not going to be changed by this method
-     * @param changes The changes
-     * @param params  The parameters used in the creation of new tables. Note that for existing
-     *                tables, the parameters won't be applied
-     * @return The changed database model
+     * {@inheritDoc}
      */
-    protected Database processChanges(Database           model,
-                                      Collection         changes,
-                                      CreationParameters params) throws IOException, DdlUtilsException
+    public String getDisableIndexesAndForeignKeysSql(Database model)
     {
-        Database currentModel = new CloneHelper().clone(model);
+        String sql = null;
 
-        for (Iterator it = changes.iterator(); it.hasNext();)
+        try
         {
-            invokeChangeHandler(currentModel, params, (ModelChange)it.next());
-        }
-        return currentModel;
-    }
-
-    /**
-     * Invokes the change handler (one of the <code>processChange</code> methods) for the given
-     * change object.
-     * 
-     * @param currentModel The current database schema
-     * @param params       The parameters used in the creation of new tables. Note that for existing
-     *                     tables, the parameters won't be applied
-     * @param change       The change object
-     */
-    private void invokeChangeHandler(Database           currentModel,
-                                     CreationParameters params,
-                                     ModelChange        change) throws IOException
-    {
-        Class curClass = getClass();
+            StringWriter buffer = new StringWriter();
 
-        // find the handler for the change
-        while ((curClass != null) && !Object.class.equals(curClass))
+            getSqlBuilder().setWriter(buffer);
+            getSqlBuilder().disableIndexesAndForeignKeys(model);
+            sql = buffer.toString();
+        }
+        catch (IOException e)
         {
-            try
-            {
-                Method method = null;
-
-                try
-                {
-                    method = curClass.getDeclaredMethod("processChange",
-                                                        new Class[] { Database.class,
-                                                                      CreationParameters.class,
-                                                                      change.getClass() });
-                }
-                catch (NoSuchMethodException ex)
-                {
-                    // we actually expect this one
-                }
-
-                if (method != null)
-                {
-                    method.invoke(this, new Object[] { currentModel, params, change });
-                    return;
-                }
-                else
-                {
-                    curClass = curClass.getSuperclass();
-                }
-            }
-            catch (InvocationTargetException ex)
-            {
-                if (ex.getTargetException() instanceof IOException)
-                {
-                    throw (IOException)ex.getTargetException();
-                }
-                else
-                {
-                    throw new DdlUtilsException(ex.getTargetException());
-                }
-            }
-            catch (Exception ex)
-            {
-                throw new DdlUtilsException(ex);
-            }
+            // won't happen because we're using a string writer
         }
-        throw new DdlUtilsException("No handler for change of type " + change.getClass().getName() + " defined");
+        return sql;
     }
 
     /**
-     * Finds the table changed by the change object in the given model.
-     *  
-     * @param currentModel The model to find the table in
-     * @param change       The table change
-     * @return The table
-     * @throws ModelException If the table could not be found
+     * {@inheritDoc}
      */
-    protected Table findChangedTable(Database currentModel, TableChange change) throws ModelException
+    public void disableIndexesAndForeignKeys(Database model, boolean continueOnError) throws DatabaseOperationException
     {
-        Table table = currentModel.findTable(change.getChangedTable(),
-                                             getPlatformInfo().isDelimitedIdentifiersSupported());
+        Connection connection = borrowConnection();
 
-        if (table == null)
+        try
         {
-            throw new ModelException("Could not find table " + change.getChangedTable() + " in the given model");
+            disableIndexesAndForeignKeys(connection, model, continueOnError);
         }
-        else
+        finally
         {
-            return table;
+            returnConnection(connection);
         }
     }
 
     /**
-     * Finds the index changed by the change object in the given model.
+     * {@inheritDoc}
+     */
+    public void disableIndexesAndForeignKeys(Connection connection, Database model, boolean continueOnError) throws DatabaseOperationException
+    {
+        String sql = getDisableIndexesAndForeignKeysSql(model);
+
+        evaluateBatch(connection, sql, continueOnError);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getEnableIndexesAndForeignKeysSql(Database model)
+    {
+        String sql = null;
+
+        try
+        {
+            StringWriter buffer = new StringWriter();
+
+            getSqlBuilder().setWriter(buffer);
+            getSqlBuilder().enableIndexesAndForeignKeys(model);
+            sql = buffer.toString();
+        }
+        catch (IOException e)
+        {
+            // won't happen because we're using a string writer
+        }
+        return sql;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int enableIndexesAndForeignKeys(Database model, boolean continueOnError) throws DatabaseOperationException
+    {
+        Connection connection = borrowConnection();
+
+        try
+        {
+            return enableIndexesAndForeignKeys(connection, model, continueOnError);
+        }
+        finally
+        {
+            returnConnection(connection);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int enableIndexesAndForeignKeys(Connection connection, Database model, boolean continueOnError) throws DatabaseOperationException
+    {
+        String sql = getEnableIndexesAndForeignKeysSql(model);
+
+        return evaluateBatch(connection, sql, continueOnError);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void verifyForeignKeys(Database model) throws DatabaseOperationException
+    {
+        Connection connection = borrowConnection();
+
+        try
+        {
+            verifyForeignKeys(connection, model);
+        }
+        finally
+        {
+            returnConnection(connection);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void verifyForeignKeys(Connection connection, Database model) throws DatabaseOperationException
+    {
+        StringBuffer violations = new StringBuffer();
+
+        for (int tableIdx = 0; tableIdx < model.getTableCount(); tableIdx++)
+        {
+            Table table = model.getTable(tableIdx);
+
+            for (int fkIdx = 0; fkIdx < table.getForeignKeyCount(); fkIdx++)
+            {
+                ForeignKey foreignKey = table.getForeignKey(fkIdx);
+                String     sql        = getSqlBuilder().getForeignKeyViolationsSql(model, table, foreignKey);
+
+                if (sql == null)
+                {
+                    continue;
+                }
+
+                Statement statement = null;
+
+                try
+                {
+                    statement = connection.createStatement();
+
+                    ResultSet resultSet = statement.executeQuery(sql);
+                    long      count     = resultSet.next() ? resultSet.getLong(1) : 0;
+
+                    if (count > 0)
+                    {
+                        if (violations.length() > 0)
+                        {
+                            violations.append(", ");
+                        }
+                        violations.append(count);
+                        violations.append(" row(s) in table ");
+                        violations.append(table.getName());
+                        violations.append(" violate foreign key ");
+                        violations.append(foreignKey.getName() == null ? foreignKey.toString() : foreignKey.getName());
+                    }
+                }
+                catch (SQLException ex)
+                {
+                    throw new DatabaseOperationException("Error while verifying the foreign keys of table " + table.getName(), ex);
+                }
+                finally
+                {
+                    closeStatement(statement);
+                }
+            }
+        }
+        if (violations.length() > 0)
+        {
+            throw new DatabaseOperationException("Foreign key verification failed: " + violations);
+        }
+    }
+
+    /**
+     * Processes the given changes in the specified order. Basically, this method finds the
+     * appropriate handler method (one of the <code>processChange</code> methods) defined in
+     * the concrete sql builder for each change, and invokes it.
+     * 
+     * @param model   The database model; this object is not going to be changed by this method
+     * @param changes The changes
+     * @param params  The parameters used in the creation of new tables. Note that for existing
+     *                tables, the parameters won't be applied
+     * @return The changed database model
+     */
+    protected Database processChanges(Database           model,
+                                      Collection         changes,
+                                      CreationParameters params) throws IOException, DdlUtilsException
+    {
+        Database currentModel = new CloneHelper().clone(model);
+
+        for (Iterator it = changes.iterator(); it.hasNext();)
+        {
+            invokeChangeHandler(currentModel, params, (ModelChange)it.next());
+        }
+        return currentModel;
+    }
+
+    /**
+     * Invokes the change handler (one of the <code>processChange</code> methods) for the given
+     * change object.
+     * 
+     * @param currentModel The current database schema
+     * @param params       The parameters used in the creation of new tables. Note that for existing
+     *                     tables, the parameters won't be applied
+     * @param change       The change object
+     */
+    private void invokeChangeHandler(Database           currentModel,
+                                     CreationParameters params,
+                                     ModelChange        change) throws IOException
+    {
+        Class curClass = getClass();
+
+        // find the handler for the change
+        while ((curClass != null) && !Object.class.equals(curClass))
+        {
+            try
+            {
+                Method method = null;
+
+                try
+                {
+                    method = curClass.getDeclaredMethod("processChange",
+                                                        new Class[] { Database.class,
+                                                                      CreationParameters.class,
+                                                                      change.getClass() });
+                }
+                catch (NoSuchMethodException ex)
+                {
+                    // we actually expect this one
+                }
+
+                if (method != null)
+                {
+                    method.invoke(this, new Object[] { currentModel, params, change });
+                    return;
+                }
+                else
+                {
+                    curClass = curClass.getSuperclass();
+                }
+            }
+            catch (InvocationTargetException ex)
+            {
+                if (ex.getTargetException() instanceof IOException)
+                {
+                    throw (IOException)ex.getTargetException();
+                }
+                else
+                {
+                    throw new DdlUtilsException(ex.getTargetException());
+                }
+            }
+            catch (Exception ex)
+            {
+                throw new DdlUtilsException(ex);
+            }
+        }
+        throw new DdlUtilsException("No handler for change of type " + change.getClass().getName() + " defined");
+    }
+
+    /**
+     * Finds the table changed by the change object in the given model.
+     *  
+     * @param currentModel The model to find the table in
+     * @param change       The table change
+     * @return The table
+     * @throws ModelException If the table could not be found
+     */
+    protected Table findChangedTable(Database currentModel, TableChange change) throws ModelException
+    {
+        Table table = currentModel.findTable(change.getChangedTable(),
+                                             getPlatformInfo().isDelimitedIdentifiersSupported());
+
+        if (table == null)
+        {
+            throw new ModelException("Could not find table " + change.getChangedTable() + " in the given model");
+        }
+        else
+        {
+            return table;
+        }
+    }
+
+    /**
+     * Finds the index changed by the change object in the given model.
      *  
      * @param currentModel The model to find the index in
      * @param change       The index change
@@ -1555,7 +2009,7 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
 
         try
         {
-            statement = connection.createStatement();
+            statement = createQueryStatement(connection);
             resultSet = statement.executeQuery(sql);
             answer    = createResultSetIterator(model, resultSet, queryHints);
             return answer;
@@ -1588,7 +2042,7 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
 
         try
         {
-            statement = connection.prepareStatement(sql);
+            statement = prepareQueryStatement(connection, sql);
 
             int paramIdx = 1;
 
@@ -1662,10 +2116,21 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
 
         try
         {
-            statement = connection.createStatement();
-            resultSet = statement.executeQuery(sql);
+            int    rowIdx   = 0;
+            String pagedSql = getPagedQuery(sql, start, end);
 
-            int rowIdx = 0;
+            if (pagedSql != null)
+            {
+                // the database already skips the rows before the start row
+                rowIdx = start;
+            }
+            else if (start > 0)
+            {
+                // we have to skip the rows ourselves, but the database can at least stop after the end row
+                pagedSql = getPagedQuery(sql, 0, end);
+            }
+            statement = createQueryStatement(connection);
+            resultSet = statement.executeQuery(pagedSql == null ? sql : pagedSql);
 
             for (ModelBasedResultSetIterator it = createResultSetIterator(model, resultSet, queryHints); ((end < 0) || (rowIdx <= end)) && it.hasNext(); rowIdx++)
             {
@@ -1693,6 +2158,27 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
         return result;
     }
 
+    /**
+     * Returns the given query restricted to the given range of rows, if the range actually
+     * restricts the query and the sql builder can express it.
+     * 
+     * @param sql   The query
+     * @param start The index of the first row, starting at 0
+     * @param end   The index of the last row (inclusive), or -1 for all rows after the start row
+     * @return The restricted query or <code>null</code> if the rows have to be skipped by the caller
+     */
+    protected String getPagedQuery(String sql, int start, int end)
+    {
+        if (((start > 0) || (end >= 0)) && ((end < 0) || (end >= start)))
+        {
+            return getSqlBuilder().getPagedQuery(sql, start, end);
+        }
+        else
+        {
+            return null;
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -1729,7 +2215,20 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
 
         try
         {
-            statement = connection.prepareStatement(sql);
+            int    rowIdx   = 0;
+            String pagedSql = getPagedQuery(sql, start, end);
+
+            if (pagedSql != null)
+            {
+                // the database already skips the rows before the start row
+                rowIdx = start;
+            }
+            else if (start > 0)
+            {
+                // we have to skip the rows ourselves, but the database can at least stop after the end row
+                pagedSql = getPagedQuery(sql, 0, end);
+            }
+            statement = prepareQueryStatement(connection, pagedSql == null ? sql : pagedSql);
 
             int paramIdx = 1;
 
@@ -1749,8 +2248,6 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
             }
             resultSet = statement.executeQuery();
 
-            int rowIdx = 0;
-
             for (ModelBasedResultSetIterator it = createResultSetIterator(model, resultSet, queryHints); ((end < 0) || (rowIdx <= end)) && it.hasNext(); rowIdx++)
             {
                 if (rowIdx >= start)
@@ -1774,25 +2271,234 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
     }
 
     /**
-     * Creates the SQL for inserting an object of the given type. If a concrete bean is given,
-     * then a concrete insert statement is created, otherwise an insert statement usable in a
-     * prepared statement is build. 
-     *
-     * @param model      The database model
-     * @param dynaClass  The type
-     * @param properties The properties to write
-     * @param bean       Optionally the concrete bean to insert
-     * @return The SQL required to insert an instance of the class
+     * Creates the statement for executing a query.
+     * 
+     * @param connection The connection
+     * @return The statement
      */
-    protected String createInsertSql(Database model, SqlDynaClass dynaClass, SqlDynaProperty[] properties, DynaBean bean)
+    protected Statement createQueryStatement(Connection connection) throws SQLException
     {
-        Table   table        = model.findTable(dynaClass.getTableName());
-        HashMap columnValues = toColumnValues(properties, bean);
+        Statement statement;
 
-        return _builder.getInsertSql(table, columnValues, bean == null);
-    }
-
-    /**
+        if (isStreamingModeOn())
+        {
+            statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        }
+        else
+        {
+            statement = connection.createStatement();
+        }
+        configureQueryStatement(connection, statement);
+        return statement;
+    }
+
+    /**
+     * Creates the prepared statement for executing a query.
+     * 
+     * @param connection The connection
+     * @param sql        The query sql
+     * @return The statement
+     */
+    protected PreparedStatement prepareQueryStatement(Connection connection, String sql) throws SQLException
+    {
+        PreparedStatement statement;
+
+        if (isStreamingModeOn())
+        {
+            statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        }
+        else
+        {
+            statement = connection.prepareStatement(sql);
+        }
+        configureQueryStatement(connection, statement);
+        return statement;
+    }
+
+    /**
+     * Configures a newly created statement for executing a query. The default implementation
+     * sets the fetch size if one is specified. Platforms whose JDBC drivers need additional
+     * settings for streaming the result, should override this method.
+     * 
+     * @param connection The connection of the statement
+     * @param statement  The statement
+     */
+    protected void configureQueryStatement(Connection connection, Statement statement) throws SQLException
+    {
+        if (getFetchSize() > 0)
+        {
+            statement.setFetchSize(getFetchSize());
+        }
+    }
+
+    /**
+     * Creates the SQL for inserting an object of the given type. If a concrete bean is given,
+     * then a concrete insert statement is created, otherwise an insert statement usable in a
+     * prepared statement is build. 
+     *
+     * @param model      The database model
+     * @param dynaClass  The type
+     * @param properties The properties to write
+     * @param bean       Optionally the concrete bean to insert
+     * @return The SQL required to insert an instance of the class
+     */
+    protected String createInsertSql(Database model, SqlDynaClass dynaClass, SqlDynaProperty[] properties, DynaBean bean)
+    {
+        Table   table        = model.findTable(dynaClass.getTableName());
+        HashMap columnValues = toColumnValues(properties, bean);
+
+        return _builder.getInsertSql(table, columnValues, bean == null);
+    }
+
+    /**
+     * Creates the SQL for inserting an object of the given type or updating it if it already
+     * exists, using the native upsert statement of the database. If a concrete bean is given,
+     * then a concrete statement is created, otherwise a statement usable in a prepared
+     * statement is build. 
+     *
+     * @param model      The database model
+     * @param dynaClass  The type
+     * @param properties The properties to write
+     * @param bean       Optionally the concrete bean to store
+     * @return The SQL, or <code>null</code> if the database does not support an upsert
+     *         statement for the type and properties
+     */
+    protected String createUpsertSql(Database model, SqlDynaClass dynaClass, SqlDynaProperty[] properties, DynaBean bean)
+    {
+        Table   table        = model.findTable(dynaClass.getTableName());
+        HashMap columnValues = toColumnValues(properties, bean);
+
+        return _builder.getUpsertSql(table, columnValues, bean == null);
+    }
+
+    /**
+     * Creates the SQL for a prepared statement that inserts multiple objects of the given
+     * type with one statement. 
+     *
+     * @param model      The database model
+     * @param dynaClass  The type
+     * @param properties The properties to write
+     * @param numRows    The number of objects
+     * @return The SQL required to insert the objects
+     */
+    protected String createMultiRowInsertSql(Database model, SqlDynaClass dynaClass, SqlDynaProperty[] properties, int numRows)
+    {
+        Table   table        = model.findTable(dynaClass.getTableName());
+        HashMap columnValues = toColumnValues(properties, null);
+
+        return _builder.getMultiRowInsertSql(table, columnValues, numRows);
+    }
+
+    /**
+     * Returns the SQL for a prepared statement that performs the given operation for
+     * the given type and properties. The SQL is only generated once per type, operation and
+     * properties.
+     * 
+     * @param operation   The operation, one of <code>insert</code>, <code>update</code>,
+     *                    <code>updateAll</code> (updating the given properties, including the
+     *                    primary key), <code>upsert</code>, <code>delete</code> and <code>exists</code>
+     * @param model       The database model
+     * @param dynaClass   The type
+     * @param primaryKeys The primary keys, for the operations that identify rows by them
+     * @param properties  The properties to write, for the operations that write rows
+     * @return The SQL, or <code>null</code> if the operation is not possible for the type
+     */
+    private String getStatementSql(String operation, Database model, SqlDynaClass dynaClass, SqlDynaProperty[] primaryKeys, SqlDynaProperty[] properties)
+    {
+        return getStatementSql(operation, model, dynaClass, primaryKeys, properties, 1);
+    }
+
+    /**
+     * Returns the SQL for a prepared statement that performs the given operation for
+     * the given type and properties. The SQL is only generated once per type, operation,
+     * properties and number of rows.
+     * 
+     * @param operation   The operation, one of the operations supported by
+     *                    {@link #getStatementSql(String, Database, SqlDynaClass, SqlDynaProperty[], SqlDynaProperty[])}
+     *                    or <code>multiRowInsert</code>
+     * @param model       The database model
+     * @param dynaClass   The type
+     * @param primaryKeys The primary keys, for the operations that identify rows by them
+     * @param properties  The properties to write, for the operations that write rows
+     * @param numRows     The number of rows handled by the statement, for the
+     *                    <code>multiRowInsert</code> operation
+     * @return The SQL, or <code>null</code> if the operation is not possible for the type
+     */
+    private String getStatementSql(String operation, Database model, SqlDynaClass dynaClass, SqlDynaProperty[] primaryKeys, SqlDynaProperty[] properties, int numRows)
+    {
+        StringBuffer key = new StringBuffer(operation);
+
+        key.append(":");
+        key.append(numRows);
+        // the delimited identifier mode can be changed at any time
+        key.append(isDelimitedIdentifierModeOn() ? ":delimited" : ":undelimited");
+        for (int idx = 0; (properties != null) && (idx < properties.length); idx++)
+        {
+            key.append(",");
+            key.append(properties[idx].getName());
+        }
+        key.append(":");
+        for (int idx = 0; (primaryKeys != null) && (idx < primaryKeys.length); idx++)
+        {
+            key.append(",");
+            key.append(primaryKeys[idx].getName());
+        }
+
+        Map    sqlForType;
+        String sql;
+
+        synchronized (_statementSql)
+        {
+            sqlForType = (Map)_statementSql.get(dynaClass);
+            if (sqlForType == null)
+            {
+                sqlForType = new HashMap();
+                _statementSql.put(dynaClass, sqlForType);
+            }
+            sql = (String)sqlForType.get(key.toString());
+        }
+        if (sql == null)
+        {
+            if ("insert".equals(operation))
+            {
+                sql = createInsertSql(model, dynaClass, properties, null);
+            }
+            else if ("update".equals(operation))
+            {
+                sql = createUpdateSql(model, dynaClass, primaryKeys, properties, null);
+            }
+            else if ("updateAll".equals(operation))
+            {
+                sql = createUpdateSql(model, dynaClass, primaryKeys, properties, null, null);
+            }
+            else if ("upsert".equals(operation))
+            {
+                sql = createUpsertSql(model, dynaClass, properties, null);
+            }
+            else if ("delete".equals(operation))
+            {
+                sql = createDeleteSql(model, dynaClass, primaryKeys, null);
+            }
+            else if ("exists".equals(operation))
+            {
+                sql = createExistsSql(model, dynaClass, primaryKeys);
+            }
+            else if ("multiRowInsert".equals(operation))
+            {
+                sql = createMultiRowInsertSql(model, dynaClass, properties, numRows);
+            }
+            if (sql != null)
+            {
+                synchronized (_statementSql)
+                {
+                    sqlForType.put(key.toString(), sql);
+                }
+            }
+        }
+        return sql;
+    }
+
+    /**
      * Creates the SQL for querying for the id generated by the last insert of an object of the given type.
      * 
      * @param model     The database model
@@ -1900,10 +2606,173 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
         return columns;
     }
 
+    /**
+     * Determines whether the values of identity columns can be read via the generated keys of
+     * the insert statements, which requires support by the platform and by the JDBC driver.
+     * 
+     * @param connection The connection
+     * @param batchMode  Whether the rows are inserted in batch mode
+     * @return <code>true</code> if the generated keys can be used
+     */
+    protected boolean isGeneratedKeysReadable(Connection connection, boolean batchMode)
+    {
+        if (!getPlatformInfo().isGeneratedKeysReadable() ||
+            (batchMode && !getPlatformInfo().isGeneratedKeysReadableInBatchMode()))
+        {
+            return false;
+        }
+        if (_generatedKeysSupportedByDriver == null)
+        {
+            boolean supported = false;
+
+            try
+            {
+                supported = connection.getMetaData().supportsGetGeneratedKeys();
+            }
+            catch (SQLException ex)
+            {
+                _log.debug("Could not determine whether the JDBC driver supports generated keys", ex);
+            }
+            catch (AbstractMethodError ex)
+            {
+                // pre-JDBC 3 driver
+            }
+            _generatedKeysSupportedByDriver = supported ? Boolean.TRUE : Boolean.FALSE;
+        }
+        return _generatedKeysSupportedByDriver.booleanValue();
+    }
+
+    /**
+     * Determines whether the native upsert statement of the platform can be used with the
+     * database of the given connection, i.e. whether the platform supports it and the
+     * database has at least the version required for it. If the version of the database
+     * cannot be determined, then the statement is only used if it does not require a
+     * specific version.
+     * 
+     * @param connection The connection
+     * @return <code>true</code> if upsert statements can be used
+     */
+    protected boolean isUpsertSupported(Connection connection)
+    {
+        PlatformInfo info = getPlatformInfo();
+
+        if (!info.isUpsertSupported())
+        {
+            return false;
+        }
+        if ((info.getMinUpsertDatabaseMajorVersion() <= 0) && (info.getMinUpsertDatabaseMinorVersion() <= 0))
+        {
+            return true;
+        }
+        if (_upsertSupportedByDatabase == null)
+        {
+            boolean supported = false;
+
+            try
+            {
+                DatabaseMetaData metaData     = connection.getMetaData();
+                int              majorVersion = metaData.getDatabaseMajorVersion();
+
+                supported = (majorVersion > info.getMinUpsertDatabaseMajorVersion()) ||
+                            ((majorVersion == info.getMinUpsertDatabaseMajorVersion()) &&
+                             (metaData.getDatabaseMinorVersion() >= info.getMinUpsertDatabaseMinorVersion()));
+            }
+            catch (SQLException ex)
+            {
+                _log.debug("Could not determine the version of the database", ex);
+            }
+            catch (AbstractMethodError ex)
+            {
+                // pre-JDBC 3 driver
+            }
+            if (!supported)
+            {
+                _log.info("Not using upsert statements because they require version " + info.getMinUpsertDatabaseMajorVersion() + "." +
+                          info.getMinUpsertDatabaseMinorVersion() + " of the database");
+            }
+            _upsertSupportedByDatabase = supported ? Boolean.TRUE : Boolean.FALSE;
+        }
+        return _upsertSupportedByDatabase.booleanValue();
+    }
+
+    /**
+     * Reads the values of the identity columns from the generated keys of the given statement
+     * and sets them in the given beans, which are assumed to be in the order in which they
+     * were inserted. If the generated keys contain columns with the names of the identity
+     * columns, then these are used, otherwise the generated keys are assumed to contain
+     * the values in the order of the given columns.
+     * 
+     * @param statement       The executed insert statement
+     * @param autoIncrColumns The identity columns
+     * @param dynaBeans       The inserted beans
+     */
+    private void readGeneratedKeys(Statement statement, Column[] autoIncrColumns, List dynaBeans) throws SQLException
+    {
+        ResultSet generatedKeys = statement.getGeneratedKeys();
+
+        if (generatedKeys == null)
+        {
+            _log.warn("The JDBC driver did not return the generated keys");
+            return;
+        }
+        try
+        {
+            ResultSetMetaData metaData = generatedKeys.getMetaData();
+            int[]             indices  = new int[autoIncrColumns.length];
+
+            for (int columnIdx = 0; columnIdx < autoIncrColumns.length; columnIdx++)
+            {
+                indices[columnIdx] = columnIdx + 1;
+                for (int idx = 1; idx <= metaData.getColumnCount(); idx++)
+                {
+                    if (autoIncrColumns[columnIdx].getName().equalsIgnoreCase(metaData.getColumnName(idx)))
+                    {
+                        indices[columnIdx] = idx;
+                        break;
+                    }
+                }
+            }
+            for (Iterator it = dynaBeans.iterator(); it.hasNext();)
+            {
+                DynaBean dynaBean = (DynaBean)it.next();
+
+                if (!generatedKeys.next())
+                {
+                    _log.warn("The JDBC driver returned less generated keys than rows were inserted");
+                    break;
+                }
+                for (int columnIdx = 0; columnIdx < autoIncrColumns.length; columnIdx++)
+                {
+                    dynaBean.set(autoIncrColumns[columnIdx].getName(),
+                                 getObjectFromResultSet(generatedKeys, autoIncrColumns[columnIdx], indices[columnIdx]));
+                }
+            }
+        }
+        finally
+        {
+            try
+            {
+                generatedKeys.close();
+            }
+            catch (SQLException ex)
+            {
+                // we ignore this one
+            }
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
     public void insert(Connection connection, Database model, DynaBean dynaBean) throws DatabaseOperationException
+    {
+        insert(connection, model, dynaBean, false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void insert(Connection connection, Database model, DynaBean dynaBean, boolean transactionManagedByCaller) throws DatabaseOperationException
     {
         SqlDynaClass      dynaClass       = model.getDynaClassFor(dynaBean);
         SqlDynaProperty[] properties      = getPropertiesForInsertion(model, dynaClass, dynaBean);
@@ -1915,7 +2784,7 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
             return;
         }
 
-        String insertSql        = createInsertSql(model, dynaClass, properties, null);
+        String insertSql        = getStatementSql("insert", model, dynaClass, null, properties);
         String queryIdentitySql = null;
 
         if (_log.isDebugEnabled())
@@ -1923,7 +2792,9 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
             _log.debug("About to execute SQL: " + insertSql);
         }
 
-        if (autoIncrColumns.length > 0)
+        boolean useGeneratedKeys = (autoIncrColumns.length > 0) && isGeneratedKeysReadable(connection, false);
+
+        if ((autoIncrColumns.length > 0) && !useGeneratedKeys)
         {
             if (!getPlatformInfo().isLastIdentityValueReadable())
             {
@@ -1935,12 +2806,14 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
             }
         }
 
+        // the generated keys are read directly from the statement, so no commit is necessary
+        boolean           manualCommit   = !transactionManagedByCaller && !useGeneratedKeys && !getPlatformInfo().isAutoCommitModeForLastIdentityValueReading();
         boolean           autoCommitMode = false;
         PreparedStatement statement      = null;
 
         try
         {
-            if (!getPlatformInfo().isAutoCommitModeForLastIdentityValueReading())
+            if (manualCommit)
             {
                 autoCommitMode = connection.getAutoCommit();
                 connection.setAutoCommit(false);
@@ -1948,7 +2821,7 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
 
             beforeInsert(connection, dynaClass.getTable());
             
-            statement = connection.prepareStatement(insertSql);
+            statement = prepareStatement(connection, insertSql, useGeneratedKeys);
 
             for (int idx = 0; idx < properties.length; idx++ )
             {
@@ -1957,6 +2830,10 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
 
             int count = statement.executeUpdate();
 
+            if (useGeneratedKeys)
+            {
+                readGeneratedKeys(statement, autoIncrColumns, Collections.singletonList(dynaBean));
+            }
             afterInsert(connection, dynaClass.getTable());
 
             if (count != 1)
@@ -1972,7 +2849,7 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
         }
         finally
         {
-            closeStatement(statement);
+            releaseStatement(connection, statement);
         }
         if (queryIdentitySql != null)
         {
@@ -1986,8 +2863,8 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
                     // we'll commit the statement(s) if no auto-commit is enabled because
                     // otherwise it is possible that the auto increment hasn't happened yet
                     // (the db didn't actually perform the insert yet so no triggering of
-                    // sequences did occur)
-                    if (!connection.getAutoCommit())
+                    // sequences did occur); a transaction managed by the caller is left alone
+                    if (!transactionManagedByCaller && !connection.getAutoCommit())
                     {
                         connection.commit();
                     }
@@ -2037,10 +2914,10 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
                         // we ignore this one
                     }
                 }
-                closeStatement(statement);
+                closeStatement(queryStmt);
             }
         }
-        if (!getPlatformInfo().isAutoCommitModeForLastIdentityValueReading())
+        if (manualCommit)
         {
             try
             {
@@ -2079,8 +2956,10 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
     {
         SqlDynaClass      dynaClass              = null;
         SqlDynaProperty[] properties             = null;
+        Column[]          autoIncrColumns        = null;
         PreparedStatement statement              = null;
-        int               addedStmts             = 0;
+        List              batchBeans             = new ArrayList();
+        int               rowsPerStatement       = 0;
         boolean           identityWarningPrinted = false;
 
         for (Iterator it = dynaBeans.iterator(); it.hasNext();)
@@ -2092,39 +2971,77 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
             {
                 if (dynaClass != null)
                 {
-                    executeBatch(statement, addedStmts, dynaClass.getTable());
-                    addedStmts = 0;
+                    if (rowsPerStatement > 1)
+                    {
+                        executeMultiRowInsert(connection, model, dynaClass, properties, batchBeans, autoIncrColumns);
+                    }
+                    else
+                    {
+                        executeBatch(statement, batchBeans, dynaClass.getTable(), autoIncrColumns);
+                    }
+                    statement = null;
+                    batchBeans.clear();
                 }
 
-                dynaClass  = curDynaClass;
-                properties = getPropertiesForInsertion(model, curDynaClass, dynaBean);
+                dynaClass        = curDynaClass;
+                properties       = getPropertiesForInsertion(model, curDynaClass, dynaBean);
+                autoIncrColumns  = getRelevantIdentityColumns(model, curDynaClass, dynaBean);
+                rowsPerStatement = getRowsPerMultiRowInsert(properties.length);
     
                 if (properties.length == 0)
                 {
                     _log.warn("Cannot insert instances of type " + dynaClass + " because it has no usable properties");
                     continue;
                 }
-                if (!identityWarningPrinted &&
-                    (getRelevantIdentityColumns(model, curDynaClass, dynaBean).length > 0))
-                {
-                    _log.warn("Updating the bean properties corresponding to auto-increment columns is not supported in batch mode");
-                    identityWarningPrinted = true;
-                }
-
-                String insertSql = createInsertSql(model, dynaClass, properties, null);
-
-                if (_log.isDebugEnabled())
+                if ((autoIncrColumns.length > 0) && !isGeneratedKeysReadable(connection, true))
                 {
-                    _log.debug("Starting new batch with SQL: " + insertSql);
+                    if (!identityWarningPrinted)
+                    {
+                        _log.warn("Updating the bean properties corresponding to auto-increment columns is not supported in batch mode");
+                        identityWarningPrinted = true;
+                    }
+                    autoIncrColumns = new Column[0];
                 }
-                try
+                if (rowsPerStatement <= 1)
                 {
-                    statement = connection.prepareStatement(insertSql);
+                    String insertSql = getStatementSql("insert", model, dynaClass, null, properties);
+    
+                    if (_log.isDebugEnabled())
+                    {
+                        _log.debug("Starting new batch with SQL: " + insertSql);
+                    }
+                    try
+                    {
+                        beforeInsert(connection, dynaClass.getTable());
+                        if (autoIncrColumns.length > 0)
+                        {
+                            statement = connection.prepareStatement(insertSql, Statement.RETURN_GENERATED_KEYS);
+                        }
+                        else
+                        {
+                            statement = connection.prepareStatement(insertSql);
+                        }
+                    }
+                    catch (SQLException ex)
+                    {
+                        throw new DatabaseOperationException("Error while preparing insert statement", ex);
+                    }
                 }
-                catch (SQLException ex)
+            }
+            if (properties.length == 0)
+            {
+                // the type has no usable properties
+                continue;
+            }
+            if (rowsPerStatement > 1)
+            {
+                batchBeans.add(dynaBean);
+                if (batchBeans.size() == rowsPerStatement)
                 {
-                    throw new DatabaseOperationException("Error while preparing insert statement", ex);
+                    executeMultiRowInsert(connection, model, dynaClass, properties, batchBeans, autoIncrColumns);
+                    batchBeans.clear();
                 }
+                continue;
             }
             try
             {
@@ -2133,7 +3050,7 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
                     setObject(statement, idx + 1, dynaBean, properties[idx]);
                 }
                 statement.addBatch();
-                addedStmts++;
+                batchBeans.add(dynaBean);
             }
             catch (SQLException ex)
             {
@@ -2142,72 +3059,199 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
         }
         if (dynaClass != null)
         {
-            executeBatch(statement, addedStmts, dynaClass.getTable());
+            if (rowsPerStatement > 1)
+            {
+                executeMultiRowInsert(connection, model, dynaClass, properties, batchBeans, autoIncrColumns);
+            }
+            else
+            {
+                executeBatch(statement, batchBeans, dynaClass.getTable(), autoIncrColumns);
+            }
         }
     }
 
     /**
-     * Performs the batch for the given statement, and checks that the specified amount of rows have been changed.
+     * Determines how many rows can be inserted with one multi-row insert statement. This
+     * depends on the maximum number of parameters that the database allows in a statement.
      * 
-     * @param statement The prepared statement
-     * @param numRows   The number of rows that should change
-     * @param table     The changed table
+     * @param numProperties The number of properties written per row
+     * @return The number of rows, or 0 if multi-row insert statements shall not be used
      */
-    private void executeBatch(PreparedStatement statement, int numRows, Table table) throws DatabaseOperationException
+    protected int getRowsPerMultiRowInsert(int numProperties)
     {
-        if (statement != null)
+        if (!isMultiRowInsertModeOn() || !getPlatformInfo().isMultiRowInsertSupported() || (numProperties == 0))
         {
-            try
-            {
-                Connection connection = statement.getConnection();
+            return 0;
+        }
 
-                beforeInsert(connection, table);
+        int maxParameters = getPlatformInfo().getMaxParametersPerStatement();
 
-                int[] results = statement.executeBatch();
+        if (maxParameters < 0)
+        {
+            return MAX_ROWS_PER_MULTI_ROW_INSERT;
+        }
+        else
+        {
+            return Math.min(maxParameters / numProperties, MAX_ROWS_PER_MULTI_ROW_INSERT);
+        }
+    }
 
-                closeStatement(statement);
-                afterInsert(connection, table);
+    /**
+     * Inserts the given beans, which are all of the same type, with one multi-row insert
+     * statement, and checks that the specified amount of rows have been inserted.
+     * 
+     * @param connection      The connection
+     * @param model           The database model
+     * @param dynaClass       The type of the beans
+     * @param properties      The properties to write
+     * @param dynaBeans       The beans
+     * @param autoIncrColumns The identity columns whose values shall be read from the generated
+     *                        keys of the statement and set in the beans
+     */
+    private void executeMultiRowInsert(Connection connection, Database model, SqlDynaClass dynaClass, SqlDynaProperty[] properties, List dynaBeans, Column[] autoIncrColumns) throws DatabaseOperationException
+    {
+        if (dynaBeans.isEmpty())
+        {
+            return;
+        }
+
+        Table             table     = dynaClass.getTable();
+        String            insertSql = getStatementSql("multiRowInsert", model, dynaClass, null, properties, dynaBeans.size());
+        PreparedStatement statement = null;
+
+        if (_log.isDebugEnabled())
+        {
+            _log.debug("Inserting " + dynaBeans.size() + " rows into table " + table.getName() + " with one statement");
+        }
+        try
+        {
+            beforeInsert(connection, table);
+
+            statement = prepareStatement(connection, insertSql, autoIncrColumns.length > 0);
+
+            int sqlIndex = 1;
 
-                boolean hasSum = true;
-                int     sum    = 0;
+            for (Iterator it = dynaBeans.iterator(); it.hasNext();)
+            {
+                DynaBean dynaBean = (DynaBean)it.next();
 
-                for (int idx = 0; (results != null) && (idx < results.length); idx++)
+                for (int idx = 0; idx < properties.length; idx++)
                 {
-                    if (results[idx] < 0)
-                    {
-                        hasSum = false;
-                        if (results[idx] == Statement.EXECUTE_FAILED)
-                        {
-                            _log.warn("The batch insertion of row " + idx + " into table " + table.getName() + " failed but the driver is able to continue processing");
-                        }
-                        else if (results[idx] != Statement.SUCCESS_NO_INFO)
-                        {
-                            _log.warn("The batch insertion of row " + idx + " into table " + table.getName() + " returned an undefined status value " + results[idx]);
-                        }
-                    }
-                    else
-                    {
-                        sum += results[idx];
-                    }
+                    setObject(statement, sqlIndex++, dynaBean, properties[idx]);
                 }
-                if (hasSum && (sum != numRows))
+            }
+
+            int count = statement.executeUpdate();
+
+            if (autoIncrColumns.length > 0)
+            {
+                readGeneratedKeys(statement, autoIncrColumns, dynaBeans);
+            }
+            afterInsert(connection, table);
+            checkBatchResults(new int[] { count }, dynaBeans.size(), table, "insert");
+        }
+        catch (SQLException ex)
+        {
+            throw new DatabaseOperationException("Error while inserting into the database", ex);
+        }
+        finally
+        {
+            releaseStatement(connection, statement);
+        }
+    }
+
+    /**
+     * Performs the batch for the given statement, and checks that the specified amount of rows have been changed.
+     * {@link #beforeInsert(Connection, Table)} has to be called before the statement is prepared.
+     * 
+     * @param statement       The prepared statement
+     * @param dynaBeans       The beans that were added to the batch
+     * @param table           The changed table
+     * @param autoIncrColumns The identity columns whose values shall be read from the generated
+     *                        keys of the statement and set in the beans
+     */
+    private void executeBatch(PreparedStatement statement, List dynaBeans, Table table, Column[] autoIncrColumns) throws DatabaseOperationException
+    {
+        if (statement != null)
+        {
+            try
+            {
+                Connection connection = statement.getConnection();
+                int[]      results    = statement.executeBatch();
+
+                if ((autoIncrColumns != null) && (autoIncrColumns.length > 0))
                 {
-                    _log.warn("Attempted to insert " + numRows + " rows into table " + table.getName() + " but changed " + sum + " rows");
+                    readGeneratedKeys(statement, autoIncrColumns, dynaBeans);
                 }
+                closeStatement(statement);
+                afterInsert(connection, table);
+                checkBatchResults(results, dynaBeans.size(), table, "insert");
             }
             catch (SQLException ex)
             {
-                if (ex instanceof BatchUpdateException)
-                {
-                    SQLException sqlEx = ((BatchUpdateException)ex).getNextException();
+                throw createBatchException("Error while inserting into the database", ex);
+            }
+        }
+    }
+
+    /**
+     * Checks the results of an executed batch and logs a warning if not the specified amount
+     * of rows have been changed.
+     * 
+     * @param results   The results of the batch
+     * @param numRows   The number of rows that should change, or <code>-1</code> if this is
+     *                  not known (e.g. because the database reports different counts for
+     *                  inserted and updated rows)
+     * @param table     The changed table
+     * @param operation The performed operation (insert, update or delete)
+     */
+    private void checkBatchResults(int[] results, int numRows, Table table, String operation)
+    {
+        boolean hasSum = true;
+        int     sum    = 0;
 
-                    throw new DatabaseOperationException("Error while inserting into the database", sqlEx);
+        for (int idx = 0; (results != null) && (idx < results.length); idx++)
+        {
+            if (results[idx] < 0)
+            {
+                hasSum = false;
+                if (results[idx] == Statement.EXECUTE_FAILED)
+                {
+                    _log.warn("The batch " + operation + " of row " + idx + " in table " + table.getName() + " failed but the driver is able to continue processing");
                 }
-                else
+                else if (results[idx] != Statement.SUCCESS_NO_INFO)
                 {
-                    throw new DatabaseOperationException("Error while inserting into the database", ex);
+                    _log.warn("The batch " + operation + " of row " + idx + " in table " + table.getName() + " returned an undefined status value " + results[idx]);
                 }
             }
+            else
+            {
+                sum += results[idx];
+            }
+        }
+        if (hasSum && (numRows >= 0) && (sum != numRows))
+        {
+            _log.warn("Attempted to " + operation + " " + numRows + " rows in table " + table.getName() + " but changed " + sum + " rows");
+        }
+    }
+
+    /**
+     * Creates the exception for an error that occurred while executing a batch. For batch update
+     * exceptions, the exception that caused the batch to fail is used.
+     * 
+     * @param msg The error message
+     * @param ex  The exception thrown by the JDBC driver
+     * @return The exception
+     */
+    private DatabaseOperationException createBatchException(String msg, SQLException ex)
+    {
+        if ((ex instanceof BatchUpdateException) && (ex.getNextException() != null))
+        {
+            return new DatabaseOperationException(msg, ex.getNextException());
+        }
+        else
+        {
+            return new DatabaseOperationException(msg, ex);
         }
     }
 
@@ -2228,6 +3272,110 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public void bulkLoad(Database model, Collection dynaBeans) throws DatabaseOperationException
+    {
+        Connection connection = borrowConnection();
+
+        try
+        {
+            bulkLoad(connection, model, dynaBeans);
+        }
+        finally
+        {
+            returnConnection(connection);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void bulkLoad(Connection connection, Database model, Collection dynaBeans) throws DatabaseOperationException
+    {
+        BulkLoader bulkLoader = getBulkLoader();
+
+        if ((bulkLoader == null) || !bulkLoader.isSupported(connection))
+        {
+            if (_log.isDebugEnabled())
+            {
+                _log.debug("Bulk loading is not supported by the platform or JDBC driver, using batch insert instead");
+            }
+            insert(connection, model, dynaBeans);
+            return;
+        }
+
+        SqlDynaClass      dynaClass  = null;
+        SqlDynaProperty[] properties = null;
+        List              rows       = new ArrayList();
+
+        for (Iterator it = dynaBeans.iterator(); it.hasNext();)
+        {
+            DynaBean          dynaBean      = (DynaBean)it.next();
+            SqlDynaClass      curDynaClass  = model.getDynaClassFor(dynaBean);
+            SqlDynaProperty[] curProperties = getPropertiesForInsertion(model, curDynaClass, dynaBean);
+
+            // a bulk load writes the same columns for all rows
+            if ((curDynaClass != dynaClass) || !Arrays.equals(curProperties, properties))
+            {
+                if (dynaClass != null)
+                {
+                    executeBulkLoad(connection, bulkLoader, dynaClass.getTable(), properties, rows);
+                    rows.clear();
+                }
+                dynaClass  = curDynaClass;
+                properties = curProperties;
+            }
+            rows.add(dynaBean);
+        }
+        if (dynaClass != null)
+        {
+            executeBulkLoad(connection, bulkLoader, dynaClass.getTable(), properties, rows);
+        }
+    }
+
+    /**
+     * Loads the given beans into the table using the bulk loader, and checks that the
+     * specified amount of rows have been loaded. Bulk load protocols may skip rows that
+     * they cannot load (e.g. because of duplicate keys) without failing, so a different
+     * count is treated as an error.
+     * 
+     * @param connection The connection
+     * @param bulkLoader The bulk loader
+     * @param table      The table
+     * @param properties The properties to write
+     * @param dynaBeans  The beans
+     */
+    private void executeBulkLoad(Connection connection, BulkLoader bulkLoader, Table table, SqlDynaProperty[] properties, List dynaBeans) throws DatabaseOperationException
+    {
+        if (properties.length == 0)
+        {
+            _log.warn("Cannot load rows into table " + table.getName() + " because they have no usable properties");
+            return;
+        }
+        if (_log.isDebugEnabled())
+        {
+            _log.debug("Bulk loading " + dynaBeans.size() + " rows into table " + table.getName());
+        }
+        try
+        {
+            beforeInsert(connection, table);
+
+            long count = bulkLoader.load(connection, table, properties, dynaBeans);
+
+            afterInsert(connection, table);
+            if ((count >= 0) && (count != dynaBeans.size()))
+            {
+                throw new DatabaseOperationException("Attempted to load " + dynaBeans.size() + " rows into table " + table.getName() + " but loaded " + count + " rows");
+            }
+        }
+        catch (SQLException ex)
+        {
+            throw new DatabaseOperationException("Error while bulk loading data into the database", ex);
+        }
+    }
+
     /**
      * Allows platforms to issue statements directly before rows are inserted into
      * the specified table.
@@ -2357,7 +3505,7 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
         }
 
         SqlDynaProperty[] properties = dynaClass.getNonPrimaryKeyProperties();
-        String            sql        = createUpdateSql(model, dynaClass, primaryKeys, properties, null);
+        String            sql        = getStatementSql("update", model, dynaClass, primaryKeys, properties);
         PreparedStatement statement  = null;
 
         if (_log.isDebugEnabled())
@@ -2368,7 +3516,7 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
         {
             beforeUpdate(connection, dynaClass.getTable());
 
-            statement = connection.prepareStatement(sql);
+            statement = prepareStatement(connection, sql);
 
             int sqlIndex = 1;
 
@@ -2398,7 +3546,7 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
         }
         finally
         {
-            closeStatement(statement);
+            releaseStatement(connection, statement);
         }
     }
 
@@ -2438,7 +3586,7 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
         }
 
         SqlDynaProperty[] properties = dynaClass.getSqlDynaProperties();
-        String            sql        = createUpdateSql(model, dynaClass, primaryKeys, properties, null, null);
+        String            sql        = getStatementSql("updateAll", model, dynaClass, primaryKeys, properties);
         PreparedStatement statement  = null;
 
         if (_log.isDebugEnabled())
@@ -2449,7 +3597,7 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
         {
             beforeUpdate(connection, dynaClass.getTable());
 
-            statement = connection.prepareStatement(sql);
+            statement = prepareStatement(connection, sql);
 
             int sqlIndex = 1;
 
@@ -2479,7 +3627,7 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
         }
         finally
         {
-            closeStatement(statement);
+            releaseStatement(connection, statement);
         }
     }
 
@@ -2500,6 +3648,114 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public void update(Connection connection, Database model, Collection dynaBeans) throws DatabaseOperationException
+    {
+        for (Iterator it = groupByDynaClass(model, dynaBeans).entrySet().iterator(); it.hasNext();)
+        {
+            Map.Entry         entry       = (Map.Entry)it.next();
+            SqlDynaClass      dynaClass   = (SqlDynaClass)entry.getKey();
+            List              beans       = (List)entry.getValue();
+            SqlDynaProperty[] primaryKeys = dynaClass.getPrimaryKeyProperties();
+
+            if (primaryKeys.length == 0)
+            {
+                _log.info("Cannot update instances of type " + dynaClass + " because it has no primary keys");
+                continue;
+            }
+
+            SqlDynaProperty[] properties = dynaClass.getNonPrimaryKeyProperties();
+            String            sql        = getStatementSql("update", model, dynaClass, primaryKeys, properties);
+            PreparedStatement statement  = null;
+
+            if (_log.isDebugEnabled())
+            {
+                _log.debug("Starting new batch with SQL: " + sql);
+            }
+            try
+            {
+                beforeUpdate(connection, dynaClass.getTable());
+
+                statement = prepareStatement(connection, sql);
+                for (Iterator beanIt = beans.iterator(); beanIt.hasNext();)
+                {
+                    DynaBean dynaBean = (DynaBean)beanIt.next();
+                    int      sqlIndex = 1;
+
+                    for (int idx = 0; idx < properties.length; idx++)
+                    {
+                        setObject(statement, sqlIndex++, dynaBean, properties[idx]);
+                    }
+                    for (int idx = 0; idx < primaryKeys.length; idx++)
+                    {
+                        setObject(statement, sqlIndex++, dynaBean, primaryKeys[idx]);
+                    }
+                    statement.addBatch();
+                }
+
+                int[] results = statement.executeBatch();
+
+                afterUpdate(connection, dynaClass.getTable());
+                checkBatchResults(results, beans.size(), dynaClass.getTable(), "update");
+            }
+            catch (SQLException ex)
+            {
+                throw createBatchException("Error while updating in the database", ex);
+            }
+            finally
+            {
+                releaseStatement(connection, statement);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void update(Database model, Collection dynaBeans) throws DatabaseOperationException
+    {
+        Connection connection = borrowConnection();
+
+        try
+        {
+            update(connection, model, dynaBeans);
+        }
+        finally
+        {
+            returnConnection(connection);
+        }
+    }
+
+    /**
+     * Groups the given beans by their dyna class. The groups are in the order in which the
+     * first bean of each dyna class appears, and the beans in each group retain their order.
+     * 
+     * @param model     The database model
+     * @param dynaBeans The beans
+     * @return The beans (as lists) keyed by dyna class
+     */
+    private Map groupByDynaClass(Database model, Collection dynaBeans)
+    {
+        Map result = new ListOrderedMap();
+
+        for (Iterator it = dynaBeans.iterator(); it.hasNext();)
+        {
+            DynaBean     dynaBean  = (DynaBean)it.next();
+            SqlDynaClass dynaClass = model.getDynaClassFor(dynaBean);
+            List         beans     = (List)result.get(dynaClass);
+
+            if (beans == null)
+            {
+                beans = new ArrayList();
+                result.put(dynaClass, beans);
+            }
+            beans.add(dynaBean);
+        }
+        return result;
+    }
+
     /**
      * Allows platforms to issue statements directly before rows are updated in
      * the specified table.
@@ -2539,92 +3795,650 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
         }
     }
 
-
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean exists(Connection connection, Database model, DynaBean dynaBean)
+    {
+        SqlDynaClass      dynaClass   = model.getDynaClassFor(dynaBean);
+        SqlDynaProperty[] primaryKeys = dynaClass.getPrimaryKeyProperties();
+        
+        if (primaryKeys.length == 0)
+        {
+            return false;
+        }
+
+        PreparedStatement stmt      = null;
+        ResultSet         resultSet = null;
+
+        try
+        {
+            stmt = prepareStatement(connection, getStatementSql("exists", model, dynaClass, primaryKeys, null));
+
+            for (int idx = 0; idx < primaryKeys.length; idx++)
+            {
+                setObject(stmt, idx + 1, dynaBean, primaryKeys[idx]);
+            }
+
+            resultSet = stmt.executeQuery();
+
+            return resultSet.next();
+        }
+        catch (SQLException ex)
+        {
+            throw new DatabaseOperationException("Error while reading from the database", ex);
+        }
+        finally
+        {
+            if (resultSet != null)
+            {
+                try
+                {
+                    resultSet.close();
+                }
+                catch (SQLException ex)
+                {
+                    // we ignore this one
+                }
+            }
+            releaseStatement(connection, stmt);
+        }
+    }
+
+    /**
+     * Creates the SQL for querying whether an object of the given type exists in the database,
+     * usable in a prepared statement.
+     * 
+     * @param model       The database model
+     * @param dynaClass   The type
+     * @param primaryKeys The primary keys
+     * @return The SQL
+     */
+    protected String createExistsSql(Database model, SqlDynaClass dynaClass, SqlDynaProperty[] primaryKeys)
+    {
+        StringBuffer sql = new StringBuffer();
+
+        sql.append("SELECT * FROM ");
+        sql.append(_builder.getDelimitedIdentifier(dynaClass.getTable().getName()));
+        sql.append(" WHERE ");
+
+        for (int idx = 0; idx < primaryKeys.length; idx++)
+        {
+            String key = primaryKeys[idx].getColumn().getName();
+
+            if (idx > 0)
+            {
+                sql.append(" AND ");
+            }
+            sql.append(_builder.getDelimitedIdentifier(key));
+            sql.append("=?");
+        }
+        return sql.toString();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void store(Database model, DynaBean dynaBean) throws DatabaseOperationException
+    {
+        Connection connection = borrowConnection();
+
+        try
+        {
+            store(connection, model, dynaBean);
+        }
+        finally
+        {
+            returnConnection(connection);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void store(Connection connection, Database model, DynaBean dynaBean) throws DatabaseOperationException
+    {
+        if (isUpsertSupported(connection) && upsert(connection, model, dynaBean))
+        {
+            return;
+        }
+        if (exists(connection, model, dynaBean))
+        {
+            update(connection, model, dynaBean);
+        }
+        else
+        {
+            insert(connection, model, dynaBean);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void store(Database model, Collection dynaBeans) throws DatabaseOperationException
+    {
+        Connection connection = borrowConnection();
+
+        try
+        {
+            store(connection, model, dynaBeans);
+        }
+        finally
+        {
+            returnConnection(connection);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void store(Connection connection, Database model, Collection dynaBeans) throws DatabaseOperationException
+    {
+        for (Iterator it = groupByDynaClass(model, dynaBeans).entrySet().iterator(); it.hasNext();)
+        {
+            Map.Entry    entry     = (Map.Entry)it.next();
+            SqlDynaClass dynaClass = (SqlDynaClass)entry.getKey();
+            List         beans     = removeDuplicateKeys(dynaClass, (List)entry.getValue());
+
+            if (isUpsertSupported(connection))
+            {
+                beans = upsert(connection, model, dynaClass, beans);
+                if (beans.isEmpty())
+                {
+                    continue;
+                }
+            }
+
+            boolean[]    existing  = determineExistingRows(connection, dynaClass, beans);
+            List         toUpdate  = new ArrayList();
+            List         toInsert  = new ArrayList();
+
+            for (int idx = 0; idx < beans.size(); idx++)
+            {
+                DynaBean dynaBean = (DynaBean)beans.get(idx);
+
+                if (existing[idx])
+                {
+                    toUpdate.add(dynaBean);
+                }
+                else if (!isGeneratedKeysReadable(connection, true) &&
+                         (getRelevantIdentityColumns(model, dynaClass, dynaBean).length > 0))
+                {
+                    // only the single insert updates the bean with the values generated by the database
+                    insert(connection, model, dynaBean);
+                }
+                else
+                {
+                    toInsert.add(dynaBean);
+                }
+            }
+            if (!toUpdate.isEmpty())
+            {
+                update(connection, model, toUpdate);
+            }
+            if (!toInsert.isEmpty())
+            {
+                insert(connection, model, toInsert);
+            }
+        }
+    }
+
+    /**
+     * Removes the beans of the given type whose primary key values are repeated by a later
+     * bean in the list, so that the last bean with these values wins like it would if the
+     * beans were stored one by one. Otherwise, a batch would contain several rows with the
+     * same primary key.
+     * 
+     * @param dynaClass The type of the beans
+     * @param dynaBeans The beans
+     * @return The beans without the duplicates, in their original order
+     */
+    private List removeDuplicateKeys(SqlDynaClass dynaClass, List dynaBeans)
+    {
+        SqlDynaProperty[] primaryKeys = dynaClass.getPrimaryKeyProperties();
+
+        if ((primaryKeys.length == 0) || (dynaBeans.size() < 2))
+        {
+            return dynaBeans;
+        }
+
+        Set  keys   = new HashSet();
+        List result = new ArrayList();
+
+        for (int idx = dynaBeans.size() - 1; idx >= 0; idx--)
+        {
+            DynaBean dynaBean = (DynaBean)dynaBeans.get(idx);
+            List     key      = getPrimaryKeyValues(primaryKeys, dynaBean);
+
+            // beans with undefined primary key values are always inserted
+            if ((key == null) || keys.add(key))
+            {
+                result.add(dynaBean);
+            }
+            else if (_log.isDebugEnabled())
+            {
+                _log.debug("Skipping a bean of type " + dynaClass + " because a later bean has the same primary key " + key);
+            }
+        }
+        if (result.size() == dynaBeans.size())
+        {
+            return dynaBeans;
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * Stores the given bean using the native upsert statement of the database. This is not
+     * possible if the database generates values for identity columns of the bean as these
+     * would have to be read back, or if the properties of the bean do not include the
+     * complete primary key. It is also not done if not all columns would be inserted (e.g.
+     * because the bean has no value for a column with a default value), because the
+     * statement only updates the inserted columns whereas an update of an existing row
+     * has to set all columns that are not part of the primary key.
+     * 
+     * @param connection The connection
+     * @param model      The database model
+     * @param dynaBean   The bean
+     * @return <code>false</code> if the bean could not be stored via an upsert statement
+     */
+    private boolean upsert(Connection connection, Database model, DynaBean dynaBean) throws DatabaseOperationException
+    {
+        SqlDynaClass dynaClass = model.getDynaClassFor(dynaBean);
+
+        if (getRelevantIdentityColumns(model, dynaClass, dynaBean).length > 0)
+        {
+            return false;
+        }
+
+        SqlDynaProperty[] properties = getPropertiesForInsertion(model, dynaClass, dynaBean);
+
+        if (properties.length < dynaClass.getSqlDynaProperties().length)
+        {
+            return false;
+        }
+
+        String upsertSql = getStatementSql("upsert", model, dynaClass, null, properties);
+
+        if (upsertSql == null)
+        {
+            return false;
+        }
+        if (_log.isDebugEnabled())
+        {
+            _log.debug("About to execute SQL: " + upsertSql);
+        }
+
+        PreparedStatement statement = null;
+
+        try
+        {
+            beforeInsert(connection, dynaClass.getTable());
+
+            statement = prepareStatement(connection, upsertSql);
+            for (int idx = 0; idx < properties.length; idx++)
+            {
+                setObject(statement, idx + 1, dynaBean, properties[idx]);
+            }
+            statement.executeUpdate();
+
+            afterInsert(connection, dynaClass.getTable());
+        }
+        catch (SQLException ex)
+        {
+            throw new DatabaseOperationException("Error while storing in the database: " + ex.getMessage(), ex);
+        }
+        finally
+        {
+            releaseStatement(connection, statement);
+        }
+        return true;
+    }
+
+    /**
+     * Stores the given beans of the same type using batches of the native upsert statement
+     * of the database. Beans for which this is not possible (see
+     * {@link #upsert(Connection, Database, DynaBean)}) are returned.
+     * 
+     * @param connection The connection
+     * @param model      The database model
+     * @param dynaClass  The type of the beans
+     * @param dynaBeans  The beans
+     * @return The beans that have not been stored
+     */
+    private List upsert(Connection connection, Database model, SqlDynaClass dynaClass, List dynaBeans) throws DatabaseOperationException
+    {
+        List              remaining  = new ArrayList();
+        SqlDynaProperty[] properties = null;
+        PreparedStatement statement  = null;
+        int               addedStmts = 0;
+
+        try
+        {
+            for (Iterator it = dynaBeans.iterator(); it.hasNext();)
+            {
+                DynaBean dynaBean = (DynaBean)it.next();
+
+                if (getRelevantIdentityColumns(model, dynaClass, dynaBean).length > 0)
+                {
+                    remaining.add(dynaBean);
+                    continue;
+                }
+
+                SqlDynaProperty[] curProperties = getPropertiesForInsertion(model, dynaClass, dynaBean);
+
+                if (curProperties.length < dynaClass.getSqlDynaProperties().length)
+                {
+                    // not all columns would be updated, see upsert(Connection, Database, DynaBean)
+                    remaining.add(dynaBean);
+                    continue;
+                }
+                if ((properties == null) || !Arrays.equals(properties, curProperties))
+                {
+                    executeUpsertBatch(statement, dynaClass.getTable());
+                    statement  = null;
+                    addedStmts = 0;
+                    properties = curProperties;
+
+                    String upsertSql = getStatementSql("upsert", model, dynaClass, null, properties);
+
+                    if (upsertSql != null)
+                    {
+                        if (_log.isDebugEnabled())
+                        {
+                            _log.debug("Starting new batch with SQL: " + upsertSql);
+                        }
+                        beforeInsert(connection, dynaClass.getTable());
+                        statement = connection.prepareStatement(upsertSql);
+                    }
+                }
+                if (statement == null)
+                {
+                    remaining.add(dynaBean);
+                }
+                else
+                {
+                    for (int idx = 0; idx < properties.length; idx++)
+                    {
+                        setObject(statement, idx + 1, dynaBean, properties[idx]);
+                    }
+                    statement.addBatch();
+                    addedStmts++;
+                }
+            }
+            if (addedStmts > 0)
+            {
+                executeUpsertBatch(statement, dynaClass.getTable());
+            }
+            statement = null;
+        }
+        catch (SQLException ex)
+        {
+            throw createBatchException("Error while storing in the database", ex);
+        }
+        finally
+        {
+            closeStatement(statement);
+        }
+        return remaining;
+    }
+
+    /**
+     * Executes and closes the given batch of upsert statements. {@link #beforeInsert(Connection, Table)}
+     * has to be called before the statement is prepared.
+     * 
+     * @param statement The prepared statement, can be <code>null</code>
+     * @param table     The changed table
+     */
+    private void executeUpsertBatch(PreparedStatement statement, Table table) throws SQLException
+    {
+        if (statement != null)
+        {
+            Connection connection = statement.getConnection();
+
+            try
+            {
+                int[] results = statement.executeBatch();
+
+                afterInsert(connection, table);
+                // the databases report different counts for inserted and updated rows
+                checkBatchResults(results, -1, table, "store");
+            }
+            finally
+            {
+                closeStatement(statement);
+            }
+        }
+    }
+
     /**
-     * {@inheritDoc}
+     * Determines which of the given beans of the same type are stored in the database. Similar
+     * to {@link #exists(Connection, Database, DynaBean)}, only the primary key is checked, but
+     * for many beans at once using queries of the form <code>... WHERE pk IN (...)</code>.
+     * 
+     * @param connection The connection
+     * @param dynaClass  The type of the beans
+     * @param dynaBeans  The beans
+     * @return Whether the bean at the corresponding position exists in the database
      */
-    public boolean exists(Connection connection, Database model, DynaBean dynaBean)
+    protected boolean[] determineExistingRows(Connection connection, SqlDynaClass dynaClass, List dynaBeans) throws DatabaseOperationException
     {
-        SqlDynaClass      dynaClass   = model.getDynaClassFor(dynaBean);
         SqlDynaProperty[] primaryKeys = dynaClass.getPrimaryKeyProperties();
-        
+        boolean[]         result      = new boolean[dynaBeans.size()];
+
         if (primaryKeys.length == 0)
         {
-            return false;
+            return result;
         }
 
-        PreparedStatement stmt = null;
+        // the beans to probe keyed by their primary key values; beans with undefined
+        // primary key values cannot exist in the database
+        Map beansByKey = new HashMap();
+        List keys      = new ArrayList();
 
-        try
+        for (int idx = 0; idx < dynaBeans.size(); idx++)
         {
-            StringBuffer sql = new StringBuffer();
+            List key = getPrimaryKeyValues(primaryKeys, (DynaBean)dynaBeans.get(idx));
 
-            sql.append("SELECT * FROM ");
-            sql.append(_builder.getDelimitedIdentifier(dynaClass.getTable().getName()));
-            sql.append(" WHERE ");
-
-            for (int idx = 0; idx < primaryKeys.length; idx++)
+            if (key != null)
             {
-                String key = primaryKeys[idx].getColumn().getName();
+                List positions = (List)beansByKey.get(key);
 
-                if (idx > 0)
+                if (positions == null)
                 {
-                    sql.append(" AND ");
+                    positions = new ArrayList();
+                    beansByKey.put(key, positions);
+                    keys.add(key);
                 }
-                sql.append(_builder.getDelimitedIdentifier(key));
-                sql.append("=?");
+                positions.add(new Integer(idx));
             }
+        }
 
-            stmt = connection.prepareStatement(sql.toString());
+        int keysPerQuery = Math.max(1, MAX_EXISTENCE_PROBE_PARAMETERS / primaryKeys.length);
 
-            for (int idx = 0; idx < primaryKeys.length; idx++)
+        for (int startIdx = 0; startIdx < keys.size(); startIdx += keysPerQuery)
+        {
+            List              chunk     = keys.subList(startIdx, Math.min(keys.size(), startIdx + keysPerQuery));
+            String            sql       = createExistenceProbeSql(dynaClass, primaryKeys, chunk.size());
+            PreparedStatement statement = null;
+
+            try
             {
-                setObject(stmt, idx + 1, dynaBean, primaryKeys[idx]);
+                statement = connection.prepareStatement(sql);
+
+                int sqlIndex = 1;
+
+                for (Iterator keyIt = chunk.iterator(); keyIt.hasNext();)
+                {
+                    DynaBean dynaBean = (DynaBean)dynaBeans.get(((Integer)((List)beansByKey.get(keyIt.next())).get(0)).intValue());
+
+                    for (int idx = 0; idx < primaryKeys.length; idx++)
+                    {
+                        setObject(statement, sqlIndex++, dynaBean, primaryKeys[idx]);
+                    }
+                }
+
+                ResultSet resultSet = statement.executeQuery();
+
+                while (resultSet.next())
+                {
+                    List key = new ArrayList();
+
+                    for (int idx = 0; idx < primaryKeys.length; idx++)
+                    {
+                        Column column = primaryKeys[idx].getColumn();
+
+                        key.add(normalizeKeyValue(column, getObjectFromResultSet(resultSet, column, idx + 1)));
+                    }
+
+                    List positions = (List)beansByKey.get(key);
+
+                    for (int idx = 0; (positions != null) && (idx < positions.size()); idx++)
+                    {
+                        result[((Integer)positions.get(idx)).intValue()] = true;
+                    }
+                }
+            }
+            catch (SQLException ex)
+            {
+                throw new DatabaseOperationException("Error while reading from the database", ex);
+            }
+            finally
+            {
+                closeStatement(statement);
             }
+        }
+        return result;
+    }
 
-            ResultSet resultSet = stmt.executeQuery();
+    /**
+     * Creates the SQL of a query that returns the primary key values of those of the given
+     * number of rows that exist in the database.
+     * 
+     * @param dynaClass   The type of the rows
+     * @param primaryKeys The primary key properties
+     * @param numRows     The number of rows to probe
+     * @return The SQL
+     */
+    private String createExistenceProbeSql(SqlDynaClass dynaClass, SqlDynaProperty[] primaryKeys, int numRows)
+    {
+        StringBuffer sql = new StringBuffer();
 
-            return resultSet.next();
+        sql.append("SELECT ");
+        for (int idx = 0; idx < primaryKeys.length; idx++)
+        {
+            if (idx > 0)
+            {
+                sql.append(", ");
+            }
+            sql.append(_builder.getDelimitedIdentifier(primaryKeys[idx].getColumn().getName()));
         }
-        catch (SQLException ex)
+        sql.append(" FROM ");
+        sql.append(_builder.getDelimitedIdentifier(dynaClass.getTable().getName()));
+        sql.append(" WHERE ");
+        if (primaryKeys.length == 1)
         {
-            throw new DatabaseOperationException("Error while reading from the database", ex);
+            sql.append(_builder.getDelimitedIdentifier(primaryKeys[0].getColumn().getName()));
+            sql.append(" IN (");
+            for (int rowIdx = 0; rowIdx < numRows; rowIdx++)
+            {
+                sql.append(rowIdx > 0 ? ", ?" : "?");
+            }
+            sql.append(")");
         }
-        finally
+        else
         {
-            closeStatement(stmt);
+            for (int rowIdx = 0; rowIdx < numRows; rowIdx++)
+            {
+                sql.append(rowIdx > 0 ? " OR (" : "(");
+                for (int idx = 0; idx < primaryKeys.length; idx++)
+                {
+                    if (idx > 0)
+                    {
+                        sql.append(" AND ");
+                    }
+                    sql.append(_builder.getDelimitedIdentifier(primaryKeys[idx].getColumn().getName()));
+                    sql.append("=?");
+                }
+                sql.append(")");
+            }
         }
+        return sql.toString();
     }
 
     /**
-     * {@inheritDoc}
+     * Returns the normalized primary key values of the given bean.
+     * 
+     * @param primaryKeys The primary key properties
+     * @param dynaBean    The bean
+     * @return The values, or <code>null</code> if a primary key value is not defined
      */
-    public void store(Database model, DynaBean dynaBean) throws DatabaseOperationException
+    private List getPrimaryKeyValues(SqlDynaProperty[] primaryKeys, DynaBean dynaBean)
     {
-        Connection connection = borrowConnection();
+        List result = new ArrayList();
 
-        try
-        {
-            store(connection, model, dynaBean);
-        }
-        finally
+        for (int idx = 0; idx < primaryKeys.length; idx++)
         {
-            returnConnection(connection);
+            Object value = dynaBean.get(primaryKeys[idx].getName());
+
+            if (value == null)
+            {
+                return null;
+            }
+            result.add(normalizeKeyValue(primaryKeys[idx].getColumn(), value));
         }
+        return result;
     }
 
     /**
-     * {@inheritDoc}
+     * Normalizes a primary key value so that the value read from the database is equal
+     * to the value in the bean, even if the JDBC driver returns a different type.
+     * 
+     * @param column The primary key column
+     * @param value  The value
+     * @return The normalized value
      */
-    public void store(Connection connection, Database model, DynaBean dynaBean) throws DatabaseOperationException
+    private Object normalizeKeyValue(Column column, Object value)
     {
-        if (exists(connection, model, dynaBean))
+        if (value == null)
         {
-            update(connection, model, dynaBean);
+            return null;
+        }
+        else if ((value instanceof Number) || ((value instanceof String) && TypeMap.isNumericType(column.getTypeCode())))
+        {
+            try
+            {
+                BigDecimal number = new BigDecimal(value.toString().trim());
+
+                // 1 and 1.0 shall be the same key
+                while ((number.scale() > 0) && (number.unscaledValue().mod(BigInteger.TEN).signum() == 0))
+                {
+                    number = number.setScale(number.scale() - 1);
+                }
+                return number;
+            }
+            catch (NumberFormatException ex)
+            {
+                return value;
+            }
+        }
+        else if (value instanceof String)
+        {
+            // CHAR values are padded by the database
+            return StringUtils.stripEnd((String)value, " ");
+        }
+        else if (value instanceof java.util.Date)
+        {
+            return new Long(((java.util.Date)value).getTime());
+        }
+        else if (value instanceof byte[])
+        {
+            return new String(Base64.encodeBase64((byte[])value));
         }
         else
         {
-            insert(connection, model, dynaBean);
+            return value;
         }
     }
 
@@ -2701,14 +4515,14 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
                 return;
             }
 
-            String sql = createDeleteSql(model, dynaClass, primaryKeys, null);
+            String sql = getStatementSql("delete", model, dynaClass, primaryKeys, null);
 
             if (_log.isDebugEnabled())
             {
                 _log.debug("About to execute SQL " + sql);
             }
 
-            statement = connection.prepareStatement(sql);
+            statement = prepareStatement(connection, sql);
 
             for (int idx = 0; idx < primaryKeys.length; idx++)
             {
@@ -2730,7 +4544,75 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
         }
         finally
         {
-            closeStatement(statement);
+            releaseStatement(connection, statement);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void delete(Database model, Collection dynaBeans) throws DatabaseOperationException
+    {
+        Connection connection = borrowConnection();
+
+        try
+        {
+            delete(connection, model, dynaBeans);
+        }
+        finally
+        {
+            returnConnection(connection);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void delete(Connection connection, Database model, Collection dynaBeans) throws DatabaseOperationException
+    {
+        for (Iterator it = groupByDynaClass(model, dynaBeans).entrySet().iterator(); it.hasNext();)
+        {
+            Map.Entry         entry       = (Map.Entry)it.next();
+            SqlDynaClass      dynaClass   = (SqlDynaClass)entry.getKey();
+            List              beans       = (List)entry.getValue();
+            SqlDynaProperty[] primaryKeys = dynaClass.getPrimaryKeyProperties();
+
+            if (primaryKeys.length == 0)
+            {
+                _log.warn("Cannot delete instances of type " + dynaClass + " because it has no primary keys");
+                continue;
+            }
+
+            String            sql       = getStatementSql("delete", model, dynaClass, primaryKeys, null);
+            PreparedStatement statement = null;
+
+            if (_log.isDebugEnabled())
+            {
+                _log.debug("Starting new batch with SQL: " + sql);
+            }
+            try
+            {
+                statement = prepareStatement(connection, sql);
+                for (Iterator beanIt = beans.iterator(); beanIt.hasNext();)
+                {
+                    DynaBean dynaBean = (DynaBean)beanIt.next();
+
+                    for (int idx = 0; idx < primaryKeys.length; idx++)
+                    {
+                        setObject(statement, idx + 1, dynaBean, primaryKeys[idx]);
+                    }
+                    statement.addBatch();
+                }
+                checkBatchResults(statement.executeBatch(), beans.size(), dynaClass.getTable(), "delete");
+            }
+            catch (SQLException ex)
+            {
+                throw createBatchException("Error while deleting from the database", ex);
+            }
+            finally
+            {
+                releaseStatement(connection, statement);
+            }
         }
     }
 
@@ -2758,10 +4640,7 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
     {
         try
         {
-            Database model = getModelReader().getDatabase(connection, name);
-
-            postprocessModelFromDatabase(model);
-            return model;
+            return readModel(connection, name, null, null, null, null);
         }
         catch (SQLException ex)
         {
@@ -2793,10 +4672,29 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
     {
         try
         {
-            JdbcModelReader reader = getModelReader();
-            Database        model  = reader.getDatabase(connection, name, catalog, schema, tableTypes);
+            Database model = readModel(connection, name, catalog, schema, tableTypes, null);
+
+            if ((model.getName() == null) || (model.getName().length() == 0))
+            {
+                model.setName(MODEL_DEFAULT_NAME);
+            }
+            return model;
+        }
+        catch (SQLException ex)
+        {
+            throw new DatabaseOperationException(ex);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Database readModelFromDatabase(Connection connection, String name, String catalog, String schema, String[] tableTypes, String[] tableNames) throws DatabaseOperationException
+    {
+        try
+        {
+            Database model = readModel(connection, name, catalog, schema, tableTypes, tableNames);
 
-            postprocessModelFromDatabase(model);
             if ((model.getName() == null) || (model.getName().length() == 0))
             {
                 model.setName(MODEL_DEFAULT_NAME);
@@ -2809,6 +4707,188 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
         }
     }
 
+    /**
+     * Reads the model from the database, or takes it from the model cache if there is one and
+     * if the database schema did not change since the cached model was read.
+     * 
+     * @param connection The connection to the database
+     * @param name       The name of the resulting database; <code>null</code> when the default name (the catalog)
+     *                   is desired which might be <code>null</code> itself though
+     * @param catalog    The catalog to access in the database; use <code>null</code> for the default value
+     * @param schema     The schema to access in the database; use <code>null</code> for the default value
+     * @param tableTypes The table types to process; use <code>null</code> or an empty list for the default ones
+     * @param tableNames The names of the tables to read together with the tables linked to them;
+     *                   <code>null</code> for all tables
+     * @return The model
+     */
+    private Database readModel(Connection connection, String name, String catalog, String schema, String[] tableTypes, String[] tableNames) throws SQLException
+    {
+        ModelCache modelCache = getModelCache();
+        String     key        = null;
+        String     marker     = null;
+
+        if (modelCache != null)
+        {
+            // we determine the marker before reading the model so that schema changes
+            // made while we're reading lead to the model being read again next time
+            try
+            {
+                marker = getModelChangeMarker(connection, catalog, schema);
+            }
+            catch (SQLException ex)
+            {
+                _log.warn("Could not determine whether the database schema changed, the model is read without the cache", ex);
+            }
+            if (marker != null)
+            {
+                key = createModelCacheKey(connection, name, catalog, schema, tableTypes, tableNames);
+
+                Database model = modelCache.get(key, marker);
+
+                if (model != null)
+                {
+                    _log.debug("Using the cached model for " + key);
+                    return model;
+                }
+            }
+        }
+
+        Database model = getModelReader().getDatabase(connection, name, catalog, schema, tableTypes, tableNames);
+
+        postprocessModelFromDatabase(model);
+        if (key != null)
+        {
+            modelCache.put(key, marker, model);
+        }
+        return model;
+    }
+
+    /**
+     * Creates the key under which the model read with the given parameters is cached. The key
+     * identifies the database via the URL and user of the connection. It also contains the
+     * default patterns and table types of the model reader, which are used for the parameters
+     * that are not given.
+     * 
+     * @param connection The connection to the database
+     * @param name       The name of the model
+     * @param catalog    The catalog to access in the database
+     * @param schema     The schema to access in the database
+     * @param tableTypes The table types to process
+     * @param tableNames The names of the tables to read, or <code>null</code> for all tables
+     * @return The key
+     */
+    private String createModelCacheKey(Connection connection, String name, String catalog, String schema, String[] tableTypes, String[] tableNames) throws SQLException
+    {
+        StringBuffer result = new StringBuffer();
+
+        result.append(getName());
+        result.append("|");
+        result.append(connection.getMetaData().getURL());
+        result.append("|");
+        result.append(connection.getMetaData().getUserName());
+        result.append("|");
+        result.append(connection.getCatalog());
+        result.append("|");
+        result.append(name);
+        result.append("|");
+        result.append(catalog);
+        result.append("|");
+        result.append(schema);
+        result.append("|");
+        if (tableTypes != null)
+        {
+            result.append(StringUtils.join(tableTypes, ","));
+        }
+        result.append("|");
+        result.append(getModelReader().getDefaultCatalogPattern());
+        result.append("|");
+        result.append(getModelReader().getDefaultSchemaPattern());
+        result.append("|");
+        result.append(getModelReader().getDefaultTablePattern());
+        result.append("|");
+        if (getModelReader().getDefaultTableTypes() != null)
+        {
+            result.append(StringUtils.join(getModelReader().getDefaultTableTypes(), ","));
+        }
+        result.append("|");
+        if (tableNames == null)
+        {
+            result.append("*");
+        }
+        else
+        {
+            result.append(StringUtils.join(tableNames, ","));
+        }
+        result.append("|");
+        result.append(isDelimitedIdentifierModeOn());
+        result.append("|");
+        result.append(isForeignKeysSorted());
+        return result.toString();
+    }
+
+    /**
+     * Determines the change marker of the database schema, which is used to validate cached
+     * models. The marker is a string that the database can compute cheaply, e.g. from the
+     * last DDL times of the database objects, and that changes whenever tables, columns,
+     * indexes or foreign keys are created, changed or dropped. The default implementation
+     * returns <code>null</code>, which means that the platform cannot detect schema changes
+     * and that models are always read from the database.
+     * 
+     * @param connection The connection to the database
+     * @param catalog    The catalog to access in the database; <code>null</code> for the default value
+     * @param schema     The schema pattern to access in the database; <code>null</code> for the default value
+     * @return The marker or <code>null</code> if the platform cannot detect schema changes
+     */
+    protected String getModelChangeMarker(Connection connection, String catalog, String schema) throws SQLException
+    {
+        return null;
+    }
+
+    /**
+     * Executes the given query, which returns a single row, and concatenates the values of
+     * the row into a change marker. This is a helper for implementations of
+     * {@link #getModelChangeMarker(Connection, String, String)}.
+     * 
+     * @param connection The connection to the database
+     * @param sql        The query
+     * @param params     The values of the parameters of the query
+     * @return The marker
+     */
+    protected String queryModelChangeMarker(Connection connection, String sql, String[] params) throws SQLException
+    {
+        PreparedStatement statement = null;
+        ResultSet         resultSet = null;
+
+        try
+        {
+            statement = connection.prepareStatement(sql);
+            for (int idx = 0; idx < params.length; idx++)
+            {
+                statement.setString(idx + 1, params[idx]);
+            }
+            resultSet = statement.executeQuery();
+
+            StringBuffer result = new StringBuffer();
+
+            if (resultSet.next())
+            {
+                for (int idx = 1; idx <= resultSet.getMetaData().getColumnCount(); idx++)
+                {
+                    if (idx > 1)
+                    {
+                        result.append("/");
+                    }
+                    result.append(resultSet.getString(idx));
+                }
+            }
+            return result.toString();
+        }
+        finally
+        {
+            closeStatement(statement);
+        }
+    }
+
     /**
      * Allows the platform to postprocess the model just read from the database.
      * 
@@ -2961,23 +5041,7 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
 
         if (column != null)
         {
-            int originalJdbcType = column.getTypeCode();
-            int targetJdbcType   = getPlatformInfo().getTargetJdbcType(originalJdbcType);
-            int jdbcType         = originalJdbcType;
-
-            // in general we're trying to retrieve the value using the original type
-            // but sometimes we also need the target type:
-            if ((originalJdbcType == Types.BLOB) && (targetJdbcType != Types.BLOB))
-            {
-                // we should not use the Blob interface if the database doesn't map to this type 
-                jdbcType = targetJdbcType;
-            }
-            if ((originalJdbcType == Types.CLOB) && (targetJdbcType != Types.CLOB))
-            {
-                // we should not use the Clob interface if the database doesn't map to this type 
-                jdbcType = targetJdbcType;
-            }
-            value = extractColumnValue(resultSet, columnName, 0, jdbcType);
+            value = extractColumnValue(resultSet, columnName, 0, getJdbcTypeForReading(column));
         }
         else
         {
@@ -2997,10 +5061,23 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
      */
     protected Object getObjectFromResultSet(ResultSet resultSet, Column column, int idx) throws SQLException
     {
-        int    originalJdbcType = column.getTypeCode();
-        int    targetJdbcType   = getPlatformInfo().getTargetJdbcType(originalJdbcType);
-        int    jdbcType         = originalJdbcType;
-        Object value            = null;
+        Object value = extractColumnValue(resultSet, null, idx, getJdbcTypeForReading(column));
+
+        return resultSet.wasNull() ? null : value;
+    }
+
+    /**
+     * Determines the jdbc type that is used to retrieve values of the given column from a
+     * result set via {@link #extractColumnValue(ResultSet, String, int, int)}.
+     * 
+     * @param column The column
+     * @return The jdbc type
+     */
+    protected int getJdbcTypeForReading(Column column)
+    {
+        int originalJdbcType = column.getTypeCode();
+        int targetJdbcType   = getPlatformInfo().getTargetJdbcType(originalJdbcType);
+        int jdbcType         = originalJdbcType;
 
         // in general we're trying to retrieve the value using the original type
         // but sometimes we also need the target type:
@@ -3014,8 +5091,7 @@ public abstract class PlatformImplBase extends JdbcSupport implements Platform
             // we should not use the Clob interface if the database doesn't map to this type 
             jdbcType = targetJdbcType;
         }
-        value = extractColumnValue(resultSet, null, idx, jdbcType);
-        return resultSet.wasNull() ? null : value;
+        return jdbcType;
     }
 
 	/**
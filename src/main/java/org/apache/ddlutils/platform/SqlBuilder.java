@@ -25,6 +25,7 @@ import java.rmi.server.UID;
 import java.sql.Types;
 import java.text.DateFormat;
 import java.text.NumberFormat;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.Locale;
 import java.util.Map;
@@ -66,6 +67,10 @@ public abstract class SqlBuilder
     private static final String LINE_SEPARATOR = System.getProperty("line.separator", "\n");
     /** The placeholder for the size value in the native type spec. */
     protected static final String SIZE_PLACEHOLDER = "{0}";
+    /** The name of the helper column that databases may need for restricting a query to a range of rows. */
+    public static final String PAGING_ROW_NUMBER_COLUMN = "DDLUTILS_ROW_NUMBER";
+    /** The locking clauses (in upper case) after which no paging clauses can be added to a query. */
+    private static final String[] LOCKING_CLAUSES = { "FOR UPDATE", "FOR NO KEY UPDATE", "FOR SHARE", "FOR KEY SHARE", "LOCK IN SHARE MODE" };
 
     /** The Log to which logging calls will be made. */
     protected final Log _log = LogFactory.getLog(SqlBuilder.class);
@@ -840,6 +845,149 @@ public abstract class SqlBuilder
         printEndOfStatement();
     }
 
+    /**
+     * Generates the statements that disable the foreign keys and the non-unique indexes
+     * of all tables in the database prior to a bulk load of data. The foreign keys are
+     * disabled first so that the indexes that they may depend on can be disabled, too.
+     * Use {@link #enableIndexesAndForeignKeys(Database)} to reverse this after the load.
+     * 
+     * @param database The database
+     */
+    public void disableIndexesAndForeignKeys(Database database) throws IOException
+    {
+        if (!getPlatformInfo().isForeignKeysEmbedded())
+        {
+            for (int tableIdx = 0; tableIdx < database.getTableCount(); tableIdx++)
+            {
+                Table table = database.getTable(tableIdx);
+
+                for (int fkIdx = 0; fkIdx < table.getForeignKeyCount(); fkIdx++)
+                {
+                    disableForeignKey(table, table.getForeignKey(fkIdx));
+                }
+            }
+        }
+        if (getPlatformInfo().isIndicesSupported())
+        {
+            for (int tableIdx = 0; tableIdx < database.getTableCount(); tableIdx++)
+            {
+                Index[] indexes = getDeferrableIndexes(database.getTable(tableIdx));
+
+                for (int idx = 0; idx < indexes.length; idx++)
+                {
+                    disableIndex(database.getTable(tableIdx), indexes[idx]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Generates the statements that re-enable the indexes and foreign keys that were disabled
+     * via {@link #disableIndexesAndForeignKeys(Database)}. The indexes are rebuilt first so
+     * that they are available when the foreign keys are validated.
+     * 
+     * @param database The database
+     */
+    public void enableIndexesAndForeignKeys(Database database) throws IOException
+    {
+        if (getPlatformInfo().isIndicesSupported())
+        {
+            for (int tableIdx = 0; tableIdx < database.getTableCount(); tableIdx++)
+            {
+                Index[] indexes = getDeferrableIndexes(database.getTable(tableIdx));
+
+                for (int idx = 0; idx < indexes.length; idx++)
+                {
+                    enableIndex(database.getTable(tableIdx), indexes[idx]);
+                }
+            }
+        }
+        if (!getPlatformInfo().isForeignKeysEmbedded())
+        {
+            for (int tableIdx = 0; tableIdx < database.getTableCount(); tableIdx++)
+            {
+                Table table = database.getTable(tableIdx);
+
+                for (int fkIdx = 0; fkIdx < table.getForeignKeyCount(); fkIdx++)
+                {
+                    enableForeignKey(database, table, table.getForeignKey(fkIdx));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the indexes of the table that can be disabled during a bulk load. These are the
+     * named non-unique indexes; unique indexes are kept as they enforce a constraint.
+     * 
+     * @param table The table
+     * @return The indexes
+     */
+    protected Index[] getDeferrableIndexes(Table table)
+    {
+        ArrayList result = new ArrayList();
+
+        for (int idx = 0; idx < table.getIndexCount(); idx++)
+        {
+            Index index = table.getIndex(idx);
+
+            if (!index.isUnique() && (index.getName() != null) && (index.getName().length() > 0))
+            {
+                result.add(index);
+            }
+        }
+        return (Index[])result.toArray(new Index[result.size()]);
+    }
+
+    /**
+     * Generates the statement to disable the given foreign key during a bulk load. This
+     * implementation drops the foreign key.
+     * 
+     * @param table      The table
+     * @param foreignKey The foreign key
+     */
+    protected void disableForeignKey(Table table, ForeignKey foreignKey) throws IOException
+    {
+        dropForeignKey(table, foreignKey);
+    }
+
+    /**
+     * Generates the statement to enable the given foreign key after a bulk load. This
+     * implementation (re-)creates the foreign key.
+     * 
+     * @param database   The database model
+     * @param table      The table
+     * @param foreignKey The foreign key
+     */
+    protected void enableForeignKey(Database database, Table table, ForeignKey foreignKey) throws IOException
+    {
+        createForeignKey(database, table, foreignKey);
+    }
+
+    /**
+     * Generates the statement to disable the given index during a bulk load. This
+     * implementation drops the index.
+     * 
+     * @param table The table
+     * @param index The index
+     */
+    protected void disableIndex(Table table, Index index) throws IOException
+    {
+        dropIndex(table, index);
+    }
+
+    /**
+     * Generates the statement to enable the given index after a bulk load. This
+     * implementation (re-)creates the index.
+     * 
+     * @param table The table
+     * @param index The index
+     */
+    protected void enableIndex(Table table, Index index) throws IOException
+    {
+        createIndex(table, index);
+    }
+
     /**
      * Creates the SQL for inserting an object into the specified table.
      * If values are given then a concrete insert statement is created, otherwise an
@@ -909,6 +1057,116 @@ public abstract class SqlBuilder
         return buffer.toString();
     }
 
+    /**
+     * Creates the SQL for inserting multiple objects into the specified table with one
+     * statement, usable in a prepared statement. The parameters are given row by row, and
+     * per row in the order of the columns in the table.
+     *  
+     * @param table        The table
+     * @param columnValues The columns to insert (the keys are the column names, the
+     *                     values are ignored)
+     * @param numRows      The number of rows
+     * @return The insertion sql
+     */
+    public String getMultiRowInsertSql(Table table, Map columnValues, int numRows)
+    {
+        StringBuffer buffer   = new StringBuffer("INSERT INTO ");
+        StringBuffer row      = new StringBuffer("(");
+        boolean      addComma = false;
+
+        buffer.append(getDelimitedIdentifier(getTableName(table)));
+        buffer.append(" (");
+
+        for (int idx = 0; idx < table.getColumnCount(); idx++)
+        {
+            Column column = table.getColumn(idx);
+
+            if (columnValues.containsKey(column.getName()))
+            {
+                if (addComma)
+                {
+                    buffer.append(", ");
+                    row.append(", ");
+                }
+                buffer.append(getDelimitedIdentifier(column.getName()));
+                row.append("?");
+                addComma = true;
+            }
+        }
+        buffer.append(") VALUES ");
+        row.append(")");
+        for (int idx = 0; idx < numRows; idx++)
+        {
+            if (idx > 0)
+            {
+                buffer.append(", ");
+            }
+            buffer.append(row);
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * Creates the statement that starts a bulk load of rows in the delimited text format of
+     * the {@link TextBulkLoaderBase} into the specified table. This implementation returns
+     * <code>null</code> as there is no standard statement for bulk loads.
+     * 
+     * @param table   The table
+     * @param columns The columns, in the order of the values in the rows
+     * @return The statement, or <code>null</code> if the database has no bulk load statement
+     */
+    public String getBulkLoadSql(Table table, Column[] columns)
+    {
+        return null;
+    }
+
+    /**
+     * Creates the query that counts the rows of the table that violate the given foreign key,
+     * i.e. the rows whose local columns are all set but for which there is no row in the
+     * referenced table with matching values.
+     * 
+     * @param database   The database model
+     * @param table      The table
+     * @param foreignKey The foreign key
+     * @return The query, or <code>null</code> if the foreign key cannot be checked
+     */
+    public String getForeignKeyViolationsSql(Database database, Table table, ForeignKey foreignKey)
+    {
+        Table foreignTable = database.findTable(foreignKey.getForeignTableName());
+
+        if ((foreignTable == null) || (foreignKey.getReferenceCount() == 0))
+        {
+            return null;
+        }
+
+        StringBuffer buffer = new StringBuffer("SELECT COUNT(*) FROM ");
+
+        buffer.append(getDelimitedIdentifier(getTableName(table)));
+        buffer.append(" l WHERE ");
+        for (int idx = 0; idx < foreignKey.getReferenceCount(); idx++)
+        {
+            buffer.append("l.");
+            buffer.append(getDelimitedIdentifier(foreignKey.getReference(idx).getLocalColumnName()));
+            buffer.append(" IS NOT NULL AND ");
+        }
+        buffer.append("NOT EXISTS (SELECT 1 FROM ");
+        buffer.append(getDelimitedIdentifier(getTableName(foreignTable)));
+        buffer.append(" f WHERE ");
+        for (int idx = 0; idx < foreignKey.getReferenceCount(); idx++)
+        {
+            if (idx > 0)
+            {
+                buffer.append(" AND ");
+            }
+            buffer.append("f.");
+            buffer.append(getDelimitedIdentifier(foreignKey.getReference(idx).getForeignColumnName()));
+            buffer.append(" = l.");
+            buffer.append(getDelimitedIdentifier(foreignKey.getReference(idx).getLocalColumnName()));
+        }
+        buffer.append(")");
+        return buffer.toString();
+    }
+
     /**
      * Creates the SQL for updating an object in the specified table.
      * If values are given then a concrete update statement is created, otherwise an
@@ -1104,6 +1362,192 @@ public abstract class SqlBuilder
         return buffer.toString();
     }
 
+    /**
+     * Creates the SQL for inserting an object into the specified table, or for updating the
+     * row with the same primary key if there already is one, using a single native statement
+     * of the database. The columns (and thus the parameters if placeholders are generated)
+     * are in the same order as for {@link #getInsertSql(Table, Map, boolean)}. The values
+     * must contain all primary key columns of the table.
+     * 
+     * @param table           The table
+     * @param columnValues    The columns values indexed by the column names
+     * @param genPlaceholders Whether to generate value placeholders for a
+     *                        prepared statement
+     * @return The sql, or <code>null</code> if the database does not support such a
+     *         statement or it cannot be generated for the given table and columns
+     */
+    public String getUpsertSql(Table table, Map columnValues, boolean genPlaceholders)
+    {
+        // No default possible as the databases are quite different in this respect
+        return null;
+    }
+
+    /**
+     * Returns the columns of the table that are contained in the given values, in the order
+     * of the table. This is the set of columns used in an upsert statement.
+     * 
+     * @param table        The table
+     * @param columnValues The columns values indexed by the column names
+     * @return The columns, or <code>null</code> if the table has no primary key or the
+     *         values do not contain all of its columns
+     */
+    protected Column[] getUpsertColumns(Table table, Map columnValues)
+    {
+        Column[] pkColumns = table.getPrimaryKeyColumns();
+
+        if (pkColumns.length == 0)
+        {
+            return null;
+        }
+        for (int idx = 0; idx < pkColumns.length; idx++)
+        {
+            if (!columnValues.containsKey(pkColumns[idx].getName()))
+            {
+                return null;
+            }
+        }
+
+        ArrayList columns = new ArrayList();
+
+        for (int idx = 0; idx < table.getColumnCount(); idx++)
+        {
+            Column column = table.getColumn(idx);
+
+            if (columnValues.containsKey(column.getName()))
+            {
+                columns.add(column);
+            }
+        }
+        return (Column[])columns.toArray(new Column[columns.size()]);
+    }
+
+    /**
+     * Returns the value for the given column in an upsert statement.
+     * 
+     * @param column          The column
+     * @param columnValues    The columns values indexed by the column names
+     * @param genPlaceholders Whether to generate a value placeholder
+     * @return The placeholder or the value as a sql literal
+     */
+    protected String getUpsertValue(Column column, Map columnValues, boolean genPlaceholders)
+    {
+        return genPlaceholders ? "?" : getValueAsString(column, columnValues.get(column.getName()));
+    }
+
+    /**
+     * Creates an upsert statement using the standard <code>MERGE</code> statement. The
+     * source row is generated by {@link #getMergeSource(Column[], Map, boolean)}.
+     * 
+     * @param table           The table
+     * @param columnValues    The columns values indexed by the column names
+     * @param genPlaceholders Whether to generate value placeholders for a
+     *                        prepared statement
+     * @return The sql, or <code>null</code> if it cannot be generated for the given table
+     *         and columns
+     */
+    protected String getMergeSql(Table table, Map columnValues, boolean genPlaceholders)
+    {
+        Column[] columns = getUpsertColumns(table, columnValues);
+
+        if (columns == null)
+        {
+            return null;
+        }
+
+        StringBuffer buffer = new StringBuffer("MERGE INTO ");
+        boolean      addSep = false;
+
+        buffer.append(getDelimitedIdentifier(getTableName(table)));
+        buffer.append(" t USING ");
+        buffer.append(getMergeSource(columns, columnValues, genPlaceholders));
+        buffer.append(" ON (");
+        for (int idx = 0; idx < columns.length; idx++)
+        {
+            if (columns[idx].isPrimaryKey())
+            {
+                if (addSep)
+                {
+                    buffer.append(" AND ");
+                }
+                buffer.append("t.");
+                buffer.append(getDelimitedIdentifier(columns[idx].getName()));
+                buffer.append(" = s.");
+                buffer.append(getDelimitedIdentifier(columns[idx].getName()));
+                addSep = true;
+            }
+        }
+        buffer.append(")");
+        addSep = false;
+        for (int idx = 0; idx < columns.length; idx++)
+        {
+            if (!columns[idx].isPrimaryKey())
+            {
+                buffer.append(addSep ? ", " : " WHEN MATCHED THEN UPDATE SET ");
+                buffer.append("t.");
+                buffer.append(getDelimitedIdentifier(columns[idx].getName()));
+                buffer.append(" = s.");
+                buffer.append(getDelimitedIdentifier(columns[idx].getName()));
+                addSep = true;
+            }
+        }
+        buffer.append(" WHEN NOT MATCHED THEN INSERT (");
+        for (int idx = 0; idx < columns.length; idx++)
+        {
+            if (idx > 0)
+            {
+                buffer.append(", ");
+            }
+            buffer.append(getDelimitedIdentifier(columns[idx].getName()));
+        }
+        buffer.append(") VALUES (");
+        for (int idx = 0; idx < columns.length; idx++)
+        {
+            if (idx > 0)
+            {
+                buffer.append(", ");
+            }
+            buffer.append("s.");
+            buffer.append(getDelimitedIdentifier(columns[idx].getName()));
+        }
+        buffer.append(")");
+        return buffer.toString();
+    }
+
+    /**
+     * Creates the source row (including the alias <code>s</code>) of a <code>MERGE</code>
+     * statement. Per default, a <code>VALUES</code> row constructor is used.
+     * 
+     * @param columns         The columns
+     * @param columnValues    The columns values indexed by the column names
+     * @param genPlaceholders Whether to generate value placeholders for a
+     *                        prepared statement
+     * @return The source row
+     */
+    protected String getMergeSource(Column[] columns, Map columnValues, boolean genPlaceholders)
+    {
+        StringBuffer buffer = new StringBuffer("(VALUES (");
+
+        for (int idx = 0; idx < columns.length; idx++)
+        {
+            if (idx > 0)
+            {
+                buffer.append(", ");
+            }
+            buffer.append(getUpsertValue(columns[idx], columnValues, genPlaceholders));
+        }
+        buffer.append(")) AS s (");
+        for (int idx = 0; idx < columns.length; idx++)
+        {
+            if (idx > 0)
+            {
+                buffer.append(", ");
+            }
+            buffer.append(getDelimitedIdentifier(columns[idx].getName()));
+        }
+        buffer.append(")");
+        return buffer.toString();
+    }
+
     /**
      * Generates the string representation of the given value.
      * 
@@ -1195,6 +1639,102 @@ public abstract class SqlBuilder
         return null;
     }
 
+    /**
+     * Restricts the given query to a range of its result rows, using the native syntax of the
+     * database, so that only the rows in this range are transferred from the database. Rows are
+     * counted from <code>0</code>. If the database needs an additional column in the result for
+     * this, then it is named {@link #PAGING_ROW_NUMBER_COLUMN} and will be ignored when reading
+     * the result. A database that does not support this, or cannot apply it to the given query,
+     * will return <code>null</code>. Clauses appended to the query are started on a new line so
+     * that a line comment at the end of the query does not swallow them.
+     * 
+     * @param query The query
+     * @param start The index of the first row to return
+     * @param end   The index of the last row to return (inclusive), or <code>-1</code> if all
+     *              rows starting at <code>start</code> shall be returned
+     * @return The restricted query, or <code>null</code> if this is not supported
+     */
+    public String getPagedQuery(String query, int start, int end)
+    {
+        // No default possible as the databases are quite different in this respect
+        return null;
+    }
+
+    /**
+     * Prepares the given query for adding paging clauses to it, by removing surrounding
+     * whitespace and a statement delimiter at its end. If the query is not a <code>SELECT</code>
+     * statement, contains a locking clause such as <code>FOR UPDATE</code> (which has to be the
+     * last clause), or already contains one of the given keywords (which would conflict with the
+     * paging clauses), <code>null</code> is returned.
+     * 
+     * @param query            The query
+     * @param excludedKeywords The keywords (in upper case) that must not be contained in the query
+     * @return The prepared query, or <code>null</code> if paging clauses cannot be added to it
+     */
+    protected String getQueryForPaging(String query, String[] excludedKeywords)
+    {
+        String result = query.trim();
+
+        if (result.endsWith(getPlatformInfo().getSqlCommandDelimiter()))
+        {
+            result = result.substring(0, result.length() - getPlatformInfo().getSqlCommandDelimiter().length()).trim();
+        }
+
+        String upperCaseQuery = " " + normalizeWhitespace(result.toUpperCase()) + " ";
+
+        if (!upperCaseQuery.startsWith(" SELECT "))
+        {
+            return null;
+        }
+        for (int idx = 0; idx < LOCKING_CLAUSES.length; idx++)
+        {
+            if (upperCaseQuery.indexOf(" " + LOCKING_CLAUSES[idx] + " ") >= 0)
+            {
+                return null;
+            }
+        }
+        for (int idx = 0; idx < excludedKeywords.length; idx++)
+        {
+            if (upperCaseQuery.indexOf(" " + excludedKeywords[idx] + " ") >= 0)
+            {
+                return null;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Replaces every sequence of whitespace characters in the given text with a single space.
+     * 
+     * @param text The text
+     * @return The normalized text
+     */
+    private String normalizeWhitespace(String text)
+    {
+        StringBuffer result       = new StringBuffer(text.length());
+        boolean      inWhitespace = false;
+
+        for (int idx = 0; idx < text.length(); idx++)
+        {
+            char c = text.charAt(idx);
+
+            if (Character.isWhitespace(c))
+            {
+                if (!inWhitespace)
+                {
+                    result.append(' ');
+                    inWhitespace = true;
+                }
+            }
+            else
+            {
+                result.append(c);
+                inWhitespace = false;
+            }
+        }
+        return result.toString();
+    }
+
     //
     // implementation methods that may be overridden by specific database builders
     //
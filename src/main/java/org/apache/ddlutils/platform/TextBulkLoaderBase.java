@@ -0,0 +1,378 @@
+package org.apache.ddlutils.platform;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.commons.beanutils.DynaBean;
+import org.apache.ddlutils.DatabaseOperationException;
+import org.apache.ddlutils.Platform;
+import org.apache.ddlutils.dynabean.SqlDynaProperty;
+import org.apache.ddlutils.model.Column;
+import org.apache.ddlutils.model.Table;
+
+/**
+ * Base class for bulk loaders that stream the rows to the database in a delimited text format.
+ * The rows are separated by newlines, the values by tabs, and <code>NULL</code> values are written
+ * as <code>\N</code>. Backslashes, tabs, newlines and carriage returns in the values are escaped with
+ * a backslash. This is the default text format of both PostgreSQL's <code>COPY</code> and MySQL's
+ * <code>LOAD DATA</code>. The rows are encoded in UTF-8 while the database reads them, so the
+ * payload is never held in memory as a whole.<br/>
+ * The statement that starts the load is generated by
+ * {@link SqlBuilder#getBulkLoadSql(Table, Column[])}.
+ *
+ * @version $Revision: $
+ */
+public abstract class TextBulkLoaderBase implements BulkLoader
+{
+    /** The hexadecimal digits. */
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    /** The platform. */
+    private Platform _platform;
+
+    /**
+     * Creates a new bulk loader.
+     *
+     * @param platform The platform
+     */
+    public TextBulkLoaderBase(Platform platform)
+    {
+        _platform = platform;
+    }
+
+    /**
+     * Returns the platform.
+     *
+     * @return The platform
+     */
+    public Platform getPlatform()
+    {
+        return _platform;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long load(Connection connection, Table table, SqlDynaProperty[] properties, List dynaBeans) throws DatabaseOperationException
+    {
+        Column[] columns = new Column[properties.length];
+
+        for (int idx = 0; idx < properties.length; idx++)
+        {
+            columns[idx] = properties[idx].getColumn();
+        }
+
+        String sql = getBulkLoadSql(table, columns);
+
+        if (sql == null)
+        {
+            throw new DatabaseOperationException("The platform " + _platform.getName() + " does not support bulk loading data into table " + table.getName());
+        }
+        try
+        {
+            return load(connection, sql, new RowInputStream(properties, dynaBeans.iterator()));
+        }
+        catch (SQLException ex)
+        {
+            throw new DatabaseOperationException("Error while bulk loading data into table " + table.getName(), ex);
+        }
+    }
+
+    /**
+     * Creates the statement that starts the bulk load of rows into the specified table.
+     * This implementation uses {@link SqlBuilder#getBulkLoadSql(Table, Column[])}.
+     *
+     * @param table   The table
+     * @param columns The columns, in the order of the values in the rows
+     * @return The statement, or <code>null</code> if the database has no bulk load statement
+     */
+    protected String getBulkLoadSql(Table table, Column[] columns)
+    {
+        return _platform.getSqlBuilder().getBulkLoadSql(table, columns);
+    }
+
+    /**
+     * Executes the given bulk load statement, streaming the given data to the database.
+     *
+     * @param connection The connection
+     * @param sql        The statement
+     * @param data       The rows in the delimited text format
+     * @return The number of loaded rows, or -1 if the database does not report it
+     */
+    protected abstract long load(Connection connection, String sql, InputStream data) throws SQLException;
+
+    /**
+     * Returns the textual representation of the given value. The result is escaped afterwards.
+     * This implementation writes binary values as hexadecimal digits and uses the JDBC escape
+     * format for dates and times.
+     *
+     * @param column The column
+     * @param value  The value, not <code>null</code>
+     * @return The text
+     */
+    protected String formatValue(Column column, Object value)
+    {
+        if (value instanceof byte[])
+        {
+            byte[]       bytes  = (byte[])value;
+            StringBuffer result = new StringBuffer(2 * bytes.length);
+
+            for (int idx = 0; idx < bytes.length; idx++)
+            {
+                result.append(HEX_DIGITS[(bytes[idx] >> 4) & 0x0F]);
+                result.append(HEX_DIGITS[bytes[idx] & 0x0F]);
+            }
+            return result.toString();
+        }
+        else if ((value instanceof java.util.Date) &&
+                 !(value instanceof java.sql.Date) && !(value instanceof java.sql.Time) && !(value instanceof Timestamp))
+        {
+            return new Timestamp(((java.util.Date)value).getTime()).toString();
+        }
+        else
+        {
+            return value.toString();
+        }
+    }
+
+    /**
+     * Encodes the given bean as a row in the delimited text format.
+     *
+     * @param properties The properties to write
+     * @param bean       The bean
+     * @return The row including the terminating newline
+     */
+    protected String encodeRow(SqlDynaProperty[] properties, DynaBean bean)
+    {
+        StringBuffer result = new StringBuffer();
+
+        for (int idx = 0; idx < properties.length; idx++)
+        {
+            Object value = bean.get(properties[idx].getName());
+
+            if (idx > 0)
+            {
+                result.append('\t');
+            }
+            if (value == null)
+            {
+                result.append("\\N");
+            }
+            else
+            {
+                String text = formatValue(properties[idx].getColumn(), value);
+
+                for (int charIdx = 0; charIdx < text.length(); charIdx++)
+                {
+                    char c = text.charAt(charIdx);
+
+                    switch (c)
+                    {
+                        case '\\':
+                            result.append("\\\\");
+                            break;
+                        case '\t':
+                            result.append("\\t");
+                            break;
+                        case '\n':
+                            result.append("\\n");
+                            break;
+                        case '\r':
+                            result.append("\\r");
+                            break;
+                        default:
+                            result.append(c);
+                    }
+                }
+            }
+        }
+        result.append('\n');
+        return result.toString();
+    }
+
+    /**
+     * Returns the given JDBC object as an instance of the given driver-specific class, unwrapping
+     * it if necessary (e.g. if it is a connection from a pool). The class is loaded via the class
+     * loader of the object, so the driver does not need to be on the class path of DdlUtils.
+     *
+     * @param obj       The JDBC object
+     * @param className The name of the driver-specific class or interface
+     * @return The unwrapped object, or <code>null</code> if the object is not an instance of
+     *         the class and cannot be unwrapped to it
+     */
+    protected Object unwrap(Object obj, String className)
+    {
+        Class type;
+
+        try
+        {
+            type = Class.forName(className, true, obj.getClass().getClassLoader());
+        }
+        catch (ClassNotFoundException ex)
+        {
+            return null;
+        }
+        catch (LinkageError ex)
+        {
+            return null;
+        }
+        if (type.isInstance(obj))
+        {
+            return obj;
+        }
+        try
+        {
+            // JDBC 4 wrapper API, which older drivers and pools don't implement
+            Method isWrapperFor = obj.getClass().getMethod("isWrapperFor", new Class[] { Class.class });
+            Method unwrap       = obj.getClass().getMethod("unwrap", new Class[] { Class.class });
+
+            if (Boolean.TRUE.equals(isWrapperFor.invoke(obj, new Object[] { type })))
+            {
+                return unwrap.invoke(obj, new Object[] { type });
+            }
+        }
+        catch (Exception ex)
+        {
+            // not a wrapper
+        }
+        catch (AbstractMethodError ex)
+        {
+            // not a wrapper
+        }
+        return null;
+    }
+
+    /**
+     * Invokes the given driver-specific method.
+     *
+     * @param obj        The object
+     * @param className  The name of the class or interface that declares the method
+     * @param methodName The name of the method
+     * @param paramTypes The parameter types
+     * @param args       The arguments
+     * @return The result of the method
+     */
+    protected Object invoke(Object obj, String className, String methodName, Class[] paramTypes, Object[] args) throws SQLException
+    {
+        try
+        {
+            Class  type   = Class.forName(className, true, obj.getClass().getClassLoader());
+            Method method = type.getMethod(methodName, paramTypes);
+
+            return method.invoke(obj, args);
+        }
+        catch (InvocationTargetException ex)
+        {
+            if (ex.getTargetException() instanceof SQLException)
+            {
+                throw (SQLException)ex.getTargetException();
+            }
+            throw new DatabaseOperationException("Error while invoking " + className + "." + methodName, ex.getTargetException());
+        }
+        catch (Exception ex)
+        {
+            throw new DatabaseOperationException("Could not invoke " + className + "." + methodName, ex);
+        }
+    }
+
+    /**
+     * Stream that encodes the rows while they are read.
+     */
+    private class RowInputStream extends InputStream
+    {
+        /** The properties to write. */
+        private SqlDynaProperty[] _properties;
+        /** The iterator over the beans. */
+        private Iterator _beans;
+        /** The encoded current row. */
+        private byte[] _row = new byte[0];
+        /** The position in the current row. */
+        private int _pos;
+
+        /**
+         * Creates a new stream.
+         *
+         * @param properties The properties to write
+         * @param beans      The iterator over the beans
+         */
+        public RowInputStream(SqlDynaProperty[] properties, Iterator beans)
+        {
+            _properties = properties;
+            _beans      = beans;
+        }
+
+        /**
+         * Encodes the next row if the current one has been read completely.
+         *
+         * @return <code>false</code> if there are no more rows
+         */
+        private boolean advance() throws IOException
+        {
+            while (_pos >= _row.length)
+            {
+                if (!_beans.hasNext())
+                {
+                    return false;
+                }
+                _row = encodeRow(_properties, (DynaBean)_beans.next()).getBytes("UTF-8");
+                _pos = 0;
+            }
+            return true;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public int read() throws IOException
+        {
+            return advance() ? (_row[_pos++] & 0xFF) : -1;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public int read(byte[] buffer, int offset, int length) throws IOException
+        {
+            if (length == 0)
+            {
+                return 0;
+            }
+            if (!advance())
+            {
+                return -1;
+            }
+
+            int count = Math.min(length, _row.length - _pos);
+
+            System.arraycopy(_row, _pos, buffer, offset, count);
+            _pos += count;
+            return count;
+        }
+    }
+}
@@ -21,6 +21,7 @@ package org.apache.ddlutils.platform.db2;
 
 import java.io.IOException;
 import java.sql.Types;
+import java.util.Map;
 
 import org.apache.ddlutils.Platform;
 import org.apache.ddlutils.alteration.ColumnDefinitionChange;
@@ -79,6 +80,46 @@ public class Db2Builder extends SqlBuilder
         return "VALUES IDENTITY_VAL_LOCAL()";
     }
 
+    /**
+     * {@inheritDoc}
+     * DB2 can only limit the number of rows, so this returns <code>null</code> for a range
+     * that does not start at the first row.
+     */
+    public String getPagedQuery(String query, int start, int end)
+    {
+        String baseQuery = getQueryForPaging(query, new String[] { "FETCH" });
+
+        if ((baseQuery == null) || (start > 0) || (end < 0))
+        {
+            return null;
+        }
+        return baseQuery + "\nFETCH FIRST " + (end + 1) + " ROWS ONLY";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getUpsertSql(Table table, Map columnValues, boolean genPlaceholders)
+    {
+        return getMergeSql(table, columnValues, genPlaceholders);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected String getUpsertValue(Column column, Map columnValues, boolean genPlaceholders)
+    {
+        // the types of untyped parameters in the VALUES row constructor cannot be determined
+        if (genPlaceholders)
+        {
+            return "CAST(? AS " + getSqlType(column) + ")";
+        }
+        else
+        {
+            return super.getUpsertValue(column, columnValues, genPlaceholders);
+        }
+    }
+
     /**
      * Generates the SQL to drop a column from a table.
      * 
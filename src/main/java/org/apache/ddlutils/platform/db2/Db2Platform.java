@@ -76,6 +76,11 @@ public class Db2Platform extends PlatformImplBase
         info.setIdentityColumnAutomaticallyRequired(true);
         info.setPrimaryKeyColumnsHaveToBeRequired(true);
         info.setMultipleIdentityColumnsSupported(false);
+        // MERGE with a VALUES source row requires DB2 9.1 or newer
+        info.setUpsertSupported(true);
+        info.setMinUpsertDatabaseVersion(9, 1);
+        info.setMultiRowInsertSupported(true);
+        info.setMaxParametersPerStatement(32767);
         info.setSupportedOnUpdateActions(new CascadeActionEnum[] { CascadeActionEnum.RESTRICT, CascadeActionEnum.NONE });
         info.setSupportedOnDeleteActions(new CascadeActionEnum[] { CascadeActionEnum.RESTRICT, CascadeActionEnum.CASCADE, CascadeActionEnum.SET_NULL, CascadeActionEnum.NONE });
 
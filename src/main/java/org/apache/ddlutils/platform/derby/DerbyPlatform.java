@@ -69,6 +69,8 @@ public class DerbyPlatform extends CloudscapePlatform
         info.setSupportedOnDeleteActions(new CascadeActionEnum[] { CascadeActionEnum.NONE, CascadeActionEnum.RESTRICT,
                                                                    CascadeActionEnum.CASCADE, CascadeActionEnum.SET_NULL });
         info.setDefaultOnDeleteAction(CascadeActionEnum.NONE);
+        // Derby only returns the generated keys for single-row inserts
+        info.setGeneratedKeysReadable(true);
 
         setSqlBuilder(new DerbyBuilder(this));
         setModelReader(new DerbyModelReader(this));
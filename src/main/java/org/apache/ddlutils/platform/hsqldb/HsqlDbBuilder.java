@@ -66,6 +66,28 @@ public class HsqlDbBuilder extends SqlBuilder
         return "CALL IDENTITY()";
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public String getPagedQuery(String query, int start, int end)
+    {
+        String baseQuery = getQueryForPaging(query, new String[] { "LIMIT", "OFFSET", "TOP" });
+
+        if (baseQuery == null)
+        {
+            return null;
+        }
+
+        StringBuffer result = new StringBuffer(baseQuery);
+
+        // a limit of 0 means no limit in HsqlDb
+        result.append("\nLIMIT ");
+        result.append(end < 0 ? 0 : end - start + 1);
+        result.append(" OFFSET ");
+        result.append(start);
+        return result.toString();
+    }
+
     /**
      * Writes the SQL to add/insert a column.
      * 
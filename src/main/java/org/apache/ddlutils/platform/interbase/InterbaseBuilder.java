@@ -210,6 +210,28 @@ public class InterbaseBuilder extends SqlBuilder
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public String getPagedQuery(String query, int start, int end)
+    {
+        String baseQuery = getQueryForPaging(query, new String[] { "ROWS", "FIRST", "SKIP" });
+
+        if (baseQuery == null)
+        {
+            return null;
+        }
+
+        StringBuffer result = new StringBuffer(baseQuery);
+
+        // the row numbers in the ROWS clause start at 1
+        result.append("\nROWS ");
+        result.append(start + 1);
+        result.append(" TO ");
+        result.append(end < 0 ? Integer.MAX_VALUE : end + 1);
+        return result.toString();
+    }
+
     /**
      * Writes the SQL to add/insert a column.
      * 
@@ -112,6 +112,47 @@ public class MSSqlBuilder extends SqlBuilder
         super.dropForeignKeys(table);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public void disableIndexesAndForeignKeys(Database database) throws IOException
+    {
+        turnOnQuotation();
+        super.disableIndexesAndForeignKeys(database);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void enableIndexesAndForeignKeys(Database database) throws IOException
+    {
+        turnOnQuotation();
+        super.enableIndexesAndForeignKeys(database);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void disableForeignKey(Table table, ForeignKey foreignKey) throws IOException
+    {
+        writeTableAlterStmt(table);
+        print("NOCHECK CONSTRAINT ");
+        printIdentifier(getForeignKeyName(table, foreignKey));
+        printEndOfStatement();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void enableForeignKey(Database database, Table table, ForeignKey foreignKey) throws IOException
+    {
+        // WITH CHECK validates the existing rows so that the constraint is trusted again
+        writeTableAlterStmt(table);
+        print("WITH CHECK CHECK CONSTRAINT ");
+        printIdentifier(getForeignKeyName(table, foreignKey));
+        printEndOfStatement();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -269,6 +310,46 @@ public class MSSqlBuilder extends SqlBuilder
         return "SELECT @@IDENTITY";
     }
 
+    /**
+     * {@inheritDoc}
+     * Sql Server can only limit the number of rows, so this returns <code>null</code> for a range
+     * that does not start at the first row.
+     */
+    public String getPagedQuery(String query, int start, int end)
+    {
+        String baseQuery = getQueryForPaging(query, new String[] { "TOP" });
+
+        if ((baseQuery == null) || (start > 0) || (end < 0) || !baseQuery.toUpperCase().startsWith("SELECT "))
+        {
+            return null;
+        }
+
+        String       rest   = baseQuery.substring("SELECT ".length()).trim();
+        StringBuffer result = new StringBuffer("SELECT ");
+
+        if (rest.toUpperCase().startsWith("DISTINCT "))
+        {
+            result.append("DISTINCT ");
+            rest = rest.substring("DISTINCT ".length()).trim();
+        }
+        result.append("TOP ");
+        result.append(end + 1);
+        result.append(" ");
+        result.append(rest);
+        return result.toString();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getUpsertSql(Table table, Map columnValues, boolean genPlaceholders)
+    {
+        String sql = getMergeSql(table, columnValues, genPlaceholders);
+
+        // Sql Server requires the MERGE statement to be terminated
+        return sql == null ? null : sql + ";";
+    }
+
     /**
      * Returns the SQL to enable identity override mode.
      * 
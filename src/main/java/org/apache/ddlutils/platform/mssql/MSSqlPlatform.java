@@ -80,6 +80,11 @@ public class MSSqlPlatform extends PlatformImplBase
         info.addEquivalentOnUpdateActions(CascadeActionEnum.NONE, CascadeActionEnum.RESTRICT);
         info.setSupportedOnDeleteActions(new CascadeActionEnum[] { CascadeActionEnum.CASCADE, CascadeActionEnum.NONE });
         info.addEquivalentOnDeleteActions(CascadeActionEnum.NONE, CascadeActionEnum.RESTRICT);
+        // MERGE requires Sql Server 2008 or newer
+        info.setUpsertSupported(true);
+        info.setMinUpsertDatabaseVersion(10, 0);
+        // the drivers only return the key generated by the last statement of a batch
+        info.setGeneratedKeysReadable(true);
 
         info.addNativeTypeMapping(Types.ARRAY,         "IMAGE",         Types.LONGVARBINARY);
         // BIGINT will be mapped back to BIGINT by the model reader 
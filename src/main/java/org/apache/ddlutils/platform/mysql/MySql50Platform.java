@@ -19,6 +19,10 @@ package org.apache.ddlutils.platform.mysql;
  * under the License.
  */
 
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+
 import org.apache.ddlutils.PlatformInfo;
 
 /**
@@ -55,4 +59,31 @@ public class MySql50Platform extends MySqlPlatform
     {
         return DATABASENAME;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected String getModelChangeMarker(Connection connection, String catalog, String schema) throws SQLException
+    {
+        DatabaseMetaData metaData = connection.getMetaData();
+
+        // MySQL 5.0 has no information about the actions of the foreign keys, so we cannot
+        // detect changes of these
+        if ((metaData.getDatabaseMajorVersion() == 5) && (metaData.getDatabaseMinorVersion() == 0))
+        {
+            return null;
+        }
+
+        // The information schema has no DDL timestamps other than the creation time of the
+        // tables (which changes when ALTER TABLE rebuilds a table), so we additionally
+        // compute checksums over the definitions of the columns, indexes and foreign keys
+        String sql = "SELECT " +
+                     "(SELECT CONCAT(COUNT(*), '/', IFNULL(MAX(CREATE_TIME), '')) FROM information_schema.TABLES WHERE TABLE_SCHEMA = IFNULL(?, DATABASE())), " +
+                     "(SELECT COUNT(*) + IFNULL(SUM(CRC32(CONCAT_WS('|', TABLE_NAME, COLUMN_NAME, ORDINAL_POSITION, COLUMN_TYPE, IS_NULLABLE, COLUMN_DEFAULT, EXTRA))), 0) FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = IFNULL(?, DATABASE())), " +
+                     "(SELECT COUNT(*) + IFNULL(SUM(CRC32(CONCAT_WS('|', TABLE_NAME, INDEX_NAME, SEQ_IN_INDEX, COLUMN_NAME, NON_UNIQUE))), 0) FROM information_schema.STATISTICS WHERE TABLE_SCHEMA = IFNULL(?, DATABASE())), " +
+                     "(SELECT COUNT(*) + IFNULL(SUM(CRC32(CONCAT_WS('|', TABLE_NAME, CONSTRAINT_NAME, ORDINAL_POSITION, COLUMN_NAME, REFERENCED_TABLE_NAME, REFERENCED_COLUMN_NAME))), 0) FROM information_schema.KEY_COLUMN_USAGE WHERE TABLE_SCHEMA = IFNULL(?, DATABASE())), " +
+                     "(SELECT COUNT(*) + IFNULL(SUM(CRC32(CONCAT_WS('|', TABLE_NAME, CONSTRAINT_NAME, UPDATE_RULE, DELETE_RULE))), 0) FROM information_schema.REFERENTIAL_CONSTRAINTS WHERE CONSTRAINT_SCHEMA = IFNULL(?, DATABASE()))";
+
+        return queryModelChangeMarker(connection, sql, new String[] { catalog, catalog, catalog, catalog, catalog });
+    }
 }
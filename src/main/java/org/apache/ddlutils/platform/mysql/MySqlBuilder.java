@@ -106,6 +106,132 @@ public class MySqlBuilder extends SqlBuilder
         return "SELECT LAST_INSERT_ID() " + autoIncrementKeyName;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public String getPagedQuery(String query, int start, int end)
+    {
+        String baseQuery = getQueryForPaging(query, new String[] { "LIMIT" });
+
+        if (baseQuery == null)
+        {
+            return null;
+        }
+
+        StringBuffer result = new StringBuffer(baseQuery);
+
+        result.append("\nLIMIT ");
+        result.append(start);
+        result.append(", ");
+        // MySql has no syntax for specifying only the offset, so we use the maximum number of rows
+        result.append(end < 0 ? "18446744073709551615" : String.valueOf(end - start + 1));
+        return result.toString();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getBulkLoadSql(Table table, Column[] columns)
+    {
+        return getBulkLoadSql(table, columns, null);
+    }
+
+    /**
+     * Creates the <code>LOAD DATA</code> statement for the specified table.
+     * 
+     * @param table             The table
+     * @param columns           The columns, in the order of the values in the rows
+     * @param duplicateHandling <code>REPLACE</code> or <code>IGNORE</code> for rows whose
+     *                          keys duplicate existing rows, or <code>null</code> for the
+     *                          default handling
+     * @return The statement
+     */
+    public String getBulkLoadSql(Table table, Column[] columns, String duplicateHandling)
+    {
+        StringBuffer result    = new StringBuffer();
+        StringBuffer setClause = new StringBuffer();
+
+        // the file name is not used as the data is provided via an input stream set on the statement;
+        // the default field and line format (tabs, newlines and backslash escapes) is used
+        result.append("LOAD DATA LOCAL INFILE 'ddlutils.txt' ");
+        if (duplicateHandling != null)
+        {
+            result.append(duplicateHandling);
+            result.append(" ");
+        }
+        result.append("INTO TABLE ");
+        result.append(getDelimitedIdentifier(getTableName(table)));
+        result.append(" CHARACTER SET utf8 (");
+        for (int idx = 0; idx < columns.length; idx++)
+        {
+            if (idx > 0)
+            {
+                result.append(", ");
+            }
+            if (TypeMap.isBinaryType(columns[idx].getTypeCode()))
+            {
+                // binary values are sent as hexadecimal digits
+                result.append("@v");
+                result.append(idx);
+                setClause.append(setClause.length() == 0 ? " SET " : ", ");
+                setClause.append(getDelimitedIdentifier(columns[idx].getName()));
+                setClause.append(" = UNHEX(@v");
+                setClause.append(idx);
+                setClause.append(")");
+            }
+            else
+            {
+                result.append(getDelimitedIdentifier(columns[idx].getName()));
+            }
+        }
+        result.append(")");
+        result.append(setClause);
+        return result.toString();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getUpsertSql(Table table, Map columnValues, boolean genPlaceholders)
+    {
+        Column[] columns = getUpsertColumns(table, columnValues);
+
+        if (columns == null)
+        {
+            return null;
+        }
+
+        StringBuffer result = new StringBuffer(getInsertSql(table, columnValues, genPlaceholders));
+        boolean      addSep = false;
+
+        result.append(" ON DUPLICATE KEY UPDATE ");
+        for (int idx = 0; idx < columns.length; idx++)
+        {
+            if (!columns[idx].isPrimaryKey())
+            {
+                if (addSep)
+                {
+                    result.append(", ");
+                }
+                result.append(getDelimitedIdentifier(columns[idx].getName()));
+                result.append(" = VALUES(");
+                result.append(getDelimitedIdentifier(columns[idx].getName()));
+                result.append(")");
+                addSep = true;
+            }
+        }
+        if (!addSep)
+        {
+            // there is nothing to update, so we use a no-op assignment to ignore the duplicate
+            String pkColumnName = getDelimitedIdentifier(columns[0].getName());
+
+            result.append(pkColumnName);
+            result.append(" = ");
+            result.append(pkColumnName);
+        }
+        return result.toString();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,216 @@
+package org.apache.ddlutils.platform.mysql;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.apache.ddlutils.DatabaseOperationException;
+import org.apache.ddlutils.Platform;
+import org.apache.ddlutils.model.Column;
+import org.apache.ddlutils.model.Table;
+import org.apache.ddlutils.platform.TextBulkLoaderBase;
+
+/**
+ * The bulk loader for MySQL which uses <code>LOAD DATA LOCAL INFILE</code> with an input stream
+ * that is set on the statement instead of a file. This requires MySQL Connector/J 5.1.3 or newer,
+ * and the <code>allowLoadLocalInfile</code> connection property might have to be turned on. The
+ * driver API is accessed via reflection, so the driver is not required for compiling or running
+ * DdlUtils.
+ * <p>
+ * With <code>LOCAL</code>, MySQL skips rows that duplicate the key of an existing row with a
+ * warning only. Per default, the statement does not say how to handle these rows so that the
+ * platform detects the skipped rows via the reported row count and fails. Replacing or ignoring
+ * them has to be requested via {@link #setDuplicateHandling(String)}.
+ *
+ * @version $Revision: $
+ */
+public class MySqlBulkLoader extends TextBulkLoaderBase
+{
+    /** Rows whose keys duplicate existing rows replace these rows. */
+    public static final String DUPLICATES_REPLACE = "REPLACE";
+    /** Rows whose keys duplicate existing rows are skipped. */
+    public static final String DUPLICATES_IGNORE = "IGNORE";
+
+    /** The names of the statement interfaces of the MySQL JDBC drivers that allow to set the input stream. */
+    private static final String[] MYSQL_STATEMENT_CLASSES = { "com.mysql.cj.jdbc.JdbcStatement", "com.mysql.jdbc.Statement" };
+
+    /** How rows with duplicate keys are handled, <code>null</code> if they are an error. */
+    private String _duplicateHandling;
+
+    /**
+     * Creates a new bulk loader.
+     *
+     * @param platform The platform
+     */
+    public MySqlBulkLoader(Platform platform)
+    {
+        super(platform);
+    }
+
+    /**
+     * Returns how rows whose keys duplicate the keys of existing rows are handled.
+     *
+     * @return {@link #DUPLICATES_REPLACE}, {@link #DUPLICATES_IGNORE}, or <code>null</code>
+     *         if the bulk load fails for such rows
+     */
+    public String getDuplicateHandling()
+    {
+        return _duplicateHandling;
+    }
+
+    /**
+     * Specifies how rows whose keys duplicate the keys of existing rows shall be handled.
+     * If they are replaced or ignored, then the number of loaded rows is not reported
+     * as the count returned by MySQL does not match the number of rows.
+     *
+     * @param duplicateHandling {@link #DUPLICATES_REPLACE}, {@link #DUPLICATES_IGNORE}, or
+     *                          <code>null</code> if the bulk load shall fail for such rows
+     */
+    public void setDuplicateHandling(String duplicateHandling)
+    {
+        if ((duplicateHandling != null) &&
+            !DUPLICATES_REPLACE.equals(duplicateHandling) &&
+            !DUPLICATES_IGNORE.equals(duplicateHandling))
+        {
+            throw new IllegalArgumentException("Unknown duplicate handling " + duplicateHandling);
+        }
+        _duplicateHandling = duplicateHandling;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean isSupported(Connection connection)
+    {
+        Statement statement = null;
+
+        try
+        {
+            statement = connection.createStatement();
+            return setInputStream(statement, null);
+        }
+        catch (SQLException ex)
+        {
+            return false;
+        }
+        finally
+        {
+            closeStatement(statement);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected long load(Connection connection, String sql, InputStream data) throws SQLException
+    {
+        Statement statement = connection.createStatement();
+
+        try
+        {
+            if (!setInputStream(statement, data))
+            {
+                throw new DatabaseOperationException("The connection is not a connection of the MySQL JDBC driver");
+            }
+
+            int count = statement.executeUpdate(sql);
+
+            return _duplicateHandling == null ? count : -1;
+        }
+        finally
+        {
+            closeStatement(statement);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected String getBulkLoadSql(Table table, Column[] columns)
+    {
+        return ((MySqlBuilder)getPlatform().getSqlBuilder()).getBulkLoadSql(table, columns, _duplicateHandling);
+    }
+
+    /**
+     * Sets the input stream that the driver shall use for the next <code>LOAD DATA LOCAL INFILE</code>
+     * statement executed by the given statement.
+     *
+     * @param statement The statement
+     * @param data      The data
+     * @return <code>false</code> if the statement is not a statement of the MySQL JDBC driver
+     */
+    private boolean setInputStream(Statement statement, InputStream data) throws SQLException
+    {
+        for (int idx = 0; idx < MYSQL_STATEMENT_CLASSES.length; idx++)
+        {
+            Object mysqlStatement = unwrap(statement, MYSQL_STATEMENT_CLASSES[idx]);
+
+            if (mysqlStatement != null)
+            {
+                invoke(mysqlStatement,
+                       MYSQL_STATEMENT_CLASSES[idx],
+                       "setLocalInfileInputStream",
+                       new Class[] { InputStream.class },
+                       new Object[] { data });
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Closes the given statement.
+     *
+     * @param statement The statement
+     */
+    private void closeStatement(Statement statement)
+    {
+        if (statement != null)
+        {
+            try
+            {
+                statement.close();
+            }
+            catch (SQLException ex)
+            {
+                // ignored
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected String formatValue(Column column, Object value)
+    {
+        if (value instanceof Boolean)
+        {
+            // booleans are stored as TINYINT(1)
+            return ((Boolean)value).booleanValue() ? "1" : "0";
+        }
+        else
+        {
+            return super.formatValue(column, value);
+        }
+    }
+}
@@ -21,6 +21,8 @@ package org.apache.ddlutils.platform.mysql;
 
 import java.sql.SQLException;
 import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.ddlutils.Platform;
@@ -30,6 +32,7 @@ import org.apache.ddlutils.model.Index;
 import org.apache.ddlutils.model.Table;
 import org.apache.ddlutils.platform.DatabaseMetaDataWrapper;
 import org.apache.ddlutils.platform.JdbcModelReader;
+import org.apache.ddlutils.platform.MetaDataColumnDescriptor;
 
 /**
  * Reads a database model from a MySql database.
@@ -38,6 +41,9 @@ import org.apache.ddlutils.platform.JdbcModelReader;
  */
 public class MySqlModelReader extends JdbcModelReader
 {
+    /** Whether the JDBC driver returns the auto increment status in the column meta data read in bulk. */
+    private boolean _autoIncrementInColumnMetaData;
+
     /**
      * Creates a new model reader for MySql databases.
      * 
@@ -51,6 +57,19 @@ public class MySqlModelReader extends JdbcModelReader
         setDefaultTablePattern(null);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected List initColumnsForColumn()
+    {
+        List result = super.initColumnsForColumn();
+
+        // JDBC 4 drivers tell us whether a column is auto increment, which in bulk read mode saves
+        // us a query per table; otherwise, we determine it as before via the result set meta data
+        result.add(new MetaDataColumnDescriptor("IS_AUTOINCREMENT", Types.VARCHAR));
+        return result;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -62,7 +81,7 @@ public class MySqlModelReader extends JdbcModelReader
 
         Table table = super.readTable(metaData, values);
 
-        if (table != null)
+        if ((table != null) && !(isBulkReadModeOn() && _autoIncrementInColumnMetaData))
         {
             determineAutoIncrementFromResultSetMetaData(table, table.getPrimaryKeyColumns());
         }
@@ -83,9 +102,94 @@ public class MySqlModelReader extends JdbcModelReader
         {
             column.setDefaultValue(null);
         }
+
+        String autoIncrement = (String)values.get("IS_AUTOINCREMENT");
+
+        if (isBulkReadModeOn() && (autoIncrement != null))
+        {
+            _autoIncrementInColumnMetaData = true;
+            column.setAutoIncrement("YES".equalsIgnoreCase(autoIncrement.trim()));
+        }
         return column;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected Map readPrimaryKeyDataInBulk(DatabaseMetaDataWrapper metaData) throws SQLException
+    {
+        String query =
+            "SELECT TABLE_NAME, COLUMN_NAME, CONSTRAINT_NAME AS PK_NAME FROM INFORMATION_SCHEMA.KEY_COLUMN_USAGE" +
+            " WHERE CONSTRAINT_NAME = 'PRIMARY' AND " + getSchemaCondition("TABLE_SCHEMA", metaData) +
+            " ORDER BY TABLE_NAME, ORDINAL_POSITION";
+
+        return readRowsByTable(query, getSchemaParameters(metaData), getColumnsForPK(), "TABLE_NAME");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected Map readForeignKeyDataInBulk(DatabaseMetaDataWrapper metaData) throws SQLException
+    {
+        // the rules are converted to the DatabaseMetaData.importedKey* constants
+        String query =
+            "SELECT k.REFERENCED_TABLE_NAME AS PKTABLE_NAME, k.TABLE_NAME AS FKTABLE_NAME, k.ORDINAL_POSITION AS KEY_SEQ," +
+            " k.CONSTRAINT_NAME AS FK_NAME," +
+            " CASE r.UPDATE_RULE WHEN 'CASCADE' THEN 0 WHEN 'RESTRICT' THEN 1 WHEN 'SET NULL' THEN 2 WHEN 'SET DEFAULT' THEN 4 ELSE 3 END AS UPDATE_RULE," +
+            " CASE r.DELETE_RULE WHEN 'CASCADE' THEN 0 WHEN 'RESTRICT' THEN 1 WHEN 'SET NULL' THEN 2 WHEN 'SET DEFAULT' THEN 4 ELSE 3 END AS DELETE_RULE," +
+            " k.REFERENCED_COLUMN_NAME AS PKCOLUMN_NAME, k.COLUMN_NAME AS FKCOLUMN_NAME" +
+            " FROM INFORMATION_SCHEMA.KEY_COLUMN_USAGE k JOIN INFORMATION_SCHEMA.REFERENTIAL_CONSTRAINTS r" +
+            " ON r.CONSTRAINT_SCHEMA = k.CONSTRAINT_SCHEMA AND r.CONSTRAINT_NAME = k.CONSTRAINT_NAME AND r.TABLE_NAME = k.TABLE_NAME" +
+            " WHERE " + getSchemaCondition("k.TABLE_SCHEMA", metaData) +
+            " ORDER BY k.TABLE_NAME, k.REFERENCED_TABLE_NAME, k.CONSTRAINT_NAME, k.ORDINAL_POSITION";
+
+        return readRowsByTable(query, getSchemaParameters(metaData), getColumnsForFK(), "FKTABLE_NAME");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected Map readIndexDataInBulk(DatabaseMetaDataWrapper metaData) throws SQLException
+    {
+        // MySql only has indices of type DatabaseMetaData.tableIndexOther
+        String query =
+            "SELECT INDEX_NAME, TABLE_NAME, NON_UNIQUE, SEQ_IN_INDEX AS ORDINAL_POSITION, COLUMN_NAME, 3 AS TYPE" +
+            " FROM INFORMATION_SCHEMA.STATISTICS WHERE " + getSchemaCondition("TABLE_SCHEMA", metaData) +
+            " ORDER BY TABLE_NAME, NON_UNIQUE, INDEX_NAME, SEQ_IN_INDEX";
+
+        return readRowsByTable(query, getSchemaParameters(metaData), getColumnsForIndex(), "TABLE_NAME");
+    }
+
+    /**
+     * Returns the condition that restricts an information schema query to the database
+     * (the catalog in JDBC terms) that is being read.
+     * 
+     * @param schemaColumn The column containing the database name
+     * @param metaData     The database meta data
+     * @return The condition
+     */
+    private String getSchemaCondition(String schemaColumn, DatabaseMetaDataWrapper metaData)
+    {
+        return schemaColumn + (metaData.getCatalog() == null ? " = DATABASE()" : " = ?");
+    }
+
+    /**
+     * Returns the parameters for the condition returned by {@link #getSchemaCondition(String, DatabaseMetaDataWrapper)}.
+     * 
+     * @param metaData The database meta data
+     * @return The parameters
+     */
+    private List getSchemaParameters(DatabaseMetaDataWrapper metaData)
+    {
+        List result = new ArrayList();
+
+        if (metaData.getCatalog() != null)
+        {
+            result.add(metaData.getCatalog());
+        }
+        return result;
+    }
+
     /**
      * {@inheritDoc}
      */
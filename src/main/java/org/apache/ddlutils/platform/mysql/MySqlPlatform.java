@@ -20,6 +20,9 @@ package org.apache.ddlutils.platform.mysql;
  */
 
 import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Types;
 
 import org.apache.ddlutils.PlatformInfo;
@@ -74,6 +77,14 @@ public class MySqlPlatform extends PlatformImplBase
         info.setSyntheticDefaultValueForRequiredReturned(true);
         info.setPrimaryKeyColumnAutomaticallyRequired(true);
         info.setCommentPrefix("#");
+        // INSERT .. ON DUPLICATE KEY UPDATE requires MySQL 4.1 or newer
+        info.setUpsertSupported(true);
+        info.setMinUpsertDatabaseVersion(4, 1);
+        info.setGeneratedKeysReadable(true);
+        info.setGeneratedKeysReadableInBatchMode(true);
+        info.setMultiRowInsertSupported(true);
+        // the server-side prepared statement protocol uses two bytes for the number of parameters
+        info.setMaxParametersPerStatement(65535);
         // Double quotes are only allowed for delimiting identifiers if the server SQL mode includes ANSI_QUOTES 
         info.setDelimiterToken("`");
         info.setSupportedOnUpdateActions(new CascadeActionEnum[] { CascadeActionEnum.NONE, CascadeActionEnum.RESTRICT,
@@ -114,6 +125,7 @@ public class MySqlPlatform extends PlatformImplBase
         
         setSqlBuilder(new MySqlBuilder(this));
         setModelReader(new MySqlModelReader(this));
+        setBulkLoader(new MySqlBulkLoader(this));
     }
 
     /**
@@ -124,6 +136,23 @@ public class MySqlPlatform extends PlatformImplBase
         return DATABASENAME;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected void configureQueryStatement(Connection connection, Statement statement) throws SQLException
+    {
+        if (isStreamingModeOn())
+        {
+            // the MySQL driver streams the rows of forward-only, read-only result sets one
+            // by one only if this special fetch size is given, otherwise it reads all of them
+            statement.setFetchSize(Integer.MIN_VALUE);
+        }
+        else
+        {
+            super.configureQueryStatement(connection, statement);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -30,6 +30,7 @@ import org.apache.ddlutils.Platform;
 import org.apache.ddlutils.alteration.ColumnDefinitionChange;
 import org.apache.ddlutils.model.Column;
 import org.apache.ddlutils.model.Database;
+import org.apache.ddlutils.model.ForeignKey;
 import org.apache.ddlutils.model.Index;
 import org.apache.ddlutils.model.Table;
 import org.apache.ddlutils.model.TypeMap;
@@ -239,6 +240,51 @@ public class Oracle8Builder extends SqlBuilder
         // no need to as we drop the table with CASCASE CONSTRAINTS
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected void disableForeignKey(Table table, ForeignKey foreignKey) throws IOException
+    {
+        writeTableAlterStmt(table);
+        print("DISABLE CONSTRAINT ");
+        printIdentifier(getForeignKeyName(table, foreignKey));
+        printEndOfStatement();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void enableForeignKey(Database database, Table table, ForeignKey foreignKey) throws IOException
+    {
+        writeTableAlterStmt(table);
+        print("ENABLE VALIDATE CONSTRAINT ");
+        printIdentifier(getForeignKeyName(table, foreignKey));
+        printEndOfStatement();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void disableIndex(Table table, Index index) throws IOException
+    {
+        // DML skips unusable non-unique indexes, and the rebuild is faster than a drop and create
+        print("ALTER INDEX ");
+        printIdentifier(getIndexName(index));
+        print(" UNUSABLE");
+        printEndOfStatement();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void enableIndex(Table table, Index index) throws IOException
+    {
+        print("ALTER INDEX ");
+        printIdentifier(getIndexName(index));
+        print(" REBUILD");
+        printEndOfStatement();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -349,6 +395,87 @@ public class Oracle8Builder extends SqlBuilder
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public String getPagedQuery(String query, int start, int end)
+    {
+        String baseQuery = getQueryForPaging(query, new String[0]);
+
+        if (baseQuery == null)
+        {
+            return null;
+        }
+
+        StringBuffer result = new StringBuffer();
+
+        // ROWNUM is assigned before any sorting of the query that it is used in, so we
+        // have to apply it to the query wrapped as a sub select
+        if (start == 0)
+        {
+            result.append("SELECT * FROM (");
+            result.append(baseQuery);
+            result.append("\n) WHERE ROWNUM <= ");
+            result.append(end + 1);
+        }
+        else
+        {
+            result.append("SELECT * FROM (SELECT ddlutils_paged.*, ROWNUM ");
+            result.append(PAGING_ROW_NUMBER_COLUMN);
+            result.append(" FROM (");
+            result.append(baseQuery);
+            result.append("\n) ddlutils_paged");
+            if (end >= 0)
+            {
+                result.append(" WHERE ROWNUM <= ");
+                result.append(end + 1);
+            }
+            result.append(") WHERE ");
+            result.append(PAGING_ROW_NUMBER_COLUMN);
+            result.append(" > ");
+            result.append(start);
+        }
+        return result.toString();
+    }
+
+    /**
+     * {@inheritDoc}
+     * Note that the <code>MERGE</code> statement is only available since Oracle 9i which
+     * also requires it to have an update clause, so no statement is generated if all given
+     * columns are primary key columns.
+     */
+    public String getUpsertSql(Table table, Map columnValues, boolean genPlaceholders)
+    {
+        Column[] columns = getUpsertColumns(table, columnValues);
+
+        if ((columns == null) || (columns.length == table.getPrimaryKeyColumns().length))
+        {
+            return null;
+        }
+        return getMergeSql(table, columnValues, genPlaceholders);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected String getMergeSource(Column[] columns, Map columnValues, boolean genPlaceholders)
+    {
+        StringBuffer result = new StringBuffer("(SELECT ");
+
+        for (int idx = 0; idx < columns.length; idx++)
+        {
+            if (idx > 0)
+            {
+                result.append(", ");
+            }
+            result.append(getUpsertValue(columns[idx], columnValues, genPlaceholders));
+            result.append(" AS ");
+            result.append(getDelimitedIdentifier(columns[idx].getName()));
+        }
+        result.append(" FROM DUAL) s");
+        return result.toString();
+    }
+
     /**
      * {@inheritDoc}
      */
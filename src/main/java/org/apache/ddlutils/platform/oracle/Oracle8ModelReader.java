@@ -27,8 +27,10 @@ import java.sql.SQLException;
 import java.sql.Time;
 import java.sql.Timestamp;
 import java.sql.Types;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -297,6 +299,12 @@ public class Oracle8ModelReader extends JdbcModelReader
      */
 	protected Collection readIndices(DatabaseMetaDataWrapper metaData, String tableName) throws SQLException
 	{
+        if (isBulkReadModeOn())
+        {
+            // the indices were read in bulk via readIndexDataInBulk
+            return super.readIndices(metaData, tableName);
+        }
+
 		// Oracle has a bug in the DatabaseMetaData#getIndexInfo method which fails when
 		// delimited identifiers are being used
 		// Therefore, we're rather accessing the user_indexes table which contains the same info
@@ -347,4 +355,81 @@ public class Oracle8ModelReader extends JdbcModelReader
         }
 		return indices.values();
 	}
+
+    /**
+     * {@inheritDoc}
+     */
+    protected Map readPrimaryKeyDataInBulk(DatabaseMetaDataWrapper metaData) throws SQLException
+    {
+        String query =
+            "SELECT c.TABLE_NAME, b.COLUMN_NAME, c.CONSTRAINT_NAME AS PK_NAME FROM USER_CONSTRAINTS c, USER_CONS_COLUMNS b WHERE " +
+            "c.CONSTRAINT_TYPE=? AND c.CONSTRAINT_NAME=b.CONSTRAINT_NAME AND c.TABLE_NAME=b.TABLE_NAME";
+        List params = new ArrayList();
+
+        params.add("P");
+        if (metaData.getSchemaPattern() != null)
+        {
+            query += " AND c.OWNER LIKE ?";
+            params.add(metaData.getSchemaPattern().toUpperCase());
+        }
+        query += " ORDER BY c.TABLE_NAME, b.POSITION";
+        return readRowsByTable(query, params, getColumnsForPK(), "TABLE_NAME");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected Map readForeignKeyDataInBulk(DatabaseMetaDataWrapper metaData) throws SQLException
+    {
+        // Oracle has no update actions, and the delete actions are converted to the
+        // DatabaseMetaData.importedKey* constants in the same way as the Oracle JDBC driver does
+        String query =
+            "SELECT p.TABLE_NAME AS PKTABLE_NAME, c.TABLE_NAME AS FKTABLE_NAME, b.POSITION AS KEY_SEQ, c.CONSTRAINT_NAME AS FK_NAME, " +
+            "NULL AS UPDATE_RULE, DECODE(c.DELETE_RULE, 'CASCADE', 0, 'SET NULL', 2, 1) AS DELETE_RULE, " +
+            "pb.COLUMN_NAME AS PKCOLUMN_NAME, b.COLUMN_NAME AS FKCOLUMN_NAME " +
+            "FROM USER_CONSTRAINTS c, USER_CONS_COLUMNS b, ALL_CONSTRAINTS p, ALL_CONS_COLUMNS pb WHERE " +
+            "c.CONSTRAINT_TYPE=? AND c.CONSTRAINT_NAME=b.CONSTRAINT_NAME AND c.TABLE_NAME=b.TABLE_NAME AND " +
+            "p.OWNER=c.R_OWNER AND p.CONSTRAINT_NAME=c.R_CONSTRAINT_NAME AND " +
+            "pb.OWNER=p.OWNER AND pb.CONSTRAINT_NAME=p.CONSTRAINT_NAME AND pb.POSITION=b.POSITION";
+        List params = new ArrayList();
+
+        params.add("R");
+        if (metaData.getSchemaPattern() != null)
+        {
+            query += " AND c.OWNER LIKE ?";
+            params.add(metaData.getSchemaPattern().toUpperCase());
+        }
+        query += " ORDER BY c.TABLE_NAME, p.TABLE_NAME, c.CONSTRAINT_NAME, b.POSITION";
+        return readRowsByTable(query, params, getColumnsForFK(), "FKTABLE_NAME");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected Map readIndexDataInBulk(DatabaseMetaDataWrapper metaData) throws SQLException
+    {
+        // same as the query in readIndices, but for all tables
+        String query =
+            "SELECT a.INDEX_NAME, a.TABLE_NAME, DECODE(a.UNIQUENESS, 'UNIQUE', 0, 1) AS NON_UNIQUE, b.COLUMN_POSITION AS ORDINAL_POSITION, " +
+            "b.COLUMN_NAME, 3 AS TYPE FROM USER_INDEXES a, USER_IND_COLUMNS b WHERE " +
+            "a.GENERATED=? AND a.TABLE_TYPE=? AND a.TABLE_NAME=b.TABLE_NAME AND a.INDEX_NAME=b.INDEX_NAME AND " +
+            "a.INDEX_NAME NOT IN (SELECT DISTINCT c.CONSTRAINT_NAME FROM USER_CONSTRAINTS c WHERE c.CONSTRAINT_TYPE=? AND c.TABLE_NAME=a.TABLE_NAME";
+        List params = new ArrayList();
+
+        params.add("N");
+        params.add("TABLE");
+        params.add("P");
+        if (metaData.getSchemaPattern() != null)
+        {
+            query += " AND c.OWNER LIKE ?) AND a.TABLE_OWNER LIKE ?";
+            params.add(metaData.getSchemaPattern().toUpperCase());
+            params.add(metaData.getSchemaPattern().toUpperCase());
+        }
+        else
+        {
+            query += ")";
+        }
+        query += " ORDER BY a.TABLE_NAME, a.INDEX_NAME, b.COLUMN_POSITION";
+        return readRowsByTable(query, params, getColumnsForIndex(), "TABLE_NAME");
+    }
 }
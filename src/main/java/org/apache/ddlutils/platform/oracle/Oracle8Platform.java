@@ -20,6 +20,8 @@ package org.apache.ddlutils.platform.oracle;
  */
 
 import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.sql.Types;
 import java.util.Map;
 
@@ -120,6 +122,20 @@ public class Oracle8Platform extends PlatformImplBase
         return DATABASENAME;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected String getModelChangeMarker(Connection connection, String catalog, String schema) throws SQLException
+    {
+        // Oracle maintains the time of the last DDL statement per object; the number of objects
+        // and the sum of their ids also detect dropped objects and objects created in the same
+        // second. The triggers and sequences are included because they define auto-increment columns
+        String sql = "SELECT COUNT(*), SUM(OBJECT_ID), TO_CHAR(MAX(LAST_DDL_TIME), 'YYYYMMDDHH24MISS') FROM ALL_OBJECTS" +
+                     " WHERE OWNER LIKE ? AND OBJECT_TYPE IN ('TABLE', 'INDEX', 'SEQUENCE', 'TRIGGER')";
+
+        return queryModelChangeMarker(connection, sql, new String[] { schema == null ? "%" : schema });
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -38,6 +38,9 @@ public class Oracle9Platform extends Oracle8Platform
     {
         super();
         getPlatformInfo().addNativeTypeMapping(Types.TIMESTAMP, "TIMESTAMP");
+        // MERGE requires Oracle 9i or newer
+        getPlatformInfo().setUpsertSupported(true);
+        getPlatformInfo().setMinUpsertDatabaseVersion(9, 0);
     }
 
     /**
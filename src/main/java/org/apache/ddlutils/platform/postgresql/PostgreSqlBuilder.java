@@ -168,6 +168,98 @@ public class PostgreSqlBuilder extends SqlBuilder
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public String getPagedQuery(String query, int start, int end)
+    {
+        String baseQuery = getQueryForPaging(query, new String[] { "LIMIT", "OFFSET", "FETCH" });
+
+        if (baseQuery == null)
+        {
+            return null;
+        }
+
+        StringBuffer result = new StringBuffer(baseQuery);
+
+        if (end >= 0)
+        {
+            result.append("\nLIMIT ");
+            result.append(end - start + 1);
+        }
+        if (start > 0)
+        {
+            result.append("\nOFFSET ");
+            result.append(start);
+        }
+        return result.toString();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getBulkLoadSql(Table table, Column[] columns)
+    {
+        StringBuffer result = new StringBuffer("COPY ");
+
+        result.append(getDelimitedIdentifier(getTableName(table)));
+        result.append(" (");
+        for (int idx = 0; idx < columns.length; idx++)
+        {
+            if (idx > 0)
+            {
+                result.append(", ");
+            }
+            result.append(getDelimitedIdentifier(columns[idx].getName()));
+        }
+        result.append(") FROM STDIN");
+        return result.toString();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getUpsertSql(Table table, Map columnValues, boolean genPlaceholders)
+    {
+        Column[] columns = getUpsertColumns(table, columnValues);
+
+        if (columns == null)
+        {
+            return null;
+        }
+
+        StringBuffer result = new StringBuffer(getInsertSql(table, columnValues, genPlaceholders));
+        Column[]     pks    = table.getPrimaryKeyColumns();
+        boolean      addSep = false;
+
+        result.append(" ON CONFLICT (");
+        for (int idx = 0; idx < pks.length; idx++)
+        {
+            if (idx > 0)
+            {
+                result.append(", ");
+            }
+            result.append(getDelimitedIdentifier(pks[idx].getName()));
+        }
+        result.append(")");
+        for (int idx = 0; idx < columns.length; idx++)
+        {
+            if (!columns[idx].isPrimaryKey())
+            {
+                result.append(addSep ? ", " : " DO UPDATE SET ");
+                result.append(getDelimitedIdentifier(columns[idx].getName()));
+                result.append(" = EXCLUDED.");
+                result.append(getDelimitedIdentifier(columns[idx].getName()));
+                addSep = true;
+            }
+        }
+        if (!addSep)
+        {
+            result.append(" DO NOTHING");
+        }
+        return result.toString();
+    }
+
     /**
      * {@inheritDoc}
      */
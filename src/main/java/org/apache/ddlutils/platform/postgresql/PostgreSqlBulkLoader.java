@@ -0,0 +1,128 @@
+package org.apache.ddlutils.platform.postgresql;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.apache.ddlutils.DatabaseOperationException;
+import org.apache.ddlutils.Platform;
+import org.apache.ddlutils.model.Column;
+import org.apache.ddlutils.platform.TextBulkLoaderBase;
+
+/**
+ * The bulk loader for PostgreSQL which uses <code>COPY ... FROM STDIN</code> via the
+ * <code>CopyManager</code> of the PostgreSQL JDBC driver (version 8.4 and newer). The driver
+ * API is accessed via reflection, so the driver is not required for compiling or running
+ * DdlUtils.
+ *
+ * @version $Revision: $
+ */
+public class PostgreSqlBulkLoader extends TextBulkLoaderBase
+{
+    /** The name of the connection interface of the PostgreSQL JDBC driver. */
+    private static final String PG_CONNECTION_CLASS = "org.postgresql.PGConnection";
+    /** The name of the copy API class of the PostgreSQL JDBC driver. */
+    private static final String COPY_MANAGER_CLASS = "org.postgresql.copy.CopyManager";
+
+    /**
+     * Creates a new bulk loader.
+     *
+     * @param platform The platform
+     */
+    public PostgreSqlBulkLoader(Platform platform)
+    {
+        super(platform);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean isSupported(Connection connection)
+    {
+        Object pgConnection = unwrap(connection, PG_CONNECTION_CLASS);
+
+        if (pgConnection == null)
+        {
+            return false;
+        }
+        try
+        {
+            Class.forName(COPY_MANAGER_CLASS, true, pgConnection.getClass().getClassLoader());
+            return true;
+        }
+        catch (ClassNotFoundException ex)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected long load(Connection connection, String sql, InputStream data) throws SQLException
+    {
+        Object pgConnection = unwrap(connection, PG_CONNECTION_CLASS);
+
+        if (pgConnection == null)
+        {
+            throw new DatabaseOperationException("The connection is not a connection of the PostgreSQL JDBC driver");
+        }
+
+        Object copyManager = invoke(pgConnection, PG_CONNECTION_CLASS, "getCopyAPI", new Class[0], new Object[0]);
+        Object result      = invoke(copyManager,
+                                    COPY_MANAGER_CLASS,
+                                    "copyIn",
+                                    new Class[] { String.class, InputStream.class },
+                                    new Object[] { sql, data });
+
+        return ((Number)result).longValue();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected String formatValue(Column column, Object value)
+    {
+        if (value instanceof byte[])
+        {
+            // we use the escape format for bytea which, unlike the hex format, is
+            // understood by all PostgreSQL versions
+            byte[]       bytes  = (byte[])value;
+            StringBuffer result = new StringBuffer(4 * bytes.length);
+
+            for (int idx = 0; idx < bytes.length; idx++)
+            {
+                int octet = bytes[idx] & 0xFF;
+
+                result.append('\\');
+                result.append((char)('0' + (octet >> 6)));
+                result.append((char)('0' + ((octet >> 3) & 7)));
+                result.append((char)('0' + (octet & 7)));
+            }
+            return result.toString();
+        }
+        else
+        {
+            return super.formatValue(column, value);
+        }
+    }
+}
@@ -21,7 +21,9 @@ package org.apache.ddlutils.platform.postgresql;
 
 import java.sql.SQLException;
 import java.sql.Types;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.ddlutils.Platform;
@@ -220,6 +222,90 @@ public class PostgreSqlModelReader extends JdbcModelReader
         }
     }
     
+    /**
+     * {@inheritDoc}
+     */
+    protected Map readPrimaryKeyDataInBulk(DatabaseMetaDataWrapper metaData) throws SQLException
+    {
+        String query =
+            "SELECT t.relname AS TABLE_NAME, a.attname AS COLUMN_NAME, c.conname AS PK_NAME" +
+            " FROM pg_catalog.pg_constraint c" +
+            " JOIN pg_catalog.pg_class t ON t.oid = c.conrelid" +
+            " JOIN pg_catalog.pg_namespace n ON n.oid = t.relnamespace" +
+            " JOIN pg_catalog.generate_series(1, 32) pos(n) ON pos.n <= array_upper(c.conkey, 1)" +
+            " JOIN pg_catalog.pg_attribute a ON a.attrelid = c.conrelid AND a.attnum = c.conkey[pos.n]" +
+            " WHERE c.contype = 'p' AND " + getSchemaCondition() +
+            " ORDER BY t.relname, pos.n";
+
+        return readRowsByTable(query, getSchemaParameters(metaData), getColumnsForPK(), "TABLE_NAME");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected Map readForeignKeyDataInBulk(DatabaseMetaDataWrapper metaData) throws SQLException
+    {
+        // the actions are converted to the DatabaseMetaData.importedKey* constants
+        String query =
+            "SELECT pt.relname AS PKTABLE_NAME, ft.relname AS FKTABLE_NAME, pos.n AS KEY_SEQ, c.conname AS FK_NAME," +
+            " CASE c.confupdtype WHEN 'c' THEN 0 WHEN 'r' THEN 1 WHEN 'n' THEN 2 WHEN 'd' THEN 4 ELSE 3 END AS UPDATE_RULE," +
+            " CASE c.confdeltype WHEN 'c' THEN 0 WHEN 'r' THEN 1 WHEN 'n' THEN 2 WHEN 'd' THEN 4 ELSE 3 END AS DELETE_RULE," +
+            " pa.attname AS PKCOLUMN_NAME, fa.attname AS FKCOLUMN_NAME" +
+            " FROM pg_catalog.pg_constraint c" +
+            " JOIN pg_catalog.pg_class ft ON ft.oid = c.conrelid" +
+            " JOIN pg_catalog.pg_namespace n ON n.oid = ft.relnamespace" +
+            " JOIN pg_catalog.pg_class pt ON pt.oid = c.confrelid" +
+            " JOIN pg_catalog.generate_series(1, 32) pos(n) ON pos.n <= array_upper(c.conkey, 1)" +
+            " JOIN pg_catalog.pg_attribute fa ON fa.attrelid = c.conrelid AND fa.attnum = c.conkey[pos.n]" +
+            " JOIN pg_catalog.pg_attribute pa ON pa.attrelid = c.confrelid AND pa.attnum = c.confkey[pos.n]" +
+            " WHERE c.contype = 'f' AND " + getSchemaCondition() +
+            " ORDER BY ft.relname, pt.relname, c.conname, pos.n";
+
+        return readRowsByTable(query, getSchemaParameters(metaData), getColumnsForFK(), "FKTABLE_NAME");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected Map readIndexDataInBulk(DatabaseMetaDataWrapper metaData) throws SQLException
+    {
+        // indkey is a zero-based vector, and expression indices (column number 0) are not returned
+        String query =
+            "SELECT ic.relname AS INDEX_NAME, t.relname AS TABLE_NAME, NOT i.indisunique AS NON_UNIQUE," +
+            " pos.n AS ORDINAL_POSITION, a.attname AS COLUMN_NAME, 3 AS TYPE" +
+            " FROM pg_catalog.pg_index i" +
+            " JOIN pg_catalog.pg_class t ON t.oid = i.indrelid" +
+            " JOIN pg_catalog.pg_class ic ON ic.oid = i.indexrelid" +
+            " JOIN pg_catalog.pg_namespace n ON n.oid = t.relnamespace" +
+            " JOIN pg_catalog.generate_series(1, 32) pos(n) ON pos.n <= i.indnatts" +
+            " JOIN pg_catalog.pg_attribute a ON a.attrelid = t.oid AND a.attnum = i.indkey[pos.n - 1]" +
+            " WHERE " + getSchemaCondition() +
+            " ORDER BY t.relname, NOT i.indisunique, ic.relname, pos.n";
+
+        return readRowsByTable(query, getSchemaParameters(metaData), getColumnsForIndex(), "TABLE_NAME");
+    }
+
+    /**
+     * Returns the condition that restricts a system catalog query to the schemas being read.
+     * 
+     * @return The condition
+     */
+    private String getSchemaCondition()
+    {
+        return "n.nspname LIKE ? AND n.nspname NOT IN ('pg_catalog', 'information_schema')";
+    }
+
+    /**
+     * Returns the parameters for the condition returned by {@link #getSchemaCondition()}.
+     * 
+     * @param metaData The database meta data
+     * @return The parameters
+     */
+    private List getSchemaParameters(DatabaseMetaDataWrapper metaData)
+    {
+        return Collections.singletonList(metaData.getSchemaPattern() == null ? "%" : metaData.getSchemaPattern());
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -26,6 +26,7 @@ import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Types;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 
@@ -58,6 +59,11 @@ public class PostgreSqlPlatform extends PlatformImplBase
     public static final String JDBC_DRIVER       = "org.postgresql.Driver";
     /** The subprotocol used by the standard PostgreSQL driver. */
     public static final String JDBC_SUBPROTOCOL  = "postgresql";
+    /** The fetch size used in streaming mode if none is specified. */
+    private static final int DEFAULT_STREAMING_FETCH_SIZE = 1000;
+
+    /** The connections whose auto-commit mode was switched off for streaming queries. */
+    private HashSet _streamingConnections = new HashSet();
 
     /**
      * Creates a new platform instance.
@@ -70,6 +76,14 @@ public class PostgreSqlPlatform extends PlatformImplBase
         // this is the default length though it might be changed when building PostgreSQL
         // in file src/include/postgres_ext.h
         info.setMaxIdentifierLength(31);
+        // INSERT .. ON CONFLICT requires PostgreSQL 9.5 or newer
+        info.setUpsertSupported(true);
+        info.setMinUpsertDatabaseVersion(9, 5);
+        info.setGeneratedKeysReadable(true);
+        info.setGeneratedKeysReadableInBatchMode(true);
+        info.setMultiRowInsertSupported(true);
+        // the JDBC driver sends the number of parameters as a signed two byte value
+        info.setMaxParametersPerStatement(32767);
 
         info.addNativeTypeMapping(Types.ARRAY,         "BYTEA",            Types.LONGVARBINARY);
         info.addNativeTypeMapping(Types.BINARY,        "BYTEA",            Types.LONGVARBINARY);
@@ -102,6 +116,7 @@ public class PostgreSqlPlatform extends PlatformImplBase
 
         setSqlBuilder(new PostgreSqlBuilder(this));
         setModelReader(new PostgreSqlModelReader(this));
+        setBulkLoader(new PostgreSqlBulkLoader(this));
     }
 
     /**
@@ -112,6 +127,78 @@ public class PostgreSqlPlatform extends PlatformImplBase
         return DATABASENAME;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    protected void configureQueryStatement(Connection connection, Statement statement) throws SQLException
+    {
+        super.configureQueryStatement(connection, statement);
+        if (isStreamingModeOn())
+        {
+            // the PostgreSQL driver only uses a cursor (and thus does not read the complete
+            // result into memory) if the fetch size is set and auto-commit is turned off
+            if (getFetchSize() <= 0)
+            {
+                statement.setFetchSize(DEFAULT_STREAMING_FETCH_SIZE);
+            }
+            if (connection.getAutoCommit())
+            {
+                connection.setAutoCommit(false);
+                synchronized (_streamingConnections)
+                {
+                    _streamingConnections.add(connection);
+                }
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void returnConnection(Connection connection)
+    {
+        boolean switchedAutoCommit;
+
+        synchronized (_streamingConnections)
+        {
+            switchedAutoCommit = _streamingConnections.remove(connection);
+        }
+        if (switchedAutoCommit)
+        {
+            try
+            {
+                if (!connection.isClosed())
+                {
+                    connection.setAutoCommit(true);
+                }
+            }
+            catch (SQLException ex)
+            {
+                getLog().warn("Could not restore the auto-commit mode of the connection", ex);
+            }
+        }
+        super.returnConnection(connection);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected String getModelChangeMarker(Connection connection, String catalog, String schema) throws SQLException
+    {
+        // Every DDL statement writes new versions of the catalog rows of the affected tables,
+        // columns, defaults and constraints, which get the id of the writing transaction as
+        // their xmin; TRUNCATE and some ALTER TABLE variants also assign a new relfilenode
+        String schemaPattern = schema == null ? "%" : schema;
+        String sql           = "SELECT " +
+                               "(SELECT COUNT(*) FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace WHERE n.nspname LIKE ?), " +
+                               "(SELECT SUM(CAST(CAST(c.xmin AS TEXT) AS BIGINT) + CAST(c.relfilenode AS BIGINT)) FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace WHERE n.nspname LIKE ?), " +
+                               "(SELECT COUNT(*) + SUM(CAST(CAST(a.xmin AS TEXT) AS BIGINT)) FROM pg_attribute a JOIN pg_class c ON c.oid = a.attrelid JOIN pg_namespace n ON n.oid = c.relnamespace WHERE n.nspname LIKE ?), " +
+                               "(SELECT COUNT(*) + SUM(CAST(CAST(d.xmin AS TEXT) AS BIGINT)) FROM pg_attrdef d JOIN pg_class c ON c.oid = d.adrelid JOIN pg_namespace n ON n.oid = c.relnamespace WHERE n.nspname LIKE ?), " +
+                               "(SELECT COUNT(*) + SUM(CAST(CAST(k.xmin AS TEXT) AS BIGINT)) FROM pg_constraint k JOIN pg_namespace n ON n.oid = k.connamespace WHERE n.nspname LIKE ?)";
+
+        return queryModelChangeMarker(connection, sql, new String[] { schemaPattern, schemaPattern, schemaPattern, schemaPattern, schemaPattern });
+    }
+
     /**
      * Creates or drops the database referenced by the given connection url.
      * 
@@ -55,6 +55,8 @@ public class WriteDataToDatabaseCommand extends ConvertingDatabaseCommand
     private ArrayList _fileSets = new ArrayList();
     /** Whether explicit values for identity columns will be used. */
     private boolean _useExplicitIdentityValues;
+    /** Whether insert statements with multiple rows shall be used in batch mode. */
+    private boolean _useMultiRowInserts;
 
     /**
      * Defines whether values for identity columns in the data XML shall be used instead of
@@ -107,13 +109,77 @@ public class WriteDataToDatabaseCommand extends ConvertingDatabaseCommand
         getDataIO().setBatchSize(new Integer(batchSize));
     }
 
+    /**
+     * Specifies whether the batch size shall be tuned per table based on the throughput measured
+     * for the batches. The <code>batchSize</code> is then the initial batch size, and the batch size
+     * of each table is changed within the bounds given by <code>minBatchSize</code>, <code>maxBatchSize</code>,
+     * <code>minBatchBytes</code> and <code>maxBatchBytes</code>. The final batch sizes are logged
+     * at the end of the import.<br/>
+     * This value is only used if <code>useBatchMode</code> is <code>true</code>.
+     *
+     * @param useAdaptiveBatchSize <code>true</code> if the batch size shall be tuned
+     * @ant.not-required Per default the batch size is fixed.
+     */
+    public void setUseAdaptiveBatchSize(boolean useAdaptiveBatchSize)
+    {
+        getDataIO().setUseAdaptiveBatchSize(useAdaptiveBatchSize);
+    }
+
+    /**
+     * The minimum number of rows in a batch when the batch size is tuned.
+     *
+     * @param minBatchSize The number of rows
+     * @ant.not-required The default value is 16.
+     */
+    public void setMinBatchSize(int minBatchSize)
+    {
+        getDataIO().setMinBatchSize(new Integer(minBatchSize));
+    }
+
+    /**
+     * The maximum number of rows in a batch when the batch size is tuned.
+     *
+     * @param maxBatchSize The number of rows
+     * @ant.not-required The default value is 65536.
+     */
+    public void setMaxBatchSize(int maxBatchSize)
+    {
+        getDataIO().setMaxBatchSize(new Integer(maxBatchSize));
+    }
+
+    /**
+     * The minimum number of bytes in a batch when the batch size is tuned, as estimated
+     * from the values of the rows. 0 means no minimum.
+     *
+     * @param minBatchBytes The number of bytes
+     * @ant.not-required Per default there is no minimum.
+     */
+    public void setMinBatchBytes(long minBatchBytes)
+    {
+        getDataIO().setMinBatchBytes(new Long(minBatchBytes));
+    }
+
+    /**
+     * The maximum number of bytes in a batch when the batch size is tuned, as estimated
+     * from the values of the rows. A batch is executed as soon as it reaches this size, which
+     * keeps the memory use of the JDBC driver bounded for tables with large binary or text
+     * columns. 0 means no maximum.
+     *
+     * @param maxBatchBytes The number of bytes
+     * @ant.not-required The default value is 16 MB.
+     */
+    public void setMaxBatchBytes(long maxBatchBytes)
+    {
+        getDataIO().setMaxBatchBytes(new Long(maxBatchBytes));
+    }
+
     /**
      * Specifies whether batch mode shall be used for inserting the data. In batch mode, insert statements
      * for the same table are bundled together and executed as one statement. This can be a lot faster
-     * than single insert statements but is not supported by all JDBC drivers/databases. To achieve the
-     * highest performance, you should group the data in the XML file according to the tables. This is
-     * because a batch insert only works for one table at a time. Thus when the table changes in an
-     * entry in the XML file, the batch is committed and then a new one is started.
+     * than single insert statements but is not supported by all JDBC drivers/databases. The rows are
+     * queued per table, and a table's queue is executed when it reaches the batch size or at the end.
+     * Before that, the queues of the tables that it references via foreign keys are executed so that
+     * referenced rows are always inserted first.
      *
      * @param useBatchMode <code>true</code> if batch mode shall be used
      * @ant.not-required Per default batch mode is not used.
@@ -123,6 +189,132 @@ public class WriteDataToDatabaseCommand extends ConvertingDatabaseCommand
         getDataIO().setUseBatchMode(useBatchMode);
     }
 
+    /**
+     * Specifies whether in batch mode the rows of a batch shall be inserted with insert statements
+     * that contain multiple rows in their VALUES clause, instead of using JDBC batches. This can be
+     * a lot faster for JDBC drivers that send each statement of a batch separately to the database.
+     * It is only used if the database supports such statements, and the number of rows per statement
+     * is limited by the number of parameters that the database allows in a statement.<br/>
+     * This value is only used if <code>useBatchMode</code> is <code>true</code>.
+     *
+     * @param useMultiRowInserts <code>true</code> if multi-row insert statements shall be used
+     * @ant.not-required Per default JDBC batches are used.
+     */
+    public void setUseMultiRowInserts(boolean useMultiRowInserts)
+    {
+        _useMultiRowInserts = useMultiRowInserts;
+    }
+
+    /**
+     * Specifies whether in batch mode the rows shall be loaded via the bulk load protocol of the
+     * database, which is a lot faster than insert statements. Currently, this is supported for
+     * PostgreSQL (<code>COPY</code>) and MySQL (<code>LOAD DATA LOCAL INFILE</code>, which might
+     * require the <code>allowLoadLocalInfile</code> connection property). For other databases,
+     * and for rows whose primary key values are defined by the database and needed for updating
+     * the rows referencing them, insert statements are used.<br/>
+     * This value is only used if <code>useBatchMode</code> is <code>true</code>.
+     *
+     * @param useBulkLoad <code>true</code> if bulk loading shall be used
+     * @ant.not-required Per default insert statements are used.
+     */
+    public void setUseBulkLoad(boolean useBulkLoad)
+    {
+        getDataIO().setUseBulkLoad(useBulkLoad);
+    }
+
+    /**
+     * Specifies whether the foreign keys and non-unique indexes shall be disabled while the
+     * data is inserted, and enabled again in one pass at the end. Where the database cannot
+     * disable them (e.g. MySQL and PostgreSQL), they are dropped and recreated instead. Before
+     * the foreign keys are enabled, the inserted data is checked against them, and the task
+     * fails if there are rows that violate them. As the database does not check the foreign
+     * keys during the insertion, <code>ensureForeignKeyOrder</code> can be set to <code>false</code>
+     * unless rows need the database-defined identity values of the rows that they reference.
+     *
+     * @param disableIndexesAndForeignKeys <code>true</code> if they shall be disabled during the insertion
+     * @ant.not-required Per default the foreign keys and indexes are kept.
+     */
+    public void setDisableIndexesAndForeignKeys(boolean disableIndexesAndForeignKeys)
+    {
+        getDataIO().setDisableIndexesAndForeignKeys(disableIndexesAndForeignKeys);
+    }
+
+    /**
+     * Specifies whether the reading of the data files and the insertion into the database shall
+     * overlap. If turned on, the XML is parsed, the values converted and the rows inserted by
+     * separate threads which are connected via bounded buffers. This is mostly useful for large
+     * data files where neither the parsing nor the database alone is the bottleneck.
+     *
+     * @param usePipelining <code>true</code> if pipelining shall be used
+     * @ant.not-required Per default the data is parsed and inserted in the same thread.
+     */
+    public void setUsePipelining(boolean usePipelining)
+    {
+        getDataIO().setUsePipelining(usePipelining);
+    }
+
+    /**
+     * Specifies the maximum number of rows that are kept in memory while they wait for the rows
+     * that they reference via foreign keys to be inserted. The same limit applies to the identities
+     * of inserted rows that DdlUtils keeps for updating foreign keys. Rows and identities beyond this
+     * number are written to temporary files and read back when needed, which keeps the memory use
+     * bounded for large data files in which many rows come before the rows that they reference.<br/>
+     * This value is only used if <code>ensureForeignKeyOrder</code> is <code>true</code>.
+     *
+     * @param spillThreshold The maximum number of rows
+     * @ant.not-required Per default all rows are kept in memory.
+     */
+    public void setSpillThreshold(int spillThreshold)
+    {
+        getDataIO().setSpillThreshold(spillThreshold);
+    }
+
+    /**
+     * Specifies the number of inserted rows after which they are committed. With a commit interval
+     * (in rows or bytes), the data is inserted with auto-commit turned off and committed only in
+     * these intervals and at the end, instead of after every row or batch. If the import fails,
+     * the uncommitted rows are rolled back and the number of rows of each data file that were
+     * committed is logged.
+     *
+     * @param commitInterval The number of rows
+     * @ant.not-required Per default, the rows are committed after each insert or batch
+     *                   unless the connection is in auto-commit mode.
+     */
+    public void setCommitInterval(int commitInterval)
+    {
+        getDataIO().setCommitInterval(commitInterval);
+    }
+
+    /**
+     * Specifies the (estimated) number of inserted bytes after which they are committed.
+     * See <code>commitInterval</code> for details.
+     *
+     * @param commitIntervalBytes The number of bytes
+     * @ant.not-required Per default, the size of the inserted rows doesn't trigger commits.
+     */
+    public void setCommitIntervalBytes(long commitIntervalBytes)
+    {
+        getDataIO().setCommitIntervalBytes(commitIntervalBytes);
+    }
+
+    /**
+     * Specifies a file that records the progress of the import at each commit. If the import
+     * fails, then running the task again with the same data files and checkpoint file resumes
+     * the import after the last commit: the rows that were already committed are skipped, and
+     * data files that were committed completely are not read again. The file is deleted when
+     * the import finished successfully. If neither <code>commitInterval</code> nor
+     * <code>commitIntervalBytes</code> is set, then the rows are committed every 10000 rows.
+     * Note that the import cannot be resumed if referenced rows got identity values that were
+     * generated by the database.
+     *
+     * @param checkpointFile The checkpoint file
+     * @ant.not-required Per default, the import is not resumable.
+     */
+    public void setCheckpointFile(File checkpointFile)
+    {
+        getDataIO().setCheckpointFile(checkpointFile);
+    }
+
     /**
      * Specifies whether the foreign key order shall be honored when inserting data into the database.
      * If not, DdlUtils will simply assume that the entry order is correct, i.e. that referenced rows
@@ -152,6 +344,7 @@ public class WriteDataToDatabaseCommand extends ConvertingDatabaseCommand
         DataReader dataReader = null;
 
         platform.setIdentityOverrideOn(_useExplicitIdentityValues);
+        platform.setMultiRowInsertModeOn(_useMultiRowInserts);
         try
         {
             dataReader = getDataIO().getConfiguredDataReader(platform, model);
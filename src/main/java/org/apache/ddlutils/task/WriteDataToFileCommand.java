@@ -64,6 +64,46 @@ public class WriteDataToFileCommand extends ConvertingDatabaseCommand
         _encoding = encoding;
     }
 
+    /**
+     * Specifies the number of threads that read the data from the database. With more than one
+     * thread, the tables are queried concurrently using separate connections, which can speed up
+     * the export of databases with many tables. The written XML is the same as with one thread.
+     * 
+     * @param threadCount The number of threads
+     * @ant.not-required Per default the tables are read one after the other by a single thread.
+     */
+    public void setThreadCount(int threadCount)
+    {
+        getDataIO().setExportThreadCount(threadCount);
+    }
+
+    /**
+     * Specifies whether the tables shall be read in streaming mode. In this mode, DdlUtils configures
+     * the JDBC driver so that it retrieves the rows of a table in chunks instead of reading the whole
+     * table into memory first, which is important for exporting large tables with drivers like
+     * the PostgreSQL and MySQL ones.
+     * 
+     * @param useStreaming <code>true</code> if the tables shall be read in streaming mode
+     * @ant.not-required Per default the JDBC driver decides how the rows are retrieved.
+     */
+    public void setUseStreaming(boolean useStreaming)
+    {
+        getDataIO().setUseStreamingExport(useStreaming);
+    }
+
+    /**
+     * Specifies the number of rows that the JDBC driver shall retrieve from the database in one go
+     * when reading the tables.
+     * 
+     * @param fetchSize The fetch size
+     * @ant.not-required Per default the fetch size of the JDBC driver is used, or a suitable one
+     *                   in streaming mode.
+     */
+    public void setFetchSize(int fetchSize)
+    {
+        getDataIO().setExportFetchSize(fetchSize);
+    }
+
     /**
      * Specifies whether DdlUtils should try to find the schema of the tables when reading data
      * from a live database.
@@ -0,0 +1,183 @@
+package org.apache.ddlutils.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.NoSuchElementException;
+
+import org.apache.ddlutils.DdlUtilsException;
+
+/**
+ * A bounded first-in-first-out buffer that hands objects from one producer thread to
+ * one consumer thread. The producer blocks when the buffer is full, the consumer (which
+ * uses the buffer as an iterator) blocks when it is empty. The producer signals the end
+ * of the data via {@link #close()} or hands an error to the consumer via {@link #fail(RuntimeException)}
+ * which will then be rethrown in the consumer thread.
+ *
+ * @version $Revision: $
+ */
+public class BoundedBuffer implements Iterator
+{
+    /** The buffered objects. */
+    private LinkedList _objects = new LinkedList();
+    /** The maximum number of buffered objects. */
+    private int _capacity;
+    /** Whether the producer has finished. */
+    private boolean _closed;
+    /** Whether the consumer is no longer interested in the objects. */
+    private boolean _cancelled;
+    /** The error that the producer has encountered, if any. */
+    private RuntimeException _error;
+
+    /**
+     * Creates a new buffer.
+     *
+     * @param capacity The maximum number of objects that the buffer holds
+     */
+    public BoundedBuffer(int capacity)
+    {
+        if (capacity <= 0)
+        {
+            throw new IllegalArgumentException("The capacity must be positive");
+        }
+        _capacity = capacity;
+    }
+
+    /**
+     * Adds an object to the buffer, waiting until there is space for it.
+     *
+     * @param obj The object
+     * @return <code>false</code> if the consumer has cancelled the buffer in which
+     *         case the producer should stop producing
+     */
+    public synchronized boolean put(Object obj) throws DdlUtilsException
+    {
+        while (!_cancelled && (_objects.size() >= _capacity))
+        {
+            waitForChange();
+        }
+        if (_cancelled)
+        {
+            return false;
+        }
+        _objects.addLast(obj);
+        notifyAll();
+        return true;
+    }
+
+    /**
+     * Signals that the producer has finished.
+     */
+    public synchronized void close()
+    {
+        _closed = true;
+        notifyAll();
+    }
+
+    /**
+     * Signals that the producer has failed. The given exception will be thrown to the
+     * consumer once it has consumed the objects that were added before.
+     *
+     * @param error The error
+     */
+    public synchronized void fail(RuntimeException error)
+    {
+        _error  = error;
+        _closed = true;
+        notifyAll();
+    }
+
+    /**
+     * Signals that the consumer is no longer interested in the objects. This discards
+     * all buffered objects and releases a producer waiting in {@link #put(Object)}.
+     */
+    public synchronized void cancel()
+    {
+        _cancelled = true;
+        _objects.clear();
+        notifyAll();
+    }
+
+    /**
+     * Determines whether the consumer has cancelled this buffer.
+     *
+     * @return <code>true</code> if the buffer has been cancelled
+     */
+    public synchronized boolean isCancelled()
+    {
+        return _cancelled;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public synchronized boolean hasNext() throws DdlUtilsException
+    {
+        while (_objects.isEmpty() && !_closed && !_cancelled)
+        {
+            waitForChange();
+        }
+        if (_objects.isEmpty() && (_error != null))
+        {
+            throw _error;
+        }
+        return !_objects.isEmpty();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public synchronized Object next() throws DdlUtilsException
+    {
+        if (!hasNext())
+        {
+            throw new NoSuchElementException("No more objects in the buffer");
+        }
+
+        Object result = _objects.removeFirst();
+
+        notifyAll();
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void remove()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Waits until another thread changes the state of this buffer.
+     */
+    private void waitForChange() throws DdlUtilsException
+    {
+        try
+        {
+            wait();
+        }
+        catch (InterruptedException ex)
+        {
+            throw new DdlUtilsException("Interrupted while waiting for the buffer", ex);
+        }
+    }
+}
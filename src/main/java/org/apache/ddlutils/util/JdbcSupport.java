@@ -20,8 +20,10 @@ package org.apache.ddlutils.util;
  */
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 
@@ -50,6 +52,10 @@ public abstract class JdbcSupport
     private String _password;
     /** The names of the currently borrowed connections (for debugging). */
     private HashSet _openConnectionNames = new HashSet();
+    /** The maximum number of prepared statements cached per borrowed connection (0 for no caching). */
+    private int _statementCacheSize = 32;
+    /** The prepared statement caches of the currently borrowed connections. */
+    private HashMap _statementCaches = new HashMap();
 
     // Properties
     //-------------------------------------------------------------------------                
@@ -115,6 +121,33 @@ public abstract class JdbcSupport
         _password = password;
     }
 
+    /**
+     * Returns the maximum number of prepared statements that are cached for each connection
+     * borrowed via {@link #borrowConnection()}.
+     * 
+     * @return The maximum number of cached statements per connection, <code>0</code> if
+     *         statements are not cached
+     */
+    public int getStatementCacheSize()
+    {
+        return _statementCacheSize;
+    }
+
+    /**
+     * Specifies the maximum number of prepared statements that are cached for each connection
+     * borrowed via {@link #borrowConnection()}. The cached statements are closed when the
+     * connection is returned via {@link #returnConnection(Connection)}. Statements are never
+     * cached for connections obtained elsewhere. The new size only applies to connections
+     * borrowed afterwards.
+     * 
+     * @param statementCacheSize The maximum number of cached statements per connection,
+     *                           <code>0</code> to switch off the caching
+     */
+    public void setStatementCacheSize(int statementCacheSize)
+    {
+        _statementCacheSize = statementCacheSize;
+    }
+
     // Implementation methods    
     //-------------------------------------------------------------------------                
 
@@ -142,7 +175,17 @@ public abstract class JdbcSupport
                 String connName = connection.toString();
 
                 _log.debug("Borrowed connection "+connName+" from data source");
-                _openConnectionNames.add(connName);
+                synchronized (_openConnectionNames)
+                {
+                    _openConnectionNames.add(connName);
+                }
+            }
+            if (_statementCacheSize > 0)
+            {
+                synchronized (_statementCaches)
+                {
+                    _statementCaches.put(connection, new PreparedStatementCache(connection, _statementCacheSize));
+                }
             }
             return connection;
         }
@@ -159,6 +202,19 @@ public abstract class JdbcSupport
      */
     public void returnConnection(Connection connection)
     {
+        PreparedStatementCache statementCache = null;
+
+        if (connection != null)
+        {
+            synchronized (_statementCaches)
+            {
+                statementCache = (PreparedStatementCache)_statementCaches.remove(connection);
+            }
+        }
+        if (statementCache != null)
+        {
+            statementCache.close();
+        }
         try
         {
             if ((connection != null) && !connection.isClosed())
@@ -167,23 +223,27 @@ public abstract class JdbcSupport
                 {
                     String connName = connection.toString();
 
-                    _openConnectionNames.remove(connName);
-
                     StringBuffer logMsg = new StringBuffer();
 
-                    logMsg.append("Returning connection ");
-                    logMsg.append(connName);
-                    logMsg.append(" to data source.\nRemaining connections:");
-                    if (_openConnectionNames.isEmpty())
+                    // connections may be borrowed and returned by several threads
+                    synchronized (_openConnectionNames)
                     {
-                        logMsg.append(" None");
-                    }
-                    else
-                    {
-                        for (Iterator it = _openConnectionNames.iterator(); it.hasNext();)
+                        _openConnectionNames.remove(connName);
+
+                        logMsg.append("Returning connection ");
+                        logMsg.append(connName);
+                        logMsg.append(" to data source.\nRemaining connections:");
+                        if (_openConnectionNames.isEmpty())
+                        {
+                            logMsg.append(" None");
+                        }
+                        else
                         {
-                          logMsg.append("\n    ");
-                          logMsg.append(it.next().toString());
+                            for (Iterator it = _openConnectionNames.iterator(); it.hasNext();)
+                            {
+                              logMsg.append("\n    ");
+                              logMsg.append(it.next().toString());
+                            }
                         }
                     }
                     _log.debug(logMsg.toString());
@@ -217,4 +277,75 @@ public abstract class JdbcSupport
             }
         }
     }
+
+    /**
+     * Returns a prepared statement for the given SQL. If the connection was borrowed via
+     * {@link #borrowConnection()} and statement caching is enabled, then a cached statement
+     * may be returned. Statements obtained via this method shall be handed back via
+     * {@link #releaseStatement(Connection, PreparedStatement)} instead of closing them.
+     * 
+     * @param connection The connection
+     * @param sql        The SQL
+     * @return The prepared statement
+     */
+    protected PreparedStatement prepareStatement(Connection connection, String sql) throws SQLException
+    {
+        return prepareStatement(connection, sql, false);
+    }
+
+    /**
+     * Returns a prepared statement for the given SQL, optionally one that makes the keys
+     * generated by the database available. Same as {@link #prepareStatement(Connection, String)}
+     * otherwise.
+     * 
+     * @param connection          The connection
+     * @param sql                 The SQL
+     * @param returnGeneratedKeys Whether the statement shall make the generated keys available
+     * @return The prepared statement
+     */
+    protected PreparedStatement prepareStatement(Connection connection, String sql, boolean returnGeneratedKeys) throws SQLException
+    {
+        PreparedStatementCache statementCache;
+
+        synchronized (_statementCaches)
+        {
+            statementCache = (PreparedStatementCache)_statementCaches.get(connection);
+        }
+        if (statementCache != null)
+        {
+            return statementCache.acquire(sql, returnGeneratedKeys);
+        }
+        else if (returnGeneratedKeys)
+        {
+            return connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+        }
+        else
+        {
+            return connection.prepareStatement(sql);
+        }
+    }
+
+    /**
+     * Hands back a statement obtained via {@link #prepareStatement(Connection, String)}. The
+     * statement is either kept open for reuse, or closed if it is not cached.
+     * 
+     * @param connection The connection
+     * @param statement  The statement, can be <code>null</code>
+     */
+    protected void releaseStatement(Connection connection, PreparedStatement statement)
+    {
+        if (statement != null)
+        {
+            PreparedStatementCache statementCache;
+
+            synchronized (_statementCaches)
+            {
+                statementCache = (PreparedStatementCache)_statementCaches.get(connection);
+            }
+            if ((statementCache == null) || !statementCache.release(statement))
+            {
+                closeStatement(statement);
+            }
+        }
+    }
 }
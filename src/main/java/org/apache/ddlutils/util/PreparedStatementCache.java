@@ -0,0 +1,197 @@
+package org.apache.ddlutils.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.commons.collections.map.AbstractLinkedMap;
+import org.apache.commons.collections.map.LRUMap;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Caches the prepared statements of one connection, keyed by their SQL and whether they
+ * return generated keys. Statements are taken from the cache via {@link #acquire(String)}
+ * and handed back via {@link #release(PreparedStatement)} after use. While a statement is in use, it is not in the cache, so acquiring the same
+ * SQL again (e.g. in a nested operation) simply prepares a new statement. If more than
+ * the maximum number of statements are cached, then the least recently used ones are closed.
+ *
+ * @version $Revision: $
+ */
+public class PreparedStatementCache
+{
+    /** The Log to which logging calls will be made. */
+    private final Log _log = LogFactory.getLog(PreparedStatementCache.class);
+    /** The connection. */
+    private Connection _connection;
+    /** The cached statements that are currently not in use, keyed by their SQL and generated keys mode. */
+    private LRUMap _idleStatements;
+    /** The keys of the statements that are currently in use. */
+    private HashMap _statementsInUse = new HashMap();
+    /** Whether the cache has been closed. */
+    private boolean _closed;
+
+    /**
+     * Creates a new cache.
+     *
+     * @param connection The connection
+     * @param maxSize    The maximum number of cached statements
+     */
+    public PreparedStatementCache(Connection connection, int maxSize)
+    {
+        _connection     = connection;
+        _idleStatements = new LRUMap(maxSize) {
+            protected boolean removeLRU(AbstractLinkedMap.LinkEntry entry)
+            {
+                closeStatement((PreparedStatement)entry.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Returns a prepared statement for the given SQL, either from the cache or a newly
+     * prepared one.
+     *
+     * @param sql The SQL
+     * @return The statement
+     */
+    public PreparedStatement acquire(String sql) throws SQLException
+    {
+        return acquire(sql, false);
+    }
+
+    /**
+     * Returns a prepared statement for the given SQL, either from the cache or a newly
+     * prepared one.
+     *
+     * @param sql                 The SQL
+     * @param returnGeneratedKeys Whether the statement shall make the keys generated by
+     *                            the database available
+     * @return The statement
+     */
+    public synchronized PreparedStatement acquire(String sql, boolean returnGeneratedKeys) throws SQLException
+    {
+        List              key       = Arrays.asList(new Object[] { sql, Boolean.valueOf(returnGeneratedKeys) });
+        PreparedStatement statement = null;
+
+        if (!_closed)
+        {
+            statement = (PreparedStatement)_idleStatements.remove(key);
+        }
+        if (statement == null)
+        {
+            if (returnGeneratedKeys)
+            {
+                statement = _connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+            }
+            else
+            {
+                statement = _connection.prepareStatement(sql);
+            }
+        }
+        _statementsInUse.put(statement, key);
+        return statement;
+    }
+
+    /**
+     * Hands back a statement acquired from this cache. If the cache has been closed in the
+     * meantime, or there already is an idle statement for the same SQL, then the statement
+     * is closed.
+     *
+     * @param statement The statement
+     * @return <code>false</code> if the statement was not acquired from this cache
+     */
+    public synchronized boolean release(PreparedStatement statement)
+    {
+        List key = (List)_statementsInUse.remove(statement);
+
+        if (key == null)
+        {
+            return false;
+        }
+        if (_closed || _idleStatements.containsKey(key))
+        {
+            closeStatement(statement);
+        }
+        else
+        {
+            try
+            {
+                statement.clearParameters();
+                statement.clearBatch();
+                _idleStatements.put(key, statement);
+            }
+            catch (SQLException ex)
+            {
+                closeStatement(statement);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of cached statements that are currently not in use.
+     *
+     * @return The number of idle statements
+     */
+    public synchronized int getIdleCount()
+    {
+        return _idleStatements.size();
+    }
+
+    /**
+     * Closes all cached statements. Statements that are currently in use are closed when
+     * they are released.
+     */
+    public synchronized void close()
+    {
+        _closed = true;
+        for (Iterator it = _idleStatements.values().iterator(); it.hasNext();)
+        {
+            closeStatement((PreparedStatement)it.next());
+        }
+        _idleStatements.clear();
+    }
+
+    /**
+     * Closes the given statement.
+     *
+     * @param statement The statement
+     */
+    private void closeStatement(PreparedStatement statement)
+    {
+        try
+        {
+            statement.close();
+        }
+        catch (SQLException ex)
+        {
+            _log.debug("Ignoring exception that occurred while closing statement", ex);
+        }
+    }
+}
@@ -19,6 +19,7 @@ package org.apache.ddlutils.dynabean;
  * under the License.
  */
 
+import java.sql.Connection;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -612,4 +613,191 @@ public class TestDynaSqlQueries extends TestAgainstLiveDatabaseBase
         assertEquals("Text 10",
                      getPropertyValue(bean, "TheText"));
     }
+
+    /**
+     * Tests the store, update and delete methods that take multiple beans.
+     */
+    public void testStoreUpdateAndDeleteCollection() throws Exception
+    {
+        createDatabase(
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='ddlutils'>\n"+
+            "  <table name='TestTable'>\n"+
+            "    <column name='TheId' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='TheText' type='VARCHAR' size='15'/>\n"+
+            "  </table>\n"+
+            "</database>");
+
+        insertData(
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<data>\n"+
+            "  <TestTable TheId='1' TheText='Text 1'/>\n"+
+            "  <TestTable TheId='3' TheText='Text 3'/>\n"+
+            "</data>");
+
+        SqlDynaClass dynaClass = SqlDynaClass.newInstance(getModel().getTable(0));
+        List         toStore   = new ArrayList();
+
+        for (int idx = 1; idx <= 4; idx++)
+        {
+            DynaBean dynaBean = new SqlDynaBean(dynaClass);
+
+            dynaBean.set("TheId", new Integer(idx));
+            dynaBean.set("TheText", "Text " + idx + "0");
+            toStore.add(dynaBean);
+        }
+        getPlatform().store(getModel(), toStore);
+
+        List beans = getPlatform().fetch(getModel(),
+                                         "SELECT * FROM " + asIdentifier("TestTable") + " ORDER BY " + asIdentifier("TheId"),
+                                         new Table[] { getModel().getTable(0) });
+
+        assertEquals(4,
+                     beans.size());
+        for (int idx = 0; idx < 4; idx++)
+        {
+            DynaBean bean = (DynaBean)beans.get(idx);
+
+            assertEquals(new Integer(idx + 1),
+                         getPropertyValue(bean, "TheId"));
+            assertEquals("Text " + (idx + 1) + "0",
+                         getPropertyValue(bean, "TheText"));
+        }
+
+        ((DynaBean)toStore.get(0)).set("TheText", "Text 100");
+        ((DynaBean)toStore.get(3)).set("TheText", "Text 400");
+        getPlatform().update(getModel(), toStore.subList(0, 4));
+        getPlatform().delete(getModel(), toStore.subList(1, 3));
+
+        beans = getPlatform().fetch(getModel(),
+                                    "SELECT * FROM " + asIdentifier("TestTable") + " ORDER BY " + asIdentifier("TheId"),
+                                    new Table[] { getModel().getTable(0) });
+
+        assertEquals(2,
+                     beans.size());
+        assertEquals(new Integer(1),
+                     getPropertyValue((DynaBean)beans.get(0), "TheId"));
+        assertEquals("Text 100",
+                     getPropertyValue((DynaBean)beans.get(0), "TheText"));
+        assertEquals(new Integer(4),
+                     getPropertyValue((DynaBean)beans.get(1), "TheId"));
+        assertEquals("Text 400",
+                     getPropertyValue((DynaBean)beans.get(1), "TheText"));
+    }
+
+    /**
+     * Tests that storing multiple beans with the same primary key stores the last one.
+     */
+    public void testStoreCollectionWithDuplicateKeys() throws Exception
+    {
+        createDatabase(
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='ddlutils'>\n"+
+            "  <table name='TestTable'>\n"+
+            "    <column name='TheId' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='TheText' type='VARCHAR' size='15'/>\n"+
+            "  </table>\n"+
+            "</database>");
+
+        insertData(
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<data>\n"+
+            "  <TestTable TheId='1' TheText='Text 1'/>\n"+
+            "</data>");
+
+        SqlDynaClass dynaClass = SqlDynaClass.newInstance(getModel().getTable(0));
+        List         toStore   = new ArrayList();
+
+        for (int idx = 0; idx < 6; idx++)
+        {
+            DynaBean dynaBean = new SqlDynaBean(dynaClass);
+
+            dynaBean.set("TheId", new Integer(1 + idx % 2));
+            dynaBean.set("TheText", "Text " + idx);
+            toStore.add(dynaBean);
+        }
+        getPlatform().store(getModel(), toStore);
+
+        List beans = getPlatform().fetch(getModel(),
+                                         "SELECT * FROM " + asIdentifier("TestTable") + " ORDER BY " + asIdentifier("TheId"),
+                                         new Table[] { getModel().getTable(0) });
+
+        assertEquals(2,
+                     beans.size());
+        assertEquals(new Integer(1),
+                     getPropertyValue((DynaBean)beans.get(0), "TheId"));
+        assertEquals("Text 4",
+                     getPropertyValue((DynaBean)beans.get(0), "TheText"));
+        assertEquals(new Integer(2),
+                     getPropertyValue((DynaBean)beans.get(1), "TheId"));
+        assertEquals("Text 5",
+                     getPropertyValue((DynaBean)beans.get(1), "TheText"));
+    }
+
+    /**
+     * Tests the single-row operations with statement caching, using a cache that is too
+     * small to hold the statements of all operations.
+     */
+    public void testSingleRowOperationsWithStatementCache() throws Exception
+    {
+        createDatabase(
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='ddlutils'>\n"+
+            "  <table name='TestTable'>\n"+
+            "    <column name='TheId' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='TheText' type='VARCHAR' size='15'/>\n"+
+            "  </table>\n"+
+            "</database>");
+
+        SqlDynaClass dynaClass    = SqlDynaClass.newInstance(getModel().getTable(0));
+        int          oldCacheSize = getPlatform().getStatementCacheSize();
+        Connection   connection   = null;
+
+        getPlatform().setStatementCacheSize(2);
+        try
+        {
+            connection = getPlatform().borrowConnection();
+            for (int idx = 1; idx <= 5; idx++)
+            {
+                DynaBean dynaBean = new SqlDynaBean(dynaClass);
+
+                dynaBean.set("TheId", new Integer(idx));
+                dynaBean.set("TheText", "Text " + idx);
+                assertFalse(getPlatform().exists(connection, getModel(), dynaBean));
+                getPlatform().insert(connection, getModel(), dynaBean);
+                assertTrue(getPlatform().exists(connection, getModel(), dynaBean));
+                dynaBean.set("TheText", "Text " + idx + "0");
+                getPlatform().update(connection, getModel(), dynaBean);
+                if (idx % 2 == 0)
+                {
+                    getPlatform().delete(connection, getModel(), dynaBean);
+                }
+            }
+            if (!connection.getAutoCommit())
+            {
+                connection.commit();
+            }
+        }
+        finally
+        {
+            getPlatform().returnConnection(connection);
+            getPlatform().setStatementCacheSize(oldCacheSize);
+        }
+
+        List beans = getPlatform().fetch(getModel(),
+                                         "SELECT * FROM " + asIdentifier("TestTable") + " ORDER BY " + asIdentifier("TheId"),
+                                         new Table[] { getModel().getTable(0) });
+
+        assertEquals(3,
+                     beans.size());
+        for (int idx = 0; idx < 3; idx++)
+        {
+            DynaBean bean = (DynaBean)beans.get(idx);
+
+            assertEquals(new Integer(2 * idx + 1),
+                         getPropertyValue(bean, "TheId"));
+            assertEquals("Text " + (2 * idx + 1) + "0",
+                         getPropertyValue(bean, "TheText"));
+        }
+    }
 }
@@ -0,0 +1,114 @@
+package org.apache.ddlutils.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the {@link org.apache.ddlutils.io.BatchSizeTuner} class.
+ *
+ * @version $Revision: $
+ */
+public class TestBatchSizeTuner extends TestCase
+{
+    /**
+     * Executes a batch of the current size with the given throughput curve, which has
+     * its maximum at the given batch size.
+     *
+     * @param tuner       The tuner
+     * @param bestSize    The batch size with the best throughput
+     * @param bytesPerRow The bytes per row
+     */
+    private void executeBatch(BatchSizeTuner tuner, int bestSize, int bytesPerRow)
+    {
+        int  rows   = tuner.getBatchSize();
+        // a fixed cost per batch plus a cost per row that grows beyond the best size
+        long millis = 10 + rows / 10 + (rows > bestSize ? (rows - bestSize) : 0);
+
+        tuner.batchExecuted(rows, (long)rows * bytesPerRow, millis);
+    }
+
+    /**
+     * Tests that the batch size converges towards the size with the best throughput.
+     */
+    public void testConvergence()
+    {
+        BatchSizeTuner tuner = new BatchSizeTuner(100, 1, 100000, 0, 0);
+
+        for (int idx = 0; idx < 50; idx++)
+        {
+            executeBatch(tuner, 2000, 10);
+        }
+        assertTrue("Batch size " + tuner.getBatchSize() + " is too small", tuner.getBatchSize() >= 1000);
+        assertTrue("Batch size " + tuner.getBatchSize() + " is too large", tuner.getBatchSize() <= 4000);
+        assertEquals(50, tuner.getBatchCount());
+        assertEquals(10, tuner.getAverageRowBytes());
+    }
+
+    /**
+     * Tests that the batch size stays within the row bounds.
+     */
+    public void testRowBounds()
+    {
+        BatchSizeTuner tuner = new BatchSizeTuner(5000, 10, 500, 0, 0);
+
+        assertEquals(500, tuner.getBatchSize());
+        for (int idx = 0; idx < 20; idx++)
+        {
+            executeBatch(tuner, 100000, 10);
+            assertTrue(tuner.getBatchSize() <= 500);
+        }
+        assertEquals(500, tuner.getBatchSize());
+
+        tuner = new BatchSizeTuner(100, 50, 500, 0, 0);
+        for (int idx = 0; idx < 20; idx++)
+        {
+            executeBatch(tuner, 1, 10);
+            assertTrue(tuner.getBatchSize() >= 50);
+        }
+    }
+
+    /**
+     * Tests that the batch size stays within the byte bounds once the row size is known.
+     */
+    public void testByteBounds()
+    {
+        BatchSizeTuner tuner = new BatchSizeTuner(1000, 1, 100000, 0, 1024 * 1024);
+
+        // rows with 10 KB each allow for at most 102 rows per batch
+        tuner.batchExecuted(1000, 1000 * 10240, 100);
+        assertEquals(102, tuner.getBatchSize());
+        for (int idx = 0; idx < 20; idx++)
+        {
+            executeBatch(tuner, 100000, 10240);
+            assertTrue(tuner.getBatchSize() <= 102);
+        }
+
+        tuner = new BatchSizeTuner(10, 1, 100000, 100000, 0);
+        // rows with 10 bytes each require at least 10000 rows per batch
+        tuner.batchExecuted(10, 100, 1);
+        assertEquals(10000, tuner.getBatchSize());
+
+        // the row bounds win over the byte bounds
+        tuner = new BatchSizeTuner(10, 1, 5000, 100000, 0);
+        tuner.batchExecuted(10, 100, 1);
+        assertEquals(5000, tuner.getBatchSize());
+    }
+}
@@ -0,0 +1,122 @@
+package org.apache.ddlutils.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the {@link org.apache.ddlutils.io.CheckpointJournal} class.
+ *
+ * @version $Revision: $
+ */
+public class TestCheckpointJournal extends TestCase
+{
+    /** The journal file. */
+    private File _file;
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        _file = File.createTempFile("checkpoint", ".properties");
+        _file.delete();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void tearDown() throws Exception
+    {
+        _file.delete();
+        super.tearDown();
+    }
+
+    /**
+     * Tests that a written checkpoint is read back unchanged, and that a newer checkpoint
+     * replaces it.
+     */
+    public void testWriteAndRead() throws Exception
+    {
+        CheckpointJournal journal    = new CheckpointJournal(_file);
+        ImportCheckpoint  checkpoint = new ImportCheckpoint(3, 3000, 120000);
+
+        assertNull(journal.read());
+
+        checkpoint.addSource("data1.xml", 2000, true);
+        checkpoint.addSource("data2.xml", 950, 1200, new long[] { 950, 951, 952, 1100 }, false);
+        checkpoint.setTableRowCount("parent", 1000);
+        checkpoint.setTableRowCount("child", 2000);
+        checkpoint.addPendingIdentity("parent:id=1001");
+        journal.write(checkpoint);
+
+        ImportCheckpoint readCheckpoint = journal.read();
+
+        assertEquals(3, readCheckpoint.getCommitCount());
+        assertEquals(3000, readCheckpoint.getRowCount());
+        assertEquals(120000, readCheckpoint.getByteCount());
+        assertFalse(readCheckpoint.isIdentitiesGenerated());
+        assertEquals(2, readCheckpoint.getSourceCount());
+        assertEquals("data1.xml", readCheckpoint.getSourceName(0));
+        assertEquals(2000, readCheckpoint.getSourceOffset(0));
+        assertTrue(readCheckpoint.isSourceComplete(0));
+        assertEquals(950, readCheckpoint.findSourceOffset("data2.xml"));
+        assertFalse(readCheckpoint.isSourceComplete(1));
+        assertEquals(2000, readCheckpoint.getSourceReadCount(0));
+        assertEquals(0, readCheckpoint.getSourcePendingRows(0).length);
+        assertEquals(1200, readCheckpoint.getSourceReadCount(1));
+        assertEquals(4, readCheckpoint.getSourcePendingRows(1).length);
+        assertEquals(952, readCheckpoint.getSourcePendingRows(1)[2]);
+        assertEquals(1100, readCheckpoint.getSourcePendingRows(1)[3]);
+        assertTrue(readCheckpoint.isRowCommitted(1, 949));
+        assertFalse(readCheckpoint.isRowCommitted(1, 951));
+        assertTrue(readCheckpoint.isRowCommitted(1, 953));
+        assertFalse(readCheckpoint.isRowCommitted(1, 1100));
+        assertFalse(readCheckpoint.isRowCommitted(1, 1200));
+        assertEquals(-1, readCheckpoint.findSource("data3.xml"));
+        assertEquals(2, readCheckpoint.getTableNames().length);
+        assertEquals("parent", readCheckpoint.getTableNames()[0]);
+        assertEquals(1000, readCheckpoint.getTableRowCount("parent"));
+        assertEquals(2000, readCheckpoint.getTableRowCount("child"));
+        assertEquals(1, readCheckpoint.getPendingIdentities().length);
+        assertEquals("parent:id=1001", readCheckpoint.getPendingIdentities()[0]);
+
+        checkpoint = new ImportCheckpoint(4, 4000, 160000);
+        checkpoint.addSource("data1.xml", 2000, true);
+        checkpoint.addSource("data2.xml", 2000, true);
+        checkpoint.setIdentitiesGenerated(true);
+        journal.write(checkpoint);
+
+        readCheckpoint = journal.read();
+        assertEquals(4, readCheckpoint.getCommitCount());
+        assertTrue(readCheckpoint.isIdentitiesGenerated());
+        assertTrue(readCheckpoint.isSourceComplete(1));
+        assertEquals(0, readCheckpoint.getTableNames().length);
+        assertEquals(0, readCheckpoint.getPendingIdentities().length);
+        assertFalse(new File(_file.getAbsolutePath() + ".tmp").exists());
+
+        journal.delete();
+        assertFalse(_file.exists());
+        assertNull(journal.read());
+    }
+}
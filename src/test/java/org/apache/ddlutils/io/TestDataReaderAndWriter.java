@@ -1713,4 +1713,210 @@ public class TestDataReaderAndWriter extends TestCase
                       "  </test>\n" +
                       "</data>\n");
     }
+
+    /**
+     * Tests that reading in pipelined mode hands the beans to the sink in document order.
+     */
+    public void testReadPipelined() throws Exception
+    {
+        Database model = readModel(
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='test'>\n"+
+            "  <table name='test'>\n"+
+            "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='avalue' type='VARCHAR' size='50' required='false'/>\n"+
+            "  </table>\n"+
+            "</database>");
+        StringBuffer dataXml = new StringBuffer();
+
+        dataXml.append("<data>\n");
+        for (int idx = 0; idx < 500; idx++)
+        {
+            dataXml.append("  <test id='" + idx + "' avalue='value" + idx + "'/>\n");
+        }
+        dataXml.append("</data>");
+
+        ArrayList  beans      = new ArrayList();
+        DataReader dataReader = new DataReader();
+
+        dataReader.setModel(model);
+        dataReader.setSink(new TestDataSink(beans));
+        dataReader.setPipelined(true);
+        // a small buffer makes the stages wait for each other
+        dataReader.setPipelineBufferSize(3);
+        dataReader.read(new StringReader(dataXml.toString()));
+
+        assertEquals(500, beans.size());
+        for (int idx = 0; idx < 500; idx++)
+        {
+            DynaBean bean = (DynaBean)beans.get(idx);
+
+            assertEquals(new Integer(idx), bean.get("id"));
+            assertEquals("value" + idx, bean.get("avalue"));
+        }
+    }
+
+    /**
+     * Tests that an error thrown by the sink while reading in pipelined mode is
+     * rethrown to the caller.
+     */
+    public void testReadPipelinedWithSinkError() throws Exception
+    {
+        Database model = readModel(
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='test'>\n"+
+            "  <table name='test'>\n"+
+            "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "  </table>\n"+
+            "</database>");
+        StringBuffer dataXml = new StringBuffer();
+
+        dataXml.append("<data>\n");
+        for (int idx = 0; idx < 100; idx++)
+        {
+            dataXml.append("  <test id='" + idx + "'/>\n");
+        }
+        dataXml.append("</data>");
+
+        DataReader dataReader = new DataReader();
+
+        dataReader.setModel(model);
+        dataReader.setSink(new TestDataSink(new ArrayList()) {
+            public void addBean(DynaBean bean) throws DataSinkException
+            {
+                if (new Integer(10).equals(bean.get("id")))
+                {
+                    throw new DataSinkException("Cannot write row 10");
+                }
+            }
+        });
+        dataReader.setPipelined(true);
+        dataReader.setPipelineBufferSize(2);
+        try
+        {
+            dataReader.read(new StringReader(dataXml.toString()));
+            fail();
+        }
+        catch (DataSinkException ex)
+        {
+            assertEquals("Cannot write row 10", ex.getMessage());
+        }
+    }
+
+    /**
+     * Tests that an <code>Error</code> thrown by the sink while reading in pipelined mode
+     * stops the other stages and is rethrown to the caller.
+     */
+    public void testReadPipelinedWithSinkThrowingError() throws Exception
+    {
+        Database model = readModel(
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='test'>\n"+
+            "  <table name='test'>\n"+
+            "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "  </table>\n"+
+            "</database>");
+        final StringBuffer dataXml = new StringBuffer();
+
+        dataXml.append("<data>\n");
+        for (int idx = 0; idx < 100; idx++)
+        {
+            dataXml.append("  <test id='" + idx + "'/>\n");
+        }
+        dataXml.append("</data>");
+
+        final DataReader  dataReader = new DataReader();
+        final Throwable[] error      = new Throwable[1];
+
+        dataReader.setModel(model);
+        dataReader.setSink(new TestDataSink(new ArrayList()) {
+            public void addBean(DynaBean bean) throws DataSinkException
+            {
+                if (new Integer(10).equals(bean.get("id")))
+                {
+                    throw new Error("Cannot write row 10");
+                }
+            }
+        });
+        dataReader.setPipelined(true);
+        dataReader.setPipelineBufferSize(2);
+
+        // we read in a separate thread so that the test fails instead of hanging
+        Thread reader = new Thread() {
+            public void run()
+            {
+                try
+                {
+                    dataReader.read(new StringReader(dataXml.toString()));
+                }
+                catch (Throwable ex)
+                {
+                    error[0] = ex;
+                }
+            }
+        };
+
+        reader.setDaemon(true);
+        reader.start();
+        reader.join(10000);
+        assertFalse(reader.isAlive());
+        assertTrue(error[0] instanceof Error);
+        assertEquals("Cannot write row 10", error[0].getMessage());
+    }
+
+    /**
+     * Tests that the reader skips the given number of leading rows, including rows
+     * whose table is given by a sub element, and ignores elements for unknown tables.
+     */
+    public void testReadWithSkipCount() throws Exception
+    {
+        Database model = readModel(
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='test'>\n"+
+            "  <table name='test'>\n"+
+            "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='avalue' type='VARCHAR' size='50' required='false'/>\n"+
+            "  </table>\n"+
+            "</database>");
+        String dataXml =
+            "<data>\n"+
+            "  <test id='1' avalue='value1'/>\n"+
+            "  <unknown id='2'/>\n"+
+            "  <test id='3'>\n"+
+            "    <avalue><![CDATA[value3]]></avalue>\n"+
+            "  </test>\n"+
+            "  <table table-name='test' id='4' avalue='value4'/>\n"+
+            "  <table>\n"+
+            "    <table-name>test</table-name>\n"+
+            "    <column>\n"+
+            "      <column-name>id</column-name>\n"+
+            "      <column-value>5</column-value>\n"+
+            "    </column>\n"+
+            "  </table>\n"+
+            "  <test id='6' avalue='value6'/>\n"+
+            "  <test id='7' avalue='value7'/>\n"+
+            "</data>";
+
+        ArrayList  beans      = new ArrayList();
+        DataReader dataReader = new DataReader();
+
+        dataReader.setModel(model);
+        dataReader.setSink(new TestDataSink(beans));
+        dataReader.setSkipCount(4);
+        dataReader.read(new StringReader(dataXml));
+
+        assertEquals(2, beans.size());
+        assertEquals(new Integer(6), ((DynaBean)beans.get(0)).get("id"));
+        assertEquals(new Integer(7), ((DynaBean)beans.get(1)).get("id"));
+        assertEquals(0, dataReader.getSkipCount());
+
+        // the skip count only applies to one read
+        beans.clear();
+        dataReader.setSkipCount(10);
+        dataReader.read(new StringReader(dataXml));
+        assertEquals(0, beans.size());
+        assertEquals(0, dataReader.getSkipCount());
+        dataReader.read(new StringReader(dataXml));
+        assertEquals(6, beans.size());
+    }
 }
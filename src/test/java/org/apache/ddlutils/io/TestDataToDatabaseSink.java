@@ -0,0 +1,980 @@
+package org.apache.ddlutils.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+
+import org.apache.commons.beanutils.DynaBean;
+import org.apache.ddlutils.DatabaseOperationException;
+import org.apache.ddlutils.TestBase;
+import org.apache.ddlutils.dynabean.SqlDynaClass;
+import org.apache.ddlutils.model.Column;
+import org.apache.ddlutils.model.Database;
+import org.apache.ddlutils.model.ForeignKey;
+import org.apache.ddlutils.model.Table;
+import org.apache.ddlutils.platform.hsqldb.HsqlDbPlatform;
+
+/**
+ * Tests the {@link DataToDatabaseSink} against a platform that records the inserted rows
+ * and checks their primary and foreign keys like a database would.
+ *
+ * @version $Revision: $
+ */
+public class TestDataToDatabaseSink extends TestBase
+{
+    /** A model with two tables that reference each other, and a table referencing one of them. */
+    private static final String CYCLE_MODEL =
+        "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+        "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='test'>\n"+
+        "  <table name='A'>\n"+
+        "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+        "    <column name='bid' type='INTEGER'/>\n"+
+        "    <foreign-key foreignTable='B'>\n"+
+        "      <reference local='bid' foreign='id'/>\n"+
+        "    </foreign-key>\n"+
+        "  </table>\n"+
+        "  <table name='B'>\n"+
+        "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+        "    <column name='aid' type='INTEGER'/>\n"+
+        "    <foreign-key foreignTable='A'>\n"+
+        "      <reference local='aid' foreign='id'/>\n"+
+        "    </foreign-key>\n"+
+        "  </table>\n"+
+        "  <table name='C'>\n"+
+        "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+        "    <column name='aid' type='INTEGER'/>\n"+
+        "    <foreign-key foreignTable='A'>\n"+
+        "      <reference local='aid' foreign='id'/>\n"+
+        "    </foreign-key>\n"+
+        "  </table>\n"+
+        "</database>";
+    /** A model with a table whose rows reference the rows of another table. */
+    private static final String PARENT_CHILD_MODEL =
+        "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+        "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='test'>\n"+
+        "  <table name='parent'>\n"+
+        "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+        "  </table>\n"+
+        "  <table name='child'>\n"+
+        "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+        "    <column name='pid' type='INTEGER'/>\n"+
+        "    <column name='name' type='VARCHAR' size='32'/>\n"+
+        "    <foreign-key foreignTable='parent'>\n"+
+        "      <reference local='pid' foreign='id'/>\n"+
+        "    </foreign-key>\n"+
+        "  </table>\n"+
+        "</database>";
+    /** A model with a table whose primary key references a table with an identity primary key. */
+    private static final String IDENTITY_MODEL =
+        "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+        "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='test'>\n"+
+        "  <table name='parent'>\n"+
+        "    <column name='id' type='INTEGER' primaryKey='true' required='true' autoIncrement='true'/>\n"+
+        "  </table>\n"+
+        "  <table name='detail'>\n"+
+        "    <column name='pid' type='INTEGER' primaryKey='true' required='true'/>\n"+
+        "    <foreign-key foreignTable='parent'>\n"+
+        "      <reference local='pid' foreign='id'/>\n"+
+        "    </foreign-key>\n"+
+        "  </table>\n"+
+        "  <table name='child'>\n"+
+        "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+        "    <column name='did' type='INTEGER'/>\n"+
+        "    <foreign-key foreignTable='detail'>\n"+
+        "      <reference local='did' foreign='pid'/>\n"+
+        "    </foreign-key>\n"+
+        "  </table>\n"+
+        "</database>";
+    /** A model with a table that has an auto-increment primary key and is not referenced. */
+    private static final String AUTO_INCREMENT_MODEL =
+        "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+        "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='test'>\n"+
+        "  <table name='entry'>\n"+
+        "    <column name='id' type='INTEGER' primaryKey='true' required='true' autoIncrement='true'/>\n"+
+        "    <column name='text' type='VARCHAR' size='32'/>\n"+
+        "  </table>\n"+
+        "</database>";
+
+    /** The platform. */
+    private RecordingPlatform _platform;
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        _platform = new RecordingPlatform();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void tearDown() throws Exception
+    {
+        _platform = null;
+        super.tearDown();
+    }
+
+    /**
+     * Creates a bean for the given table of the model.
+     *
+     * @param model     The model
+     * @param tableName The name of the table
+     * @param values    The values of the columns of the table in the order of the columns
+     * @return The bean
+     */
+    private DynaBean createBean(Database model, String tableName, Object[] values)
+    {
+        Table    table = model.findTable(tableName);
+        DynaBean bean  = model.createDynaBeanFor(table);
+
+        for (int idx = 0; idx < values.length; idx++)
+        {
+            bean.set(table.getColumn(idx).getName(), values[idx]);
+        }
+        return bean;
+    }
+
+    /**
+     * Returns the inserted rows in the form <code>table:value1,value2,...</code>.
+     *
+     * @return The rows
+     */
+    private String getInsertedRows()
+    {
+        StringBuffer result = new StringBuffer();
+
+        for (Iterator it = _platform.getRows().iterator(); it.hasNext();)
+        {
+            DynaBean bean  = (DynaBean)it.next();
+            Table    table = _platform.getTable(bean);
+
+            if (result.length() > 0)
+            {
+                result.append(" ");
+            }
+            result.append(table.getName());
+            result.append(":");
+            for (int idx = 0; idx < table.getColumnCount(); idx++)
+            {
+                if (idx > 0)
+                {
+                    result.append(",");
+                }
+                result.append(bean.get(table.getColumn(idx).getName()));
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Tests that rows of tables that reference each other are inserted in the order in
+     * which they are given to the sink in batch mode, while the rows of the other tables
+     * are still inserted in batches.
+     */
+    public void testBatchModeWithCircularForeignKeys() throws Exception
+    {
+        Database           model = parseDatabaseFromString(CYCLE_MODEL);
+        DataToDatabaseSink sink  = new DataToDatabaseSink(_platform, model);
+
+        sink.setUseBatchMode(true);
+        sink.start();
+        sink.addBean(createBean(model, "C", new Object[] { new Integer(1), null }));
+        sink.addBean(createBean(model, "A", new Object[] { new Integer(1), null }));
+        sink.addBean(createBean(model, "B", new Object[] { new Integer(1), new Integer(1) }));
+        sink.addBean(createBean(model, "A", new Object[] { new Integer(2), new Integer(1) }));
+        sink.addBean(createBean(model, "C", new Object[] { new Integer(2), new Integer(2) }));
+        sink.addBean(createBean(model, "B", new Object[] { new Integer(2), new Integer(2) }));
+        sink.end();
+
+        assertEquals("A:1,null B:1,1 A:2,1 B:2,2 C:1,null C:2,2",
+                     getInsertedRows());
+        assertEquals(1, _platform.getBatchCount());
+    }
+
+    /**
+     * Tests that rows waiting for the rows that they reference are moved to the spill file
+     * beyond the spill threshold, and are inserted from there.
+     */
+    public void testSpilledWaitingRows() throws Exception
+    {
+        Database           model = parseDatabaseFromString(PARENT_CHILD_MODEL);
+        DataToDatabaseSink sink  = new DataToDatabaseSink(_platform, model);
+
+        sink.setSpillThreshold(2);
+        sink.start();
+        for (int idx = 0; idx < 10; idx++)
+        {
+            sink.addBean(createBean(model, "child", new Object[] { new Integer(idx), new Integer(idx % 3), "child" + idx }));
+        }
+        assertEquals(10, sink.getWaitingObjectCount());
+        assertEquals(8, sink.getSpilledObjectCount());
+        for (int idx = 0; idx < 3; idx++)
+        {
+            sink.addBean(createBean(model, "parent", new Object[] { new Integer(idx) }));
+        }
+        assertEquals(0, sink.getWaitingObjectCount());
+        sink.end();
+
+        assertEquals("parent:0 child:0,0,child0 child:3,0,child3 child:6,0,child6 child:9,0,child9 " +
+                     "parent:1 child:1,1,child1 child:4,1,child4 child:7,1,child7 " +
+                     "parent:2 child:2,2,child2 child:5,2,child5 child:8,2,child8",
+                     getInsertedRows());
+    }
+
+    /**
+     * Tests that the rows referencing rows whose primary key is a foreign key to a row with
+     * a generated identity, get the generated value, both if the referenced rows are inserted
+     * directly and if they had to wait for the rows with the generated identity.
+     */
+    public void testPrimaryKeyReferencingIdentity() throws Exception
+    {
+        Database           model = parseDatabaseFromString(IDENTITY_MODEL);
+        DataToDatabaseSink sink  = new DataToDatabaseSink(_platform, model);
+
+        sink.start();
+        sink.addBean(createBean(model, "parent", new Object[] { new Integer(1) }));
+        sink.addBean(createBean(model, "detail", new Object[] { new Integer(1) }));
+        sink.addBean(createBean(model, "child", new Object[] { new Integer(10), new Integer(1) }));
+        sink.addBean(createBean(model, "child", new Object[] { new Integer(20), new Integer(2) }));
+        sink.addBean(createBean(model, "detail", new Object[] { new Integer(2) }));
+        sink.addBean(createBean(model, "parent", new Object[] { new Integer(2) }));
+        sink.end();
+
+        assertEquals("parent:100 detail:100 child:10,100 parent:101 detail:101 child:20,101",
+                     getInsertedRows());
+    }
+
+    /**
+     * Tests that the load fails if some of the foreign keys and indexes that were disabled
+     * for it cannot be enabled again, and that the others are still enabled.
+     */
+    public void testFailedEnablingOfForeignKeys() throws Exception
+    {
+        Database           model = parseDatabaseFromString(PARENT_CHILD_MODEL);
+        DataToDatabaseSink sink  = new DataToDatabaseSink(_platform, model);
+
+        _platform.setFailingEnableCommandCount(1);
+        sink.setDisableIndexesAndForeignKeys(true);
+        sink.start();
+        sink.addBean(createBean(model, "parent", new Object[] { new Integer(1) }));
+        sink.addBean(createBean(model, "child", new Object[] { new Integer(1), new Integer(1), "child1" }));
+        try
+        {
+            sink.end();
+            fail();
+        }
+        catch (DataSinkException ex)
+        {
+            assertTrue(ex.getMessage().indexOf("Could not enable 1 of the indexes and foreign keys") >= 0);
+        }
+        assertEquals("parent:1 child:1,1,child1",
+                     getInsertedRows());
+        assertEquals(1, _platform.getEnableCount());
+    }
+
+    /**
+     * Tests that a resumed import does not insert the rows again that the failed import
+     * committed after a row that was waiting for the row that it references, and that the
+     * waiting row is inserted.
+     */
+    public void testResumeAfterWaitingRow() throws Exception
+    {
+        Database          model   = parseDatabaseFromString(PARENT_CHILD_MODEL);
+        File              file    = File.createTempFile("checkpoint", ".properties");
+        CheckpointJournal journal = new CheckpointJournal(file);
+        DynaBean[]        beans   = new DynaBean[5];
+
+        file.delete();
+        try
+        {
+            beans[0] = createBean(model, "child", new Object[] { new Integer(1), new Integer(2), "child1" });
+            beans[1] = createBean(model, "parent", new Object[] { new Integer(1) });
+            beans[2] = createBean(model, "child", new Object[] { new Integer(2), new Integer(1), "child2" });
+            beans[3] = createBean(model, "child", new Object[] { new Integer(3), new Integer(1), "child3" });
+            beans[4] = createBean(model, "parent", new Object[] { new Integer(2) });
+
+            DataToDatabaseSink sink = new DataToDatabaseSink(_platform, model);
+
+            sink.setCommitInterval(2);
+            sink.setCheckpointJournal(journal);
+            _platform.setFailAfterRowCount(3);
+            sink.start();
+            assertEquals(0, sink.startSource("data.xml"));
+            try
+            {
+                for (int idx = 0; idx < beans.length; idx++)
+                {
+                    sink.addBean(beans[idx]);
+                }
+                fail();
+            }
+            catch (DataSinkException ex)
+            {
+                // expected
+            }
+            assertEquals("parent:1 child:2,1,child2",
+                         getInsertedRows());
+
+            ImportCheckpoint checkpoint = journal.read();
+
+            assertEquals(0, checkpoint.getSourceOffset(0));
+            assertEquals(3, checkpoint.getSourceReadCount(0));
+            assertEquals(1, checkpoint.getSourcePendingRows(0).length);
+
+            sink = new DataToDatabaseSink(_platform, model);
+            sink.setCommitInterval(2);
+            sink.setCheckpointJournal(journal);
+            _platform.setFailAfterRowCount(-1);
+            sink.start();
+            assertEquals(0, sink.startSource("data.xml"));
+            for (int idx = 0; idx < beans.length; idx++)
+            {
+                sink.addBean(beans[idx]);
+            }
+            sink.endSource();
+            sink.end();
+
+            assertEquals("parent:1 child:2,1,child2 child:3,1,child3 parent:2 child:1,2,child1",
+                         getInsertedRows());
+            assertFalse(file.exists());
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+
+    /**
+     * Tests that the rows of a resumed import that wait for rows which are not in the data,
+     * are only inserted if the failed import committed the referenced rows.
+     */
+    public void testResumeWithMissingReferencedRow() throws Exception
+    {
+        Database          model   = parseDatabaseFromString(PARENT_CHILD_MODEL);
+        File              file    = File.createTempFile("checkpoint", ".properties");
+        CheckpointJournal journal = new CheckpointJournal(file);
+
+        file.delete();
+        try
+        {
+            DataToDatabaseSink sink = new DataToDatabaseSink(_platform, model);
+
+            sink.setCommitInterval(2);
+            sink.setCheckpointJournal(journal);
+            _platform.setFailAfterRowCount(2);
+            sink.start();
+            sink.startSource("data.xml");
+            sink.addBean(createBean(model, "parent", new Object[] { new Integer(1) }));
+            sink.addBean(createBean(model, "child", new Object[] { new Integer(1), new Integer(1), "child1" }));
+            try
+            {
+                sink.addBean(createBean(model, "child", new Object[] { new Integer(2), new Integer(1), "child2" }));
+                fail();
+            }
+            catch (DataSinkException ex)
+            {
+                // expected
+            }
+
+            sink = new DataToDatabaseSink(_platform, model);
+            sink.setCommitInterval(2);
+            sink.setCheckpointJournal(journal);
+            _platform.setFailAfterRowCount(-1);
+            sink.start();
+            assertEquals(2, sink.startSource("data.xml"));
+            sink.addBean(createBean(model, "child", new Object[] { new Integer(2), new Integer(1), "child2" }));
+            sink.addBean(createBean(model, "child", new Object[] { new Integer(3), new Integer(5), "child3" }));
+            sink.endSource();
+            try
+            {
+                sink.end();
+                fail();
+            }
+            catch (DataSinkException ex)
+            {
+                assertTrue(ex.getMessage().indexOf("one row still not written") >= 0);
+            }
+            assertEquals("parent:1 child:1,1,child1 child:2,1,child2",
+                         getInsertedRows());
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+
+    /**
+     * Tests that single inserts into a table whose identity values are read with a query after
+     * the insertion, do not commit the rows of the current commit interval.
+     */
+    public void testNoCommitOfIdentityInsertsWithinCommitInterval() throws Exception
+    {
+        Database              model    = parseDatabaseFromString(IDENTITY_MODEL);
+        JdbcRecordingPlatform platform = new JdbcRecordingPlatform();
+        DataToDatabaseSink    sink     = new DataToDatabaseSink(platform, model);
+
+        sink.setCommitInterval(3);
+        sink.start();
+        for (int idx = 0; idx < 5; idx++)
+        {
+            DynaBean bean = createBean(model, "parent", new Object[] { null });
+
+            sink.addBean(bean);
+            assertEquals(new Integer(idx + 1), bean.get("id"));
+            assertEquals(idx < 2 ? 0 : 1, platform.getCommitCount());
+            assertEquals(1, platform.getAutoCommitSwitchCount());
+        }
+        sink.end();
+        assertEquals(5, platform.getInsertCount());
+        assertEquals(2, platform.getCommitCount());
+    }
+
+    /**
+     * Tests that a resumed import inserts the rows of a table with an auto-increment primary
+     * key exactly once, when the failed import inserted a row of the table after the last commit.
+     */
+    public void testResumeWithAutoIncrementTable() throws Exception
+    {
+        Database              model    = parseDatabaseFromString(AUTO_INCREMENT_MODEL);
+        JdbcRecordingPlatform platform = new JdbcRecordingPlatform();
+        File                  file     = File.createTempFile("checkpoint", ".properties");
+        CheckpointJournal     journal  = new CheckpointJournal(file);
+
+        file.delete();
+        try
+        {
+            DataToDatabaseSink sink = new DataToDatabaseSink(platform, model);
+
+            sink.setCommitInterval(3);
+            sink.setCheckpointJournal(journal);
+            platform.setFailAfterInsertCount(7);
+            sink.start();
+            assertEquals(0, sink.startSource("data.xml"));
+            try
+            {
+                for (int idx = 0; idx < 10; idx++)
+                {
+                    sink.addBean(createBean(model, "entry", new Object[] { null, "entry" + idx }));
+                }
+                fail();
+            }
+            catch (DataSinkException ex)
+            {
+                // expected
+            }
+            assertEquals(6, platform.getInsertCount());
+            assertEquals(6, journal.read().getSourceOffset(0));
+
+            sink = new DataToDatabaseSink(platform, model);
+            sink.setCommitInterval(3);
+            sink.setCheckpointJournal(journal);
+            platform.setFailAfterInsertCount(-1);
+            sink.start();
+            assertEquals(6, sink.startSource("data.xml"));
+            for (int idx = 6; idx < 10; idx++)
+            {
+                sink.addBean(createBean(model, "entry", new Object[] { null, "entry" + idx }));
+            }
+            sink.endSource();
+            sink.end();
+
+            assertEquals(10, platform.getInsertCount());
+            assertFalse(file.exists());
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+
+    /**
+     * A platform that runs its actual JDBC code against a connection that records the inserts
+     * and commits, and that returns the number of inserted rows as the last identity value.
+     */
+    private static class JdbcRecordingPlatform extends HsqlDbPlatform implements InvocationHandler
+    {
+        /** The number of executed inserts that were not rolled back. */
+        private int _insertCount;
+        /** The number of committed inserts. */
+        private int _committedInsertCount;
+        /** The number of inserts after which an insert fails, or -1. */
+        private int _failAfterInsertCount = -1;
+        /** The number of commits. */
+        private int _commitCount;
+        /** Whether the connection is in auto-commit mode. */
+        private boolean _autoCommit = true;
+        /** How often the auto-commit mode was changed. */
+        private int _autoCommitSwitchCount;
+
+        /**
+         * Returns the number of executed inserts.
+         *
+         * @return The number of inserts
+         */
+        public int getInsertCount()
+        {
+            return _insertCount;
+        }
+
+        /**
+         * Lets the insert fail that follows the given number of inserts.
+         *
+         * @param insertCount The number of inserts, or -1 if no insert shall fail
+         */
+        public void setFailAfterInsertCount(int insertCount)
+        {
+            _failAfterInsertCount = insertCount;
+        }
+
+        /**
+         * Returns the number of commits.
+         *
+         * @return The number of commits
+         */
+        public int getCommitCount()
+        {
+            return _commitCount;
+        }
+
+        /**
+         * Returns how often the auto-commit mode of the connection was changed.
+         *
+         * @return The number of changes
+         */
+        public int getAutoCommitSwitchCount()
+        {
+            return _autoCommitSwitchCount;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public Connection borrowConnection() throws DatabaseOperationException
+        {
+            return (Connection)createProxy(Connection.class);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void returnConnection(Connection connection)
+        {}
+
+        /**
+         * Creates a proxy for the given JDBC interface that is handled by this platform.
+         *
+         * @param type The interface
+         * @return The proxy
+         */
+        private Object createProxy(Class type)
+        {
+            return Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] { type }, this);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+        {
+            String name = method.getName();
+
+            if ("getAutoCommit".equals(name))
+            {
+                return _autoCommit ? Boolean.TRUE : Boolean.FALSE;
+            }
+            else if ("setAutoCommit".equals(name))
+            {
+                _autoCommit = ((Boolean)args[0]).booleanValue();
+                _autoCommitSwitchCount++;
+                return null;
+            }
+            else if ("commit".equals(name))
+            {
+                _committedInsertCount = _insertCount;
+                _commitCount++;
+                return null;
+            }
+            else if ("rollback".equals(name))
+            {
+                _insertCount = _committedInsertCount;
+                return null;
+            }
+            else if ("executeUpdate".equals(name))
+            {
+                if (_insertCount == _failAfterInsertCount)
+                {
+                    throw new SQLException("Could not insert the row");
+                }
+                _insertCount++;
+                return new Integer(1);
+            }
+            else if ("getInt".equals(name))
+            {
+                return new Integer(_insertCount);
+            }
+            else if ("next".equals(name))
+            {
+                return Boolean.TRUE;
+            }
+            else if ("hashCode".equals(name))
+            {
+                return new Integer(System.identityHashCode(proxy));
+            }
+            else if ("equals".equals(name))
+            {
+                return proxy == args[0] ? Boolean.TRUE : Boolean.FALSE;
+            }
+            else if ("toString".equals(name))
+            {
+                return "Recording " + method.getDeclaringClass().getName();
+            }
+            else if ("getMetaData".equals(name) || "prepareStatement".equals(name) ||
+                     "createStatement".equals(name) || "executeQuery".equals(name))
+            {
+                return createProxy(method.getReturnType());
+            }
+            else if (Boolean.TYPE.equals(method.getReturnType()))
+            {
+                return Boolean.FALSE;
+            }
+            else if (Integer.TYPE.equals(method.getReturnType()))
+            {
+                return new Integer(0);
+            }
+            else
+            {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * A platform that keeps the inserted rows in memory instead of inserting them into a
+     * database. Like a database, it generates the values of identity columns, and checks
+     * the primary and foreign keys of the inserted rows. The rows are committed and rolled
+     * back via the connections of the platform.
+     */
+    private static class RecordingPlatform extends HsqlDbPlatform
+    {
+        /** The inserted rows in the order of their insertion. */
+        private ArrayList _rows = new ArrayList();
+        /** The number of committed rows. */
+        private int _committedRowCount;
+        /** Whether the connection is in auto-commit mode. */
+        private boolean _autoCommit = true;
+        /** The number of inserted batches. */
+        private int _batchCount;
+        /** The next value of the identity columns. */
+        private int _nextIdentityValue = 100;
+        /** The number of rows after which the insertion of a row fails, or -1. */
+        private int _failAfterRowCount = -1;
+        /** The number of commands that fail when the indexes and foreign keys are enabled. */
+        private int _failingEnableCommandCount;
+        /** How often the indexes and foreign keys were enabled. */
+        private int _enableCount;
+
+        /**
+         * Returns the rows in the order of their insertion, including the uncommitted rows.
+         *
+         * @return The rows
+         */
+        public ArrayList getRows()
+        {
+            return _rows;
+        }
+
+        /**
+         * Returns the number of committed rows.
+         *
+         * @return The number of rows
+         */
+        public int getCommittedRowCount()
+        {
+            return _committedRowCount;
+        }
+
+        /**
+         * Returns the number of batches that were inserted.
+         *
+         * @return The number of batches
+         */
+        public int getBatchCount()
+        {
+            return _batchCount;
+        }
+
+        /**
+         * Lets the insertion of the row fail that follows the given number of rows.
+         *
+         * @param rowCount The number of rows, or -1 if no insertion shall fail
+         */
+        public void setFailAfterRowCount(int rowCount)
+        {
+            _failAfterRowCount = rowCount;
+        }
+
+        /**
+         * Lets the given number of commands fail when the indexes and foreign keys are enabled.
+         *
+         * @param commandCount The number of commands
+         */
+        public void setFailingEnableCommandCount(int commandCount)
+        {
+            _failingEnableCommandCount = commandCount;
+        }
+
+        /**
+         * Returns how often the indexes and foreign keys were enabled.
+         *
+         * @return The number of times
+         */
+        public int getEnableCount()
+        {
+            return _enableCount;
+        }
+
+        /**
+         * Returns the table of the given row.
+         *
+         * @param bean The row
+         * @return The table
+         */
+        public Table getTable(DynaBean bean)
+        {
+            return ((SqlDynaClass)bean.getDynaClass()).getTable();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public Connection borrowConnection() throws DatabaseOperationException
+        {
+            return (Connection)Proxy.newProxyInstance(getClass().getClassLoader(),
+                                                      new Class[] { Connection.class },
+                                                      new InvocationHandler()
+                {
+                    /**
+                     * {@inheritDoc}
+                     */
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+                    {
+                        if ("getAutoCommit".equals(method.getName()))
+                        {
+                            return _autoCommit ? Boolean.TRUE : Boolean.FALSE;
+                        }
+                        else if ("setAutoCommit".equals(method.getName()))
+                        {
+                            _autoCommit = ((Boolean)args[0]).booleanValue();
+                            return null;
+                        }
+                        else if ("commit".equals(method.getName()))
+                        {
+                            _committedRowCount = _rows.size();
+                            return null;
+                        }
+                        else if ("rollback".equals(method.getName()))
+                        {
+                            while (_rows.size() > _committedRowCount)
+                            {
+                                _rows.remove(_rows.size() - 1);
+                            }
+                            return null;
+                        }
+                        else
+                        {
+                            throw new UnsupportedOperationException(method.getName());
+                        }
+                    }
+                });
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void returnConnection(Connection connection)
+        {}
+
+        /**
+         * {@inheritDoc}
+         */
+        public void disableIndexesAndForeignKeys(Connection connection, Database model, boolean continueOnError) throws DatabaseOperationException
+        {}
+
+        /**
+         * {@inheritDoc}
+         */
+        public int enableIndexesAndForeignKeys(Connection connection, Database model, boolean continueOnError) throws DatabaseOperationException
+        {
+            _enableCount++;
+            if (!continueOnError && (_failingEnableCommandCount > 0))
+            {
+                throw new DatabaseOperationException("Could not enable the indexes and foreign keys");
+            }
+            return _failingEnableCommandCount;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void verifyForeignKeys(Connection connection, Database model) throws DatabaseOperationException
+        {}
+
+        /**
+         * {@inheritDoc}
+         */
+        public void insert(Connection connection, Database model, DynaBean dynaBean, boolean transactionManagedByCaller) throws DatabaseOperationException
+        {
+            insertRow(dynaBean);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public void insert(Connection connection, Database model, Collection dynaBeans) throws DatabaseOperationException
+        {
+            _batchCount++;
+            for (Iterator it = dynaBeans.iterator(); it.hasNext();)
+            {
+                insertRow((DynaBean)it.next());
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public boolean exists(Connection connection, Database model, DynaBean dynaBean)
+        {
+            Table    table     = getTable(dynaBean);
+            String[] pkColumns = getPrimaryKeyColumnNames(table);
+
+            return findRow(table, pkColumns, dynaBean, pkColumns) != null;
+        }
+
+        /**
+         * Returns the names of the primary key columns of the given table.
+         *
+         * @param table The table
+         * @return The column names
+         */
+        private String[] getPrimaryKeyColumnNames(Table table)
+        {
+            Column[] pkColumns     = table.getPrimaryKeyColumns();
+            String[] pkColumnNames = new String[pkColumns.length];
+
+            for (int idx = 0; idx < pkColumns.length; idx++)
+            {
+                pkColumnNames[idx] = pkColumns[idx].getName();
+            }
+            return pkColumnNames;
+        }
+
+        /**
+         * Inserts the given row after checking its primary and foreign keys.
+         *
+         * @param bean The row
+         */
+        private void insertRow(DynaBean bean) throws DatabaseOperationException
+        {
+            Table    table     = getTable(bean);
+            Column[] pkColumns = table.getPrimaryKeyColumns();
+
+            if (_rows.size() == _failAfterRowCount)
+            {
+                throw new DatabaseOperationException("Could not insert the row");
+            }
+            for (int idx = 0; idx < pkColumns.length; idx++)
+            {
+                if (pkColumns[idx].isAutoIncrement())
+                {
+                    bean.set(pkColumns[idx].getName(), new Integer(_nextIdentityValue++));
+                }
+            }
+
+            String[] pkColumnNames = getPrimaryKeyColumnNames(table);
+
+            if (findRow(table, pkColumnNames, bean, pkColumnNames) != null)
+            {
+                throw new DatabaseOperationException("Duplicate primary key in table " + table.getName());
+            }
+            for (int fkIdx = 0; fkIdx < table.getForeignKeyCount(); fkIdx++)
+            {
+                ForeignKey fk                 = table.getForeignKey(fkIdx);
+                String[]   localColumnNames   = new String[fk.getReferenceCount()];
+                String[]   foreignColumnNames = new String[fk.getReferenceCount()];
+                boolean    hasNull            = false;
+
+                for (int idx = 0; idx < fk.getReferenceCount(); idx++)
+                {
+                    localColumnNames[idx]   = fk.getReference(idx).getLocalColumnName();
+                    foreignColumnNames[idx] = fk.getReference(idx).getForeignColumnName();
+                    hasNull                |= (bean.get(localColumnNames[idx]) == null);
+                }
+                if (!hasNull && (findRow(fk.getForeignTable(), foreignColumnNames, bean, localColumnNames) == null))
+                {
+                    throw new DatabaseOperationException("Foreign key violation in table " + table.getName());
+                }
+            }
+            _rows.add(bean);
+            if (_autoCommit)
+            {
+                _committedRowCount = _rows.size();
+            }
+        }
+
+        /**
+         * Finds an inserted row of the given table whose values in the given columns are equal
+         * to the values of the given bean.
+         *
+         * @param table           The table
+         * @param columnNames     The columns of the table
+         * @param bean            The bean
+         * @param beanColumnNames The corresponding columns of the bean
+         * @return The row or <code>null</code> if there is none
+         */
+        private DynaBean findRow(Table table, String[] columnNames, DynaBean bean, String[] beanColumnNames)
+        {
+            for (Iterator it = _rows.iterator(); it.hasNext();)
+            {
+                DynaBean row   = (DynaBean)it.next();
+                boolean  match = (getTable(row) == table);
+
+                for (int idx = 0; match && (idx < columnNames.length); idx++)
+                {
+                    match = row.get(columnNames[idx]).equals(bean.get(beanColumnNames[idx]));
+                }
+                if (match)
+                {
+                    return row;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package org.apache.ddlutils.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.ddlutils.TestBase;
+import org.apache.ddlutils.model.Database;
+import org.apache.ddlutils.model.Table;
+
+/**
+ * Tests the {@link org.apache.ddlutils.io.IdentityMap} class.
+ *
+ * @version $Revision: $
+ */
+public class TestIdentityMap extends TestBase
+{
+    /** The test model. */
+    private static final String MODEL =
+        "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+        "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='test'>\n"+
+        "  <table name='item'>\n"+
+        "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+        "    <column name='code' type='VARCHAR' size='16' primaryKey='true' required='true'/>\n"+
+        "  </table>\n"+
+        "</database>";
+
+    /** The table of the identities. */
+    private Table _table;
+    /** The map. */
+    private IdentityMap _map;
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+
+        Database model = parseDatabaseFromString(MODEL);
+
+        _table = model.getTable(0);
+        _map   = new IdentityMap(model);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void tearDown() throws Exception
+    {
+        _map.clear();
+        _map   = null;
+        _table = null;
+        super.tearDown();
+    }
+
+    /**
+     * Creates an identity.
+     *
+     * @param id   The value of the id column
+     * @param code The value of the code column
+     * @return The identity
+     */
+    private Identity createIdentity(int id, String code)
+    {
+        Identity identity = new Identity(_table);
+
+        identity.setColumnValue("id", new Integer(id));
+        identity.setColumnValue("code", code);
+        return identity;
+    }
+
+    /**
+     * Tests that the mappings are held in memory if there is no spill threshold.
+     */
+    public void testWithoutSpilling() throws Exception
+    {
+        for (int idx = 0; idx < 5000; idx++)
+        {
+            _map.put(createIdentity(idx, "a"), createIdentity(idx + 100000, "a"));
+        }
+        assertEquals(5000, _map.size());
+        assertEquals(0, _map.getSpilledCount());
+        assertEquals(createIdentity(104999, "a"), _map.get(createIdentity(4999, "a")));
+        assertNull(_map.get(createIdentity(4999, "b")));
+    }
+
+    /**
+     * Tests that the mappings beyond the threshold are moved to the spill file and are
+     * read back from it.
+     */
+    public void testSpilling() throws Exception
+    {
+        _map.setSpillThreshold(100);
+        for (int idx = 0; idx < 5000; idx++)
+        {
+            _map.put(createIdentity(idx, "code" + idx), createIdentity(idx + 100000, "new" + idx));
+        }
+        assertEquals(5000, _map.size());
+        assertTrue(_map.getSpilledCount() >= 4900);
+        for (int idx = 0; idx < 5000; idx++)
+        {
+            Identity newIdentity = _map.get(createIdentity(idx, "code" + idx));
+
+            assertEquals(createIdentity(idx + 100000, "new" + idx), newIdentity);
+            assertSame(_table, newIdentity.getTable());
+        }
+        assertNull(_map.get(createIdentity(5000, "code5000")));
+        assertNull(_map.get(createIdentity(1, "code2")));
+
+        _map.clear();
+        assertEquals(0, _map.size());
+        assertNull(_map.get(createIdentity(1, "code1")));
+    }
+
+    /**
+     * Tests that replaced spilled mappings are found with their new values, also after the
+     * spill file has been compacted because of the replaced mappings.
+     */
+    public void testReplacingSpilledMappings() throws Exception
+    {
+        _map.setSpillThreshold(50);
+        for (int round = 0; round < 300; round++)
+        {
+            for (int idx = 0; idx < 100; idx++)
+            {
+                _map.put(createIdentity(idx, "code"), createIdentity(round, "round" + idx));
+            }
+        }
+        for (int idx = 0; idx < 100; idx++)
+        {
+            assertEquals(createIdentity(299, "round" + idx), _map.get(createIdentity(idx, "code")));
+        }
+    }
+}
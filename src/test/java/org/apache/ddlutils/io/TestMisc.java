@@ -25,9 +25,11 @@ import java.io.Reader;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.math.BigDecimal;
+import java.sql.Connection;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Properties;
 
 import junit.framework.Test;
 
@@ -1290,4 +1292,286 @@ public class TestMisc extends TestAgainstLiveDatabaseBase
         assertEquals(new Integer(1), beans.get(0), "Pk");
         assertEquals((Object)"foo",  beans.get(0), "Avalue");
     }
+
+    /**
+     * Tests that reading the tables with multiple threads when writing data to XML
+     * results in the same XML as reading them sequentially.
+     */
+    public void testParallelExport() throws Exception
+    {
+        final String modelXml = 
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='roundtriptest'>\n"+
+            "  <table name='misc1'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='avalue' type='VARCHAR' size='50' required='false'/>\n"+
+            "  </table>\n"+
+            "  <table name='misc2'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='fk' type='INTEGER' required='false'/>\n"+
+            "    <foreign-key foreignTable='misc1'>\n"+
+            "      <reference local='fk' foreign='pk'/>\n"+
+            "    </foreign-key>\n"+
+            "  </table>\n"+
+            "  <table name='misc3'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='fk' type='INTEGER' required='false'/>\n"+
+            "    <foreign-key foreignTable='misc2'>\n"+
+            "      <reference local='fk' foreign='pk'/>\n"+
+            "    </foreign-key>\n"+
+            "  </table>\n"+
+            "</database>";
+
+        createDatabase(modelXml);
+
+        for (int idx = 1; idx <= 20; idx++)
+        {
+            insertRow("misc1", new Object[] { new Integer(idx), "value" + idx });
+            insertRow("misc2", new Object[] { new Integer(idx), new Integer(21 - idx) });
+            insertRow("misc3", new Object[] { new Integer(idx), new Integer(idx) });
+        }
+
+        StringWriter   sequentialWriter = new StringWriter();
+        StringWriter   parallelWriter   = new StringWriter();
+        DatabaseDataIO dataIO           = new DatabaseDataIO();
+
+        dataIO.writeDataToXML(getPlatform(), getModel(), sequentialWriter, "UTF-8");
+
+        dataIO.setExportThreadCount(3);
+        // a small buffer forces the reader threads to wait for the writer
+        dataIO.setExportBufferSize(2);
+        dataIO.writeDataToXML(getPlatform(), getModel(), parallelWriter, "UTF-8");
+
+        assertEquals(sequentialWriter.toString(), parallelWriter.toString());
+    }
+
+    /**
+     * Tests that exporting the data in streaming mode with a small fetch size writes the
+     * same XML as the normal export, and that the platform settings are restored afterwards.
+     */
+    public void testStreamingExport() throws Exception
+    {
+        final String modelXml = 
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='roundtriptest'>\n"+
+            "  <table name='misc1'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='avalue' type='VARCHAR' size='50' required='false'/>\n"+
+            "  </table>\n"+
+            "</database>";
+
+        createDatabase(modelXml);
+
+        for (int idx = 1; idx <= 50; idx++)
+        {
+            insertRow("misc1", new Object[] { new Integer(idx), "value" + idx });
+        }
+
+        StringWriter   normalWriter    = new StringWriter();
+        StringWriter   streamingWriter = new StringWriter();
+        DatabaseDataIO dataIO          = new DatabaseDataIO();
+
+        dataIO.writeDataToXML(getPlatform(), getModel(), normalWriter, "UTF-8");
+
+        dataIO.setUseStreamingExport(true);
+        dataIO.setExportFetchSize(7);
+        dataIO.writeDataToXML(getPlatform(), getModel(), streamingWriter, "UTF-8");
+
+        assertEquals(normalWriter.toString(), streamingWriter.toString());
+        assertFalse(getPlatform().isStreamingModeOn());
+        assertEquals(0, getPlatform().getFetchSize());
+    }
+
+    /**
+     * Tests that reading the model with the meta data read in bulk results in the same
+     * model as reading the meta data per table.
+     */
+    public void testBulkModelReading() throws Exception
+    {
+        final String modelXml = 
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='roundtriptest'>\n"+
+            "  <table name='misc1'>\n"+
+            "    <column name='pk1' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='pk2' type='VARCHAR' size='20' primaryKey='true' required='true'/>\n"+
+            "    <column name='avalue' type='VARCHAR' size='50' required='false'/>\n"+
+            "    <index name='misc1_idx'>\n"+
+            "      <index-column name='avalue'/>\n"+
+            "    </index>\n"+
+            "  </table>\n"+
+            "  <table name='misc2'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='fk1' type='INTEGER' required='false'/>\n"+
+            "    <column name='fk2' type='VARCHAR' size='20' required='false'/>\n"+
+            "    <foreign-key name='misc2_fk' foreignTable='misc1'>\n"+
+            "      <reference local='fk1' foreign='pk1'/>\n"+
+            "      <reference local='fk2' foreign='pk2'/>\n"+
+            "    </foreign-key>\n"+
+            "  </table>\n"+
+            "</database>";
+
+        createDatabase(modelXml);
+
+        Database perTableModel = readModelFromDatabase("roundtriptest");
+        Database bulkModel;
+
+        getPlatform().setBulkModelReadModeOn(true);
+        try
+        {
+            bulkModel = readModelFromDatabase("roundtriptest");
+        }
+        finally
+        {
+            getPlatform().setBulkModelReadModeOn(false);
+        }
+
+        assertEquals(perTableModel, bulkModel);
+        assertEquals(getAdjustedModel(), bulkModel);
+    }
+
+    /**
+     * Tests that reading the model with several threads results in the same model as
+     * reading it with one thread.
+     */
+    public void testParallelModelReading() throws Exception
+    {
+        final String modelXml = 
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='roundtriptest'>\n"+
+            "  <table name='misc1'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='avalue' type='VARCHAR' size='50' required='false'/>\n"+
+            "    <index name='misc1_idx'>\n"+
+            "      <index-column name='avalue'/>\n"+
+            "    </index>\n"+
+            "  </table>\n"+
+            "  <table name='misc2'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='fk' type='INTEGER' required='false'/>\n"+
+            "    <foreign-key name='misc2_fk' foreignTable='misc1'>\n"+
+            "      <reference local='fk' foreign='pk'/>\n"+
+            "    </foreign-key>\n"+
+            "  </table>\n"+
+            "  <table name='misc3'>\n"+
+            "    <column name='pk' type='VARCHAR' size='20' primaryKey='true' required='true'/>\n"+
+            "    <column name='fk' type='INTEGER' required='false'/>\n"+
+            "    <foreign-key name='misc3_fk' foreignTable='misc2'>\n"+
+            "      <reference local='fk' foreign='pk'/>\n"+
+            "    </foreign-key>\n"+
+            "  </table>\n"+
+            "  <table name='misc4'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='avalue' type='DOUBLE' required='false'/>\n"+
+            "  </table>\n"+
+            "</database>";
+
+        createDatabase(modelXml);
+
+        Database sequentialModel = readModelFromDatabase("roundtriptest");
+        Database parallelModel;
+
+        getPlatform().getModelReader().setReadThreadCount(3);
+        try
+        {
+            parallelModel = readModelFromDatabase("roundtriptest");
+        }
+        finally
+        {
+            getPlatform().getModelReader().setReadThreadCount(1);
+        }
+
+        assertEquals(sequentialModel, parallelModel);
+        assertEquals(getAdjustedModel(), parallelModel);
+    }
+
+    /**
+     * Tests reading and altering a single table together with the tables linked to it.
+     */
+    public void testScopedAlteration() throws Exception
+    {
+        final String modelXml = 
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='roundtriptest'>\n"+
+            "  <table name='misc1'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "  </table>\n"+
+            "  <table name='misc2'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='fk' type='INTEGER' required='false'/>\n"+
+            "    <foreign-key name='misc2_fk' foreignTable='misc1'>\n"+
+            "      <reference local='fk' foreign='pk'/>\n"+
+            "    </foreign-key>\n"+
+            "  </table>\n"+
+            "  <table name='misc3'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='fk' type='INTEGER' required='false'/>\n"+
+            "    <foreign-key name='misc3_fk' foreignTable='misc2'>\n"+
+            "      <reference local='fk' foreign='pk'/>\n"+
+            "    </foreign-key>\n"+
+            "  </table>\n"+
+            "  <table name='misc4'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "  </table>\n"+
+            "</database>";
+        final String modelXml2 = 
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='roundtriptest'>\n"+
+            "  <table name='misc1'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "  </table>\n"+
+            "  <table name='misc2'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='fk' type='INTEGER' required='false'/>\n"+
+            "    <column name='avalue' type='INTEGER' required='false'/>\n"+
+            "    <foreign-key name='misc2_fk' foreignTable='misc1'>\n"+
+            "      <reference local='fk' foreign='pk'/>\n"+
+            "    </foreign-key>\n"+
+            "  </table>\n"+
+            "  <table name='misc3'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='fk' type='INTEGER' required='false'/>\n"+
+            "    <foreign-key name='misc3_fk' foreignTable='misc2'>\n"+
+            "      <reference local='fk' foreign='pk'/>\n"+
+            "    </foreign-key>\n"+
+            "  </table>\n"+
+            "  <table name='misc4'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='avalue' type='INTEGER' required='false'/>\n"+
+            "  </table>\n"+
+            "</database>";
+
+        createDatabase(modelXml);
+
+        Properties props      = getTestProperties();
+        String     catalog    = props.getProperty(DDLUTILS_CATALOG_PROPERTY);
+        String     schema     = props.getProperty(DDLUTILS_SCHEMA_PROPERTY);
+        Connection connection = getPlatform().borrowConnection();
+
+        try
+        {
+            Database scopedModel = getPlatform().readModelFromDatabase(connection, "roundtriptest", catalog, schema, null, new String[] { "misc2" });
+
+            assertEquals(3, scopedModel.getTableCount());
+            assertNotNull(scopedModel.findTable("misc1"));
+            assertNotNull(scopedModel.findTable("misc3"));
+            assertNull(scopedModel.findTable("misc4"));
+            assertEquals(1, scopedModel.findTable("misc3").getForeignKeyCount());
+
+            Database desiredModel = parseDatabaseFromString(modelXml2);
+
+            getPlatform().alterTables(connection, catalog, schema, null, desiredModel, new String[] { "misc2" },
+                                      getTableCreationParameters(desiredModel), false);
+        }
+        finally
+        {
+            getPlatform().returnConnection(connection);
+        }
+
+        Database model = readModelFromDatabase("roundtriptest");
+
+        assertEquals(4, model.getTableCount());
+        assertEquals(3, model.findTable("misc2").getColumnCount());
+        assertEquals(1, model.findTable("misc3").getForeignKeyCount());
+        assertEquals(1, model.findTable("misc4").getColumnCount());
+    }
 }
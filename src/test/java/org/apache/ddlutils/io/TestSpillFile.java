@@ -0,0 +1,172 @@
+package org.apache.ddlutils.io;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the {@link org.apache.ddlutils.io.SpillFile} class.
+ *
+ * @version $Revision: $
+ */
+public class TestSpillFile extends TestCase
+{
+    /**
+     * Creates a record of the given length whose bytes are derived from the given number.
+     *
+     * @param number The number
+     * @param length The length of the record
+     * @return The record
+     */
+    private byte[] createRecord(int number, int length)
+    {
+        byte[] result = new byte[length];
+
+        for (int idx = 0; idx < length; idx++)
+        {
+            result[idx] = (byte)(number + idx);
+        }
+        return result;
+    }
+
+    /**
+     * Tests that the column values are read back as they were written.
+     */
+    public void testValueRoundTrip() throws Exception
+    {
+        Timestamp timestamp = new Timestamp(1000000L);
+
+        timestamp.setNanos(123456789);
+
+        Object[] values = new Object[] { null, "Text \u00e4\u20ac", new Integer(-5), new Long(1L << 40),
+                                         new Short((short)3), new Byte((byte)-1), new Double(2.5), new Float(1.5f),
+                                         Boolean.TRUE, new BigDecimal("12345.6789"), timestamp,
+                                         new java.sql.Date(86400000L), new java.sql.Time(3600000L),
+                                         new java.util.Date(5000L), new byte[] { 1, 2, 3 } };
+
+        ByteArrayOutputStream bytes  = new ByteArrayOutputStream();
+        DataOutputStream      output = new DataOutputStream(bytes);
+
+        for (int idx = 0; idx < values.length; idx++)
+        {
+            SpillFile.writeValue(output, values[idx]);
+        }
+        output.close();
+
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+
+        for (int idx = 0; idx < values.length - 1; idx++)
+        {
+            Object value = SpillFile.readValue(input);
+
+            assertEquals(values[idx], value);
+            assertTrue((values[idx] == null) || values[idx].getClass().equals(value.getClass()));
+        }
+        assertTrue(Arrays.equals((byte[])values[values.length - 1], (byte[])SpillFile.readValue(input)));
+        assertEquals(-1, input.read());
+    }
+
+    /**
+     * Tests that the records are read back via their offsets, and that the file is deleted
+     * when it is closed.
+     */
+    public void testRecordRoundTrip() throws Exception
+    {
+        SpillFile file    = new SpillFile();
+        File      path    = file.getFile();
+        long[]    offsets = new long[100];
+
+        try
+        {
+            for (int idx = 0; idx < offsets.length; idx++)
+            {
+                offsets[idx] = file.append(createRecord(idx, idx * 3));
+            }
+            assertTrue(path.exists());
+            for (int idx = offsets.length - 1; idx >= 0; idx--)
+            {
+                assertTrue(Arrays.equals(createRecord(idx, idx * 3), file.read(offsets[idx])));
+            }
+        }
+        finally
+        {
+            file.close();
+        }
+        assertFalse(path.exists());
+    }
+
+    /**
+     * Tests that compacting the file drops the released records and keeps the others.
+     */
+    public void testCompaction() throws Exception
+    {
+        SpillFile file    = new SpillFile();
+        File      oldPath = file.getFile();
+        long[]    offsets = new long[1000];
+
+        try
+        {
+            for (int idx = 0; idx < offsets.length; idx++)
+            {
+                offsets[idx] = file.append(createRecord(idx, 2000));
+            }
+            for (int idx = 0; idx < offsets.length; idx += 4)
+            {
+                file.release(offsets[idx]);
+                file.release(offsets[idx + 1]);
+            }
+            assertFalse(file.isCompactionDue());
+            file.release(offsets[2]);
+            assertTrue(file.isCompactionDue());
+
+            long[] liveOffsets = new long[offsets.length / 4];
+
+            for (int idx = 0; idx < liveOffsets.length; idx++)
+            {
+                liveOffsets[idx] = offsets[4 * idx + 3];
+            }
+
+            long[] newOffsets = file.compact(liveOffsets);
+
+            assertFalse(oldPath.exists());
+            assertEquals(liveOffsets.length * 2004, file.getLength());
+            assertEquals(0, file.getReleasedLength());
+            assertFalse(file.isCompactionDue());
+            for (int idx = 0; idx < newOffsets.length; idx++)
+            {
+                assertTrue(Arrays.equals(createRecord(4 * idx + 3, 2000), file.read(newOffsets[idx])));
+            }
+        }
+        finally
+        {
+            file.close();
+        }
+        assertFalse(file.getFile().exists());
+    }
+}
@@ -0,0 +1,277 @@
+package org.apache.ddlutils.model;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the lookup of tables, columns, indexes and foreign keys by name.
+ *
+ * @version $Revision: $
+ */
+public class TestNameLookups extends TestCase
+{
+    /**
+     * Creates a column.
+     *
+     * @param name The name of the column
+     * @return The column
+     */
+    private Column createColumn(String name)
+    {
+        Column column = new Column();
+
+        column.setName(name);
+        return column;
+    }
+
+    /**
+     * Creates a table.
+     *
+     * @param name        The name of the table
+     * @param columnCount The number of columns of the table
+     * @return The table
+     */
+    private Table createTable(String name, int columnCount)
+    {
+        Table table = new Table();
+
+        table.setName(name);
+        for (int idx = 0; idx < columnCount; idx++)
+        {
+            table.addColumn(createColumn(name + "_Col" + idx));
+        }
+        return table;
+    }
+
+    /**
+     * Tests case sensitive and insensitive lookups of columns.
+     */
+    public void testFindColumn()
+    {
+        Table  table   = createTable("Test", 0);
+        Column column1 = createColumn("Id");
+        Column column2 = createColumn("ID");
+        Column column3 = createColumn("Value");
+
+        table.addColumn(column1);
+        table.addColumn(column2);
+        table.addColumn(column3);
+
+        assertSame(column1, table.findColumn("Id", true));
+        assertSame(column2, table.findColumn("ID", true));
+        assertNull(table.findColumn("id", true));
+        // the first matching column wins
+        assertSame(column1, table.findColumn("id", false));
+        assertSame(column1, table.findColumn("ID"));
+        assertSame(column3, table.findColumn("VALUE"));
+        assertNull(table.findColumn("Other"));
+        assertNull(table.findColumn(null));
+        assertEquals(0, table.getColumnIndex(column1));
+        assertEquals(2, table.getColumnIndex(column3));
+        assertEquals(-1, table.getColumnIndex(createColumn("Id")));
+    }
+
+    /**
+     * Tests that the lookups reflect changes of the columns and their names.
+     */
+    public void testFindColumnAfterChanges()
+    {
+        Table  table   = createTable("Test", 0);
+        Column column1 = createColumn("Id");
+        Column column2 = createColumn("Value");
+        Column column3 = createColumn("Other");
+
+        table.addColumn(column1);
+        table.addColumn(column2);
+        assertSame(column2, table.findColumn("value"));
+        assertEquals(1, table.getColumnIndex(column2));
+
+        table.addColumn(0, column3);
+        assertSame(column3, table.findColumn("other"));
+        assertEquals(2, table.getColumnIndex(column2));
+
+        table.removeColumn(column2);
+        assertNull(table.findColumn("value"));
+        assertEquals(-1, table.getColumnIndex(column2));
+
+        column1.setName("Key");
+        assertNull(table.findColumn("Id", true));
+        assertSame(column1, table.findColumn("KEY"));
+
+        table.removeAllColumns();
+        assertNull(table.findColumn("Key"));
+    }
+
+    /**
+     * Tests the lookups of indexes and foreign keys.
+     */
+    public void testFindIndexAndForeignKey()
+    {
+        Table      table = createTable("Test", 2);
+        Index      index = new NonUniqueIndex();
+        ForeignKey fk    = new ForeignKey("FK_Test");
+
+        index.setName("IDX_Test");
+        table.addIndex(index);
+        table.addForeignKey(fk);
+
+        assertSame(index, table.findIndex("idx_test"));
+        assertNull(table.findIndex("idx_test", true));
+        assertSame(fk, table.findForeignKey("FK_TEST"));
+        assertSame(fk, table.findForeignKey("FK_Test", true));
+
+        index.setName("IDX_Other");
+        fk.setName("FK_Other");
+        assertNull(table.findIndex("IDX_Test"));
+        assertSame(index, table.findIndex("IDX_Other", true));
+        assertNull(table.findForeignKey("FK_Test"));
+        assertSame(fk, table.findForeignKey("fk_other"));
+
+        table.removeIndex(index);
+        table.removeForeignKey(fk);
+        assertNull(table.findIndex("IDX_Other"));
+        assertNull(table.findForeignKey("FK_Other"));
+    }
+
+    /**
+     * Tests the lookups of the tables in a large model.
+     */
+    public void testFindTableInLargeModel()
+    {
+        Database model = new Database("test");
+
+        for (int idx = 0; idx < 2000; idx++)
+        {
+            model.addTable(createTable("Table" + idx, idx % 100 == 0 ? 300 : 5));
+        }
+        for (int idx = 0; idx < 2000; idx++)
+        {
+            Table table = model.findTable("TABLE" + idx);
+
+            assertSame(model.getTable(idx), table);
+            assertSame(table, model.findTable("Table" + idx, true));
+            assertNull(model.findTable("TABLE" + idx, true));
+            for (int columnIdx = 0; columnIdx < table.getColumnCount(); columnIdx++)
+            {
+                Column column = table.findColumn("table" + idx + "_col" + columnIdx);
+
+                assertSame(table.getColumn(columnIdx), column);
+                assertEquals(columnIdx, table.getColumnIndex(column));
+            }
+        }
+
+        Table table = model.getTable(1000);
+
+        table.setName("Renamed");
+        assertNull(model.findTable("Table1000"));
+        assertSame(table, model.findTable("RENAMED"));
+
+        model.removeTable(table);
+        assertNull(model.findTable("Renamed"));
+        assertSame(model.getTable(1000), model.findTable("Table1001"));
+    }
+
+    /**
+     * Tests that renaming a column that is contained in two tables is reflected by the
+     * lookups of both tables, but not by the lookups of a third table.
+     */
+    public void testRenameSharedColumn()
+    {
+        Table  table1 = createTable("Test1", 3);
+        Table  table2 = createTable("Test2", 3);
+        Table  table3 = createTable("Test3", 3);
+        Column column = createColumn("Shared");
+
+        table1.addColumn(column);
+        table2.addColumn(0, column);
+        assertSame(column, table1.findColumn("shared"));
+        assertSame(column, table2.findColumn("shared"));
+        assertSame(table3.getColumn(1), table3.findColumn("test3_col1"));
+
+        column.setName("Renamed");
+        assertNull(table1.findColumn("Shared"));
+        assertNull(table2.findColumn("Shared"));
+        assertSame(column, table1.findColumn("renamed"));
+        assertSame(column, table2.findColumn("renamed"));
+        assertEquals(3, table1.getColumnIndex(column));
+        assertEquals(0, table2.getColumnIndex(column));
+        assertSame(table3.getColumn(1), table3.findColumn("test3_col1"));
+    }
+
+    /**
+     * Tests that multiple threads can look up the columns of the same table while the
+     * index is built.
+     */
+    public void testConcurrentLookups() throws Exception
+    {
+        final Table    table    = createTable("Test", 500);
+        final String[] failures = new String[8];
+        Thread[]       threads  = new Thread[failures.length];
+
+        for (int idx = 0; idx < threads.length; idx++)
+        {
+            final int threadIdx = idx;
+
+            threads[idx] = new Thread()
+            {
+                public void run()
+                {
+                    for (int columnIdx = 0; (failures[threadIdx] == null) && (columnIdx < table.getColumnCount()); columnIdx++)
+                    {
+                        Column column = table.getColumn(columnIdx);
+
+                        if ((table.findColumn("TEST_COL" + columnIdx) != column) || (table.getColumnIndex(column) != columnIdx))
+                        {
+                            failures[threadIdx] = "Column " + columnIdx + " not found";
+                        }
+                    }
+                }
+            };
+        }
+        for (int idx = 0; idx < threads.length; idx++)
+        {
+            threads[idx].start();
+        }
+        for (int idx = 0; idx < threads.length; idx++)
+        {
+            threads[idx].join();
+            assertNull(failures[idx], failures[idx]);
+        }
+    }
+
+    /**
+     * Tests that case folding matches {@link String#equalsIgnoreCase(String)}.
+     */
+    public void testFoldCase()
+    {
+        String[] names = { "abc", "ABC", "aBc", "stra\u00dfe", "STRASSE", "\u0130", "i", "I", "\u0131", "\u03a3", "\u03c2", "\u03c3" };
+
+        for (int idx1 = 0; idx1 < names.length; idx1++)
+        {
+            for (int idx2 = 0; idx2 < names.length; idx2++)
+            {
+                assertEquals(names[idx1] + " vs. " + names[idx2],
+                             names[idx1].equalsIgnoreCase(names[idx2]),
+                             NameIndex.foldCase(names[idx1]).equals(NameIndex.foldCase(names[idx2])));
+            }
+        }
+    }
+}
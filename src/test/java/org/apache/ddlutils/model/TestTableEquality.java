@@ -0,0 +1,87 @@
+package org.apache.ddlutils.model;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.sql.Types;
+import java.util.HashSet;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the {@link Table#equals(Object)} and {@link Table#hashCode()} methods.
+ *
+ * @version $Revision: $
+ */
+public class TestTableEquality extends TestCase
+{
+    /**
+     * Creates a table with an id column and a value column.
+     *
+     * @param name      The name of the table
+     * @param valueType The JDBC type of the value column
+     * @return The table
+     */
+    private Table createTable(String name, int valueType)
+    {
+        Table  table       = new Table();
+        Column idColumn    = new Column();
+        Column valueColumn = new Column();
+
+        idColumn.setName("id");
+        idColumn.setTypeCode(Types.INTEGER);
+        idColumn.setPrimaryKey(true);
+        valueColumn.setName("value");
+        valueColumn.setTypeCode(valueType);
+        table.setName(name);
+        table.addColumn(idColumn);
+        table.addColumn(valueColumn);
+        return table;
+    }
+
+    /**
+     * Tests that tables are compared structurally, and that equal tables have equal hash codes.
+     */
+    public void testStructuralEquality()
+    {
+        Table table1 = createTable("test", Types.VARCHAR);
+        Table table2 = createTable("test", Types.VARCHAR);
+        Table table3 = createTable("test", Types.INTEGER);
+        Table table4 = createTable("other", Types.VARCHAR);
+
+        assertEquals(table1, table1);
+        assertEquals(table1, table2);
+        assertEquals(table1.hashCode(), table2.hashCode());
+        assertFalse(table1.equals(table3));
+        assertFalse(table1.equals(table4));
+        assertFalse(table1.equals(null));
+
+        table2.removeColumn(1);
+        assertFalse(table1.equals(table2));
+
+        HashSet tables = new HashSet();
+
+        tables.add(table1);
+        tables.add(table4);
+        assertTrue(tables.contains(table1));
+        assertTrue(tables.contains(createTable("test", Types.VARCHAR)));
+        assertFalse(tables.contains(table3));
+        assertTrue(tables.contains(table4));
+    }
+}
@@ -0,0 +1,137 @@
+package org.apache.ddlutils.platform;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ddlutils.Platform;
+import org.apache.ddlutils.model.Column;
+import org.apache.ddlutils.model.Table;
+
+/**
+ * Bulk loader for tests that uses the text format of a given bulk loader, but records the
+ * statements and the streamed payloads instead of sending them to the database.
+ *
+ * @version $Revision: $
+ */
+public class RecordingBulkLoader extends TextBulkLoaderBase
+{
+    /** The loader whose value format is used. */
+    private TextBulkLoaderBase _format;
+    /** The recorded statements. */
+    private List _statements = new ArrayList();
+    /** The recorded payloads. */
+    private List _payloads = new ArrayList();
+
+    /**
+     * Creates a new recording bulk loader.
+     *
+     * @param platform The platform whose SQL builder creates the statements
+     * @param format   The loader whose value format shall be used
+     */
+    public RecordingBulkLoader(Platform platform, TextBulkLoaderBase format)
+    {
+        super(platform);
+        _format = format;
+    }
+
+    /**
+     * Returns the recorded statements.
+     *
+     * @return The statements
+     */
+    public List getStatements()
+    {
+        return _statements;
+    }
+
+    /**
+     * Returns the recorded payloads, decoded as UTF-8.
+     *
+     * @return The payloads
+     */
+    public List getPayloads()
+    {
+        return _payloads;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean isSupported(Connection connection)
+    {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected long load(Connection connection, String sql, InputStream data) throws SQLException
+    {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        byte[]                buffer  = new byte[7];
+        int                   rows    = 0;
+
+        try
+        {
+            // we use a small buffer so that rows are read in several steps
+            for (int count = data.read(buffer); count >= 0; count = data.read(buffer))
+            {
+                payload.write(buffer, 0, count);
+            }
+
+            String text = new String(payload.toByteArray(), "UTF-8");
+
+            for (int idx = text.indexOf('\n'); idx >= 0; idx = text.indexOf('\n', idx + 1))
+            {
+                rows++;
+            }
+            _statements.add(sql);
+            _payloads.add(text);
+        }
+        catch (IOException ex)
+        {
+            throw new SQLException(ex.getMessage());
+        }
+        return rows;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected String getBulkLoadSql(Table table, Column[] columns)
+    {
+        return _format.getBulkLoadSql(table, columns);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected String formatValue(Column column, Object value)
+    {
+        return _format.formatValue(column, value);
+    }
+}
@@ -0,0 +1,250 @@
+package org.apache.ddlutils.platform;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.StringReader;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.HashMap;
+
+import org.apache.ddlutils.io.DatabaseIO;
+import org.apache.ddlutils.model.Database;
+import org.apache.ddlutils.platform.hsqldb.HsqlDbPlatform;
+
+/**
+ * Measures how fast the {@link ModelBasedResultSetIterator} reads the rows of tables with
+ * many columns. The rows come from an in-memory result set that looks up columns by name
+ * case-insensitively like most JDBC drivers do, so that only the cost of the iterator
+ * itself is measured. This is not a unit test; run it via
+ * <pre>
+ * java -cp &lt;classpath&gt; org.apache.ddlutils.platform.ResultSetIteratorBenchmark [rows [columns...]]
+ * </pre>
+ * The defaults are 20000 rows and tables with 20 and with 150 columns. For each table, the
+ * best time of five runs is printed.
+ *
+ * @version $Revision: $
+ */
+public class ResultSetIteratorBenchmark
+{
+    /** The number of runs per table. */
+    private static final int RUN_COUNT = 5;
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args The number of rows, followed by the numbers of columns of the tables
+     */
+    public static void main(String[] args) throws Exception
+    {
+        int   rowCount     = (args.length > 0 ? Integer.parseInt(args[0]) : 20000);
+        int[] columnCounts = (args.length > 1 ? new int[args.length - 1] : new int[] { 20, 150 });
+
+        for (int idx = 1; idx < args.length; idx++)
+        {
+            columnCounts[idx - 1] = Integer.parseInt(args[idx]);
+        }
+        for (int idx = 0; idx < columnCounts.length; idx++)
+        {
+            long bestTime = Long.MAX_VALUE;
+
+            for (int run = 0; run < RUN_COUNT; run++)
+            {
+                bestTime = Math.min(bestTime, runOnce(rowCount, columnCounts[idx]));
+            }
+            System.out.println(columnCounts[idx] + " columns, " + rowCount + " rows: " + bestTime + " ms");
+        }
+    }
+
+    /**
+     * Reads all rows of a table with the given number of columns once.
+     *
+     * @param rowCount    The number of rows
+     * @param columnCount The number of columns
+     * @return The time in milliseconds
+     */
+    private static long runOnce(int rowCount, int columnCount) throws Exception
+    {
+        PlatformImplBase platform  = new HsqlDbPlatform();
+        Database         model     = createModel(columnCount);
+        ResultSet        resultSet = createResultSet(columnCount, rowCount);
+        long             startTime = System.currentTimeMillis();
+        int              readCount = 0;
+
+        for (ModelBasedResultSetIterator it = new ModelBasedResultSetIterator(platform, model, resultSet, null, false); it.hasNext();)
+        {
+            it.next();
+            readCount++;
+        }
+        if (readCount != rowCount)
+        {
+            throw new IllegalStateException("Read " + readCount + " instead of " + rowCount + " rows");
+        }
+        return System.currentTimeMillis() - startTime;
+    }
+
+    /**
+     * Returns the name of the indicated column.
+     *
+     * @param columnIdx The index of the column, starting with 0
+     * @return The name
+     */
+    private static String getColumnName(int columnIdx)
+    {
+        return columnIdx == 0 ? "ID" : "COLUMN_" + columnIdx;
+    }
+
+    /**
+     * Creates a model with one table with the given number of columns. Every other column
+     * is an INTEGER column, the rest are VARCHAR columns.
+     *
+     * @param columnCount The number of columns
+     * @return The model
+     */
+    private static Database createModel(int columnCount)
+    {
+        StringBuffer xml = new StringBuffer();
+
+        xml.append("<?xml version='1.0' encoding='ISO-8859-1'?>\n");
+        xml.append("<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='benchmark'>\n");
+        xml.append("  <table name='WIDE'>\n");
+        xml.append("    <column name='ID' type='INTEGER' primaryKey='true' required='true'/>\n");
+        for (int idx = 1; idx < columnCount; idx++)
+        {
+            xml.append("    <column name='" + getColumnName(idx) + "'");
+            xml.append(idx % 2 == 0 ? " type='INTEGER'/>\n" : " type='VARCHAR' size='32'/>\n");
+        }
+        xml.append("  </table>\n");
+        xml.append("</database>");
+
+        DatabaseIO modelIO = new DatabaseIO();
+
+        modelIO.setValidateXml(false);
+        return modelIO.read(new StringReader(xml.toString()));
+    }
+
+    /**
+     * Creates an in-memory result set with the given number of rows for the table of the
+     * model created by {@link #createModel(int)}.
+     *
+     * @param columnCount The number of columns
+     * @param rowCount    The number of rows
+     * @return The result set
+     */
+    private static ResultSet createResultSet(final int columnCount, final int rowCount)
+    {
+        final Object[] values        = new Object[columnCount];
+        final HashMap  columnIndices = new HashMap();
+
+        for (int idx = 0; idx < columnCount; idx++)
+        {
+            values[idx] = (idx % 2 == 0 ? (Object)new Integer(idx) : "value " + idx);
+            columnIndices.put(getColumnName(idx).toLowerCase(), new Integer(idx));
+        }
+
+        final ResultSetMetaData metaData = (ResultSetMetaData)Proxy.newProxyInstance(ResultSetIteratorBenchmark.class.getClassLoader(),
+                                                                                     new Class[] { ResultSetMetaData.class },
+                                                                                     new InvocationHandler()
+            {
+                /**
+                 * {@inheritDoc}
+                 */
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+                {
+                    if ("getColumnCount".equals(method.getName()))
+                    {
+                        return new Integer(columnCount);
+                    }
+                    else if ("getColumnName".equals(method.getName()) || "getColumnLabel".equals(method.getName()))
+                    {
+                        return getColumnName(((Integer)args[0]).intValue() - 1);
+                    }
+                    else if ("getTableName".equals(method.getName()))
+                    {
+                        return "WIDE";
+                    }
+                    else
+                    {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                }
+            });
+
+        return (ResultSet)Proxy.newProxyInstance(ResultSetIteratorBenchmark.class.getClassLoader(),
+                                                 new Class[] { ResultSet.class },
+                                                 new InvocationHandler()
+            {
+                /** The current row, starting with 1. */
+                private int _row = 0;
+
+                /**
+                 * {@inheritDoc}
+                 */
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+                {
+                    String name = method.getName();
+
+                    if ("next".equals(name))
+                    {
+                        _row++;
+                        return _row <= rowCount ? Boolean.TRUE : Boolean.FALSE;
+                    }
+                    else if ("wasNull".equals(name))
+                    {
+                        return Boolean.FALSE;
+                    }
+                    else if ("getMetaData".equals(name))
+                    {
+                        return metaData;
+                    }
+                    else if ("close".equals(name))
+                    {
+                        return null;
+                    }
+                    else if (name.startsWith("get") && (args != null) && (args.length == 1))
+                    {
+                        int columnIdx;
+
+                        if (args[0] instanceof String)
+                        {
+                            Integer index = (Integer)columnIndices.get(((String)args[0]).toLowerCase());
+
+                            if (index == null)
+                            {
+                                throw new IllegalArgumentException("Unknown column " + args[0]);
+                            }
+                            columnIdx = index.intValue();
+                        }
+                        else
+                        {
+                            columnIdx = ((Integer)args[0]).intValue() - 1;
+                        }
+                        return values[columnIdx];
+                    }
+                    else
+                    {
+                        throw new UnsupportedOperationException(name);
+                    }
+                }
+            });
+    }
+}
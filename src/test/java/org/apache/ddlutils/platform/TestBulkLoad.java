@@ -0,0 +1,254 @@
+package org.apache.ddlutils.platform;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.beanutils.DynaBean;
+import org.apache.ddlutils.DatabaseOperationException;
+import org.apache.ddlutils.TestBase;
+import org.apache.ddlutils.io.DatabaseIO;
+import org.apache.ddlutils.model.Database;
+import org.apache.ddlutils.platform.mysql.MySqlBulkLoader;
+import org.apache.ddlutils.platform.mysql.MySqlPlatform;
+import org.apache.ddlutils.platform.postgresql.PostgreSqlBulkLoader;
+import org.apache.ddlutils.platform.postgresql.PostgreSqlPlatform;
+
+/**
+ * Tests the bulk loading of data via {@link org.apache.ddlutils.platform.TextBulkLoaderBase}
+ * implementations.
+ *
+ * @version $Revision: $
+ */
+public class TestBulkLoad extends TestBase
+{
+    /** The test model. */
+    private static final String MODEL_XML =
+        "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+        "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='ddlutils'>\n"+
+        "  <table name='TestTable'>\n"+
+        "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+        "    <column name='name' type='VARCHAR' size='32'/>\n"+
+        "    <column name='data' type='VARBINARY' size='16'/>\n"+
+        "    <column name='flag' type='BOOLEAN'/>\n"+
+        "    <column name='created' type='TIMESTAMP'/>\n"+
+        "    <column name='status' type='INTEGER' default='1'/>\n"+
+        "  </table>\n"+
+        "  <table name='OtherTable'>\n"+
+        "    <column name='id' type='INTEGER' primaryKey='true' required='true' autoIncrement='true'/>\n"+
+        "    <column name='name' type='VARCHAR' size='32'/>\n"+
+        "  </table>\n"+
+        "</database>";
+
+    /**
+     * Creates a bean for the test table.
+     *
+     * @param model The model
+     * @param id    The id
+     * @param name  The name
+     * @return The bean
+     */
+    private DynaBean createTestBean(Database model, int id, String name)
+    {
+        DynaBean bean = model.createDynaBeanFor("TestTable", false);
+
+        bean.set("id", new Integer(id));
+        bean.set("name", name);
+        bean.set("status", new Integer(2));
+        return bean;
+    }
+
+    /**
+     * Tests the payload streamed for PostgreSQL.
+     */
+    public void testPostgreSqlPayload()
+    {
+        Database            model    = parseDatabaseFromString(MODEL_XML);
+        PostgreSqlPlatform  platform = new PostgreSqlPlatform();
+        RecordingBulkLoader loader   = new RecordingBulkLoader(platform, new PostgreSqlBulkLoader(platform));
+        List                beans    = new ArrayList();
+        DynaBean            bean     = createTestBean(model, 1, "a\tb\\c\nd");
+
+        bean.set("data", new byte[] { 1, (byte)0xFF });
+        bean.set("flag", Boolean.TRUE);
+        bean.set("created", Timestamp.valueOf("2007-01-02 03:04:05.0"));
+        beans.add(bean);
+        beans.add(createTestBean(model, 2, null));
+
+        platform.setBulkLoader(loader);
+        platform.bulkLoad(null, model, beans);
+
+        assertEquals(1, loader.getStatements().size());
+        assertEquals("COPY TestTable (id, name, data, flag, created, status) FROM STDIN",
+                     loader.getStatements().get(0));
+        assertEquals("1\ta\\tb\\\\c\\nd\t\\\\001\\\\377\ttrue\t2007-01-02 03:04:05.0\t2\n" +
+                     "2\t\\N\t\\N\t\\N\t\\N\t2\n",
+                     loader.getPayloads().get(0));
+    }
+
+    /**
+     * Tests the payload streamed for MySQL.
+     */
+    public void testMySqlPayload()
+    {
+        Database            model    = parseDatabaseFromString(MODEL_XML);
+        MySqlPlatform       platform = new MySqlPlatform();
+        RecordingBulkLoader loader   = new RecordingBulkLoader(platform, new MySqlBulkLoader(platform));
+        List                beans    = new ArrayList();
+        DynaBean            bean     = createTestBean(model, 1, "text");
+
+        bean.set("data", new byte[] { 1, (byte)0xFF });
+        bean.set("flag", Boolean.FALSE);
+        beans.add(bean);
+
+        platform.setDelimitedIdentifierModeOn(true);
+        platform.setBulkLoader(loader);
+        platform.bulkLoad(null, model, beans);
+
+        assertEquals(1, loader.getStatements().size());
+        assertEquals("LOAD DATA LOCAL INFILE 'ddlutils.txt' INTO TABLE `TestTable` CHARACTER SET utf8 " +
+                     "(`id`, `name`, @v2, `flag`, `created`, `status`) SET `data` = UNHEX(@v2)",
+                     loader.getStatements().get(0));
+        assertEquals("1\ttext\t01FF\t0\t\\N\t2\n",
+                     loader.getPayloads().get(0));
+    }
+
+    /**
+     * Tests that the beans are loaded together per table and written properties.
+     */
+    public void testGrouping()
+    {
+        Database            model    = parseDatabaseFromString(MODEL_XML);
+        PostgreSqlPlatform  platform = new PostgreSqlPlatform();
+        RecordingBulkLoader loader   = new RecordingBulkLoader(platform, new PostgreSqlBulkLoader(platform));
+        List                beans    = new ArrayList();
+        DynaBean            other    = model.createDynaBeanFor("OtherTable", false);
+        DynaBean            noStatus = createTestBean(model, 4, "d");
+
+        other.set("id", new Integer(10));
+        other.set("name", "x");
+        // the status column has a default value and is thus not written if the bean has no value for it
+        noStatus.set("status", null);
+
+        beans.add(createTestBean(model, 1, "a"));
+        beans.add(createTestBean(model, 2, "b"));
+        beans.add(other);
+        beans.add(createTestBean(model, 3, "c"));
+        beans.add(noStatus);
+
+        platform.setBulkLoader(loader);
+        platform.bulkLoad(null, model, beans);
+
+        assertEquals(4, loader.getStatements().size());
+        assertEquals("COPY TestTable (id, name, data, flag, created, status) FROM STDIN",
+                     loader.getStatements().get(0));
+        assertEquals("1\ta\t\\N\t\\N\t\\N\t2\n2\tb\t\\N\t\\N\t\\N\t2\n",
+                     loader.getPayloads().get(0));
+        // the identity value is defined by the database
+        assertEquals("COPY OtherTable (name) FROM STDIN",
+                     loader.getStatements().get(1));
+        assertEquals("x\n",
+                     loader.getPayloads().get(1));
+        assertEquals("3\tc\t\\N\t\\N\t\\N\t2\n",
+                     loader.getPayloads().get(2));
+        assertEquals("COPY TestTable (id, name, data, flag, created) FROM STDIN",
+                     loader.getStatements().get(3));
+        assertEquals("4\td\t\\N\t\\N\t\\N\n",
+                     loader.getPayloads().get(3));
+    }
+
+    /**
+     * Tests that rows with duplicate keys are only replaced or ignored by MySQL if requested.
+     */
+    public void testMySqlDuplicateHandling()
+    {
+        Database            model    = parseDatabaseFromString(MODEL_XML);
+        MySqlPlatform       platform = new MySqlPlatform();
+        MySqlBulkLoader     format   = new MySqlBulkLoader(platform);
+        RecordingBulkLoader loader   = new RecordingBulkLoader(platform, format);
+        List                beans    = new ArrayList();
+
+        beans.add(model.createDynaBeanFor("OtherTable", false));
+        platform.setBulkLoader(loader);
+        platform.bulkLoad(null, model, beans);
+        format.setDuplicateHandling(MySqlBulkLoader.DUPLICATES_REPLACE);
+        platform.bulkLoad(null, model, beans);
+        format.setDuplicateHandling(MySqlBulkLoader.DUPLICATES_IGNORE);
+        platform.bulkLoad(null, model, beans);
+
+        assertEquals(3, loader.getStatements().size());
+        assertEquals("LOAD DATA LOCAL INFILE 'ddlutils.txt' INTO TABLE OtherTable CHARACTER SET utf8 (name)",
+                     loader.getStatements().get(0));
+        assertEquals("LOAD DATA LOCAL INFILE 'ddlutils.txt' REPLACE INTO TABLE OtherTable CHARACTER SET utf8 (name)",
+                     loader.getStatements().get(1));
+        assertEquals("LOAD DATA LOCAL INFILE 'ddlutils.txt' IGNORE INTO TABLE OtherTable CHARACTER SET utf8 (name)",
+                     loader.getStatements().get(2));
+
+        try
+        {
+            format.setDuplicateHandling("UPDATE");
+            fail();
+        }
+        catch (IllegalArgumentException ex)
+        {
+            // expected
+        }
+    }
+
+    /**
+     * Tests that the bulk load fails if the database reports that it loaded a different
+     * number of rows.
+     */
+    public void testSkippedRows()
+    {
+        Database            model    = parseDatabaseFromString(MODEL_XML);
+        PostgreSqlPlatform  platform = new PostgreSqlPlatform();
+        RecordingBulkLoader loader   = new RecordingBulkLoader(platform, new PostgreSqlBulkLoader(platform))
+            {
+                /**
+                 * {@inheritDoc}
+                 */
+                protected long load(Connection connection, String sql, InputStream data) throws SQLException
+                {
+                    // the database skips one row
+                    return super.load(connection, sql, data) - 1;
+                }
+            };
+        List                beans    = new ArrayList();
+
+        beans.add(createTestBean(model, 1, "a"));
+        beans.add(createTestBean(model, 2, "b"));
+        platform.setBulkLoader(loader);
+        try
+        {
+            platform.bulkLoad(null, model, beans);
+            fail();
+        }
+        catch (DatabaseOperationException ex)
+        {
+            assertTrue(ex.getMessage().indexOf("loaded 1 rows") > 0);
+        }
+    }
+}
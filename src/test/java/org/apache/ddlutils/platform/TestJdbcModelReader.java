@@ -0,0 +1,186 @@
+package org.apache.ddlutils.platform;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import junit.framework.TestCase;
+
+import org.apache.ddlutils.model.Table;
+import org.apache.ddlutils.platform.hsqldb.HsqlDbPlatform;
+
+/**
+ * Tests the {@link JdbcModelReader} class against in-memory database metadata.
+ *
+ * @version $Revision: $
+ */
+public class TestJdbcModelReader extends TestCase
+{
+    /** The number of tables in the database metadata. */
+    private static final int TABLE_COUNT = 10;
+
+    /** Whether one of the read threads has started to read a table. */
+    private boolean _readThreadStarted;
+
+    /**
+     * Tests that an error thrown while a read thread reads a table fails the read of the
+     * model instead of losing the tables of this thread.
+     */
+    public void testErrorInReadThread() throws Exception
+    {
+        final Thread    mainThread = Thread.currentThread();
+        HsqlDbPlatform  platform   = new HsqlDbPlatform();
+        JdbcModelReader reader     = new JdbcModelReader(platform)
+        {
+            protected Table readTable(DatabaseMetaDataWrapper metaData, Map values) throws SQLException
+            {
+                synchronized (TestJdbcModelReader.this)
+                {
+                    if (Thread.currentThread() != mainThread)
+                    {
+                        _readThreadStarted = true;
+                        TestJdbcModelReader.this.notifyAll();
+                        throw new Error("Could not read table " + values.get("TABLE_NAME"));
+                    }
+                    // the current thread waits so that the read threads get tables to read
+                    while (!_readThreadStarted)
+                    {
+                        try
+                        {
+                            TestJdbcModelReader.this.wait();
+                        }
+                        catch (InterruptedException ex)
+                        {
+                            throw new IllegalStateException("Interrupted");
+                        }
+                    }
+                }
+
+                Table table = new Table();
+
+                table.setName((String)values.get("TABLE_NAME"));
+                return table;
+            }
+        };
+
+        platform.setDataSource((DataSource)createProxy(DataSource.class));
+        reader.setReadThreadCount(3);
+        try
+        {
+            reader.getDatabase(platform.borrowConnection(), "test");
+            fail();
+        }
+        catch (Error ex)
+        {
+            assertTrue(ex.getMessage().startsWith("Could not read table"));
+        }
+    }
+
+    /**
+     * Creates a proxy for the given JDBC interface that serves a database with
+     * {@link #TABLE_COUNT} tables without columns.
+     *
+     * @param type The interface
+     * @return The proxy
+     */
+    private Object createProxy(final Class type)
+    {
+        return Proxy.newProxyInstance(getClass().getClassLoader(),
+                                      new Class[] { type },
+                                      new InvocationHandler()
+            {
+                /** The current row of a result set, starting with 1. */
+                private int _row = 0;
+
+                /**
+                 * {@inheritDoc}
+                 */
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+                {
+                    String name = method.getName();
+
+                    if ("getConnection".equals(name))
+                    {
+                        return createProxy(Connection.class);
+                    }
+                    else if ("getMetaData".equals(name))
+                    {
+                        return createProxy(method.getReturnType());
+                    }
+                    else if ("getTables".equals(name))
+                    {
+                        return createProxy(ResultSet.class);
+                    }
+                    else if ("next".equals(name))
+                    {
+                        _row++;
+                        return _row <= TABLE_COUNT ? Boolean.TRUE : Boolean.FALSE;
+                    }
+                    else if ("getString".equals(name))
+                    {
+                        return "TABLE_NAME".equals(args[0]) ? "T" + _row : null;
+                    }
+                    else if ("wasNull".equals(name) || "isClosed".equals(name))
+                    {
+                        return Boolean.FALSE;
+                    }
+                    else if ("getColumnCount".equals(name))
+                    {
+                        return new Integer(1);
+                    }
+                    else if ("getColumnName".equals(name))
+                    {
+                        return "TABLE_NAME";
+                    }
+                    else if ("close".equals(name))
+                    {
+                        return null;
+                    }
+                    else if ("hashCode".equals(name))
+                    {
+                        return new Integer(System.identityHashCode(proxy));
+                    }
+                    else if ("equals".equals(name))
+                    {
+                        return proxy == args[0] ? Boolean.TRUE : Boolean.FALSE;
+                    }
+                    else if ("toString".equals(name))
+                    {
+                        return type.getName() + " proxy";
+                    }
+                    else
+                    {
+                        throw new UnsupportedOperationException(name);
+                    }
+                }
+            });
+    }
+}
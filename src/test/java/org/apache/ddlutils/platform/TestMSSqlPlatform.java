@@ -23,6 +23,8 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.ddlutils.TestPlatformBase;
+import org.apache.ddlutils.io.DatabaseIO;
+import org.apache.ddlutils.model.Database;
 import org.apache.ddlutils.platform.mssql.MSSqlPlatform;
 
 /**
@@ -335,4 +337,60 @@ public class TestMSSqlPlatform extends TestPlatformBase
             ");\n",
             sql);
     }
+
+    /**
+     * Tests the disabling and enabling of the indexes and foreign keys for a bulk load.
+     */
+    public void testDisableIndexesAndForeignKeys() throws Exception
+    {
+        final String modelXml =
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='tableconstraintstest'>\n"+
+            "  <table name='table1'>\n"+
+            "    <column name='COL_PK_1' type='VARCHAR' size='32' primaryKey='true' required='true'/>\n"+
+            "    <column name='COL_PK_2' type='INTEGER' primaryKey='true'/>\n"+
+            "    <column name='COL_INDEX_1' type='BINARY' size='100' required='true'/>\n"+
+            "    <column name='COL_INDEX_2' type='DOUBLE' required='true'/>\n"+
+            "    <column name='COL_INDEX_3' type='CHAR' size='4'/>\n"+
+            "    <index name='testindex1'>\n"+
+            "      <index-column name='COL_INDEX_2'/>\n"+
+            "    </index>\n"+
+            "    <unique name='testindex2'>\n"+
+            "      <unique-column name='COL_INDEX_3'/>\n"+
+            "      <unique-column name='COL_INDEX_1'/>\n"+
+            "    </unique>\n"+
+            "  </table>\n"+
+            "  <table name='table2'>\n"+
+            "    <column name='COL_PK' type='INTEGER' primaryKey='true'/>\n"+
+            "    <column name='COL_FK_1' type='INTEGER'/>\n"+
+            "    <column name='COL_FK_2' type='VARCHAR' size='32' required='true'/>\n"+
+            "    <foreign-key foreignTable='table1'>\n"+
+            "      <reference local='COL_FK_1' foreign='COL_PK_2'/>\n"+
+            "      <reference local='COL_FK_2' foreign='COL_PK_1'/>\n"+
+            "    </foreign-key>\n"+
+            "  </table>\n"+
+            "  <table name='table3'>\n"+
+            "    <column name='COL_PK' type='VARCHAR' size='16' primaryKey='true'/>\n"+
+            "    <column name='COL_FK' type='INTEGER' required='true'/>\n"+
+            "    <foreign-key name='testfk' foreignTable='table2'>\n"+
+            "      <reference local='COL_FK' foreign='COL_PK'/>\n"+
+            "    </foreign-key>\n"+
+            "  </table>\n"+
+            "</database>";
+
+        Database testDb = parseDatabaseFromString(modelXml);
+
+        assertEqualsIgnoringWhitespaces(
+            "SET quoted_identifier on;\n"+
+            "ALTER TABLE \"table2\" NOCHECK CONSTRAINT \"table2_FK_COL_FK_1_COL_FK_2_table1\";\n"+
+            "ALTER TABLE \"table3\" NOCHECK CONSTRAINT \"testfk\";\n"+
+            "DROP INDEX \"table1\".\"testindex1\";\n",
+            getPlatform().getDisableIndexesAndForeignKeysSql(testDb));
+        assertEqualsIgnoringWhitespaces(
+            "SET quoted_identifier on;\n"+
+            "CREATE INDEX \"testindex1\" ON \"table1\" (\"COL_INDEX_2\");\n"+
+            "ALTER TABLE \"table2\" WITH CHECK CHECK CONSTRAINT \"table2_FK_COL_FK_1_COL_FK_2_table1\";\n"+
+            "ALTER TABLE \"table3\" WITH CHECK CHECK CONSTRAINT \"testfk\";\n",
+            getPlatform().getEnableIndexesAndForeignKeysSql(testDb));
+    }
 }
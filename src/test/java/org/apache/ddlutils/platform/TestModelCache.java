@@ -0,0 +1,135 @@
+package org.apache.ddlutils.platform;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.File;
+
+import org.apache.ddlutils.TestBase;
+import org.apache.ddlutils.io.DatabaseIO;
+import org.apache.ddlutils.model.Database;
+import org.apache.ddlutils.model.Table;
+
+/**
+ * Tests the {@link ModelCache} class.
+ *
+ * @version $Revision: $
+ */
+public class TestModelCache extends TestBase
+{
+    /** The test model. */
+    private static final String MODEL =
+        "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+        "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='test'>\n"+
+        "  <table name='parent'>\n"+
+        "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+        "    <column name='name' type='VARCHAR' size='32'/>\n"+
+        "  </table>\n"+
+        "  <table name='child'>\n"+
+        "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+        "    <column name='parentid' type='INTEGER'/>\n"+
+        "    <foreign-key foreignTable='parent'>\n"+
+        "      <reference local='parentid' foreign='id'/>\n"+
+        "    </foreign-key>\n"+
+        "  </table>\n"+
+        "</database>";
+
+    /** The cache directory. */
+    private File _directory;
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        _directory = File.createTempFile("modelcache", "");
+        _directory.delete();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    protected void tearDown() throws Exception
+    {
+        File[] files = _directory.listFiles();
+
+        for (int idx = 0; (files != null) && (idx < files.length); idx++)
+        {
+            files[idx].delete();
+        }
+        _directory.delete();
+        super.tearDown();
+    }
+
+    /**
+     * Tests that cached models are only returned for the marker that they were cached with,
+     * and that each hit returns a new copy of the model.
+     */
+    public void testMemoryCache()
+    {
+        ModelCache cache = new ModelCache();
+        Database   model = parseDatabaseFromString(MODEL);
+
+        assertNull(cache.get("key", "1"));
+        cache.put("key", "1", model);
+        assertNull(cache.get("key", "2"));
+        assertNull(cache.get("other", "1"));
+
+        Database cachedModel = cache.get("key", "1");
+
+        assertNotSame(model, cachedModel);
+        assertEquals(model, cachedModel);
+
+        Table childTable = cachedModel.findTable("child");
+
+        assertSame(cachedModel.findTable("parent"), childTable.getForeignKey(0).getForeignTable());
+
+        cachedModel.removeTable(childTable);
+        assertEquals(model, cache.get("key", "1"));
+
+        cache.put("key", "2", cachedModel);
+        assertNull(cache.get("key", "1"));
+        assertEquals(cachedModel, cache.get("key", "2"));
+
+        cache.remove("key");
+        assertNull(cache.get("key", "2"));
+    }
+
+    /**
+     * Tests that the models stored in the cache directory are used by other caches.
+     */
+    public void testFileCache()
+    {
+        Database model = parseDatabaseFromString(MODEL);
+
+        new ModelCache(_directory).put("key", "1", model);
+        assertTrue(_directory.isDirectory());
+
+        ModelCache cache = new ModelCache(_directory);
+
+        assertEquals(model, cache.get("key", "1"));
+        assertNull(cache.get("other", "1"));
+
+        cache.clear();
+        assertNull(cache.get("key", "2"));
+        cache.remove("key");
+        assertNull(new ModelCache(_directory).get("key", "1"));
+    }
+}
@@ -19,6 +19,9 @@ package org.apache.ddlutils.platform;
  * under the License.
  */
 
+import java.util.HashMap;
+import java.util.Map;
+
 import org.apache.ddlutils.TestPlatformBase;
 import org.apache.ddlutils.io.DatabaseIO;
 import org.apache.ddlutils.model.Database;
@@ -230,4 +233,80 @@ public class TestMySqlPlatform extends TestPlatformBase
             ");\n",
             getDatabaseCreationSql(schema));
     }
+
+    /**
+     * Tests the restriction of queries to a range of rows.
+     */
+    public void testPagedQuery() throws Exception
+    {
+        assertEquals("SELECT * FROM `TestTable`\nLIMIT 10, 5",
+                     getSqlBuilder().getPagedQuery("SELECT * FROM `TestTable`;", 10, 14));
+        assertEquals("SELECT * FROM `TestTable`\nLIMIT 10, 18446744073709551615",
+                     getSqlBuilder().getPagedQuery("SELECT * FROM `TestTable`", 10, -1));
+        assertNull(getSqlBuilder().getPagedQuery("SELECT * FROM `TestTable` LIMIT 3", 10, 14));
+        assertEquals("SELECT * FROM `TestTable` -- all rows\nLIMIT 10, 5",
+                     getSqlBuilder().getPagedQuery("SELECT * FROM `TestTable` -- all rows", 10, 14));
+        assertNull(getSqlBuilder().getPagedQuery("SELECT * FROM `TestTable` FOR UPDATE", 10, 14));
+        assertNull(getSqlBuilder().getPagedQuery("select * from `TestTable`\nlock  in share mode", 10, 14));
+        assertNull(getSqlBuilder().getPagedQuery("SHOW TABLES", 10, 14));
+        assertNull(getSqlBuilder().getPagedQuery("CALL listTables()", 10, 14));
+    }
+
+    /**
+     * Tests the generation of the native upsert statement.
+     */
+    public void testUpsertSql() throws Exception
+    {
+        final String modelXml =
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='ddlutils'>\n"+
+            "  <table name='TestTable'>\n"+
+            "    <column name='id' type='INTEGER' primaryKey='true'/>\n"+
+            "    <column name='name' type='VARCHAR' size='15'/>\n"+
+            "  </table>\n"+
+            "</database>";
+
+        Database database = parseDatabaseFromString(modelXml);
+        Map      map      = new HashMap();
+
+        map.put("id", new Integer(1));
+        map.put("name", "ddlutils");
+
+        assertEquals("INSERT INTO `TestTable` (`id`, `name`) VALUES (?, ?) ON DUPLICATE KEY UPDATE `name` = VALUES(`name`)",
+                     getSqlBuilder().getUpsertSql(database.getTable(0), map, true));
+
+        map.remove("name");
+        assertEquals("INSERT INTO `TestTable` (`id`) VALUES (?) ON DUPLICATE KEY UPDATE `id` = `id`",
+                     getSqlBuilder().getUpsertSql(database.getTable(0), map, true));
+
+        map.remove("id");
+        assertNull(getSqlBuilder().getUpsertSql(database.getTable(0), map, true));
+    }
+
+    /**
+     * Tests the generation of multi-row insert statements.
+     */
+    public void testMultiRowInsertSql() throws Exception
+    {
+        final String modelXml =
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='ddlutils'>\n"+
+            "  <table name='TestTable'>\n"+
+            "    <column name='id' type='INTEGER' primaryKey='true'/>\n"+
+            "    <column name='name' type='VARCHAR' size='15'/>\n"+
+            "    <column name='value' type='DOUBLE'/>\n"+
+            "  </table>\n"+
+            "</database>";
+
+        Database database = parseDatabaseFromString(modelXml);
+        Map      map      = new HashMap();
+
+        map.put("id", null);
+        map.put("value", null);
+
+        assertEquals("INSERT INTO `TestTable` (`id`, `value`) VALUES (?, ?)",
+                     getSqlBuilder().getMultiRowInsertSql(database.getTable(0), map, 1));
+        assertEquals("INSERT INTO `TestTable` (`id`, `value`) VALUES (?, ?), (?, ?), (?, ?)",
+                     getSqlBuilder().getMultiRowInsertSql(database.getTable(0), map, 3));
+    }
 }
@@ -19,7 +19,12 @@ package org.apache.ddlutils.platform;
  * under the License.
  */
 
+import java.util.HashMap;
+import java.util.Map;
+
 import org.apache.ddlutils.TestPlatformBase;
+import org.apache.ddlutils.io.DatabaseIO;
+import org.apache.ddlutils.model.Database;
 import org.apache.ddlutils.platform.oracle.Oracle9Platform;
 
 /**
@@ -164,4 +169,33 @@ public class TestOracle9Platform extends TestPlatformBase
             ");\n",
             getCharEscapingTestDatabaseCreationSql());
     }
+
+    /**
+     * Tests the generation of the native upsert statement.
+     */
+    public void testUpsertSql() throws Exception
+    {
+        final String modelXml =
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='ddlutils'>\n"+
+            "  <table name='TestTable'>\n"+
+            "    <column name='id' type='INTEGER' primaryKey='true'/>\n"+
+            "    <column name='name' type='VARCHAR' size='15'/>\n"+
+            "  </table>\n"+
+            "</database>";
+
+        Database database = parseDatabaseFromString(modelXml);
+        Map      map      = new HashMap();
+
+        map.put("id", new Integer(1));
+        map.put("name", "ddlutils");
+
+        assertEquals("MERGE INTO \"TestTable\" t USING (SELECT ? AS \"id\", ? AS \"name\" FROM DUAL) s ON (t.\"id\" = s.\"id\")" +
+                     " WHEN MATCHED THEN UPDATE SET t.\"name\" = s.\"name\"" +
+                     " WHEN NOT MATCHED THEN INSERT (\"id\", \"name\") VALUES (s.\"id\", s.\"name\")",
+                     getSqlBuilder().getUpsertSql(database.getTable(0), map, true));
+
+        map.remove("name");
+        assertNull(getSqlBuilder().getUpsertSql(database.getTable(0), map, true));
+    }
 }
@@ -64,4 +64,25 @@ public class TestPlatformImplBase extends TestBase
                      map.get("name"));
         assertTrue(map.containsKey("id"));
     }
+
+    /**
+     * Tests the getRowsPerMultiRowInsert method.
+     */
+    public void testRowsPerMultiRowInsert()
+    {
+        PlatformImplBase platform = new TestPlatform();
+
+        assertEquals(0, platform.getRowsPerMultiRowInsert(3));
+
+        platform.setMultiRowInsertModeOn(true);
+        assertEquals(0, platform.getRowsPerMultiRowInsert(3));
+
+        platform.getPlatformInfo().setMultiRowInsertSupported(true);
+        assertEquals(1000, platform.getRowsPerMultiRowInsert(3));
+        assertEquals(0, platform.getRowsPerMultiRowInsert(0));
+
+        platform.getPlatformInfo().setMaxParametersPerStatement(100);
+        assertEquals(33, platform.getRowsPerMultiRowInsert(3));
+        assertEquals(0, platform.getRowsPerMultiRowInsert(101));
+    }
 }
@@ -19,8 +19,23 @@ package org.apache.ddlutils.platform;
  * under the License.
  */
 
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.beanutils.DynaBean;
 import org.apache.ddlutils.TestPlatformBase;
 import org.apache.ddlutils.io.DatabaseIO;
+import org.apache.ddlutils.model.Database;
+import org.apache.ddlutils.model.Table;
 import org.apache.ddlutils.platform.postgresql.PostgreSqlPlatform;
 
 /**
@@ -171,4 +186,319 @@ public class TestPostgresqlPlatform extends TestPlatformBase
             ");\n",
             getDatabaseCreationSql(schema));
     }
+
+    /**
+     * Tests the restriction of queries to a range of rows.
+     */
+    public void testPagedQuery() throws Exception
+    {
+        assertEquals("SELECT * FROM \"TestTable\"\nLIMIT 5\nOFFSET 10",
+                     getSqlBuilder().getPagedQuery("SELECT * FROM \"TestTable\"", 10, 14));
+        assertEquals("SELECT * FROM \"TestTable\"\nLIMIT 5",
+                     getSqlBuilder().getPagedQuery("SELECT * FROM \"TestTable\"", 0, 4));
+        assertEquals("SELECT * FROM \"TestTable\"\nOFFSET 10",
+                     getSqlBuilder().getPagedQuery("SELECT * FROM \"TestTable\"", 10, -1));
+        assertEquals("SELECT * FROM \"TestTable\" -- all rows\nLIMIT 5\nOFFSET 10",
+                     getSqlBuilder().getPagedQuery("SELECT * FROM \"TestTable\" -- all rows", 10, 14));
+        assertNull(getSqlBuilder().getPagedQuery("SELECT * FROM \"TestTable\" FOR UPDATE NOWAIT", 10, 14));
+        assertNull(getSqlBuilder().getPagedQuery("SHOW search_path", 10, 14));
+    }
+
+    /**
+     * Tests the generation of the native upsert statement.
+     */
+    public void testUpsertSql() throws Exception
+    {
+        final String modelXml =
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='ddlutils'>\n"+
+            "  <table name='TestTable'>\n"+
+            "    <column name='id' type='INTEGER' primaryKey='true'/>\n"+
+            "    <column name='name' type='VARCHAR' size='15'/>\n"+
+            "  </table>\n"+
+            "</database>";
+
+        Database database = parseDatabaseFromString(modelXml);
+        Map      map      = new HashMap();
+
+        map.put("id", new Integer(1));
+        map.put("name", "ddlutils");
+
+        assertEquals("INSERT INTO \"TestTable\" (\"id\", \"name\") VALUES (?, ?) ON CONFLICT (\"id\") DO UPDATE SET \"name\" = EXCLUDED.\"name\"",
+                     getSqlBuilder().getUpsertSql(database.getTable(0), map, true));
+
+        map.remove("name");
+        assertEquals("INSERT INTO \"TestTable\" (\"id\") VALUES (?) ON CONFLICT (\"id\") DO NOTHING",
+                     getSqlBuilder().getUpsertSql(database.getTable(0), map, true));
+    }
+
+    /**
+     * Tests the dropping and recreation of the indexes and foreign keys for a bulk load, and
+     * the query that checks the loaded data against a foreign key.
+     */
+    public void testDisableIndexesAndForeignKeys() throws Exception
+    {
+        final String modelXml =
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='tableconstraintstest'>\n"+
+            "  <table name='table1'>\n"+
+            "    <column name='COL_PK_1' type='VARCHAR' size='32' primaryKey='true' required='true'/>\n"+
+            "    <column name='COL_PK_2' type='INTEGER' primaryKey='true'/>\n"+
+            "    <column name='COL_INDEX_1' type='BINARY' size='100' required='true'/>\n"+
+            "    <column name='COL_INDEX_2' type='DOUBLE' required='true'/>\n"+
+            "    <column name='COL_INDEX_3' type='CHAR' size='4'/>\n"+
+            "    <index name='testindex1'>\n"+
+            "      <index-column name='COL_INDEX_2'/>\n"+
+            "    </index>\n"+
+            "    <unique name='testindex2'>\n"+
+            "      <unique-column name='COL_INDEX_3'/>\n"+
+            "      <unique-column name='COL_INDEX_1'/>\n"+
+            "    </unique>\n"+
+            "  </table>\n"+
+            "  <table name='table2'>\n"+
+            "    <column name='COL_PK' type='INTEGER' primaryKey='true'/>\n"+
+            "    <column name='COL_FK_1' type='INTEGER'/>\n"+
+            "    <column name='COL_FK_2' type='VARCHAR' size='32' required='true'/>\n"+
+            "    <foreign-key foreignTable='table1'>\n"+
+            "      <reference local='COL_FK_1' foreign='COL_PK_2'/>\n"+
+            "      <reference local='COL_FK_2' foreign='COL_PK_1'/>\n"+
+            "    </foreign-key>\n"+
+            "  </table>\n"+
+            "  <table name='table3'>\n"+
+            "    <column name='COL_PK' type='VARCHAR' size='16' primaryKey='true'/>\n"+
+            "    <column name='COL_FK' type='INTEGER' required='true'/>\n"+
+            "    <foreign-key name='testfk' foreignTable='table2'>\n"+
+            "      <reference local='COL_FK' foreign='COL_PK'/>\n"+
+            "    </foreign-key>\n"+
+            "  </table>\n"+
+            "</database>";
+
+        Database testDb = parseDatabaseFromString(modelXml);
+        Table    table2 = testDb.findTable("table2");
+
+        assertEqualsIgnoringWhitespaces(
+            "ALTER TABLE \"table2\" DROP CONSTRAINT \"table2_FK_COL_F_COL_FK_2_table1\";\n"+
+            "ALTER TABLE \"table3\" DROP CONSTRAINT \"testfk\";\n"+
+            "DROP INDEX \"testindex1\";\n",
+            getPlatform().getDisableIndexesAndForeignKeysSql(testDb));
+        assertEqualsIgnoringWhitespaces(
+            "CREATE INDEX \"testindex1\" ON \"table1\" (\"COL_INDEX_2\");\n"+
+            "ALTER TABLE \"table2\" ADD CONSTRAINT \"table2_FK_COL_F_COL_FK_2_table1\" FOREIGN KEY (\"COL_FK_1\", \"COL_FK_2\") REFERENCES \"table1\" (\"COL_PK_2\", \"COL_PK_1\");\n"+
+            "ALTER TABLE \"table3\" ADD CONSTRAINT \"testfk\" FOREIGN KEY (\"COL_FK\") REFERENCES \"table2\" (\"COL_PK\");\n",
+            getPlatform().getEnableIndexesAndForeignKeysSql(testDb));
+        assertEquals("SELECT COUNT(*) FROM \"table2\" l WHERE l.\"COL_FK_1\" IS NOT NULL AND l.\"COL_FK_2\" IS NOT NULL AND " +
+                     "NOT EXISTS (SELECT 1 FROM \"table1\" f WHERE f.\"COL_PK_2\" = l.\"COL_FK_1\" AND f.\"COL_PK_1\" = l.\"COL_FK_2\")",
+                     getSqlBuilder().getForeignKeyViolationsSql(testDb, table2, table2.getForeignKey(0)));
+    }
+
+    /** The model for the tests of the store methods. */
+    private static final String STORE_MODEL =
+        "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+        "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='ddlutils'>\n"+
+        "  <table name='TestTable'>\n"+
+        "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+        "    <column name='name' type='VARCHAR' size='15' default='none'/>\n"+
+        "    <column name='value' type='INTEGER'/>\n"+
+        "  </table>\n"+
+        "</database>";
+
+    /**
+     * Creates a bean for the table of the {@link #STORE_MODEL}.
+     * 
+     * @param model The model
+     * @param id    The value of the id column
+     * @param name  The value of the name column
+     * @return The bean
+     */
+    private DynaBean createStoreBean(Database model, int id, String name)
+    {
+        DynaBean dynaBean = model.createDynaBeanFor(model.getTable(0));
+
+        dynaBean.set("id", new Integer(id));
+        dynaBean.set("name", name);
+        dynaBean.set("value", new Integer(id * 10));
+        return dynaBean;
+    }
+
+    /**
+     * Tests that the upsert statement is only used for PostgreSQL 9.5 or newer.
+     */
+    public void testUpsertRequiresVersion() throws Exception
+    {
+        Database            model      = parseDatabaseFromString(STORE_MODEL);
+        RecordingConnection oldVersion = new RecordingConnection(9, 4);
+        RecordingConnection newVersion = new RecordingConnection(9, 5);
+
+        new PostgreSqlPlatform().store(oldVersion.getConnection(), model, createStoreBean(model, 1, "a"));
+        new PostgreSqlPlatform().store(newVersion.getConnection(), model, createStoreBean(model, 1, "a"));
+
+        assertEquals(2, oldVersion.getSql().size());
+        assertTrue(((String)oldVersion.getSql().get(0)).startsWith("SELECT"));
+        assertTrue(((String)oldVersion.getSql().get(1)).startsWith("UPDATE"));
+        assertEquals(1, newVersion.getSql().size());
+        assertTrue(((String)newVersion.getSql().get(0)).indexOf("ON CONFLICT") > 0);
+    }
+
+    /**
+     * Tests that beans without a value for a column with a default value are not stored
+     * via the upsert statement, as it would not set the column to <code>NULL</code> if the
+     * row exists.
+     */
+    public void testStoreWithUndefinedDefaultValue() throws Exception
+    {
+        Database            model      = parseDatabaseFromString(STORE_MODEL);
+        RecordingConnection connection = new RecordingConnection(9, 5);
+        List                beans      = new ArrayList();
+
+        beans.add(createStoreBean(model, 2, "a"));
+        beans.add(createStoreBean(model, 1, null));
+        new PostgreSqlPlatform().store(connection.getConnection(), model, beans);
+
+        assertEquals(3, connection.getSql().size());
+
+        String upsertSql = (String)connection.getSql().get(0);
+        String updateSql = (String)connection.getSql().get(2);
+
+        assertTrue(upsertSql.indexOf("ON CONFLICT") > 0);
+        assertTrue(((String)connection.getSql().get(1)).startsWith("SELECT"));
+        assertTrue(updateSql.startsWith("UPDATE"));
+        assertTrue(updateSql.indexOf("name") > 0);
+        assertTrue(updateSql.indexOf("value") > 0);
+    }
+
+    /**
+     * Simulates a connection to a database of a given version that records the SQL of the
+     * prepared statements. The statements change one row each, and queries return one row
+     * with the value 1 in all columns.
+     */
+    private static class RecordingConnection implements InvocationHandler
+    {
+        /** The major version of the database. */
+        private int _majorVersion;
+        /** The minor version of the database. */
+        private int _minorVersion;
+        /** The SQL of the prepared statements. */
+        private List _sql = new ArrayList();
+        /** The connection. */
+        private Connection _connection;
+        /** The number of rows that the current result set still returns. */
+        private int _pendingRows;
+
+        /**
+         * Creates a new connection.
+         * 
+         * @param majorVersion The major version of the database
+         * @param minorVersion The minor version of the database
+         */
+        public RecordingConnection(int majorVersion, int minorVersion)
+        {
+            _majorVersion = majorVersion;
+            _minorVersion = minorVersion;
+            _connection   = (Connection)createProxy(Connection.class);
+        }
+
+        /**
+         * Returns the connection.
+         * 
+         * @return The connection
+         */
+        public Connection getConnection()
+        {
+            return _connection;
+        }
+
+        /**
+         * Returns the SQL of the statements prepared so far.
+         * 
+         * @return The SQL strings
+         */
+        public List getSql()
+        {
+            return _sql;
+        }
+
+        /**
+         * Creates a proxy for the given interface that is handled by this object.
+         * 
+         * @param type The interface
+         * @return The proxy
+         */
+        private Object createProxy(Class type)
+        {
+            return Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] { type }, this);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+        {
+            String name = method.getName();
+
+            if (proxy instanceof Connection)
+            {
+                if ("prepareStatement".equals(name))
+                {
+                    _sql.add(args[0]);
+                    return createProxy(PreparedStatement.class);
+                }
+                else if ("getMetaData".equals(name))
+                {
+                    return createProxy(DatabaseMetaData.class);
+                }
+            }
+            else if (proxy instanceof DatabaseMetaData)
+            {
+                if ("getDatabaseMajorVersion".equals(name))
+                {
+                    return new Integer(_majorVersion);
+                }
+                else if ("getDatabaseMinorVersion".equals(name))
+                {
+                    return new Integer(_minorVersion);
+                }
+            }
+            else if (proxy instanceof PreparedStatement)
+            {
+                if ("executeQuery".equals(name))
+                {
+                    _pendingRows = 1;
+                    return createProxy(ResultSet.class);
+                }
+                else if ("executeUpdate".equals(name))
+                {
+                    return new Integer(1);
+                }
+                else if ("executeBatch".equals(name))
+                {
+                    return new int[] { 1 };
+                }
+                else if ("getConnection".equals(name))
+                {
+                    return _connection;
+                }
+            }
+            else if (proxy instanceof ResultSet)
+            {
+                if ("next".equals(name))
+                {
+                    _pendingRows--;
+                    return _pendingRows >= 0 ? Boolean.TRUE : Boolean.FALSE;
+                }
+                else if (name.startsWith("get") && !"getMetaData".equals(name))
+                {
+                    return method.getReturnType().equals(String.class) ? (Object)"1" : new Integer(1);
+                }
+            }
+            if (method.getReturnType().equals(Boolean.TYPE))
+            {
+                return Boolean.FALSE;
+            }
+            else if (method.getReturnType().equals(Integer.TYPE))
+            {
+                return new Integer(0);
+            }
+            return null;
+        }
+    }
 }
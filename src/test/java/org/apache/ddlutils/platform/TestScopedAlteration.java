@@ -0,0 +1,153 @@
+package org.apache.ddlutils.platform;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.ddlutils.TestPlatformBase;
+import org.apache.ddlutils.io.DatabaseIO;
+import org.apache.ddlutils.model.Database;
+import org.apache.ddlutils.model.Table;
+import org.apache.ddlutils.platform.hsqldb.HsqlDbPlatform;
+
+/**
+ * Tests the alteration of a subset of the tables of a database via
+ * {@link org.apache.ddlutils.Platform#getScopedDesiredModel(Database, Database, String[])}.
+ *
+ * @version $Revision: $
+ */
+public class TestScopedAlteration extends TestPlatformBase
+{
+    /** The current model as read for table B, i.e. with the referenced table A and the referencing table C. */
+    private static final String CURRENT_MODEL =
+        "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+        "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='test'>\n"+
+        "  <table name='A'>\n"+
+        "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+        "  </table>\n"+
+        "  <table name='B'>\n"+
+        "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+        "    <column name='aid' type='INTEGER'/>\n"+
+        "    <foreign-key name='B_A' foreignTable='A'>\n"+
+        "      <reference local='aid' foreign='id'/>\n"+
+        "    </foreign-key>\n"+
+        "  </table>\n"+
+        "  <table name='C'>\n"+
+        "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+        "    <column name='bid' type='INTEGER'/>\n"+
+        "    <foreign-key name='C_B' foreignTable='B'>\n"+
+        "      <reference local='bid' foreign='id'/>\n"+
+        "    </foreign-key>\n"+
+        "  </table>\n"+
+        "</database>";
+    /** The desired model, which changes table B but also the other tables. */
+    private static final String DESIRED_MODEL =
+        "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+        "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='test'>\n"+
+        "  <table name='A'>\n"+
+        "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+        "    <column name='avalue' type='INTEGER'/>\n"+
+        "  </table>\n"+
+        "  <table name='B'>\n"+
+        "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+        "    <column name='aid' type='INTEGER'/>\n"+
+        "    <column name='fid' type='INTEGER'/>\n"+
+        "    <foreign-key name='B_A' foreignTable='A'>\n"+
+        "      <reference local='aid' foreign='id'/>\n"+
+        "    </foreign-key>\n"+
+        "    <foreign-key name='B_F' foreignTable='F'>\n"+
+        "      <reference local='fid' foreign='id'/>\n"+
+        "    </foreign-key>\n"+
+        "  </table>\n"+
+        "  <table name='C'>\n"+
+        "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+        "    <column name='bid' type='INTEGER'/>\n"+
+        "    <column name='cvalue' type='INTEGER'/>\n"+
+        "    <foreign-key name='C_B' foreignTable='B'>\n"+
+        "      <reference local='bid' foreign='id'/>\n"+
+        "    </foreign-key>\n"+
+        "  </table>\n"+
+        "  <table name='D'>\n"+
+        "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+        "  </table>\n"+
+        "  <table name='F'>\n"+
+        "    <column name='id' type='INTEGER' primaryKey='true' required='true'/>\n"+
+        "  </table>\n"+
+        "</database>";
+
+    /**
+     * {@inheritDoc}
+     */
+    protected String getDatabaseName()
+    {
+        return HsqlDbPlatform.DATABASENAME;
+    }
+
+    /**
+     * Tests that only the selected table is changed, and that the table that it
+     * newly references is created.
+     */
+    public void testAlterSelectedTable()
+    {
+        Database currentModel = parseDatabaseFromString(CURRENT_MODEL);
+        Database desiredModel = parseDatabaseFromString(DESIRED_MODEL);
+        Database scopedModel  = getPlatform().getScopedDesiredModel(currentModel, desiredModel, new String[] { "B" });
+
+        assertEquals(4, scopedModel.getTableCount());
+        assertEquals(desiredModel.findTable("B"), scopedModel.findTable("B"));
+        assertEquals(desiredModel.findTable("F"), scopedModel.findTable("F"));
+        assertEquals(currentModel.findTable("A"), scopedModel.findTable("A"));
+        assertEquals(currentModel.findTable("C"), scopedModel.findTable("C"));
+        assertNull(scopedModel.findTable("D"));
+
+        String sql = getPlatform().getAlterModelSql(currentModel, scopedModel).toUpperCase();
+
+        assertTrue(sql.indexOf("CREATE TABLE \"F\"") >= 0);
+        assertTrue(sql.indexOf("\"FID\"") >= 0);
+        assertTrue(sql.indexOf("\"B_F\"") >= 0);
+        assertTrue(sql.indexOf("AVALUE") < 0);
+        assertTrue(sql.indexOf("CVALUE") < 0);
+        assertTrue(sql.indexOf("\"D\"") < 0);
+    }
+
+    /**
+     * Tests that removing the selected table also removes the foreign keys of the
+     * other tables that reference it, but does not change these tables otherwise.
+     */
+    public void testRemoveSelectedTable()
+    {
+        Database currentModel = parseDatabaseFromString(CURRENT_MODEL);
+        Database desiredModel = parseDatabaseFromString(DESIRED_MODEL);
+
+        desiredModel.removeTable(desiredModel.findTable("B"));
+
+        Database scopedModel = getPlatform().getScopedDesiredModel(currentModel, desiredModel, new String[] { "B" });
+        Table    tableC      = scopedModel.findTable("C");
+
+        assertEquals(2, scopedModel.getTableCount());
+        assertNull(scopedModel.findTable("B"));
+        assertEquals(0, tableC.getForeignKeyCount());
+        assertEquals(currentModel.findTable("C").getColumnCount(), tableC.getColumnCount());
+
+        String sql = getPlatform().getAlterModelSql(currentModel, scopedModel).toUpperCase();
+
+        assertTrue(sql.indexOf("DROP TABLE \"B\"") >= 0);
+        assertTrue(sql.indexOf("\"C_B\"") >= 0);
+        assertTrue(sql.indexOf("CVALUE") < 0);
+    }
+}
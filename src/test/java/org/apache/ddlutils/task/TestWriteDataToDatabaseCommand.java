@@ -22,11 +22,19 @@ package org.apache.ddlutils.task;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.HashMap;
 import java.util.List;
 
 import junit.framework.Test;
 
+import org.apache.commons.beanutils.DynaBean;
+import org.apache.ddlutils.io.DataReader;
+import org.apache.ddlutils.io.DataToDatabaseSink;
+import org.apache.ddlutils.io.DatabaseDataIO;
 import org.apache.ddlutils.io.DatabaseIO;
+import org.apache.ddlutils.io.ImportCheckpoint;
 
 /**
  * Tests the writeDataToDatabase sub task.
@@ -54,6 +62,20 @@ public class TestWriteDataToDatabaseCommand extends TestTaskBase
      * @param ensureFkOrder Whether to ensure foreign key order
      */
     private void runTask(DatabaseToDdlTask task, String dataXml, boolean useBatchMode, boolean ensureFkOrder) throws IOException
+    {
+        runTask(task, dataXml, useBatchMode, ensureFkOrder, 0);
+    }
+
+    /**
+     * Adds the writeDataToDatabase sub task to the given task, executes it, and checks its output.
+     *
+     * @param task           The task
+     * @param dataXml        The data xml to write
+     * @param useBatchMode   Whether to use batch mode for inserting the data
+     * @param ensureFkOrder  Whether to ensure foreign key order
+     * @param spillThreshold The maximum number of waiting rows held in memory, 0 for no maximum
+     */
+    private void runTask(DatabaseToDdlTask task, String dataXml, boolean useBatchMode, boolean ensureFkOrder, int spillThreshold) throws IOException
     {
         WriteDataToDatabaseCommand subTask = new WriteDataToDatabaseCommand();
         File                       tmpFile = File.createTempFile("schema", ".xml");
@@ -71,6 +93,7 @@ public class TestWriteDataToDatabaseCommand extends TestTaskBase
             subTask.setFailOnError(true);
             subTask.setUseBatchMode(useBatchMode);
             subTask.setEnsureForeignKeyOrder(ensureFkOrder);
+            subTask.setSpillThreshold(spillThreshold);
             task.addWriteDataToDatabase(subTask);
             task.setModelName("roundtriptest");
             task.execute();
@@ -172,4 +195,268 @@ public class TestWriteDataToDatabaseCommand extends TestTaskBase
             assertEquals(new Integer(idx),      beans.get(idx), "avalue");
         }
     }
+
+    /**
+     * Tests data insertion in batch mode when the rows of a referenced and a referencing
+     * table are interleaved in the data XML.
+     */
+    public void testBatchModeWithInterleavedTables() throws Exception
+    {
+        final String modelXml = 
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='roundtriptest'>\n"+
+            "  <table name='roundtrip1'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "  </table>\n"+
+            "  <table name='roundtrip2'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='avalue' type='INTEGER' required='true'/>\n"+
+            "    <foreign-key foreignTable='roundtrip1'>\n"+
+            "      <reference local='avalue' foreign='pk'/>\n"+
+            "    </foreign-key>\n"+
+            "  </table>\n"+
+            "</database>";
+
+        StringBuffer dataXml = new StringBuffer();
+        final int    numObjs = 500;
+
+        // two referencing rows per referenced row, so that the queue for the second
+        // table is full while the first one still has unwritten rows
+        dataXml.append("<?xml version='1.0' encoding='ISO-8859-1'?>\n<data>");
+        for (int idx = 0; idx < numObjs; idx++)
+        {
+            dataXml.append("  <roundtrip1 pk='");
+            dataXml.append(idx);
+            dataXml.append("'/>\n");
+            dataXml.append("  <roundtrip2 pk='");
+            dataXml.append(2 * idx);
+            dataXml.append("' avalue='");
+            dataXml.append(idx);
+            dataXml.append("'/>\n");
+            dataXml.append("  <roundtrip2 pk='");
+            dataXml.append(2 * idx + 1);
+            dataXml.append("' avalue='");
+            dataXml.append(idx);
+            dataXml.append("'/>\n");
+        }
+        dataXml.append("</data>");
+
+        createDatabase(modelXml);
+
+        runTask(getDatabaseToDdlTaskInstance(), dataXml.toString(), true, false);
+
+        List beans = getRows("roundtrip1", "pk");
+
+        assertEquals(numObjs, beans.size());
+
+        beans = getRows("roundtrip2", "pk");
+
+        assertEquals(2 * numObjs, beans.size());
+        for (int idx = 0; idx < 2 * numObjs; idx++)
+        {
+            assertEquals(new Integer(idx),     beans.get(idx), "pk");
+            assertEquals(new Integer(idx / 2), beans.get(idx), "avalue");
+        }
+    }
+
+    /**
+     * Tests data insertion in batch mode when the primary key values of the referenced rows
+     * are generated by the database.
+     */
+    public void testBatchModeWithIdentityReferences() throws Exception
+    {
+        final String modelXml = 
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='roundtriptest'>\n"+
+            "  <table name='roundtrip1'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true' autoIncrement='true'/>\n"+
+            "    <column name='avalue' type='INTEGER' required='true'/>\n"+
+            "  </table>\n"+
+            "  <table name='roundtrip2'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='avalue' type='INTEGER' required='true'/>\n"+
+            "    <foreign-key foreignTable='roundtrip1'>\n"+
+            "      <reference local='avalue' foreign='pk'/>\n"+
+            "    </foreign-key>\n"+
+            "  </table>\n"+
+            "</database>";
+
+        StringBuffer dataXml = new StringBuffer();
+        final int    numObjs = 300;
+
+        // the pk values in the data differ from the ones that the database will generate
+        dataXml.append("<?xml version='1.0' encoding='ISO-8859-1'?>\n<data>");
+        for (int idx = 0; idx < numObjs; idx++)
+        {
+            dataXml.append("  <roundtrip1 pk='");
+            dataXml.append(10000 + idx);
+            dataXml.append("' avalue='");
+            dataXml.append(idx);
+            dataXml.append("'/>\n");
+            dataXml.append("  <roundtrip2 pk='");
+            dataXml.append(idx);
+            dataXml.append("' avalue='");
+            dataXml.append(10000 + idx);
+            dataXml.append("'/>\n");
+        }
+        dataXml.append("</data>");
+
+        createDatabase(modelXml);
+
+        runTask(getDatabaseToDdlTaskInstance(), dataXml.toString(), true, true);
+
+        List    beans          = getRows("roundtrip1", "pk");
+        HashMap valuesByNewPks = new HashMap();
+
+        assertEquals(numObjs, beans.size());
+        for (int idx = 0; idx < numObjs; idx++)
+        {
+            DynaBean bean = (DynaBean)beans.get(idx);
+
+            valuesByNewPks.put(getPropertyValue(bean, "pk"), getPropertyValue(bean, "avalue"));
+        }
+
+        beans = getRows("roundtrip2", "pk");
+
+        assertEquals(numObjs, beans.size());
+        for (int idx = 0; idx < numObjs; idx++)
+        {
+            assertEquals(new Integer(idx),
+                         valuesByNewPks.get(getPropertyValue((DynaBean)beans.get(idx), "avalue")));
+        }
+    }
+
+    /**
+     * Tests the insertion of data where the referencing rows come before the referenced
+     * rows and the deferred rows do not all fit into memory.
+     */
+    public void testSpillingOfDeferredRows() throws Exception
+    {
+        final String modelXml = 
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='roundtriptest'>\n"+
+            "  <table name='roundtrip1'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='avalue' type='VARCHAR' size='20'/>\n"+
+            "  </table>\n"+
+            "  <table name='roundtrip2'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='avalue' type='INTEGER' required='true'/>\n"+
+            "    <foreign-key foreignTable='roundtrip1'>\n"+
+            "      <reference local='avalue' foreign='pk'/>\n"+
+            "    </foreign-key>\n"+
+            "  </table>\n"+
+            "</database>";
+
+        StringBuffer dataXml = new StringBuffer();
+        final int    numObjs = 200;
+
+        dataXml.append("<?xml version='1.0' encoding='ISO-8859-1'?>\n<data>");
+        for (int idx = 0; idx < numObjs; idx++)
+        {
+            dataXml.append("  <roundtrip2 pk='");
+            dataXml.append(idx);
+            dataXml.append("' avalue='");
+            dataXml.append(numObjs - idx - 1);
+            dataXml.append("'/>\n");
+        }
+        for (int idx = 0; idx < numObjs; idx++)
+        {
+            dataXml.append("  <roundtrip1 pk='");
+            dataXml.append(idx);
+            dataXml.append("' avalue='text");
+            dataXml.append(idx);
+            dataXml.append("'/>\n");
+        }
+        dataXml.append("</data>");
+
+        createDatabase(modelXml);
+
+        runTask(getDatabaseToDdlTaskInstance(), dataXml.toString(), false, true, 10);
+
+        List beans = getRows("roundtrip1", "pk");
+
+        assertEquals(numObjs, beans.size());
+        for (int idx = 0; idx < numObjs; idx++)
+        {
+            assertEquals(new Integer(idx),       beans.get(idx), "pk");
+            assertEquals((Object)("text" + idx), beans.get(idx), "avalue");
+        }
+
+        beans = getRows("roundtrip2", "pk");
+
+        assertEquals(numObjs, beans.size());
+        for (int idx = 0; idx < numObjs; idx++)
+        {
+            assertEquals(new Integer(idx),               beans.get(idx), "pk");
+            assertEquals(new Integer(numObjs - idx - 1), beans.get(idx), "avalue");
+        }
+    }
+
+    /**
+     * Tests committing in intervals and the checkpoint of the last commit.
+     */
+    public void testCommitInterval() throws Exception
+    {
+        final String modelXml = 
+            "<?xml version='1.0' encoding='ISO-8859-1'?>\n"+
+            "<database xmlns='" + DatabaseIO.DDLUTILS_NAMESPACE + "' name='roundtriptest'>\n"+
+            "  <table name='roundtrip1'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='avalue' type='VARCHAR' size='20'/>\n"+
+            "  </table>\n"+
+            "  <table name='roundtrip2'>\n"+
+            "    <column name='pk' type='INTEGER' primaryKey='true' required='true'/>\n"+
+            "    <column name='avalue' type='INTEGER' required='true'/>\n"+
+            "    <foreign-key foreignTable='roundtrip1'>\n"+
+            "      <reference local='avalue' foreign='pk'/>\n"+
+            "    </foreign-key>\n"+
+            "  </table>\n"+
+            "</database>";
+
+        StringBuffer dataXml = new StringBuffer();
+        final int    numObjs = 50;
+
+        dataXml.append("<?xml version='1.0' encoding='ISO-8859-1'?>\n<data>");
+        for (int idx = 0; idx < numObjs; idx++)
+        {
+            dataXml.append("  <roundtrip1 pk='");
+            dataXml.append(idx);
+            dataXml.append("' avalue='text");
+            dataXml.append(idx);
+            dataXml.append("'/>\n");
+            dataXml.append("  <roundtrip2 pk='");
+            dataXml.append(idx);
+            dataXml.append("' avalue='");
+            dataXml.append(idx);
+            dataXml.append("'/>\n");
+        }
+        dataXml.append("</data>");
+
+        createDatabase(modelXml);
+
+        DatabaseDataIO dataIO = new DatabaseDataIO();
+
+        dataIO.setCommitInterval(7);
+
+        DataReader         dataReader = dataIO.getConfiguredDataReader(getPlatform(), getModel());
+        DataToDatabaseSink sink       = (DataToDatabaseSink)dataReader.getSink();
+
+        sink.start();
+        dataIO.writeDataToDatabase(dataReader, new Reader[] { new StringReader(dataXml.toString()) });
+        sink.end();
+
+        ImportCheckpoint checkpoint = sink.getLastCheckpoint();
+
+        assertNotNull(checkpoint);
+        assertTrue(checkpoint.getCommitCount() >= 2 * numObjs / 7);
+        assertEquals(2 * numObjs, checkpoint.getRowCount());
+        assertEquals(1, checkpoint.getSourceCount());
+        assertEquals("input 0", checkpoint.getSourceName(0));
+        assertEquals(2 * numObjs, checkpoint.getSourceOffset(0));
+        assertEquals(numObjs, checkpoint.getTableRowCount("roundtrip1"));
+        assertEquals(numObjs, checkpoint.getTableRowCount("roundtrip2"));
+        assertEquals(numObjs, getRows("roundtrip1", "pk").size());
+        assertEquals(numObjs, getRows("roundtrip2", "pk").size());
+    }
 }